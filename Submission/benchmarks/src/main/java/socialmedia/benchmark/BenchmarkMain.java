@@ -0,0 +1,42 @@
+package socialmedia.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkMain runs the benchmarks with the usual JMH command line options,
+ * always adding the GC profiler so every result is reported with its
+ * allocation rate (gc.alloc.rate) and the bytes allocated by each operation
+ * (gc.alloc.rate.norm) next to its throughput. For example,
+ * {@code java -jar benchmarks/target/benchmarks.jar ReadBenchmarks -p entities=1000}
+ * runs the read benchmarks on the smallest population only.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+public final class BenchmarkMain {
+
+	/**
+	 * Not used, the class only has main.
+	 */
+	private BenchmarkMain() {
+	}
+
+	/**
+	 * Runs the benchmarks chosen on the command line, or all of them.
+	 *
+	 * @param args JMH command line options
+	 * @throws Exception if the options are not valid or a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
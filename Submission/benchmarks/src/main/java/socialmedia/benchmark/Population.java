@@ -0,0 +1,99 @@
+package socialmedia.benchmark;
+
+import java.util.SplittableRandom;
+
+import socialmedia.SocialMedia;
+
+/**
+ * Population fills a platform with a fixed mix of accounts and posts for the
+ * benchmarks. For a population of n entities there are n / 10 accounts and n
+ * posts: half original posts, a quarter comments and a quarter endorsements,
+ * each made by a random account on a random earlier original post or comment.
+ * The same seed is used every time, so every run measures the same platform.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+final class Population {
+
+	// Seed of the random choices, fixed so every fork builds the same platform
+	private static final long SEED = 0x5eed_50c1a1L;
+
+	// Handle of every account, indexed in the order they were created
+	private final String[] handles;
+	// ID of every original post and comment, which can be commented on and endorsed
+	private final int[] actionablePids;
+	// ID of every original post, in the order they were created
+	private final int[] originalPids;
+
+	/**
+	 * Creates the population in a platform.
+	 *
+	 * @param platform empty platform being filled
+	 * @param entities number of posts, ten times the number of accounts
+	 * @throws Exception if the platform rejects any account or post, which means
+	 *                   the platform is broken
+	 */
+	Population(SocialMedia platform, int entities) throws Exception {
+		SplittableRandom random = new SplittableRandom(SEED);
+		int accountCount = Math.max(1, entities / 10);
+		handles = new String[accountCount];
+		for (int i = 0; i < accountCount; i++) {
+			handles[i] = "user" + i;
+			platform.createAccount(handles[i], "Benchmark account " + i);
+		}
+		int originalCount = Math.max(1, entities / 2);
+		originalPids = new int[originalCount];
+		actionablePids = new int[originalCount + entities / 4];
+		int actionable = 0;
+		for (int i = 0; i < originalCount; i++) {
+			originalPids[i] = platform.createPost(randomHandle(random), "Original post " + i);
+			actionablePids[actionable++] = originalPids[i];
+		}
+		for (int i = 0; i < entities / 4; i++) {
+			int parent = actionablePids[random.nextInt(actionable)];
+			actionablePids[actionable++] = platform.commentPost(randomHandle(random), parent, "Comment " + i);
+		}
+		for (int i = 0; i < entities / 4; i++) {
+			platform.endorsePost(randomHandle(random), actionablePids[random.nextInt(actionable)]);
+		}
+	}
+
+	/**
+	 * Picks a random account.
+	 *
+	 * @param random source of the choice
+	 * @return handle of the account
+	 */
+	private String randomHandle(SplittableRandom random) {
+		return handles[random.nextInt(handles.length)];
+	}
+
+	/**
+	 * Gets the handles of the accounts.
+	 *
+	 * @return handle of every account, in the order they were created
+	 */
+	String[] getHandles() {
+		return handles;
+	}
+
+	/**
+	 * Gets the posts that can be commented on and endorsed.
+	 *
+	 * @return ID of every original post and comment
+	 */
+	int[] getActionablePids() {
+		return actionablePids;
+	}
+
+	/**
+	 * Gets the original posts.
+	 *
+	 * @return ID of every original post, in the order they were created
+	 */
+	int[] getOriginalPids() {
+		return originalPids;
+	}
+}
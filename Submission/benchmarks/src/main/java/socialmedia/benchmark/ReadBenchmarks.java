@@ -0,0 +1,114 @@
+package socialmedia.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import socialmedia.SocialMedia;
+
+/**
+ * ReadBenchmarks measures the methods of SocialMedia that leave the platform
+ * unchanged, so a single population is built for each fork and shared by every
+ * iteration. Each call reads a different account or post, stepping through
+ * them in a fixed order that jumps around the platform.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ReadBenchmarks {
+
+	// Step between the accounts or posts read by consecutive calls, a prime larger than any population
+	private static final int STRIDE = 1_000_003;
+
+	@Param({ "1000", "100000", "1000000" })
+	public int entities;
+
+	private SocialMedia platform;
+	private Population population;
+	// File written by savePlatform and read by loadPlatform
+	private File snapshot;
+	private int cursor;
+
+	/**
+	 * Builds the population and saves it for the loadPlatform benchmark.
+	 *
+	 * @throws Exception if the platform cannot be built or saved
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		platform = new SocialMedia();
+		population = new Population(platform, entities);
+		snapshot = File.createTempFile("socialmedia-benchmark", ".ser");
+		platform.savePlatform(snapshot.getPath());
+	}
+
+	/**
+	 * Deletes the saved file.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		snapshot.delete();
+	}
+
+	/**
+	 * Moves to the next account or post to read.
+	 *
+	 * @param length number of accounts or posts to choose from
+	 * @return index of the one to read
+	 */
+	private int next(int length) {
+		cursor = (cursor + STRIDE) % length;
+		return cursor;
+	}
+
+	@Benchmark
+	public String showAccount() throws Exception {
+		String[] handles = population.getHandles();
+		return platform.showAccount(handles[next(handles.length)]);
+	}
+
+	@Benchmark
+	public StringBuilder showPostChildrenDetails() throws Exception {
+		int[] pids = population.getOriginalPids();
+		return platform.showPostChildrenDetails(pids[next(pids.length)]);
+	}
+
+	@Benchmark
+	public int getMostEndorsedAccount() {
+		return platform.getMostEndorsedAccount();
+	}
+
+	@Benchmark
+	public void savePlatform() throws IOException {
+		platform.savePlatform(snapshot.getPath());
+	}
+
+	@Benchmark
+	public SocialMedia loadPlatform() throws Exception {
+		// loading into a new platform keeps the one being read by the other benchmarks as it was
+		SocialMedia loaded = new SocialMedia();
+		loaded.loadPlatform(snapshot.getPath());
+		return loaded;
+	}
+}
@@ -0,0 +1,133 @@
+package socialmedia.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import socialmedia.SocialMedia;
+
+/**
+ * WriteBenchmarks measures the methods of SocialMedia that change the
+ * platform. The population is built again before every iteration, so the
+ * platform an iteration starts from does not depend on how many calls earlier
+ * iterations made.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class WriteBenchmarks {
+
+	// Step between the accounts or posts used by consecutive calls, a prime larger than any population
+	private static final int STRIDE = 1_000_003;
+	// Number of posts deleted by each iteration of deletePost
+	private static final int DELETE_BATCH = 10_000;
+
+	@Param({ "1000", "100000", "1000000" })
+	public int entities;
+
+	private SocialMedia platform;
+	private Population population;
+	private int cursor;
+	// Number of accounts created by createAccount this iteration, which makes each handle unique
+	private int created;
+	// Posts made for deletePost to delete this iteration, and how many it has deleted
+	private int[] deletable;
+	private int deleted;
+
+	/**
+	 * Builds a new population, along with the posts deletePost deletes.
+	 *
+	 * @throws Exception if the platform cannot be built
+	 */
+	@Setup(Level.Iteration)
+	public void setUp() throws Exception {
+		platform = new SocialMedia();
+		population = new Population(platform, entities);
+		cursor = 0;
+		created = 0;
+		int[] pids = population.getOriginalPids();
+		deletable = new int[DELETE_BATCH];
+		for (int i = 0; i < DELETE_BATCH; i++) {
+			// replies to existing posts, so deleting them also updates the threads they are in
+			deletable[i] = platform.commentPost(randomHandle(), pids[next(pids.length)], "Deleted " + i);
+		}
+		deleted = 0;
+	}
+
+	/**
+	 * Moves to the next account or post to use.
+	 *
+	 * @param length number of accounts or posts to choose from
+	 * @return index of the one to use
+	 */
+	private int next(int length) {
+		cursor = (cursor + STRIDE) % length;
+		return cursor;
+	}
+
+	/**
+	 * Picks the next account to use.
+	 *
+	 * @return handle of the account
+	 */
+	private String randomHandle() {
+		String[] handles = population.getHandles();
+		return handles[next(handles.length)];
+	}
+
+	@Benchmark
+	public int createAccount() throws Exception {
+		return platform.createAccount("new" + created++);
+	}
+
+	@Benchmark
+	public int createPost() throws Exception {
+		return platform.createPost(randomHandle(), "Benchmark post");
+	}
+
+	@Benchmark
+	public int endorsePost() throws Exception {
+		int[] pids = population.getActionablePids();
+		return platform.endorsePost(randomHandle(), pids[next(pids.length)]);
+	}
+
+	@Benchmark
+	public int commentPost() throws Exception {
+		int[] pids = population.getActionablePids();
+		return platform.commentPost(randomHandle(), pids[next(pids.length)], "Benchmark comment");
+	}
+
+	/**
+	 * Deletes the posts made for it by setUp. A post can only be deleted once, so
+	 * this runs a fixed batch of deletes per iteration instead of as many as fit
+	 * in a time limit, and reports the time taken by the whole batch.
+	 *
+	 * @throws Exception if a post cannot be deleted
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 5, batchSize = DELETE_BATCH)
+	@Measurement(iterations = 10, batchSize = DELETE_BATCH)
+	public void deletePost() throws Exception {
+		platform.deletePost(deletable[deleted++]);
+	}
+}
@@ -0,0 +1,216 @@
+package socialmedia.loadtest;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+import org.HdrHistogram.Histogram;
+
+import socialmedia.ExtendedSocialMediaPlatform;
+import socialmedia.SocialMediaPlatform;
+
+/**
+ * LoadDriver runs a load test against any SocialMediaPlatform: it fills
+ * the platform, then calls it from the configured number of threads for the
+ * warmup and the measured duration, timing every call. For each operation it reports
+ * the calls and failures per second and the 50th, 99th and 99.9th percentile
+ * and maximum latency, taken from an HdrHistogram of every measured call.
+ * <p>
+ * Only an ExtendedSocialMediaPlatform has follows and home feeds, so they are
+ * left out of the mix for any other platform. A platform that is not
+ * thread-safe, as told by the isThreadSafe of an ExtendedSocialMediaPlatform,
+ * cannot be called from more than one thread, and neither can any other
+ * platform, so its calls are made one at a time under a single lock, and the
+ * time spent waiting for the lock is counted in the latency.
+ * <p>
+ * Run with key=value settings, described in WorkloadConfig, for example
+ * {@code java -jar loadtest/target/loadtest.jar platform=socialmedia.SocialMedia threads=8 duration=60}.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+public final class LoadDriver {
+
+	// Latencies are recorded in nanoseconds and reported in microseconds
+	private static final double NANOS_PER_MICRO = 1000.0;
+	// Significant decimal digits kept by the histograms
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	/**
+	 * Not used, the class only has main.
+	 */
+	private LoadDriver() {
+	}
+
+	/**
+	 * Runs a load test and prints its results.
+	 *
+	 * @param args key=value settings
+	 * @throws Exception if the settings are not valid, the platform cannot be
+	 *                   created or filled, or the histograms cannot be written
+	 */
+	public static void main(String[] args) throws Exception {
+		WorkloadConfig config = WorkloadConfig.parse(args);
+		SocialMediaPlatform platform = (SocialMediaPlatform) Class.forName(config.platform).getDeclaredConstructor()
+				.newInstance();
+		boolean extended = platform instanceof ExtendedSocialMediaPlatform;
+		Workload workload = new Workload(config, extended);
+		for (Operation operation : workload.leftOut()) {
+			System.out.println("Leaving out " + operation.getMethodName() + ", which " + config.platform
+					+ " does not have");
+		}
+		System.out.println("Filling " + config.platform + " with " + config.accounts + " accounts and "
+				+ config.posts + " posts");
+		workload.populate(platform, new SplittableRandom(config.seed));
+
+		Object lock = extended && ((ExtendedSocialMediaPlatform) platform).isThreadSafe() ? null : new Object();
+		long start = System.nanoTime();
+		long measureFrom = start + config.warmupSeconds * 1_000_000_000L;
+		long measureUntil = measureFrom + config.durationSeconds * 1_000_000_000L;
+		SplittableRandom seeds = new SplittableRandom(config.seed + 1);
+		Worker[] workers = new Worker[config.threads];
+		CountDownLatch finished = new CountDownLatch(workers.length);
+		System.out.println("Running " + config.threads + " threads for " + config.warmupSeconds
+				+ " s warmup and " + config.durationSeconds + " s measured");
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(workload, platform, lock, seeds.split(), measureFrom, measureUntil, finished);
+			Thread thread = new Thread(workers[i], "load-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		finished.await();
+
+		report(workers, config);
+	}
+
+	/**
+	 * Merges the results of every thread and prints them, writing the full
+	 * latency distribution of each operation if an output directory was set.
+	 *
+	 * @param workers threads that ran the test
+	 * @param config  settings of the load test
+	 * @throws FileNotFoundException if a distribution file cannot be written
+	 */
+	private static void report(Worker[] workers, WorkloadConfig config) throws FileNotFoundException {
+		File out = null;
+		if (config.out != null) {
+			out = new File(config.out);
+			out.mkdirs();
+		}
+		System.out.printf("%-24s %12s %10s %10s %10s %10s %10s%n", "method", "ops/s", "errors/s", "p50 us",
+				"p99 us", "p999 us", "max us");
+		long totalCalls = 0;
+		for (Operation operation : Operation.values()) {
+			Histogram merged = new Histogram(SIGNIFICANT_DIGITS);
+			long errors = 0;
+			for (Worker worker : workers) {
+				merged.add(worker.latencies[operation.ordinal()]);
+				errors += worker.errors[operation.ordinal()];
+			}
+			long calls = merged.getTotalCount();
+			if (calls == 0) {
+				continue;
+			}
+			totalCalls += calls;
+			System.out.printf("%-24s %12.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", operation.getMethodName(),
+					(double) calls / config.durationSeconds, (double) errors / config.durationSeconds,
+					merged.getValueAtPercentile(50) / NANOS_PER_MICRO,
+					merged.getValueAtPercentile(99) / NANOS_PER_MICRO,
+					merged.getValueAtPercentile(99.9) / NANOS_PER_MICRO, merged.getMaxValue() / NANOS_PER_MICRO);
+			if (out != null) {
+				try (PrintStream file = new PrintStream(new File(out, operation.getMethodName() + ".hgrm"))) {
+					merged.outputPercentileDistribution(file, NANOS_PER_MICRO);
+				}
+			}
+		}
+		System.out.printf("%-24s %12.1f%n", "total", (double) totalCalls / config.durationSeconds);
+	}
+
+	/**
+	 * Thread calling the platform, keeping a latency histogram and failure count
+	 * of its own for each operation so threads never share them while running.
+	 */
+	private static final class Worker implements Runnable {
+		private final Workload workload;
+		private final SocialMediaPlatform platform;
+		// Lock every call is made under, or null if the platform can be called in parallel
+		private final Object lock;
+		private final SplittableRandom random;
+		private final long measureFrom;
+		private final long measureUntil;
+		private final CountDownLatch finished;
+		private final Histogram[] latencies;
+		private final long[] errors;
+
+		/**
+		 * Creates a thread's share of the load.
+		 *
+		 * @param workload     calls being made
+		 * @param platform     platform being called
+		 * @param lock         lock every call is made under, or null
+		 * @param random       source of the thread's choices
+		 * @param measureFrom  time the warmup ends, from System.nanoTime
+		 * @param measureUntil time the run ends
+		 * @param finished     counted down when the thread stops
+		 */
+		Worker(Workload workload, SocialMediaPlatform platform, Object lock, SplittableRandom random,
+				long measureFrom, long measureUntil, CountDownLatch finished) {
+			this.workload = workload;
+			this.platform = platform;
+			this.lock = lock;
+			this.random = random;
+			this.measureFrom = measureFrom;
+			this.measureUntil = measureUntil;
+			this.finished = finished;
+			this.latencies = new Histogram[Operation.values().length];
+			for (int i = 0; i < latencies.length; i++) {
+				latencies[i] = new Histogram(SIGNIFICANT_DIGITS);
+			}
+			this.errors = new long[latencies.length];
+		}
+
+		@Override
+		public void run() {
+			try {
+				boolean measuring = false;
+				while (true) {
+					Operation operation = workload.nextOperation(random);
+					long begin = System.nanoTime();
+					if (begin >= measureUntil) {
+						return;
+					}
+					if (!measuring && begin >= measureFrom) {
+						// calls made during the warmup are not reported
+						measuring = true;
+						for (Histogram histogram : latencies) {
+							histogram.reset();
+						}
+						Arrays.fill(errors, 0);
+					}
+					boolean failed = false;
+					try {
+						if (lock == null) {
+							workload.call(operation, platform, random);
+						} else {
+							synchronized (lock) {
+								workload.call(operation, platform, random);
+							}
+						}
+					} catch (Exception e) {
+						failed = true;
+					}
+					latencies[operation.ordinal()].recordValue(System.nanoTime() - begin);
+					if (failed) {
+						errors[operation.ordinal()]++;
+					}
+				}
+			} finally {
+				finished.countDown();
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package socialmedia.loadtest;
+
+/**
+ * Operation is a method of SocialMediaPlatform the workload calls. Each
+ * operation is named after the method it calls, which is also how the mix of
+ * operations is written in the configuration and how results are reported.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+enum Operation {
+	SHOW_INDIVIDUAL_POST("showIndividualPost", false, false),
+	SHOW_POST_CHILDREN_DETAILS("showPostChildrenDetails", false, false),
+	SHOW_ACCOUNT("showAccount", false, false),
+	GET_HOME_FEED("getHomeFeed", false, true),
+	GET_MOST_ENDORSED_POST("getMostEndorsedPost", false, false),
+	GET_MOST_ENDORSED_ACCOUNT("getMostEndorsedAccount", false, false),
+	CREATE_POST("createPost", true, false),
+	COMMENT_POST("commentPost", true, false),
+	ENDORSE_POST("endorsePost", true, false),
+	DELETE_POST("deletePost", true, false),
+	FOLLOW("follow", true, true);
+
+	private final String methodName;
+	private final boolean write;
+	private final boolean extended;
+
+	/**
+	 * Creates an operation.
+	 *
+	 * @param methodName name of the method called
+	 * @param write      whether the method changes the platform
+	 * @param extended   whether the method is only on ExtendedSocialMediaPlatform
+	 */
+	Operation(String methodName, boolean write, boolean extended) {
+		this.methodName = methodName;
+		this.write = write;
+		this.extended = extended;
+	}
+
+	/**
+	 * Gets the name of the method called.
+	 *
+	 * @return method name, as written in the mix
+	 */
+	String getMethodName() {
+		return methodName;
+	}
+
+	/**
+	 * Checks whether the method changes the platform.
+	 *
+	 * @return true for writes, false for reads
+	 */
+	boolean isWrite() {
+		return write;
+	}
+
+	/**
+	 * Checks whether the method is only on ExtendedSocialMediaPlatform.
+	 *
+	 * @return true if a plain SocialMediaPlatform cannot be called with it
+	 */
+	boolean isExtended() {
+		return extended;
+	}
+
+	/**
+	 * Finds an operation by the name of its method.
+	 *
+	 * @param methodName name of the method
+	 * @return operation calling the method
+	 * @throws IllegalArgumentException if no operation calls a method of that
+	 *                                  name
+	 */
+	static Operation forMethod(String methodName) {
+		for (Operation operation : values()) {
+			if (operation.methodName.equals(methodName)) {
+				return operation;
+			}
+		}
+		throw new IllegalArgumentException("Unknown operation " + methodName);
+	}
+}
@@ -0,0 +1,315 @@
+package socialmedia.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import socialmedia.ExtendedSocialMediaPlatform;
+import socialmedia.SocialMediaPlatform;
+
+/**
+ * Workload generates the calls of a load test. Each call picks an operation
+ * from the mix, an account by its activity and a post by its popularity:
+ * <ul>
+ * <li>Accounts are ranked by activity, and the rank of each call is drawn from
+ * a Zipf distribution, so a few accounts make most of the calls, as on real
+ * platforms.</li>
+ * <li>Posts are kept by thread depth, original posts at depth 0 and replies
+ * below them. A call on a post first goes down one level at a time with the
+ * configured chance, then draws the post from that level by a Zipf
+ * distribution over how recently the posts were made, so recent posts get most
+ * of the traffic.</li>
+ * </ul>
+ * The posts at each depth are kept in a fixed-size ring of the most recent
+ * ones, which every thread shares without locking. A call may occasionally
+ * pick a post that another thread has just deleted or not yet finished adding,
+ * which fails like it would for a real client.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+final class Workload {
+
+	// Message of every post made by the workload, under the 100 character limit
+	private static final String MESSAGE = "Load test message";
+	// Number of posts read from a home feed
+	private static final int FEED_LIMIT = 20;
+
+	private final WorkloadConfig config;
+	private final String[] handles;
+	private final ZipfSampler activity;
+	// Posts at each depth, index 0 holding original posts
+	private final PostRing[] depths;
+	private final ZipfSampler popularity;
+	// Operations of the mix, and the running total of their weights
+	private final Operation[] operations;
+	private final int[] cumulativeWeights;
+	// Whether the platform has follows and home feeds
+	private final boolean extended;
+
+	/**
+	 * Creates the workload of a load test. Operations only an
+	 * ExtendedSocialMediaPlatform has are left out of the mix unless the platform
+	 * is one.
+	 *
+	 * @param config   settings of the load test
+	 * @param extended whether the platform is an ExtendedSocialMediaPlatform
+	 * @throws IllegalArgumentException if no operation of the mix can be called
+	 *                                  on the platform
+	 */
+	Workload(WorkloadConfig config, boolean extended) {
+		this.config = config;
+		this.extended = extended;
+		this.handles = new String[config.accounts];
+		for (int i = 0; i < handles.length; i++) {
+			handles[i] = "load" + i;
+		}
+		this.activity = new ZipfSampler(config.accounts, config.activitySkew);
+		this.depths = new PostRing[config.maxDepth + 1];
+		for (int i = 0; i < depths.length; i++) {
+			depths[i] = new PostRing(config.posts);
+		}
+		this.popularity = new ZipfSampler(config.posts, config.postSkew);
+		int size = 0;
+		for (Map.Entry<Operation, Integer> entry : config.mix.entrySet()) {
+			if (isCalled(entry.getKey(), entry.getValue())) {
+				size++;
+			}
+		}
+		if (size == 0) {
+			throw new IllegalArgumentException("Mix has no operation the platform has");
+		}
+		this.operations = new Operation[size];
+		this.cumulativeWeights = new int[size];
+		int i = 0;
+		int total = 0;
+		for (Map.Entry<Operation, Integer> entry : config.mix.entrySet()) {
+			if (isCalled(entry.getKey(), entry.getValue())) {
+				total += entry.getValue();
+				operations[i] = entry.getKey();
+				cumulativeWeights[i] = total;
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether an operation of the mix is called on the platform.
+	 *
+	 * @param operation operation of the mix
+	 * @param weight    weight of the operation
+	 * @return true if the operation has a weight and the platform has its method
+	 */
+	private boolean isCalled(Operation operation, int weight) {
+		return weight > 0 && (extended || !operation.isExtended());
+	}
+
+	/**
+	 * Gets the operations of the mix left out because the platform does not have
+	 * their methods.
+	 *
+	 * @return operations with a weight that are not called
+	 */
+	List<Operation> leftOut() {
+		List<Operation> left = new ArrayList<Operation>();
+		for (Map.Entry<Operation, Integer> entry : config.mix.entrySet()) {
+			if (entry.getValue() > 0 && !isCalled(entry.getKey(), entry.getValue())) {
+				left.add(entry.getKey());
+			}
+		}
+		return left;
+	}
+
+	/**
+	 * Fills a platform before the run: every account, the configured number of
+	 * original posts, half as many replies and endorsements, and, if the platform
+	 * has follows, the follows of every account, all chosen the way the run
+	 * chooses them.
+	 *
+	 * @param platform empty platform being filled
+	 * @param random   source of the choices
+	 * @throws Exception if the platform rejects any call, which means it is broken
+	 */
+	void populate(SocialMediaPlatform platform, SplittableRandom random) throws Exception {
+		for (String handle : handles) {
+			platform.createAccount(handle, "Load test account");
+		}
+		for (int i = 0; i < config.posts; i++) {
+			call(Operation.CREATE_POST, platform, random);
+		}
+		for (int i = 0; i < config.posts / 2; i++) {
+			call(Operation.COMMENT_POST, platform, random);
+			call(Operation.ENDORSE_POST, platform, random);
+		}
+		if (!extended) {
+			return;
+		}
+		for (String handle : handles) {
+			for (int i = 0; i < config.follows; i++) {
+				((ExtendedSocialMediaPlatform) platform).follow(handle, handles[activity.next(random)]);
+			}
+		}
+	}
+
+	/**
+	 * Picks the next operation from the mix.
+	 *
+	 * @param random source of the choice
+	 * @return operation to call
+	 */
+	Operation nextOperation(SplittableRandom random) {
+		int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+		int i = 0;
+		while (cumulativeWeights[i] <= r) {
+			i++;
+		}
+		return operations[i];
+	}
+
+	/**
+	 * Calls an operation on the platform, with an account and post picked for it.
+	 *
+	 * @param operation operation being called
+	 * @param platform  platform being called
+	 * @param random    source of the choices
+	 * @throws Exception whatever the platform method throws
+	 */
+	void call(Operation operation, SocialMediaPlatform platform, SplittableRandom random) throws Exception {
+		switch (operation) {
+		case SHOW_INDIVIDUAL_POST:
+			platform.showIndividualPost(popularPost(pickDepth(config.maxDepth, random), random));
+			break;
+		case SHOW_POST_CHILDREN_DETAILS:
+			platform.showPostChildrenDetails(popularPost(0, random));
+			break;
+		case SHOW_ACCOUNT:
+			platform.showAccount(activeAccount(random));
+			break;
+		case GET_HOME_FEED:
+			((ExtendedSocialMediaPlatform) platform).getHomeFeed(activeAccount(random), Integer.MAX_VALUE,
+					FEED_LIMIT);
+			break;
+		case GET_MOST_ENDORSED_POST:
+			platform.getMostEndorsedPost();
+			break;
+		case GET_MOST_ENDORSED_ACCOUNT:
+			platform.getMostEndorsedAccount();
+			break;
+		case CREATE_POST:
+			depths[0].add(platform.createPost(activeAccount(random), MESSAGE));
+			break;
+		case COMMENT_POST: {
+			int depth = pickDepth(config.maxDepth - 1, random);
+			int pid = platform.commentPost(activeAccount(random), popularPost(depth, random), MESSAGE);
+			depths[depth + 1].add(pid);
+			break;
+		}
+		case ENDORSE_POST:
+			platform.endorsePost(activeAccount(random), popularPost(pickDepth(config.maxDepth, random), random));
+			break;
+		case DELETE_POST: {
+			// deletes are spread evenly, as popular posts are no more likely to be deleted
+			PostRing ring = depths[pickDepth(config.maxDepth, random)];
+			platform.deletePost(ring.get(random.nextInt(ring.size())));
+			break;
+		}
+		case FOLLOW:
+			((ExtendedSocialMediaPlatform) platform).follow(activeAccount(random), activeAccount(random));
+			break;
+		default:
+			throw new IllegalStateException("No call for " + operation);
+		}
+	}
+
+	/**
+	 * Picks an account by its activity.
+	 *
+	 * @param random source of the choice
+	 * @return handle of the account
+	 */
+	private String activeAccount(SplittableRandom random) {
+		return handles[activity.next(random)];
+	}
+
+	/**
+	 * Picks the depth of the post a call acts on, going one level deeper with the
+	 * configured chance as long as there are posts at the next level.
+	 *
+	 * @param maxDepth deepest level allowed
+	 * @param random   source of the choice
+	 * @return depth, 0 for original posts
+	 */
+	private int pickDepth(int maxDepth, SplittableRandom random) {
+		int depth = 0;
+		while (depth < maxDepth && depths[depth + 1].size() > 0 && random.nextDouble() < config.replyDepth) {
+			depth++;
+		}
+		return depth;
+	}
+
+	/**
+	 * Picks a post at a depth by its popularity, recent posts being the most
+	 * popular.
+	 *
+	 * @param depth  depth of the post
+	 * @param random source of the choice
+	 * @return post ID
+	 */
+	private int popularPost(int depth, SplittableRandom random) {
+		PostRing ring = depths[depth];
+		// ranks beyond the posts made so far wrap around, which only happens while a level is filling up
+		return ring.get(popularity.next(random) % ring.size());
+	}
+
+	/**
+	 * Ring of the most recent post IDs at one depth, shared by every thread
+	 * without locking.
+	 */
+	private static final class PostRing {
+		private final AtomicIntegerArray pids;
+		// Number of posts ever added, the newest being at (added - 1) % capacity
+		private final AtomicLong added = new AtomicLong();
+
+		/**
+		 * Creates an empty ring.
+		 *
+		 * @param capacity number of posts kept
+		 */
+		PostRing(int capacity) {
+			this.pids = new AtomicIntegerArray(capacity);
+		}
+
+		/**
+		 * Adds a post, replacing the oldest if the ring is full.
+		 *
+		 * @param pid ID of the post
+		 */
+		void add(int pid) {
+			pids.set((int) (added.getAndIncrement() % pids.length()), pid);
+		}
+
+		/**
+		 * Gets the number of posts in the ring.
+		 *
+		 * @return posts held, at most the capacity
+		 */
+		int size() {
+			return (int) Math.min(added.get(), pids.length());
+		}
+
+		/**
+		 * Gets a post by how recently it was added.
+		 *
+		 * @param rank 0 for the newest post
+		 * @return ID of the post, or 0 if its slot has been taken but not yet filled
+		 */
+		int get(int rank) {
+			long newest = added.get() - 1;
+			return pids.get((int) ((newest - rank) % pids.length()));
+		}
+	}
+}
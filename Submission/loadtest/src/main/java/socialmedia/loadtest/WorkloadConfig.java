@@ -0,0 +1,191 @@
+package socialmedia.loadtest;
+
+import java.util.EnumMap;
+
+/**
+ * WorkloadConfig holds the settings of a load test, read from key=value
+ * arguments. Any setting left out keeps its default:
+ * <ul>
+ * <li>platform: class of SocialMediaPlatform driven, created with its no
+ * argument constructor (socialmedia.ConcurrentSocialMedia)</li>
+ * <li>threads: number of threads calling the platform (4)</li>
+ * <li>warmup, duration: seconds run before measuring, and measured (10,
+ * 30)</li>
+ * <li>accounts, posts: accounts and original posts created before the run
+ * (10000, 100000)</li>
+ * <li>postSkew: Zipf exponent of post popularity, how much calls crowd onto the
+ * most recent posts (1.0)</li>
+ * <li>activitySkew: Zipf exponent of account activity, how much calls crowd
+ * onto the most active accounts (1.2)</li>
+ * <li>replyDepth: chance that a call on a thread goes one reply deeper instead
+ * of stopping, giving a geometric distribution of thread depth (0.5)</li>
+ * <li>maxDepth: deepest reply the workload makes (8)</li>
+ * <li>follows: accounts followed by each account before the run, if the
+ * platform has follows (20)</li>
+ * <li>mix: relative weight of each operation, as method:weight pairs separated
+ * by commas; operations left out are not called</li>
+ * <li>seed: seed of the random choices (1)</li>
+ * <li>out: directory the latency distribution of each operation is written to
+ * as an .hgrm file, or none</li>
+ * </ul>
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+final class WorkloadConfig {
+
+	// Mostly reads of popular posts and feeds, with a steady stream of new posts
+	private static final String DEFAULT_MIX = "showIndividualPost:30,showPostChildrenDetails:10,showAccount:5,"
+			+ "getHomeFeed:20,getMostEndorsedPost:1,getMostEndorsedAccount:1,createPost:10,commentPost:12,"
+			+ "endorsePost:8,deletePost:1,follow:2";
+
+	String platform = "socialmedia.ConcurrentSocialMedia";
+	int threads = 4;
+	int warmupSeconds = 10;
+	int durationSeconds = 30;
+	int accounts = 10_000;
+	int posts = 100_000;
+	double postSkew = 1.0;
+	double activitySkew = 1.2;
+	double replyDepth = 0.5;
+	int maxDepth = 8;
+	int follows = 20;
+	EnumMap<Operation, Integer> mix = parseMix(DEFAULT_MIX);
+	long seed = 1;
+	String out;
+
+	/**
+	 * Reads the settings from arguments.
+	 *
+	 * @param args key=value arguments
+	 * @return settings, with defaults for every key left out
+	 * @throws IllegalArgumentException if an argument is not key=value, the key is
+	 *                                  unknown or the value is not valid
+	 */
+	static WorkloadConfig parse(String[] args) {
+		WorkloadConfig config = new WorkloadConfig();
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (equals < 0) {
+				throw new IllegalArgumentException("Argument " + arg + " is not key=value");
+			}
+			String key = arg.substring(0, equals);
+			String value = arg.substring(equals + 1);
+			try {
+				config.set(key, value);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Value of " + key + " is not a number: " + value, e);
+			}
+		}
+		config.check();
+		return config;
+	}
+
+	/**
+	 * Sets one setting.
+	 *
+	 * @param key   name of the setting
+	 * @param value value of the setting
+	 * @throws IllegalArgumentException if the key is unknown
+	 * @throws NumberFormatException    if a number setting is not a number
+	 */
+	private void set(String key, String value) {
+		switch (key) {
+		case "platform":
+			platform = value;
+			break;
+		case "threads":
+			threads = Integer.parseInt(value);
+			break;
+		case "warmup":
+			warmupSeconds = Integer.parseInt(value);
+			break;
+		case "duration":
+			durationSeconds = Integer.parseInt(value);
+			break;
+		case "accounts":
+			accounts = Integer.parseInt(value);
+			break;
+		case "posts":
+			posts = Integer.parseInt(value);
+			break;
+		case "postSkew":
+			postSkew = Double.parseDouble(value);
+			break;
+		case "activitySkew":
+			activitySkew = Double.parseDouble(value);
+			break;
+		case "replyDepth":
+			replyDepth = Double.parseDouble(value);
+			break;
+		case "maxDepth":
+			maxDepth = Integer.parseInt(value);
+			break;
+		case "follows":
+			follows = Integer.parseInt(value);
+			break;
+		case "mix":
+			mix = parseMix(value);
+			break;
+		case "seed":
+			seed = Long.parseLong(value);
+			break;
+		case "out":
+			out = value;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown setting " + key);
+		}
+	}
+
+	/**
+	 * Checks that the settings make a workload that can run.
+	 *
+	 * @throws IllegalArgumentException if any setting is out of range
+	 */
+	private void check() {
+		if (threads < 1 || warmupSeconds < 0 || durationSeconds < 1) {
+			throw new IllegalArgumentException("threads and duration must be at least 1 and warmup at least 0");
+		}
+		if (accounts < 1 || posts < 1 || follows < 0 || maxDepth < 1) {
+			throw new IllegalArgumentException("accounts, posts and maxDepth must be at least 1 and follows at least 0");
+		}
+		if (!(postSkew > 0) || !(activitySkew > 0)) {
+			throw new IllegalArgumentException("postSkew and activitySkew must be larger than 0");
+		}
+		if (!(replyDepth >= 0 && replyDepth <= 1)) {
+			throw new IllegalArgumentException("replyDepth must be between 0 and 1");
+		}
+	}
+
+	/**
+	 * Reads a mix of operations.
+	 *
+	 * @param mix method:weight pairs separated by commas
+	 * @return weight of each operation in the mix
+	 * @throws IllegalArgumentException if a pair is not method:weight, the method
+	 *                                  is unknown, a weight is negative or every
+	 *                                  weight is 0
+	 */
+	private static EnumMap<Operation, Integer> parseMix(String mix) {
+		EnumMap<Operation, Integer> weights = new EnumMap<Operation, Integer>(Operation.class);
+		int total = 0;
+		for (String pair : mix.split(",")) {
+			int colon = pair.indexOf(':');
+			if (colon < 0) {
+				throw new IllegalArgumentException("Mix entry " + pair + " is not method:weight");
+			}
+			int weight = Integer.parseInt(pair.substring(colon + 1).trim());
+			if (weight < 0) {
+				throw new IllegalArgumentException("Mix entry " + pair + " has a negative weight");
+			}
+			weights.put(Operation.forMethod(pair.substring(0, colon).trim()), weight);
+			total += weight;
+		}
+		if (total == 0) {
+			throw new IllegalArgumentException("Mix has no operation with a weight above 0");
+		}
+		return weights;
+	}
+}
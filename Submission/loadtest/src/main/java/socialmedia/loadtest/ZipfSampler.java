@@ -0,0 +1,143 @@
+package socialmedia.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * ZipfSampler draws ranks from a Zipf distribution, where rank k is drawn with
+ * probability proportional to 1 / (k + 1)^exponent. Rank 0 is the most likely,
+ * and the larger the exponent, the more the draws crowd onto the first ranks.
+ * <p>
+ * Ranks are drawn by rejection-inversion (Hörmann and Derflinger, "Rejection-
+ * inversion to generate variates from monotone discrete distributions"), which
+ * needs constant time and memory for any number of ranks, unlike a table of
+ * cumulative probabilities. The sampler holds no mutable state, so it can be
+ * shared between threads that each use their own random source.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+final class ZipfSampler {
+
+	private final int ranks;
+	private final double exponent;
+	private final double hIntegralX1;
+	private final double hIntegralRanks;
+	private final double s;
+
+	/**
+	 * Creates a sampler.
+	 *
+	 * @param ranks    number of ranks, drawn as 0 to ranks - 1
+	 * @param exponent skew of the distribution, larger than 0
+	 * @throws IllegalArgumentException if ranks is less than 1 or exponent is not
+	 *                                  larger than 0
+	 */
+	ZipfSampler(int ranks, double exponent) {
+		if (ranks < 1) {
+			throw new IllegalArgumentException("Zipf sampler needs at least one rank");
+		}
+		if (!(exponent > 0)) {
+			throw new IllegalArgumentException("Zipf exponent must be larger than 0");
+		}
+		this.ranks = ranks;
+		this.exponent = exponent;
+		this.hIntegralX1 = hIntegral(1.5) - 1;
+		this.hIntegralRanks = hIntegral(ranks + 0.5);
+		this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+	}
+
+	/**
+	 * Draws a rank.
+	 *
+	 * @param random source of the draw
+	 * @return rank from 0 to ranks - 1
+	 */
+	int next(SplittableRandom random) {
+		// the algorithm works on ranks from 1 to ranks
+		while (true) {
+			double u = hIntegralRanks + random.nextDouble() * (hIntegralX1 - hIntegralRanks);
+			double x = hIntegralInverse(u);
+			int k = (int) (x + 0.5);
+			if (k < 1) {
+				k = 1;
+			} else if (k > ranks) {
+				k = ranks;
+			}
+			if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+				return k - 1;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of ranks.
+	 *
+	 * @return number of ranks the sampler draws from
+	 */
+	int getRanks() {
+		return ranks;
+	}
+
+	/**
+	 * Unnormalised probability of a rank, 1 / x^exponent.
+	 *
+	 * @param x rank, counted from 1
+	 * @return weight of the rank
+	 */
+	private double h(double x) {
+		return Math.exp(-exponent * Math.log(x));
+	}
+
+	/**
+	 * Integral of h, chosen so that hIntegral(1.5) - 1 is positive.
+	 *
+	 * @param x upper bound of the integral
+	 * @return value of the integral
+	 */
+	private double hIntegral(double x) {
+		double logX = Math.log(x);
+		return expm1OverX((1 - exponent) * logX) * logX;
+	}
+
+	/**
+	 * Inverse of hIntegral.
+	 *
+	 * @param x value of the integral
+	 * @return upper bound giving that value
+	 */
+	private double hIntegralInverse(double x) {
+		double t = x * (1 - exponent);
+		if (t < -1) {
+			// only possible through rounding, when x is very close to its limit
+			t = -1;
+		}
+		return Math.exp(log1pOverX(t) * x);
+	}
+
+	/**
+	 * Computes (e^x - 1) / x, accurately for x near 0.
+	 *
+	 * @param x argument
+	 * @return (e^x - 1) / x
+	 */
+	private static double expm1OverX(double x) {
+		if (Math.abs(x) > 1e-8) {
+			return Math.expm1(x) / x;
+		}
+		return 1 + x / 2 * (1 + x / 3 * (1 + x / 4));
+	}
+
+	/**
+	 * Computes log(1 + x) / x, accurately for x near 0.
+	 *
+	 * @param x argument, at least -1
+	 * @return log(1 + x) / x
+	 */
+	private static double log1pOverX(double x) {
+		if (Math.abs(x) > 1e-8) {
+			return Math.log1p(x) / x;
+		}
+		return 1 - x * (0.5 - x * (1.0 / 3 - x / 4));
+	}
+}
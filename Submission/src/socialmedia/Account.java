@@ -1,6 +1,8 @@
 /**
  * Represents an account, located in the social media package
- * An account is made up of a user ID (uid), a handle a description field and a list of all posts it has made.
+ * An account is made up of a user ID (uid), a handle a description field, all posts it has made and the number of endorsements its posts have received.
+ * The posts are kept in a timeline for each type of post, ordered by post ID, which is the order they were made in. The set of all posts
+ * is read by merging the timelines, so each post is only stored once.
  * 
  * @author Jeroen Mijer, Alexander Robertson
  * @version 1.0
@@ -8,19 +10,32 @@
  */
 package socialmedia;
 
+
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
 import java.io.Serializable;
 
 
 public class Account implements Serializable {
+    // most characters a handle can have
+    static final int MAX_HANDLE_LENGTH = 30;
+
     private Integer uid;
     private String handle;
     private String descField;
-    private ArrayList<Post> posts;
+    private EnumMap<PostType, TreeMap<Integer, Post>> timeline;
+    private int endorsementCount;
 
     /**
      * Creates an account
-     * Sets the arraylist of posts to empty, since an account can only make posts after it has been created
+     * Sets the timelines to empty and the endorsement count to 0, since an account can only make posts after it has been created
      * 
      * @param handle code of the account
      * @param descField description field of the account
@@ -30,7 +45,34 @@ public class Account implements Serializable {
         this.uid = uid;
         this.handle = handle;
         this.descField = descField;
-        this.posts = new ArrayList<Post>();
+        this.timeline = new EnumMap<PostType, TreeMap<Integer, Post>>(PostType.class);
+        for (PostType type : PostType.values()) {
+            this.timeline.put(type, new TreeMap<Integer, Post>());
+        }
+        this.endorsementCount = 0;
+    }
+
+
+    /** Checks whether a handle can be given to an account
+     * A handle must have 1 to 30 characters, none of them whitespace. Every kind of whitespace is checked in one pass over the
+     * characters, without copying the handle or making a pattern.
+     * 
+     * @param handle handle being checked
+     * @return true if the handle is valid
+     */
+    static boolean isValidHandle(String handle) {
+        int length = handle.length();
+        if (length == 0 || length > MAX_HANDLE_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = handle.charAt(i);
+            // isSpaceChar also catches no-break spaces, which isWhitespace leaves out
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     
@@ -62,12 +104,60 @@ public class Account implements Serializable {
     }
 
     
-    /** Gets arraylist of posts account has made
+    /** Gets every post the account has made
+     * The timelines are merged as the posts are read, so the posts come in post ID order without being copied.
+     * 
+     * @return read-only view of the posts the account has made, oldest first
+     */
+    public Collection<Post> getPosts() {
+        return new AbstractCollection<Post>() {
+            @Override
+            public int size() {
+                int size = 0;
+                for (TreeMap<Integer, Post> posts : timeline.values()) {
+                    size += posts.size();
+                }
+                return size;
+            }
+
+            @Override
+            public Iterator<Post> iterator() {
+                return new MergedIterator(timeline);
+            }
+        };
+    }
+
+
+    /** Gets the timeline of posts of one type the account has made
+     * 
+     * @param type type of post
+     * @return read-only map of the posts of that type, keyed and ordered by post ID, oldest first
+     */
+    public NavigableMap<Integer, Post> getTimeline(PostType type) {
+        return Collections.unmodifiableNavigableMap(timeline.get(type));
+    }
+
+
+    /** Gets the number of endorsements received by all posts the account has made
      * 
-     * @return Arraylist of posts account has made
+     * @return number of endorsements received by the account
      */
-    public ArrayList<Post> getPosts() {
-        return posts;
+    public int getEndorsementCount() {
+        return endorsementCount;
+    }
+
+    
+    /** Increases the endorsement count by one, used when a post of the account is endorsed
+     */
+    public void incrementEndorsementCount() {
+        this.endorsementCount++;
+    }
+
+    
+    /** Decreases the endorsement count by one, used when an endorsement of a post of the account is deleted
+     */
+    public void decrementEndorsementCount() {
+        this.endorsementCount--;
     }
 
     
@@ -89,36 +179,96 @@ public class Account implements Serializable {
     }
 
     
-    /** Adds post to arraylist of posts contained within account
+    /** Adds post to the timeline of its type
      * 
-     * @param post Post being appended to the arraylist
+     * @param post Post being appended to the set
      */
     public void addPost(Post post) {
-        this.posts.add(post);
+        this.timeline.get(PostType.of(post)).put(post.getPid(), post);
     }
 
     
-    /** Removes original post from arraylist of posts contained within account
+    /** Removes original post from set of posts contained within account
      * 
-     * @param post (OriginalPost) Post being removed from Arraylist
+     * @param post (OriginalPost) Post being removed from Set
      */
     public void removePost(OriginalPost post) {
-        this.posts.remove(post);
+        removePost((Post) post);
     }
     
-    /** Removes comment from arraylist of posts contained within account
+    /** Removes comment from set of posts contained within account
      * 
-     * @param post (Comment) Post being removed from Arraylist
+     * @param post (Comment) Post being removed from Set
      */
     public void removePost(Comment post) {
-        this.posts.remove(post);
+        removePost((Post) post);
     }
     
-    /** Removes endorsement from arraylist of posts contained within account
+    /** Removes endorsement from set of posts contained within account
      * 
-     * @param post (Endorsement)Post being removed from Arraylist
+     * @param post (Endorsement)Post being removed from Set
      */
     public void removePost(Endorsement post) {
-        this.posts.remove(post);
+        removePost((Post) post);
+    }
+
+    /** Removes post of any type from the timeline of its type
+     * 
+     * @param post Post being removed from Set
+     */
+    public void removePost(Post post) {
+        this.timeline.get(PostType.of(post)).remove(post.getPid());
     }
+
+
+    /**
+     * Iterates over the posts of every timeline in post ID order, taking the oldest of the next post of each timeline every step.
+     */
+    private static final class MergedIterator implements Iterator<Post> {
+        private final ArrayList<Iterator<Post>> timelines;
+        private final Post[] heads;
+
+        /**
+         * Creates an iterator starting from the oldest post of each timeline
+         *
+         * @param timeline posts of each type, keyed by post ID
+         */
+        private MergedIterator(EnumMap<PostType, TreeMap<Integer, Post>> timeline) {
+            this.timelines = new ArrayList<Iterator<Post>>(timeline.size());
+            this.heads = new Post[timeline.size()];
+            for (TreeMap<Integer, Post> posts : timeline.values()) {
+                Iterator<Post> oldestFirst = posts.values().iterator();
+                heads[timelines.size()] = oldestFirst.hasNext() ? oldestFirst.next() : null;
+                timelines.add(oldestFirst);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (Post head : heads) {
+                if (head != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Post next() {
+            int oldest = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null && (oldest < 0 || heads[i].getPid() < heads[oldest].getPid())) {
+                    oldest = i;
+                }
+            }
+            if (oldest < 0) {
+                throw new NoSuchElementException();
+            }
+            Post post = heads[oldest];
+            Iterator<Post> rest = timelines.get(oldest);
+            heads[oldest] = rest.hasNext() ? rest.next() : null;
+            return post;
+        }
+    }
+
 }
@@ -7,7 +7,7 @@ package socialmedia;
  * @version 1.0
  *
  */
-public class AccountIDNotRecognisedException extends Exception {
+public class AccountIDNotRecognisedException extends SocialMediaException {
 
 	/**
 	 * Constructs an instance of the exception with no message
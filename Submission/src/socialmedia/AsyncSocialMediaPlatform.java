@@ -0,0 +1,589 @@
+package socialmedia;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AsyncSocialMediaPlatform runs the methods of an ExtendedSocialMediaPlatform
+ * off the calling thread, returning a CompletableFuture for each of them. A future
+ * completes with the result of the method, or exceptionally with the exception
+ * the method threw, unwrapped.
+ * <p>
+ * Every method that changes the platform is queued to a single writer thread,
+ * so changes are made one at a time in the order they were called, without a
+ * lock shared by the callers. savePlatform is queued to the writer too, so a
+ * saved file always holds exactly the changes called before it.
+ * <p>
+ * If the platform is thread-safe, as told by
+ * {@link ExtendedSocialMediaPlatform#isThreadSafe()}, the methods that only
+ * read it run in parallel on virtual threads where the runtime has them (Java
+ * 21 and later) and on a pool of daemon threads otherwise. Reads then run
+ * alongside the writer, so a read is only sure to see the changes whose
+ * futures had completed when it was called. Any other platform is not safe to
+ * read while it is being changed, so its reads are queued to the writer as
+ * well.
+ * <p>
+ * The platform should only be used through this facade while it is open, and
+ * close should be called once the facade is no longer needed.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+public final class AsyncSocialMediaPlatform implements AutoCloseable {
+
+	// Platform all methods are run against
+	private final ExtendedSocialMediaPlatform platform;
+	// Single thread making every change to the platform, in order
+	private final ExecutorService writer;
+	// Threads reading the platform, the writer itself if reads cannot run alongside writes
+	private final ExecutorService readers;
+
+	/**
+	 * Method of the platform run by a task, which may throw any exception.
+	 *
+	 * @param <T> type of the result of the method
+	 */
+	@FunctionalInterface
+	private interface PlatformCall<T> {
+		T call() throws Exception;
+	}
+
+	/**
+	 * Method of the platform with no result run by a task.
+	 */
+	@FunctionalInterface
+	private interface PlatformAction {
+		void run() throws Exception;
+	}
+
+	/**
+	 * Creates a facade running the methods of a platform.
+	 *
+	 * @param platform platform the methods are run against
+	 */
+	public AsyncSocialMediaPlatform(ExtendedSocialMediaPlatform platform) {
+		this.platform = platform;
+		this.writer = Executors.newSingleThreadExecutor(daemonThreads("socialmedia-writer"));
+		if (platform.isThreadSafe()) {
+			this.readers = newReaderExecutor();
+		} else {
+			this.readers = writer;
+		}
+	}
+
+	/**
+	 * Creates the executor reads run on, one virtual thread per read if the
+	 * runtime supports them. Executors.newVirtualThreadPerTaskExecutor is looked
+	 * up by reflection, since it does not exist before Java 21.
+	 *
+	 * @return executor for reads
+	 */
+	private static ExecutorService newReaderExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(daemonThreads("socialmedia-reader"));
+		}
+	}
+
+	/**
+	 * Creates a factory of numbered daemon threads, so the facade never keeps the
+	 * JVM running on its own.
+	 *
+	 * @param name prefix of the thread names
+	 * @return thread factory
+	 */
+	private static ThreadFactory daemonThreads(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return task -> {
+			Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Queues a method of the platform on an executor.
+	 *
+	 * @param <T>      type of the result of the method
+	 * @param executor executor the method runs on
+	 * @param call     method being run
+	 * @return future completed with the result of the method, or exceptionally
+	 *         with the exception it threw, or with a RejectedExecutionException if
+	 *         the facade has been closed
+	 */
+	private static <T> CompletableFuture<T> submit(ExecutorService executor, PlatformCall<T> call) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		try {
+			executor.execute(() -> {
+				try {
+					future.complete(call.call());
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Queues a method of the platform that changes it on the writer.
+	 *
+	 * @param <T>  type of the result of the method
+	 * @param call method being run
+	 * @return future of the result of the method
+	 */
+	private <T> CompletableFuture<T> write(PlatformCall<T> call) {
+		return submit(writer, call);
+	}
+
+	/**
+	 * Queues a method of the platform that changes it and has no result on the
+	 * writer.
+	 *
+	 * @param action method being run
+	 * @return future completed once the method has returned
+	 */
+	private CompletableFuture<Void> write(PlatformAction action) {
+		return submit(writer, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Queues a method of the platform that only reads it.
+	 *
+	 * @param <T>  type of the result of the method
+	 * @param call method being run
+	 * @return future of the result of the method
+	 */
+	private <T> CompletableFuture<T> read(PlatformCall<T> call) {
+		return submit(readers, call);
+	}
+
+	/**
+	 * Stops accepting methods and waits for every method already queued to
+	 * finish. Futures of methods called after close complete exceptionally with a
+	 * RejectedExecutionException. If the calling thread is interrupted while
+	 * waiting, close returns early with the thread still interrupted.
+	 */
+	@Override
+	public void close() {
+		writer.shutdown();
+		readers.shutdown();
+		try {
+			writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			readers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Account-related methods ****************************************
+
+	/**
+	 * Runs {@link SocialMediaPlatform#createAccount(String)}.
+	 *
+	 * @param handle account's handle.
+	 * @return future of the ID of the created account.
+	 */
+	public CompletableFuture<Integer> createAccount(String handle) {
+		return write(() -> platform.createAccount(handle));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#createAccount(String, String)}.
+	 *
+	 * @param handle      account's handle.
+	 * @param description account's description.
+	 * @return future of the ID of the created account.
+	 */
+	public CompletableFuture<Integer> createAccount(String handle, String description) {
+		return write(() -> platform.createAccount(handle, description));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#removeAccount(int)}.
+	 *
+	 * @param id ID of the account.
+	 * @return future completed once the account is removed.
+	 */
+	public CompletableFuture<Void> removeAccount(int id) {
+		return write(() -> platform.removeAccount(id));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#removeAccount(String)}.
+	 *
+	 * @param handle account's handle.
+	 * @return future completed once the account is removed.
+	 */
+	public CompletableFuture<Void> removeAccount(String handle) {
+		return write(() -> platform.removeAccount(handle));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#changeAccountHandle(String, String)}.
+	 *
+	 * @param oldHandle account's old handle.
+	 * @param newHandle account's new handle.
+	 * @return future completed once the handle is changed.
+	 */
+	public CompletableFuture<Void> changeAccountHandle(String oldHandle, String newHandle) {
+		return write(() -> platform.changeAccountHandle(oldHandle, newHandle));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#updateAccountDescription(String, String)}.
+	 *
+	 * @param handle      handle to identify the account.
+	 * @param description new text for description.
+	 * @return future completed once the description is updated.
+	 */
+	public CompletableFuture<Void> updateAccountDescription(String handle, String description) {
+		return write(() -> platform.updateAccountDescription(handle, description));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#showAccount(String)}.
+	 *
+	 * @param handle handle to identify the account.
+	 * @return future of the account formatted as a summary.
+	 */
+	public CompletableFuture<String> showAccount(String handle) {
+		return read(() -> platform.showAccount(handle));
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#searchHandles(String, int, boolean)}.
+	 *
+	 * @param prefix             start of the handles to find.
+	 * @param limit              the most handles to return.
+	 * @param rankByEndorsements whether to rank the matches by endorsements.
+	 * @return future of the handles of the matching accounts.
+	 */
+	public CompletableFuture<String[]> searchHandles(String prefix, int limit, boolean rankByEndorsements) {
+		return read(() -> platform.searchHandles(prefix, limit, rankByEndorsements));
+	}
+
+	/**
+	 * Runs
+	 * {@link ExtendedSocialMediaPlatform#getAccountTimeline(String, PostType, int, int)}.
+	 *
+	 * @param handle    handle of the account.
+	 * @param type      type of post to be returned.
+	 * @param beforePid only posts with a lower ID are returned.
+	 * @param limit     most posts on the page.
+	 * @return future of the page of posts, newest first.
+	 */
+	public CompletableFuture<TimelinePage> getAccountTimeline(String handle, PostType type, int beforePid,
+			int limit) {
+		return read(() -> platform.getAccountTimeline(handle, type, beforePid, limit));
+	}
+
+	// Post-related methods ****************************************
+
+	/**
+	 * Runs {@link SocialMediaPlatform#createPost(String, String)}.
+	 *
+	 * @param handle  handle to identify the author of the post.
+	 * @param message post message.
+	 * @return future of the sequential ID of the created post.
+	 */
+	public CompletableFuture<Integer> createPost(String handle, String message) {
+		return write(() -> platform.createPost(handle, message));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#endorsePost(String, int)}.
+	 *
+	 * @param handle of the account endorsing a post.
+	 * @param id     of the post being endorsed.
+	 * @return future of the sequential ID of the created endorsement.
+	 */
+	public CompletableFuture<Integer> endorsePost(String handle, int id) {
+		return write(() -> platform.endorsePost(handle, id));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#commentPost(String, int, String)}.
+	 *
+	 * @param handle  of the account commenting a post.
+	 * @param id      of the post being commented.
+	 * @param message the comment post message.
+	 * @return future of the sequential ID of the created comment.
+	 */
+	public CompletableFuture<Integer> commentPost(String handle, int id, String message) {
+		return write(() -> platform.commentPost(handle, id, message));
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#endorseBatch(String[], int[])}.
+	 *
+	 * @param handles handle of the account making each endorsement.
+	 * @param pids    ID of the post each endorsement endorses.
+	 * @return future of the result of each endorsement.
+	 */
+	public CompletableFuture<BatchResult> endorseBatch(String[] handles, int[] pids) {
+		return write(() -> platform.endorseBatch(handles, pids));
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#commentBatch(String[], int[], String[])}.
+	 *
+	 * @param handles  handle of the account making each comment.
+	 * @param pids     ID of the post each comment replies to.
+	 * @param messages message of each comment.
+	 * @return future of the result of each comment.
+	 */
+	public CompletableFuture<BatchResult> commentBatch(String[] handles, int[] pids, String[] messages) {
+		return write(() -> platform.commentBatch(handles, pids, messages));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#deletePost(int)}.
+	 *
+	 * @param id ID of post to be removed.
+	 * @return future completed once the post is deleted.
+	 */
+	public CompletableFuture<Void> deletePost(int id) {
+		return write(() -> platform.deletePost(id));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#showIndividualPost(int)}.
+	 *
+	 * @param id of the post to be shown.
+	 * @return future of the post formatted as a summary.
+	 */
+	public CompletableFuture<String> showIndividualPost(int id) {
+		return read(() -> platform.showIndividualPost(id));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#showPostChildrenDetails(int)}.
+	 *
+	 * @param id of the post to be shown.
+	 * @return future of the post and its children formatted as a tree.
+	 */
+	public CompletableFuture<StringBuilder> showPostChildrenDetails(int id) {
+		return read(() -> platform.showPostChildrenDetails(id));
+	}
+
+	/**
+	 * Runs
+	 * {@link ExtendedSocialMediaPlatform#showPostChildrenDetails(int, Appendable, int, int)}.
+	 * The details are written to out on a reader thread, so out must not be used
+	 * until the future completes.
+	 *
+	 * @param id         of the post to be shown.
+	 * @param out        where the details are written.
+	 * @param maxDepth   deepest level of replies shown.
+	 * @param maxBreadth most replies shown for each post.
+	 * @return future completed once the details are written.
+	 */
+	public CompletableFuture<Void> showPostChildrenDetails(int id, Appendable out, int maxDepth, int maxBreadth) {
+		return read(() -> {
+			platform.showPostChildrenDetails(id, out, maxDepth, maxBreadth);
+			return null;
+		});
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#getPostChildren(int, Cursor, int)}.
+	 *
+	 * @param pid   ID of the post at the top of the thread.
+	 * @param after cursor returned with the previous page, or null.
+	 * @param limit most comments on the page.
+	 * @return future of the page of comments and the cursor for the next page.
+	 */
+	public CompletableFuture<ThreadPage> getPostChildren(int pid, Cursor after, int limit) {
+		return read(() -> platform.getPostChildren(pid, after, limit));
+	}
+
+	// Follow-related methods ****************************************
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#follow(String, String)}.
+	 *
+	 * @param followerHandle handle of the account following.
+	 * @param followeeHandle handle of the account to be followed.
+	 * @return future completed once the account is followed.
+	 */
+	public CompletableFuture<Void> follow(String followerHandle, String followeeHandle) {
+		return write(() -> platform.follow(followerHandle, followeeHandle));
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#unfollow(String, String)}.
+	 *
+	 * @param followerHandle handle of the account following.
+	 * @param followeeHandle handle of the account to stop following.
+	 * @return future completed once the account is no longer followed.
+	 */
+	public CompletableFuture<Void> unfollow(String followerHandle, String followeeHandle) {
+		return write(() -> platform.unfollow(followerHandle, followeeHandle));
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#getHomeFeed(String, int, int)}.
+	 *
+	 * @param handle    handle of the account whose feed is read.
+	 * @param beforePid only posts with a lower ID are returned.
+	 * @param limit     most post IDs returned.
+	 * @return future of the post IDs in the feed, newest first.
+	 */
+	public CompletableFuture<int[]> getHomeFeed(String handle, int beforePid, int limit) {
+		return read(() -> platform.getHomeFeed(handle, beforePid, limit));
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#getFollowerCount(String)}.
+	 *
+	 * @param handle handle of the account.
+	 * @return future of the number of followers of the account.
+	 */
+	public CompletableFuture<Integer> getFollowerCount(String handle) {
+		return read(() -> platform.getFollowerCount(handle));
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#getFollowingCount(String)}.
+	 *
+	 * @param handle handle of the account.
+	 * @return future of the number of accounts the account follows.
+	 */
+	public CompletableFuture<Integer> getFollowingCount(String handle) {
+		return read(() -> platform.getFollowingCount(handle));
+	}
+
+	// Analytics-related methods ****************************************
+
+	/**
+	 * Runs {@link SocialMediaPlatform#getNumberOfAccounts()}.
+	 *
+	 * @return future of the number of accounts in the platform.
+	 */
+	public CompletableFuture<Integer> getNumberOfAccounts() {
+		return read(platform::getNumberOfAccounts);
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#getTotalOriginalPosts()}.
+	 *
+	 * @return future of the total number of original posts in the platform.
+	 */
+	public CompletableFuture<Integer> getTotalOriginalPosts() {
+		return read(platform::getTotalOriginalPosts);
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#getTotalEndorsmentPosts()}.
+	 *
+	 * @return future of the total number of endorsement posts in the platform.
+	 */
+	public CompletableFuture<Integer> getTotalEndorsmentPosts() {
+		return read(platform::getTotalEndorsmentPosts);
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#getTotalCommentPosts()}.
+	 *
+	 * @return future of the total number of comment posts in the platform.
+	 */
+	public CompletableFuture<Integer> getTotalCommentPosts() {
+		return read(platform::getTotalCommentPosts);
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#getPlatformStats()}.
+	 *
+	 * @return future of the platform statistics.
+	 */
+	public CompletableFuture<PlatformStats> getPlatformStats() {
+		return read(platform::getPlatformStats);
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#getMostEndorsedPost()}.
+	 *
+	 * @return future of the ID of the most popular post.
+	 */
+	public CompletableFuture<Integer> getMostEndorsedPost() {
+		return read(platform::getMostEndorsedPost);
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#getMostEndorsedAccount()}.
+	 *
+	 * @return future of the ID of the most popular account.
+	 */
+	public CompletableFuture<Integer> getMostEndorsedAccount() {
+		return read(platform::getMostEndorsedAccount);
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#topEndorsedPosts(int)}.
+	 *
+	 * @param k most post IDs returned.
+	 * @return future of the IDs of the most endorsed posts, most endorsed first.
+	 */
+	public CompletableFuture<int[]> topEndorsedPosts(int k) {
+		return read(() -> platform.topEndorsedPosts(k));
+	}
+
+	/**
+	 * Runs {@link ExtendedSocialMediaPlatform#topEndorsedAccounts(int)}.
+	 *
+	 * @param k most user IDs returned.
+	 * @return future of the IDs of the most endorsed accounts, most endorsed
+	 *         first.
+	 */
+	public CompletableFuture<int[]> topEndorsedAccounts(int k) {
+		return read(() -> platform.topEndorsedAccounts(k));
+	}
+
+	// Management-related methods ****************************************
+
+	/**
+	 * Runs {@link SocialMediaPlatform#erasePlatform()}.
+	 *
+	 * @return future completed once the platform is empty.
+	 */
+	public CompletableFuture<Void> erasePlatform() {
+		return write(platform::erasePlatform);
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#savePlatform(String)}. The save is queued
+	 * to the writer like a change, so the file holds every change called before
+	 * it and none called after it.
+	 *
+	 * @param filename location of the file to be saved.
+	 * @return future completed once the platform is saved.
+	 */
+	public CompletableFuture<Void> savePlatform(String filename) {
+		return write(() -> platform.savePlatform(filename));
+	}
+
+	/**
+	 * Runs {@link SocialMediaPlatform#loadPlatform(String)}.
+	 *
+	 * @param filename location of the file to be loaded.
+	 * @return future completed once the platform is loaded.
+	 */
+	public CompletableFuture<Void> loadPlatform(String filename) {
+		return write(() -> platform.loadPlatform(filename));
+	}
+}
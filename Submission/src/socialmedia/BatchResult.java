@@ -0,0 +1,149 @@
+/**
+ * Represents the results of a batch of endorsements or comments, located in the social media package
+ * A batch result holds one result for each item of the batch, in the order the items were given: the post ID of the endorsement or
+ * comment that was made, or the exception that stopped that item. One item failing does not stop the rest of the batch.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+public final class BatchResult {
+    private final int[] pids;
+    private final Exception[] errors;
+    private int successCount;
+
+    /**
+     * Creates the results of a batch before any item has been made
+     *
+     * @param size number of items in the batch
+     */
+    BatchResult(int size) {
+        this.pids = new int[size];
+        this.errors = new Exception[size];
+    }
+
+
+    /** Records that an item was made
+     *
+     * @param index position of the item in the batch
+     * @param pid post ID of the endorsement or comment made
+     */
+    void succeed(int index, int pid) {
+        pids[index] = pid;
+        successCount++;
+    }
+
+
+    /** Records that an item could not be made
+     *
+     * @param index position of the item in the batch
+     * @param error exception that stopped the item
+     */
+    void fail(int index, Exception error) {
+        errors[index] = error;
+    }
+
+
+    /** Looks up the accounts and posts of a batch, each distinct handle and post ID only once, and groups the items by the post they
+     * act on. Items whose message, handle or post ID is not valid are recorded as failed and left out.
+     *
+     * @param handles handle of the account making each item
+     * @param pids post ID of the post each item acts on
+     * @param messages message of each item, or null for endorsements
+     * @param accountLookup finds an account by its handle, giving null if there is none
+     * @param postLookup finds a post by its post ID, giving null if there is none
+     * @param accounts filled with the account making each item
+     * @return positions of the remaining items, grouped by post in the order each post first appears
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    LinkedHashMap<Post, ArrayList<Integer>> group(String[] handles, int[] pids, String[] messages,
+            Function<String, Account> accountLookup, IntFunction<Post> postLookup, Account[] accounts) {
+        if (pids.length != handles.length || (messages != null && messages.length != handles.length)) {
+            throw new IllegalArgumentException("Batch arrays must all have the same length");
+        }
+        LinkedHashMap<Post, ArrayList<Integer>> byPost = new LinkedHashMap<Post, ArrayList<Integer>>();
+        HashMap<Integer, ArrayList<Integer>> byPid = new HashMap<Integer, ArrayList<Integer>>();
+        HashMap<String, Account> accountsByHandle = new HashMap<String, Account>();
+        for (int i = 0; i < handles.length; i++) {
+            if (messages != null && (messages[i].isEmpty() || messages[i].length() > 100)) {
+                fail(i, new InvalidPostException("Message of post is greater than 100 characters OR is empty"));
+                continue;
+            }
+            Account account = accountsByHandle.computeIfAbsent(handles[i], accountLookup);
+            if (account == null) {
+                fail(i, new HandleNotRecognisedException("Handle not recognised"));
+                continue;
+            }
+            ArrayList<Integer> group = byPid.get(pids[i]);
+            if (group == null) {
+                Post post = postLookup.apply(pids[i]);
+                if (post == null) {
+                    fail(i, new PostIDNotRecognisedException("Post ID not recognised"));
+                    continue;
+                }
+                group = new ArrayList<Integer>();
+                byPid.put(pids[i], group);
+                byPost.put(post, group);
+            }
+            accounts[i] = account;
+            group.add(i);
+        }
+        return byPost;
+    }
+
+
+    /** Gets the number of items
+     *
+     * @return number of items in the batch
+     */
+    public int size() {
+        return pids.length;
+    }
+
+
+    /** Checks whether an item was made
+     *
+     * @param index position of the item in the batch
+     * @return true if the endorsement or comment was made
+     */
+    public boolean isSuccess(int index) {
+        return errors[index] == null;
+    }
+
+
+    /** Gets the post ID of an item
+     *
+     * @param index position of the item in the batch
+     * @return post ID of the endorsement or comment made, or -1 if the item failed
+     */
+    public int getPid(int index) {
+        return errors[index] == null ? pids[index] : -1;
+    }
+
+
+    /** Gets the exception that stopped an item
+     *
+     * @param index position of the item in the batch
+     * @return exception thrown for the item, such as HandleNotRecognisedException, or null if the item was made
+     */
+    public Exception getError(int index) {
+        return errors[index];
+    }
+
+
+    /** Gets the number of items that were made
+     *
+     * @return number of items that did not fail
+     */
+    public int getSuccessCount() {
+        return successCount;
+    }
+}
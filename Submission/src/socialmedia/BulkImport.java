@@ -0,0 +1,454 @@
+/**
+ * Represents a batch of accounts and posts read for a bulk import, located in the social media package
+ * A batch is read from CSV, one record per line, with fields that contain commas, quotes or line breaks enclosed in double quotes and
+ * any double quote inside them doubled. The first field of each record is its type:
+ * <pre>
+ * account,handle,description
+ * post,ref,handle,message[,createdAt]
+ * comment,ref,handle,parentRef,message[,createdAt]
+ * endorsement,ref,handle,parentRef[,createdAt]
+ * </pre>
+ * The ref of a post is any name unique within the batch that does not start with #, such as its ID in the system being migrated from,
+ * and is how comments and endorsements in the batch refer to it. A parent must come before the posts that refer to it. A parentRef of
+ * # followed by a post ID refers to a post already on the platform instead. Authors may be accounts already on the platform or
+ * accounts created earlier or later in the batch.
+ * <p>
+ * createdAt is the creation time in milliseconds since the epoch and defaults to the time of the import. Posts are given post IDs in
+ * the order they are read, after every post already on the platform, and feeds show posts with higher post IDs as newer. So the
+ * creation times must not go backwards from one post to the next in the batch, and a comment or endorsement cannot be older than the
+ * post it refers to, or the batch is rejected.
+ * <p>
+ * The whole batch is read and checked before anything is added to the platform, so an import either adds every record or none.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+final class BulkImport {
+    static final byte ACCOUNT = 0;
+    static final byte ORIGINAL_POST = 1;
+    static final byte COMMENT = 2;
+    static final byte ENDORSEMENT = 3;
+    // start of a parentRef that is the post ID of a post already on the platform
+    static final String PLATFORM_POST_PREFIX = "#";
+
+    private final ArrayList<Record> accounts;
+    private final ArrayList<Record> posts;
+
+    /**
+     * Creates an empty batch
+     */
+    private BulkImport() {
+        this.accounts = new ArrayList<Record>();
+        this.posts = new ArrayList<Record>();
+    }
+
+
+    /** Reads and checks a whole batch
+     *
+     * @param in CSV records of the batch
+     * @param existingHandle checks whether a handle belongs to an account already on the platform
+     * @param existingPost finds a post already on the platform by its post ID, giving null if there is none
+     * @return the batch, with every record checked
+     * @throws IOException if there is a problem reading the batch, or any record in it is not valid, naming the line it starts on
+     */
+    static BulkImport read(Reader in, Predicate<String> existingHandle, IntFunction<Post> existingPost)
+            throws IOException {
+        BulkImport batch = new BulkImport();
+        // posts without a creation time are given the time of the import, so they are checked in order with the others
+        long importedAt = System.currentTimeMillis();
+        long previousCreatedAt = Long.MIN_VALUE;
+        HashSet<String> newHandles = new HashSet<String>();
+        // index of each post in the batch by its ref
+        HashMap<String, Integer> refs = new HashMap<String, Integer>();
+        CsvReader csv = new CsvReader(in);
+        ArrayList<String> fields = new ArrayList<String>();
+        int line;
+        while ((line = csv.next(fields)) > 0) {
+            String type = fields.get(0);
+            if (type.equals("account")) {
+                checkFieldCount(fields, 3, 3, line);
+                String handle = fields.get(1);
+                if (!Account.isValidHandle(handle)) {
+                    throw new IOException("Line " + line + ": handle \"" + handle + "\" is not valid");
+                }
+                if (existingHandle.test(handle) || !newHandles.add(handle)) {
+                    throw new IOException("Line " + line + ": handle \"" + handle + "\" is not unique");
+                }
+                batch.accounts.add(new Record(ACCOUNT, line, null, handle, -1, 0, fields.get(2), 0));
+                continue;
+            }
+
+            byte postType;
+            String message;
+            Parent parent = null;
+            long createdAt;
+            if (type.equals("post")) {
+                checkFieldCount(fields, 4, 5, line);
+                postType = ORIGINAL_POST;
+                message = fields.get(3);
+                createdAt = parseTime(fields, 4, line);
+            } else if (type.equals("comment")) {
+                checkFieldCount(fields, 5, 6, line);
+                postType = COMMENT;
+                parent = findParent(fields.get(3), refs, batch.posts, existingPost, line);
+                message = fields.get(4);
+                createdAt = parseTime(fields, 5, line);
+            } else if (type.equals("endorsement")) {
+                checkFieldCount(fields, 4, 5, line);
+                postType = ENDORSEMENT;
+                parent = findParent(fields.get(3), refs, batch.posts, existingPost, line);
+                message = null;
+                createdAt = parseTime(fields, 4, line);
+            } else {
+                throw new IOException("Line " + line + ": unknown record type \"" + type + "\"");
+            }
+            if (message != null && (message.isEmpty() || message.length() > 100)) {
+                throw new IOException("Line " + line + ": message is over 100 characters long or is empty");
+            }
+            if (createdAt == 0) {
+                createdAt = importedAt;
+            }
+            if (createdAt < previousCreatedAt) {
+                throw new IOException("Line " + line + ": creation time is earlier than that of the post before it");
+            }
+            if (parent != null && createdAt < parent.createdAt) {
+                throw new IOException("Line " + line + ": creation time is earlier than that of the post it refers to");
+            }
+            previousCreatedAt = createdAt;
+            String ref = fields.get(1);
+            if (ref.isEmpty() || ref.startsWith(PLATFORM_POST_PREFIX) || refs.putIfAbsent(ref, batch.posts.size()) != null) {
+                throw new IOException("Line " + line + ": post ref \"" + ref + "\" is empty, starts with "
+                        + PLATFORM_POST_PREFIX + " or is not unique");
+            }
+            Record post = new Record(postType, line, ref, fields.get(2), parent == null ? -1 : parent.index,
+                    parent == null ? 0 : parent.pid, message, createdAt);
+            batch.posts.add(post);
+        }
+
+        // authors can be created anywhere in the batch, so they are only checked once every account has been read
+        for (Record post : batch.posts) {
+            if (!newHandles.contains(post.handle) && !existingHandle.test(post.handle)) {
+                throw new IOException("Line " + post.line + ": handle \"" + post.handle + "\" not recognised");
+            }
+        }
+        return batch;
+    }
+
+
+    /** Gets the accounts in the batch
+     *
+     * @return accounts, in the order they were read
+     */
+    ArrayList<Record> getAccounts() {
+        return accounts;
+    }
+
+
+    /** Gets the posts in the batch
+     *
+     * @return original posts, comments and endorsements, in the order they were read
+     */
+    ArrayList<Record> getPosts() {
+        return posts;
+    }
+
+
+    /** Checks that a record has the right number of fields
+     *
+     * @param fields fields of the record
+     * @param min fewest fields allowed
+     * @param max most fields allowed
+     * @param line line the record starts on
+     * @throws IOException if the record has too few or too many fields
+     */
+    private static void checkFieldCount(ArrayList<String> fields, int min, int max, int line) throws IOException {
+        if (fields.size() < min || fields.size() > max) {
+            throw new IOException("Line " + line + ": " + fields.get(0) + " record has " + fields.size() + " fields");
+        }
+    }
+
+
+    /** Finds the post a comment or endorsement refers to, either earlier in the batch or already on the platform
+     *
+     * @param ref ref of the parent post, or # followed by the post ID of a post on the platform
+     * @param refs index of each post read so far by its ref
+     * @param posts posts read so far
+     * @param existingPost finds a post already on the platform by its post ID
+     * @param line line the record starts on
+     * @return the parent
+     * @throws IOException if there is no earlier post with the ref or no post on the platform with the post ID, or it is an
+     *                     endorsement
+     */
+    private static Parent findParent(String ref, HashMap<String, Integer> refs, ArrayList<Record> posts,
+            IntFunction<Post> existingPost, int line) throws IOException {
+        if (ref.startsWith(PLATFORM_POST_PREFIX)) {
+            Post post;
+            try {
+                post = existingPost.apply(Integer.parseInt(ref.substring(PLATFORM_POST_PREFIX.length())));
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + line + ": post ID \"" + ref + "\" is not a number", e);
+            }
+            if (post == null) {
+                throw new IOException("Line " + line + ": no post on the platform has post ID \"" + ref + "\"");
+            }
+            if (post instanceof Endorsement) {
+                throw new IOException("Line " + line + ": post \"" + ref + "\" is an endorsement");
+            }
+            return new Parent(-1, post.getPid(), post.getCreatedAt());
+        }
+        Integer parent = refs.get(ref);
+        if (parent == null) {
+            throw new IOException("Line " + line + ": no earlier post has ref \"" + ref + "\"");
+        }
+        if (posts.get(parent).type == ENDORSEMENT) {
+            throw new IOException("Line " + line + ": post \"" + ref + "\" is an endorsement");
+        }
+        return new Parent(parent, 0, posts.get(parent).createdAt);
+    }
+
+
+    /** Reads the optional creation time of a post
+     *
+     * @param fields fields of the record
+     * @param index position of the creation time
+     * @param line line the record starts on
+     * @return creation time, or 0 if the record has none
+     * @throws IOException if the creation time is not a number
+     */
+    private static long parseTime(ArrayList<String> fields, int index, int line) throws IOException {
+        if (fields.size() <= index || fields.get(index).isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(fields.get(index));
+        } catch (NumberFormatException e) {
+            throw new IOException("Line " + line + ": creation time \"" + fields.get(index) + "\" is not a number", e);
+        }
+    }
+
+
+    /**
+     * One account or post of the batch
+     */
+    static final class Record {
+        final byte type;
+        final int line;
+        // ref of a post, or null for an account
+        final String ref;
+        // handle of the account, or of the author of a post
+        final String handle;
+        // index in the posts of the batch of the post a comment or endorsement refers to, or -1
+        final int parent;
+        // post ID of the post already on the platform a comment or endorsement refers to, or 0
+        final int parentPid;
+        // description of an account or message of a post, or null for an endorsement
+        final String text;
+        // creation time of a post, or 0 for an account
+        final long createdAt;
+
+        /**
+         * Creates a record
+         *
+         * @param type ACCOUNT, ORIGINAL_POST, COMMENT or ENDORSEMENT
+         * @param line line the record starts on
+         * @param ref ref of a post, or null for an account
+         * @param handle handle of the account, or of the author of a post
+         * @param parent index of the post in the batch a comment or endorsement refers to, or -1
+         * @param parentPid post ID of the post on the platform a comment or endorsement refers to, or 0
+         * @param text description of an account or message of a post, or null for an endorsement
+         * @param createdAt creation time of a post, or 0
+         */
+        Record(byte type, int line, String ref, String handle, int parent, int parentPid, String text, long createdAt) {
+            this.type = type;
+            this.line = line;
+            this.ref = ref;
+            this.handle = handle;
+            this.parent = parent;
+            this.parentPid = parentPid;
+            this.text = text;
+            this.createdAt = createdAt;
+        }
+    }
+
+
+    /**
+     * Post a comment or endorsement refers to, found while the batch is read
+     */
+    private static final class Parent {
+        // index in the posts of the batch, or -1 for a post already on the platform
+        private final int index;
+        // post ID of a post already on the platform, or 0 for a post in the batch
+        private final int pid;
+        private final long createdAt;
+
+        /**
+         * Creates a parent
+         *
+         * @param index index in the posts of the batch, or -1
+         * @param pid post ID of a post already on the platform, or 0
+         * @param createdAt creation time of the parent
+         */
+        Parent(int index, int pid, long createdAt) {
+            this.index = index;
+            this.pid = pid;
+            this.createdAt = createdAt;
+        }
+    }
+
+
+    /**
+     * Reader splitting CSV into records and fields
+     */
+    private static final class CsvReader {
+        private final Reader in;
+        private final StringBuilder field;
+        // characters read from in but not yet used, read in blocks instead of one call for each character
+        private final char[] buffer;
+        private int position;
+        private int limit;
+        private int line;
+        // character read ahead of the current one, or -2 if none has been
+        private int peeked;
+
+        /**
+         * Creates a reader at the start of the CSV
+         *
+         * @param in CSV being read
+         */
+        CsvReader(Reader in) {
+            this.in = in;
+            this.field = new StringBuilder();
+            this.buffer = new char[8192];
+            this.line = 1;
+            this.peeked = -2;
+        }
+
+
+        /** Reads the next record that is not blank
+         *
+         * @param fields filled with the fields of the record
+         * @return line the record starts on, or 0 at the end of the CSV
+         * @throws IOException if there is a problem reading, or a quoted field is not closed
+         */
+        int next(ArrayList<String> fields) throws IOException {
+            while (true) {
+                fields.clear();
+                int start = line;
+                int c = read();
+                if (c == -1) {
+                    return 0;
+                }
+                if (c == '\n') {
+                    // blank line
+                    continue;
+                }
+                while (true) {
+                    field.setLength(0);
+                    if (c == '"') {
+                        c = readQuoted(start);
+                    } else {
+                        while (c != ',' && c != '\n' && c != -1) {
+                            field.append((char) c);
+                            c = read();
+                        }
+                    }
+                    fields.add(field.toString());
+                    if (c != ',') {
+                        return start;
+                    }
+                    c = read();
+                }
+            }
+        }
+
+
+        /** Reads the rest of a quoted field into field
+         *
+         * @param start line the record starts on
+         * @return character after the closing quote
+         * @throws IOException if there is a problem reading, or the field is not closed
+         */
+        private int readQuoted(int start) throws IOException {
+            while (true) {
+                // line breaks inside quotes are part of the field, so they are kept as they are
+                int c = readRaw();
+                if (c == -1) {
+                    throw new IOException("Line " + start + ": quoted field is not closed");
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        if (c != ',' && c != '\n' && c != -1) {
+                            throw new IOException("Line " + start + ": unexpected character after quoted field");
+                        }
+                        return c;
+                    }
+                }
+                field.append((char) c);
+            }
+        }
+
+
+        /** Reads one character, turning \r\n into \n and counting lines
+         *
+         * @return character read, or -1 at the end of the CSV
+         * @throws IOException if there is a problem reading
+         */
+        private int read() throws IOException {
+            int c = readRaw();
+            if (c == '\r') {
+                peeked = readBuffered();
+                if (peeked == '\n') {
+                    peeked = -2;
+                }
+                c = '\n';
+                line++;
+            }
+            return c;
+        }
+
+
+        /** Reads one character as it is, counting lines
+         *
+         * @return character read, or -1 at the end of the CSV
+         * @throws IOException if there is a problem reading
+         */
+        private int readRaw() throws IOException {
+            int c = peeked != -2 ? peeked : readBuffered();
+            peeked = -2;
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+
+
+        /** Reads one character from the buffer, filling it from in when it is empty
+         *
+         * @return character read, or -1 at the end of the CSV
+         * @throws IOException if there is a problem reading
+         */
+        private int readBuffered() throws IOException {
+            if (position == limit) {
+                int count = in.read(buffer, 0, buffer.length);
+                if (count <= 0) {
+                    return -1;
+                }
+                position = 0;
+                limit = count;
+            }
+            return buffer[position++];
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Represents the deletion of everything an account owns, located in the social media package
+ * Removing an account deletes every post it has made, together with every endorsement of its original posts and comments, including
+ * endorsements made by other accounts. Comments by other accounts that replied to a deleted post are moved under the generic post.
+ * <p>
+ * Instead of deleting the posts one at a time, which deletes the endorsements of each post and moves its replies again for every post,
+ * the whole set of posts being deleted is collected first. Each post is then unlinked once from its author and parent through direct
+ * references, replies are only moved if they survive, and each surviving post and account that loses endorsements is recorded so the
+ * leaderboards are updated once.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+final class CascadeDelete {
+    // every post being deleted, in the order the posts were collected
+    private final LinkedHashSet<Post> deleted;
+    // surviving posts and accounts that lose endorsements, whose leaderboard entries are out of date
+    private final LinkedHashSet<Post> endorsedPosts;
+    private final LinkedHashSet<Account> endorsedAuthors;
+
+    /**
+     * Collects every post deleted along with an account
+     *
+     * @param account account being removed
+     */
+    CascadeDelete(Account account) {
+        this.deleted = new LinkedHashSet<Post>();
+        this.endorsedPosts = new LinkedHashSet<Post>();
+        this.endorsedAuthors = new LinkedHashSet<Account>();
+        for (Post post : account.getPosts()) {
+            deleted.add(post);
+        }
+        // endorsements of the account's posts go with them, whoever made them
+        for (Post post : account.getPosts()) {
+            if (post instanceof OriginalPost) {
+                deleted.addAll(((OriginalPost) post).getEndorsements());
+            } else if (post instanceof Comment) {
+                deleted.addAll(((Comment) post).getEndorsements());
+            }
+        }
+    }
+
+
+    /** Detaches every collected post from its author, the post it points to and its replies
+     *
+     * @param genericPost post that comments are moved under when the post they replied to is deleted
+     */
+    void apply(OriginalPost genericPost) {
+        ArrayList<Comment> orphans = new ArrayList<Comment>();
+        for (Post post : deleted) {
+            post.getAuthor().removePost(post);
+            Post parent = post.getParent();
+            if (post instanceof Endorsement) {
+                if (!deleted.contains(parent)) {
+                    getEndorsements(parent).remove(post);
+                    // the author of the endorsed post has lost one endorsement
+                    endorsedPosts.add(parent);
+                    parent.getAuthor().decrementEndorsementCount();
+                    endorsedAuthors.add(parent.getAuthor());
+                }
+                continue;
+            }
+            if (parent != null && !deleted.contains(parent)) {
+                ThreadRenderer.getComments(parent).remove(post);
+            }
+            for (Comment reply : ThreadRenderer.getComments(post)) {
+                if (!deleted.contains(reply)) {
+                    orphans.add(reply);
+                }
+            }
+        }
+        for (Comment orphan : orphans) {
+            orphan.setParent(genericPost);
+            genericPost.addComment(orphan);
+        }
+    }
+
+
+    /** Gets every post that was deleted
+     *
+     * @return deleted posts, still to be removed from the table of posts
+     */
+    Set<Post> getDeletedPosts() {
+        return deleted;
+    }
+
+
+    /** Gets the surviving posts that lost endorsements
+     *
+     * @return posts whose number of endorsements has changed
+     */
+    Set<Post> getEndorsedPosts() {
+        return endorsedPosts;
+    }
+
+
+    /** Gets the surviving accounts that lost endorsements
+     *
+     * @return accounts whose number of endorsements has changed
+     */
+    Set<Account> getEndorsedAuthors() {
+        return endorsedAuthors;
+    }
+
+
+    /** Gets the endorsements of an original post or comment
+     *
+     * @param post post whose endorsements are wanted
+     * @return endorsements of the post
+     */
+    private static LinkedIdentitySet<Endorsement> getEndorsements(Post post) {
+        if (post instanceof OriginalPost) {
+            return ((OriginalPost) post).getEndorsements();
+        }
+        return ((Comment) post).getEndorsements();
+    }
+}
@@ -1,86 +1,106 @@
 /**
  * Represents a comment, which extends the class Post, which is located in the social media package
- * An account is made up of a message, author, post ID (pid), arraylist of comments, arraylist of endorsements, a postpointer(points to parent post)
+ * An account is made up of a message, author, post ID (pid), set of comments, set of endorsements and a reference to its parent post
  * 
  * @author Jeroen Mijer, Alexander Robertson
  * @version 1.0
  * @since 1.0
  */
 package socialmedia;
-import java.util.ArrayList;
+
 
 public class Comment extends Post {
 
-    Integer postPointer; // holds the postID that the comment is replying to
-    ArrayList <Endorsement> endorsements;
-    ArrayList <Comment> comments;
+    Post parent; // holds the post that the comment is replying to
+    LinkedIdentitySet<Endorsement> endorsements;
+    LinkedIdentitySet<Comment> comments;
 
     /**
      * Creates a comment
-     * Sets the arraylist of comments and endorsements to empty, since a comment can only be commented on or endorsed after creation
+     * Sets the sets of comments and endorsements to empty, since a comment can only be commented on or endorsed after creation
      * @param message message of the comment
      * @param author author of the comment
-     * @param postPointer post ID of the parent post
+     * @param parent parent post
      * @param pid post ID of the comment
      */
-    public Comment(String message, Account author, Integer postPointer, Integer pid) {
+    public Comment(String message, Account author, Post parent, Integer pid) {
         super(message, author, pid);
-        this.endorsements = new ArrayList<Endorsement>();
-        this.comments = new ArrayList<Comment>();
-        this.postPointer = postPointer;
+        this.endorsements = new LinkedIdentitySet<Endorsement>();
+        this.comments = new LinkedIdentitySet<Comment>();
+        this.parent = parent;
     }
     
     /** Gets post pointer
      * 
-     * @return post pointer of the comment
+     * @return post ID of the parent post of the comment
      */
     public Integer getPostPointer() {
-        return postPointer;
+        return parent.getPid();
+    }
+
+
+    /** Gets the parent post
+     * 
+     * @return post that the comment is replying to
+     */
+    @Override
+    public Post getParent() {
+        return parent;
     }
     
     
-    /** Gets arraylist of endorsements
+    /** Gets set of endorsements
      * 
-     * @return arraylist of endorsements that endorsed a comment
+     * @return set of endorsements that endorsed a comment
      */
-    public ArrayList<Endorsement> getEndorsements() {
+    public LinkedIdentitySet<Endorsement> getEndorsements() {
         return endorsements;
     }
     
     
-    /** Gets arraylist of comments
+    /** Gets the number of endorsements
+     * Reads the size kept by the set of endorsements, so no endorsements are counted
+     * 
+     * @return number of endorsements that endorsed a comment
+     */
+    public int getEndorsementCount() {
+        return endorsements.size();
+    }
+
+    
+    /** Gets set of comments
      * 
-     * @return arraylist of comments that commented on a comment
+     * @return set of comments that commented on a comment
      */
-    public ArrayList<Comment> getComments() {
+    public LinkedIdentitySet<Comment> getComments() {
         return comments;
     }
 
     
-    /** Adds an endorsement to the arraylist of endorsements to a comment
+    /** Adds an endorsement to the set of endorsements to a comment
      * 
-     * @param endorsement endorsement to be added to the arraylist of endorsements
+     * @param endorsement endorsement to be added to the set of endorsements
      */
     public void addEndorsement(Endorsement endorsement) {
         this.endorsements.add(endorsement);
     }
 
     
-    /** Adds a comment to the arraylist of comments in a comment
+    /** Adds a comment to the set of comments in a comment
      * 
-     * @param comment comment to be added to the arraylist of endorsements
+     * @param comment comment to be added to the set of endorsements
      */
     public void addComment(Comment comment) {
         this.comments.add(comment);
     }
 
     
-    /** Sets post pointer of the comment
-     * Used only when the parent comment is deleted and the post pointer now refers to the generic deleted message
+    /** Sets the parent post of the comment
+     * Used only when the parent comment is deleted and the comment now replies to the generic deleted message
      * 
-     * @param postPointer new postpointer that the comment will now contain
+     * @param parent new parent post that the comment will now reply to
      */
-    public void setPostPointer(Integer postPointer) {
-        this.postPointer = postPointer;
+    public void setParent(Post parent) {
+        this.parent = parent;
     }
 }
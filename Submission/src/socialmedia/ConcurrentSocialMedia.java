@@ -0,0 +1,1244 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ConcurrentSocialMedia is a thread-safe implementor of the SocialMediaPlatform
+ * interface, which can be shared between threads without an outside lock.
+ * <p>
+ * Accounts and posts are held in concurrent maps. Every post belongs to a
+ * thread, which is the original post it was made under (endorsements belong to
+ * the thread of the post they endorse). Posts are guarded by striped read/write
+ * locks chosen by the post ID of their thread, so reads run in parallel and
+ * writes to different threads do not wait for each other. The posts list and
+ * endorsement count of each account are guarded by striped account locks.
+ * Platform statistics are kept in lock-free counters.
+ * <p>
+ * Locks are always taken in the same order to avoid deadlocks: thread locks
+ * first, in ascending stripe order, then at most one account lock at a time,
+ * then a leaderboard. erasePlatform and loadPlatform swap in a whole new set
+ * of collections, so they never wait for other calls.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+public class ConcurrentSocialMedia implements ExtendedSocialMediaPlatform {
+
+	// The platform is saved with savePlatform, never with Java serialization, so
+	// this only fixes the ID the inherited Serializable interface asks for
+	private static final long serialVersionUID = 1L;
+	// Number of stripes in each lock array, must be a power of two
+	private static final int STRIPES = 64;
+	// Post ID of the generic post that replaces deleted posts
+	private static final int GENERIC_PID = 1;
+
+	// Current contents of the platform, replaced as a whole by erase and load
+	private transient volatile State state;
+	// Striped locks guarding the posts of each thread
+	private final transient ReentrantReadWriteLock[] threadLocks;
+	// Striped locks guarding the posts list and endorsement count of each account
+	private final transient ReentrantLock[] accountLocks;
+
+	/**
+	 * Contents of the platform. Collections are thread-safe on their own; the
+	 * posts inside them are guarded by the thread and account locks.
+	 */
+	private static final class State {
+		private final ConcurrentHashMap<Integer, Account> accounts = new ConcurrentHashMap<Integer, Account>();
+		private final ConcurrentHashMap<String, Account> handles = new ConcurrentHashMap<String, Account>();
+		// Accounts sorted by handle, for prefix searches, kept in step with handles
+		private final HandleIndex handleIndex = HandleIndex.createConcurrent();
+		private final ConcurrentHashMap<Integer, Post> posts = new ConcurrentHashMap<Integer, Post>();
+		// Accounts that are part way through being removed and cannot post any more
+		private final Set<Account> removing = ConcurrentHashMap.newKeySet();
+		private final LongAdder originalPostCount = new LongAdder();
+		private final LongAdder commentPostCount = new LongAdder();
+		private final LongAdder endorsementPostCount = new LongAdder();
+		// Leaderboards are guarded by their own monitor
+		private final Leaderboard postRanking = new Leaderboard();
+		private final Leaderboard accountRanking = new Leaderboard();
+		private final IdAllocator accountIds = new IdAllocator(1);
+		private final IdAllocator postIds = new IdAllocator(1);
+		// Follow graph and home feed inboxes, guarded by the engine's own striped
+		// locks, which must never be waited for while holding an account lock
+		private final FeedEngine feeds;
+
+		/**
+		 * Creates empty collections
+		 *
+		 * @param platform platform the collections belong to, whose account locks
+		 *                 are used to read timelines for home feeds
+		 */
+		private State(ConcurrentSocialMedia platform) {
+			this.feeds = new FeedEngine(FeedEngine.CELEBRITY_THRESHOLD, FeedEngine.INBOX_CAPACITY,
+					platform.feedSource(this));
+		}
+	}
+
+	public ConcurrentSocialMedia() {
+		/**
+		 * Creates a Concurrent Social Media object with empty collections of accounts
+		 * and posts, apart from the generic post and its "admin" account
+		 */
+		this.threadLocks = new ReentrantReadWriteLock[STRIPES];
+		this.accountLocks = new ReentrantLock[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			threadLocks[i] = new ReentrantReadWriteLock();
+			accountLocks[i] = new ReentrantLock();
+		}
+		this.state = newState();
+	}
+
+	/**
+	 * Creates a new set of collections holding only the generic post and its
+	 * "admin" account
+	 *
+	 * @return contents of a new platform
+	 */
+	private State newState() {
+		State s = new State(this);
+		Account genericAccount = new Account("admin", "", s.accountIds.next());
+		OriginalPost genericPost = new OriginalPost(
+				"The original content was removed from the system and is no longer available.", genericAccount,
+				s.postIds.next());
+		s.accounts.put(genericAccount.getUID(), genericAccount);
+		s.handles.put(genericAccount.getHandle(), genericAccount);
+		s.handleIndex.add(genericAccount.getHandle(), genericAccount, 0);
+		s.accountRanking.put(genericAccount.getUID(), 0);
+		addPost(s, genericPost);
+		return s;
+	}
+
+	// Locking helpers ****************************************
+
+	/**
+	 * Gets the lock guarding the posts list and endorsement count of an account
+	 *
+	 * @param account account being locked
+	 * @return lock of the account's stripe
+	 */
+	private Lock accountLock(Account account) {
+		return accountLocks[account.getUID() & (STRIPES - 1)];
+	}
+
+	/**
+	 * Creates the access a feed engine has to the posts of the platform, reading
+	 * each timeline while holding the lock of its account
+	 *
+	 * @param s contents of the platform
+	 * @return access to the posts in s
+	 */
+	private FeedEngine.Source feedSource(State s) {
+		return new FeedEngine.Source() {
+			@Override
+			public int[] newestPosts(int uid, int beforePid, int limit) {
+				Account account = s.accounts.get(uid);
+				if (account == null) {
+					return new int[0];
+				}
+				Lock lock = accountLock(account);
+				lock.lock();
+				try {
+					return FeedEngine.newestPosts(account, beforePid, limit);
+				} finally {
+					lock.unlock();
+				}
+			}
+
+			@Override
+			public boolean isVisible(int pid) {
+				return s.posts.containsKey(pid);
+			}
+		};
+	}
+
+	/**
+	 * Finds the post ID of the thread a post belongs to by following parent
+	 * references up to the original post. The result is only reliable once the lock of that
+	 * thread is held, so it is checked again after locking.
+	 *
+	 * @param s    contents of the platform
+	 * @param post post whose thread is wanted
+	 * @return post ID of the original post at the top of the thread, or -1 if a
+	 *         post on the way up is part way through being deleted
+	 */
+	private static int threadOf(State s, Post post) {
+		Post current = post;
+		Post parent = current.getParent();
+		while (parent != null) {
+			current = parent;
+			if (s.posts.get(current.getPid()) != current) {
+				return -1;
+			}
+			parent = current.getParent();
+		}
+		return current.getPid();
+	}
+
+	/**
+	 * Locks the thread a post belongs to, along with any extra threads. If the
+	 * post moves to another thread while waiting for the lock, the locks are
+	 * released and taken again.
+	 *
+	 * @param s     contents of the platform
+	 * @param post  post whose thread is locked
+	 * @param write true to lock for writing, false to lock for reading
+	 * @param extra post IDs of any other threads to lock at the same time
+	 * @return the stripes that were locked, to be passed to unlockThreads, or null
+	 *         if the post was deleted while waiting for the lock
+	 */
+	private int[] lockThreadOf(State s, Post post, boolean write, int... extra) {
+		int[] threads = Arrays.copyOf(extra, extra.length + 1);
+		while (true) {
+			int thread = threadOf(s, post);
+			if (thread < 0) {
+				if (s.posts.get(post.getPid()) != post) {
+					return null;
+				}
+				// another call is deleting a post above this one, wait for it to finish
+				Thread.onSpinWait();
+				continue;
+			}
+			threads[extra.length] = thread;
+			int[] stripes = lockThreads(write, threads);
+			if (s.posts.get(post.getPid()) != post) {
+				unlockThreads(write, stripes);
+				return null;
+			}
+			if (threadOf(s, post) == thread) {
+				return stripes;
+			}
+			unlockThreads(write, stripes);
+		}
+	}
+
+	/**
+	 * Locks the stripes of one or more threads in ascending stripe order
+	 *
+	 * @param write   true to lock for writing, false to lock for reading
+	 * @param threads post IDs of the threads to lock
+	 * @return the stripes that were locked, to be passed to unlockThreads
+	 */
+	private int[] lockThreads(boolean write, int... threads) {
+		int[] stripes = new int[threads.length];
+		for (int i = 0; i < threads.length; i++) {
+			stripes[i] = threads[i] & (STRIPES - 1);
+		}
+		stripes = Arrays.stream(stripes).sorted().distinct().toArray();
+		for (int stripe : stripes) {
+			if (write) {
+				threadLocks[stripe].writeLock().lock();
+			} else {
+				threadLocks[stripe].readLock().lock();
+			}
+		}
+		return stripes;
+	}
+
+	/**
+	 * Locks every stripe for reading, which stops all changes to posts until they
+	 * are unlocked
+	 *
+	 * @return the stripes that were locked, to be passed to unlockThreads
+	 */
+	private int[] lockAllThreads() {
+		int[] all = new int[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			all[i] = i;
+		}
+		return lockThreads(false, all);
+	}
+
+	/**
+	 * Unlocks stripes locked by lockThreads, in the reverse order
+	 *
+	 * @param write   true if the stripes were locked for writing
+	 * @param stripes stripes returned by lockThreads
+	 */
+	private void unlockThreads(boolean write, int[] stripes) {
+		for (int i = stripes.length - 1; i >= 0; i--) {
+			if (write) {
+				threadLocks[stripes[i]].writeLock().unlock();
+			} else {
+				threadLocks[stripes[i]].readLock().unlock();
+			}
+		}
+	}
+
+	// Lookup helpers ****************************************
+
+	/**
+	 * Finds an account using the handle index
+	 *
+	 * @param s      contents of the platform
+	 * @param handle handle of the account
+	 * @return account with the given handle
+	 * @throws HandleNotRecognisedException if no account has the given handle
+	 */
+	private static Account getAccount(State s, String handle) throws HandleNotRecognisedException {
+		Account account = s.handles.get(handle);
+		if (account == null) {
+			throw new HandleNotRecognisedException("Handle not recognised");
+		}
+		return account;
+	}
+
+	/**
+	 * Finds a post using the post index
+	 *
+	 * @param s   contents of the platform
+	 * @param pid post ID of the post
+	 * @return post with the given post ID
+	 * @throws PostIDNotRecognisedException if no post has the given post ID
+	 */
+	private static Post getPost(State s, int pid) throws PostIDNotRecognisedException {
+		Post post = s.posts.get(pid);
+		if (post == null) {
+			throw new PostIDNotRecognisedException("Post ID not recognised");
+		}
+		return post;
+	}
+
+	/**
+	 * Checks that an account can still post. Must be called while holding the
+	 * account's lock.
+	 *
+	 * @param s       contents of the platform
+	 * @param account account that is posting
+	 * @throws HandleNotRecognisedException if the account has been or is being
+	 *                                      removed
+	 */
+	private static void checkActive(State s, Account account) throws HandleNotRecognisedException {
+		if (s.removing.contains(account) || s.accounts.get(account.getUID()) != account) {
+			throw new HandleNotRecognisedException("Handle not recognised");
+		}
+	}
+
+	/**
+	 * Adds a post to the post index, the count of its type and, unless it is an
+	 * endorsement, to the post leaderboard
+	 *
+	 * @param s    contents of the platform
+	 * @param post post being added
+	 */
+	private static void addPost(State s, Post post) {
+		s.posts.put(post.getPid(), post);
+		if (post instanceof OriginalPost) {
+			s.originalPostCount.increment();
+		} else if (post instanceof Comment) {
+			s.commentPostCount.increment();
+		} else {
+			s.endorsementPostCount.increment();
+		}
+		if (!(post instanceof Endorsement)) {
+			synchronized (s.postRanking) {
+				s.postRanking.put(post.getPid(), 0);
+			}
+		}
+	}
+
+	/**
+	 * Removes a post from the post index, the count of its type and the post
+	 * leaderboard
+	 *
+	 * @param s    contents of the platform
+	 * @param post post being removed
+	 */
+	private static void removePost(State s, Post post) {
+		if (!s.posts.remove(post.getPid(), post)) {
+			return;
+		}
+		if (post instanceof OriginalPost) {
+			s.originalPostCount.decrement();
+		} else if (post instanceof Comment) {
+			s.commentPostCount.decrement();
+		} else {
+			s.endorsementPostCount.decrement();
+		}
+		synchronized (s.postRanking) {
+			s.postRanking.remove(post.getPid());
+		}
+	}
+
+	// Account-related methods ****************************************
+
+	@Override
+	public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+		return createAccount(handle, "");
+	}
+
+	@Override
+	public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+		// check if handle is valid
+		// empty, more than 30 characters, has white spaces then is invalid
+		if (!Account.isValidHandle(handle)) {
+			throw new InvalidHandleException(
+					"Handle empty, OR more than 30 characters, OR has white spaces then is invalid");
+		}
+		State s = state;
+		// fail fast before using up a user ID
+		if (s.handles.containsKey(handle)) {
+			throw new IllegalHandleException("That handle is not unique");
+		}
+		Account account = new Account(handle, description, s.accountIds.next());
+		// claiming the handle is what makes it unique, even when two threads race
+		if (s.handles.putIfAbsent(handle, account) != null) {
+			throw new IllegalHandleException("That handle is not unique");
+		}
+		// indexed before the account can be removed, which needs it to be in accounts, and
+		// under the account lock like every change to its place in the index rankings
+		Lock lock = accountLock(account);
+		lock.lock();
+		try {
+			s.handleIndex.add(handle, account, account.getEndorsementCount());
+		} finally {
+			lock.unlock();
+		}
+		s.accounts.put(account.getUID(), account);
+		synchronized (s.accountRanking) {
+			s.accountRanking.put(account.getUID(), 0);
+		}
+		return account.getUID();
+	}
+
+	@Override
+	public void removeAccount(int id) throws AccountIDNotRecognisedException {
+		State s = state;
+		Account account = s.accounts.get(id);
+		if (account == null || !removeAccount(s, account)) {
+			throw new AccountIDNotRecognisedException("Account ID not recognised");
+		}
+	}
+
+	@Override
+	public void removeAccount(String handle) throws HandleNotRecognisedException {
+		State s = state;
+		if (!removeAccount(s, getAccount(s, handle))) {
+			throw new HandleNotRecognisedException("Handle not recognised");
+		}
+	}
+
+	/**
+	 * Removes an account and every post it has made. The account is first marked
+	 * as removing, so it cannot make new posts while its posts are deleted.
+	 *
+	 * @param s       contents of the platform
+	 * @param account account being removed
+	 * @return false if another thread already removed the account
+	 */
+	private boolean removeAccount(State s, Account account) {
+		ArrayList<Post> accountPosts;
+		Lock lock = accountLock(account);
+		lock.lock();
+		try {
+			if (s.accounts.get(account.getUID()) != account || !s.removing.add(account)) {
+				return false;
+			}
+			accountPosts = new ArrayList<Post>(account.getPosts());
+		} finally {
+			lock.unlock();
+		}
+		// delete every post of the account, some may already be gone as part of an
+		// earlier deletion, such as the account endorsing its own post
+		for (Post post : accountPosts) {
+			deletePost(s, post.getPid());
+		}
+		s.handles.remove(account.getHandle(), account);
+		lock.lock();
+		try {
+			s.handleIndex.remove(account.getHandle(), account);
+		} finally {
+			lock.unlock();
+		}
+		s.accounts.remove(account.getUID(), account);
+		synchronized (s.accountRanking) {
+			s.accountRanking.remove(account.getUID());
+		}
+		s.feeds.removeAccount(account.getUID());
+		s.removing.remove(account);
+		return true;
+	}
+
+	@Override
+	public void changeAccountHandle(String oldHandle, String newHandle)
+			throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
+		// Check if new handle is valid
+		if (!Account.isValidHandle(newHandle)) {
+			throw new InvalidHandleException("empty, OR more than 30 characters, OR has white spaces then is invalid");
+		}
+		State s = state;
+		// check if new handle is unique
+		if (s.handles.containsKey(newHandle)) {
+			throw new IllegalHandleException("That handle is not unique");
+		}
+		Account account = getAccount(s, oldHandle);
+		Lock lock = accountLock(account);
+		lock.lock();
+		try {
+			// the account may have been renamed or removed while waiting for the lock
+			if (s.handles.get(oldHandle) != account || s.removing.contains(account)) {
+				throw new HandleNotRecognisedException("Handle not recognised");
+			}
+			if (s.handles.putIfAbsent(newHandle, account) != null) {
+				throw new IllegalHandleException("That handle is not unique");
+			}
+			s.handleIndex.add(newHandle, account, account.getEndorsementCount());
+			s.handles.remove(oldHandle, account);
+			s.handleIndex.remove(oldHandle, account);
+			account.setHandle(newHandle);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+		Account account = getAccount(state, handle);
+		// the timelines of an account are guarded by its lock, like its other posts
+		Lock lock = accountLock(account);
+		lock.lock();
+		try {
+			account.setDescField(description);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public String[] searchHandles(String prefix, int limit, boolean rankByEndorsements) {
+		// the index keeps the endorsement counts it ranks by, so no account lock is taken
+		return state.handleIndex.search(prefix, limit, rankByEndorsements);
+	}
+
+	@Override
+	public String showAccount(String handle) throws HandleNotRecognisedException {
+		Account account = getAccount(state, handle);
+		// the timelines of an account are guarded by its lock, like its other posts
+		Lock lock = accountLock(account);
+		lock.lock();
+		try {
+			// returns the account in the desired format
+			return String.format("""
+					ID: %d
+					Handle: %s
+					Description: %s
+					Post Count: %d
+					Endorse Count: %d
+					""", account.getUID(), account.getHandle(), account.getDescField(), account.getPosts().size(),
+					account.getEndorsementCount());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public TimelinePage getAccountTimeline(String handle, PostType type, int beforePid, int limit)
+			throws HandleNotRecognisedException {
+		Account account = getAccount(state, handle);
+		// the timelines of an account are guarded by its lock, like its other posts
+		Lock lock = accountLock(account);
+		lock.lock();
+		try {
+			return TimelinePage.read(account.getTimeline(type), beforePid, limit);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// End Account-related methods ****************************************
+
+	// Follow-related methods ****************************************
+
+	@Override
+	public void follow(String followerHandle, String followeeHandle) throws HandleNotRecognisedException {
+		State s = state;
+		Account follower = getAccount(s, followerHandle);
+		Account followee = getAccount(s, followeeHandle);
+		s.feeds.follow(follower.getUID(), followee.getUID());
+		// an account removed meanwhile may have missed the follow when its follows were cleared
+		if (s.accounts.get(follower.getUID()) != follower || s.accounts.get(followee.getUID()) != followee) {
+			s.feeds.unfollow(follower.getUID(), followee.getUID());
+			throw new HandleNotRecognisedException("Handle not recognised");
+		}
+	}
+
+	@Override
+	public void unfollow(String followerHandle, String followeeHandle) throws HandleNotRecognisedException {
+		State s = state;
+		Account follower = getAccount(s, followerHandle);
+		Account followee = getAccount(s, followeeHandle);
+		s.feeds.unfollow(follower.getUID(), followee.getUID());
+	}
+
+	@Override
+	public int[] getHomeFeed(String handle, int beforePid, int limit) throws HandleNotRecognisedException {
+		State s = state;
+		return s.feeds.getHomeFeed(getAccount(s, handle).getUID(), beforePid, limit);
+	}
+
+	@Override
+	public int getFollowerCount(String handle) throws HandleNotRecognisedException {
+		State s = state;
+		return s.feeds.getFollowerCount(getAccount(s, handle).getUID());
+	}
+
+	@Override
+	public int getFollowingCount(String handle) throws HandleNotRecognisedException {
+		State s = state;
+		return s.feeds.getFollowingCount(getAccount(s, handle).getUID());
+	}
+
+	// End Follow-related methods ****************************************
+
+	// Post-related methods ****************************************
+
+	@Override
+	public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+		// verification of message
+		if (message.length() > 100 || message.isEmpty()) {
+			throw new InvalidPostException("Message is over 100 characters long OR is empty");
+		}
+		State s = state;
+		Account account = getAccount(s, handle);
+		int pid = s.postIds.next();
+		OriginalPost post = new OriginalPost(message, account, pid);
+		// a new post starts its own thread, locked so a save cannot see it half made
+		int[] stripes = lockThreads(true, pid);
+		try {
+			Lock lock = accountLock(account);
+			lock.lock();
+			try {
+				checkActive(s, account);
+				account.addPost(post);
+				addPost(s, post);
+			} finally {
+				lock.unlock();
+			}
+		} finally {
+			unlockThreads(true, stripes);
+		}
+		// push the post into the feeds of the account's followers once no account lock is held
+		s.feeds.publish(account.getUID(), pid);
+		return pid;
+	}
+
+	@Override
+	public int endorsePost(String handle, int pid)
+			throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
+		State s = state;
+		Account account = getAccount(s, handle);
+		Post post = getPost(s, pid);
+		// check if endorsing an endorsement
+		if (post instanceof Endorsement) {
+			throw new NotActionablePostException("Cannot endorse an endorsement");
+		}
+		int[] stripes = lockThreadOf(s, post, true);
+		if (stripes == null) {
+			throw new PostIDNotRecognisedException("Post ID not recognised");
+		}
+		int endPID;
+		try {
+			Account postAuthor = post.getAuthor();
+			String authorHandle;
+			Lock authorLock = accountLock(postAuthor);
+			authorLock.lock();
+			try {
+				authorHandle = postAuthor.getHandle();
+			} finally {
+				authorLock.unlock();
+			}
+			// Create the endorsement message in the desired format
+			String message = "EP@" + authorHandle + ": " + post.getMessage();
+			Endorsement endorsement = new Endorsement(message, account, post, s.postIds.next());
+			Lock lock = accountLock(account);
+			lock.lock();
+			try {
+				checkActive(s, account);
+				account.addPost(endorsement);
+				addPost(s, endorsement);
+			} finally {
+				lock.unlock();
+			}
+			int count;
+			if (post instanceof OriginalPost) {
+				((OriginalPost) post).addEndorsement(endorsement);
+				count = ((OriginalPost) post).getEndorsementCount();
+			} else {
+				((Comment) post).addEndorsement(endorsement);
+				count = ((Comment) post).getEndorsementCount();
+			}
+			synchronized (s.postRanking) {
+				s.postRanking.put(pid, count);
+			}
+			// the author of the endorsed post has received one more endorsement
+			authorLock.lock();
+			try {
+				postAuthor.incrementEndorsementCount();
+				synchronized (s.accountRanking) {
+					s.accountRanking.put(postAuthor.getUID(), postAuthor.getEndorsementCount());
+				}
+				s.handleIndex.setEndorsements(postAuthor.getHandle(), postAuthor, postAuthor.getEndorsementCount());
+			} finally {
+				authorLock.unlock();
+			}
+			endPID = endorsement.getPid();
+		} finally {
+			unlockThreads(true, stripes);
+		}
+		s.feeds.publish(account.getUID(), endPID);
+		return endPID;
+	}
+
+	@Override
+	public int commentPost(String handle, int pid, String message) throws HandleNotRecognisedException,
+			PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+		// test if message is valid
+		if (message.length() > 100 || message.isEmpty()) {
+			throw new InvalidPostException("Message of post is greater than 100 characters OR is empty");
+		}
+		State s = state;
+		Account account = getAccount(s, handle);
+		Post post = getPost(s, pid);
+		if (post instanceof Endorsement) {
+			throw new NotActionablePostException("Cannot comment on an endorsement");
+		}
+		int[] stripes = lockThreadOf(s, post, true);
+		if (stripes == null) {
+			throw new PostIDNotRecognisedException("Post ID not recognised");
+		}
+		try {
+			Comment comment = new Comment(message, account, post, s.postIds.next());
+			Lock lock = accountLock(account);
+			lock.lock();
+			try {
+				checkActive(s, account);
+				account.addPost(comment);
+				addPost(s, comment);
+			} finally {
+				lock.unlock();
+			}
+			// Add comment to arraylist of comments of parent post
+			if (post instanceof OriginalPost) {
+				((OriginalPost) post).addComment(comment);
+			} else {
+				((Comment) post).addComment(comment);
+			}
+			return comment.getPid();
+		} finally {
+			unlockThreads(true, stripes);
+		}
+	}
+
+	@Override
+	public BatchResult endorseBatch(String[] handles, int[] pids) {
+		State s = state;
+		BatchResult result = new BatchResult(handles.length);
+		Account[] endorsers = new Account[handles.length];
+		LinkedHashMap<Post, ArrayList<Integer>> byPost = result.group(handles, pids, null, s.handles::get,
+				s.posts::get, endorsers);
+		for (Map.Entry<Post, ArrayList<Integer>> group : byPost.entrySet()) {
+			Post post = group.getKey();
+			if (post instanceof Endorsement) {
+				for (int i : group.getValue()) {
+					result.fail(i, new NotActionablePostException("Cannot endorse an endorsement"));
+				}
+				continue;
+			}
+			// every endorsement of the post is made while holding the lock of its thread once
+			int[] stripes = lockThreadOf(s, post, true);
+			if (stripes == null) {
+				for (int i : group.getValue()) {
+					result.fail(i, new PostIDNotRecognisedException("Post ID not recognised"));
+				}
+				continue;
+			}
+			ArrayList<Endorsement> made = new ArrayList<Endorsement>();
+			try {
+				Account postAuthor = post.getAuthor();
+				String authorHandle;
+				Lock authorLock = accountLock(postAuthor);
+				authorLock.lock();
+				try {
+					authorHandle = postAuthor.getHandle();
+				} finally {
+					authorLock.unlock();
+				}
+				String message = "EP@" + authorHandle + ": " + post.getMessage();
+				for (int i : group.getValue()) {
+					Endorsement endorsement = new Endorsement(message, endorsers[i], post, s.postIds.next());
+					Lock lock = accountLock(endorsers[i]);
+					lock.lock();
+					try {
+						checkActive(s, endorsers[i]);
+						endorsers[i].addPost(endorsement);
+						addPost(s, endorsement);
+					} catch (HandleNotRecognisedException e) {
+						// the account was removed after it was looked up
+						result.fail(i, e);
+						continue;
+					} finally {
+						lock.unlock();
+					}
+					if (post instanceof OriginalPost) {
+						((OriginalPost) post).addEndorsement(endorsement);
+					} else {
+						((Comment) post).addEndorsement(endorsement);
+					}
+					made.add(endorsement);
+					result.succeed(i, endorsement.getPid());
+				}
+				if (!made.isEmpty()) {
+					int count = post instanceof OriginalPost ? ((OriginalPost) post).getEndorsementCount()
+							: ((Comment) post).getEndorsementCount();
+					synchronized (s.postRanking) {
+						s.postRanking.put(post.getPid(), count);
+					}
+					// the author of the endorsed post has received every endorsement of the group
+					authorLock.lock();
+					try {
+						for (int i = 0; i < made.size(); i++) {
+							postAuthor.incrementEndorsementCount();
+						}
+						synchronized (s.accountRanking) {
+							s.accountRanking.put(postAuthor.getUID(), postAuthor.getEndorsementCount());
+						}
+						s.handleIndex.setEndorsements(postAuthor.getHandle(), postAuthor,
+								postAuthor.getEndorsementCount());
+					} finally {
+						authorLock.unlock();
+					}
+				}
+			} finally {
+				unlockThreads(true, stripes);
+			}
+			for (Endorsement endorsement : made) {
+				s.feeds.publish(endorsement.getAuthor().getUID(), endorsement.getPid());
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public BatchResult commentBatch(String[] handles, int[] pids, String[] messages) {
+		State s = state;
+		BatchResult result = new BatchResult(handles.length);
+		Account[] commenters = new Account[handles.length];
+		LinkedHashMap<Post, ArrayList<Integer>> byPost = result.group(handles, pids, messages, s.handles::get,
+				s.posts::get, commenters);
+		for (Map.Entry<Post, ArrayList<Integer>> group : byPost.entrySet()) {
+			Post post = group.getKey();
+			if (post instanceof Endorsement) {
+				for (int i : group.getValue()) {
+					result.fail(i, new NotActionablePostException("Cannot comment on an endorsement"));
+				}
+				continue;
+			}
+			int[] stripes = lockThreadOf(s, post, true);
+			if (stripes == null) {
+				for (int i : group.getValue()) {
+					result.fail(i, new PostIDNotRecognisedException("Post ID not recognised"));
+				}
+				continue;
+			}
+			try {
+				for (int i : group.getValue()) {
+					Comment comment = new Comment(messages[i], commenters[i], post, s.postIds.next());
+					Lock lock = accountLock(commenters[i]);
+					lock.lock();
+					try {
+						checkActive(s, commenters[i]);
+						commenters[i].addPost(comment);
+						addPost(s, comment);
+					} catch (HandleNotRecognisedException e) {
+						result.fail(i, e);
+						continue;
+					} finally {
+						lock.unlock();
+					}
+					if (post instanceof OriginalPost) {
+						((OriginalPost) post).addComment(comment);
+					} else {
+						((Comment) post).addComment(comment);
+					}
+					result.succeed(i, comment.getPid());
+				}
+			} finally {
+				unlockThreads(true, stripes);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void deletePost(int pid) throws PostIDNotRecognisedException {
+		State s = state;
+		getPost(s, pid);
+		if (!deletePost(s, pid)) {
+			throw new PostIDNotRecognisedException("Post ID not recognised");
+		}
+	}
+
+	/**
+	 * Deletes a post while holding the lock of its thread and of the generic
+	 * post's thread, which takes in any replies to the deleted post
+	 *
+	 * @param s   contents of the platform
+	 * @param pid post ID of the post being deleted
+	 * @return false if there is no post with the given post ID
+	 */
+	private boolean deletePost(State s, int pid) {
+		Post post = s.posts.get(pid);
+		if (post == null) {
+			return false;
+		}
+		int[] stripes = lockThreadOf(s, post, true, GENERIC_PID);
+		if (stripes == null) {
+			return false;
+		}
+		try {
+			if (post instanceof Endorsement) {
+				deleteEndorsement(s, (Endorsement) post);
+			} else {
+				deleteCommentable(s, post);
+			}
+			return true;
+		} finally {
+			unlockThreads(true, stripes);
+		}
+	}
+
+	/**
+	 * Deletes an original post or a comment, together with its endorsements. Its
+	 * replies are moved under the generic post. Must be called while holding the
+	 * locks of the post's thread and of the generic post's thread.
+	 *
+	 * @param s    contents of the platform
+	 * @param post original post or comment being deleted
+	 */
+	private void deleteCommentable(State s, Post post) {
+		LinkedIdentitySet<Endorsement> endorsements;
+		LinkedIdentitySet<Comment> comments;
+		if (post instanceof OriginalPost) {
+			endorsements = ((OriginalPost) post).getEndorsements();
+			comments = ((OriginalPost) post).getComments();
+		} else {
+			endorsements = ((Comment) post).getEndorsements();
+			comments = ((Comment) post).getComments();
+		}
+		// iterate over a copy since deleteEndorsement removes from the arraylist
+		for (Endorsement endorsement : new ArrayList<Endorsement>(endorsements)) {
+			deleteEndorsement(s, endorsement);
+		}
+		OriginalPost genPost = (OriginalPost) s.posts.get(GENERIC_PID);
+		for (Comment comment : comments) {
+			// a post pointer of 1 corresponds to the generic deleted message
+			comment.setParent(genPost);
+			genPost.addComment(comment);
+		}
+		removeFromAuthor(s, post);
+		removePost(s, post);
+		// remove comment from the arraylist of comments of the post that it commented on
+		if (post instanceof Comment) {
+			Post parent = post.getParent();
+			if (parent instanceof OriginalPost) {
+				((OriginalPost) parent).getComments().remove(post);
+			} else if (parent instanceof Comment) {
+				((Comment) parent).getComments().remove(post);
+			}
+		}
+	}
+
+	/**
+	 * Deletes an endorsement. Must be called while holding the lock of the thread
+	 * of the endorsed post.
+	 *
+	 * @param s           contents of the platform
+	 * @param endorsement endorsement being deleted
+	 */
+	private void deleteEndorsement(State s, Endorsement endorsement) {
+		removeFromAuthor(s, endorsement);
+		removePost(s, endorsement);
+		Post post = endorsement.getParent();
+		int count;
+		if (post instanceof OriginalPost) {
+			((OriginalPost) post).getEndorsements().remove(endorsement);
+			count = ((OriginalPost) post).getEndorsementCount();
+		} else {
+			((Comment) post).getEndorsements().remove(endorsement);
+			count = ((Comment) post).getEndorsementCount();
+		}
+		synchronized (s.postRanking) {
+			s.postRanking.put(post.getPid(), count);
+		}
+		// the author of the endorsed post has lost one endorsement
+		Account postAuthor = post.getAuthor();
+		Lock lock = accountLock(postAuthor);
+		lock.lock();
+		try {
+			postAuthor.decrementEndorsementCount();
+			synchronized (s.accountRanking) {
+				if (s.accounts.get(postAuthor.getUID()) == postAuthor) {
+					s.accountRanking.put(postAuthor.getUID(), postAuthor.getEndorsementCount());
+				}
+			}
+			s.handleIndex.setEndorsements(postAuthor.getHandle(), postAuthor, postAuthor.getEndorsementCount());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes a post from the posts list of the account that made it
+	 *
+	 * @param s    contents of the platform
+	 * @param post post being removed
+	 */
+	private void removeFromAuthor(State s, Post post) {
+		Account author = post.getAuthor();
+		Lock lock = accountLock(author);
+		lock.lock();
+		try {
+			author.removePost(post);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public String showIndividualPost(int pid) throws PostIDNotRecognisedException {
+		State s = state;
+		Post post = getPost(s, pid);
+		int[] stripes = lockThreadOf(s, post, false);
+		if (stripes == null) {
+			throw new PostIDNotRecognisedException("Post ID not recognised");
+		}
+		try {
+			return ThreadRenderer.formatPost(post);
+		} finally {
+			unlockThreads(false, stripes);
+		}
+	}
+
+	@Override
+	public StringBuilder showPostChildrenDetails(int id)
+			throws PostIDNotRecognisedException, NotActionablePostException {
+		StringBuilder format = new StringBuilder();
+		try {
+			showPostChildrenDetails(id, format, ThreadRenderer.UNLIMITED, ThreadRenderer.UNLIMITED);
+		} catch (IOException e) {
+			// appending to a StringBuilder never fails
+			throw new UncheckedIOException(e);
+		}
+		return format;
+	}
+
+	@Override
+	public void showPostChildrenDetails(int id, Appendable out, int maxDepth, int maxBreadth)
+			throws PostIDNotRecognisedException, NotActionablePostException, IOException {
+		State s = state;
+		Post post = getPost(s, id);
+		if (post instanceof Endorsement) {
+			throw new NotActionablePostException();
+		}
+		// every reply to a post belongs to the same thread as the post
+		int[] stripes = lockThreadOf(s, post, false);
+		if (stripes == null) {
+			throw new PostIDNotRecognisedException("Post ID not recognised");
+		}
+		try {
+			// a slow out holds up changes to the thread while it is written
+			ThreadRenderer.render(post, out, maxDepth, maxBreadth);
+		} finally {
+			unlockThreads(false, stripes);
+		}
+	}
+
+	@Override
+	public ThreadPage getPostChildren(int pid, Cursor after, int limit)
+			throws PostIDNotRecognisedException, NotActionablePostException {
+		State s = state;
+		Post post = getPost(s, pid);
+		if (post instanceof Endorsement) {
+			throw new NotActionablePostException();
+		}
+		// only held while the page is read, so changes made between pages show up in later pages
+		int[] stripes = lockThreadOf(s, post, false);
+		if (stripes == null) {
+			throw new PostIDNotRecognisedException("Post ID not recognised");
+		}
+		try {
+			return ThreadPage.read(post, after, limit, s.posts::get);
+		} finally {
+			unlockThreads(false, stripes);
+		}
+	}
+
+	// End Post-related methods ****************************************
+
+	// Analytics-related methods ****************************************
+
+	@Override
+	public int getNumberOfAccounts() {
+		return state.accounts.size();
+	}
+
+	@Override
+	public int getTotalOriginalPosts() {
+		return state.originalPostCount.intValue();
+	}
+
+	@Override
+	public int getTotalEndorsmentPosts() {
+		return state.endorsementPostCount.intValue();
+	}
+
+	@Override
+	public int getTotalCommentPosts() {
+		return state.commentPostCount.intValue();
+	}
+
+	@Override
+	public PlatformStats getPlatformStats() {
+		State s = state;
+		// posts are counted as they are added and removed under their thread locks, so
+		// holding every thread lock makes the post counts agree with each other
+		int[] stripes = lockAllThreads();
+		try {
+			return new PlatformStats(s.accounts.size(), s.originalPostCount.intValue(),
+					s.commentPostCount.intValue(), s.endorsementPostCount.intValue());
+		} finally {
+			unlockThreads(false, stripes);
+		}
+	}
+
+	@Override
+	public int getMostEndorsedPost() {
+		State s = state;
+		synchronized (s.postRanking) {
+			return s.postRanking.first();
+		}
+	}
+
+	@Override
+	public int getMostEndorsedAccount() {
+		State s = state;
+		synchronized (s.accountRanking) {
+			return s.accountRanking.first();
+		}
+	}
+
+	@Override
+	public int[] topEndorsedPosts(int k) {
+		State s = state;
+		synchronized (s.postRanking) {
+			return s.postRanking.top(k);
+		}
+	}
+
+	@Override
+	public int[] topEndorsedAccounts(int k) {
+		State s = state;
+		synchronized (s.accountRanking) {
+			return s.accountRanking.top(k);
+		}
+	}
+
+	// End Analytics-related methods ****************************************
+
+	// Management-related methods ****************************************
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
+	@Override
+	public void erasePlatform() {
+		// calls still running finish against the old contents, which are discarded
+		state = newState();
+	}
+
+	@Override
+	public void savePlatform(String filename) throws IOException {
+		State s = state;
+		// holding every thread lock for reading stops all changes to posts while saving
+		int[] stripes = lockAllThreads();
+		try {
+			// accounts that are being removed are still saved, along with the posts they have left
+			ArrayList<Account> accounts = new ArrayList<Account>(s.accounts.values());
+			PlatformSnapshot.write(filename, accounts, s.posts.values(), s.accountIds.peek(), s.postIds.peek(),
+					followsBetween(accounts, s.feeds.getFollows()),
+					PlatformSnapshot.newGeneration(PlatformSnapshot.NO_GENERATION));
+		} finally {
+			unlockThreads(false, stripes);
+		}
+	}
+
+	/**
+	 * Keeps the follows whose accounts are both being saved. Accounts are created
+	 * and removed without the thread locks, so the follows, copied after the
+	 * accounts, can include accounts created or removed in between.
+	 *
+	 * @param accounts accounts being saved
+	 * @param follows  pairs of follower and followee user IDs
+	 * @return pairs of follower and followee user IDs of saved accounts
+	 */
+	private static int[] followsBetween(ArrayList<Account> accounts, int[] follows) {
+		Set<Integer> saved = new HashSet<Integer>();
+		for (Account account : accounts) {
+			saved.add(account.getUID());
+		}
+		int[] kept = new int[follows.length];
+		int count = 0;
+		for (int i = 0; i < follows.length; i += 2) {
+			if (saved.contains(follows[i]) && saved.contains(follows[i + 1])) {
+				kept[count++] = follows[i];
+				kept[count++] = follows[i + 1];
+			}
+		}
+		return Arrays.copyOf(kept, count);
+	}
+
+	@Override
+	public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+		// read everything into new collections so the platform is unchanged if reading fails
+		PlatformSnapshot snapshot = PlatformSnapshot.read(filename);
+		State s = new State(this);
+		for (Account account : snapshot.getAccounts()) {
+			s.accounts.put(account.getUID(), account);
+			s.handles.put(account.getHandle(), account);
+			s.handleIndex.add(account.getHandle(), account, account.getEndorsementCount());
+			s.accountRanking.put(account.getUID(), account.getEndorsementCount());
+		}
+		for (Post post : snapshot.getPosts()) {
+			addPost(s, post);
+			if (post instanceof OriginalPost) {
+				s.postRanking.put(post.getPid(), ((OriginalPost) post).getEndorsementCount());
+			} else if (post instanceof Comment) {
+				s.postRanking.put(post.getPid(), ((Comment) post).getEndorsementCount());
+			}
+		}
+		s.accountIds.reset(snapshot.getNextUid());
+		s.postIds.reset(snapshot.getNextPid());
+		int[] follows = snapshot.getFollows();
+		for (int i = 0; i < follows.length; i += 2) {
+			s.feeds.follow(follows[i], follows[i + 1]);
+		}
+		state = s;
+	}
+
+	// End Management-related methods ****************************************
+}
@@ -0,0 +1,66 @@
+/**
+ * Represents a cursor into a thread, located in the social media package
+ * A cursor marks the last comment returned in a page of a thread, so the next page carries on from the comment after it.
+ * The cursor only holds post IDs, so it can be kept by a client between requests without the platform keeping anything for it.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+public final class Cursor {
+    private final int rootPid;
+    private final int lastPid;
+
+    /**
+     * Creates a cursor
+     *
+     * @param rootPid post ID of the post at the top of the thread being read
+     * @param lastPid post ID of the last comment that was returned
+     */
+    public Cursor(int rootPid, int lastPid) {
+        this.rootPid = rootPid;
+        this.lastPid = lastPid;
+    }
+
+
+    /** Gets the post at the top of the thread
+     *
+     * @return post ID of the post at the top of the thread being read
+     */
+    public int getRootPid() {
+        return rootPid;
+    }
+
+
+    /** Gets the last comment returned
+     *
+     * @return post ID of the last comment that was returned
+     */
+    public int getLastPid() {
+        return lastPid;
+    }
+
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Cursor)) {
+            return false;
+        }
+        Cursor cursor = (Cursor) other;
+        return rootPid == cursor.rootPid && lastPid == cursor.lastPid;
+    }
+
+
+    @Override
+    public int hashCode() {
+        return 31 * rootPid + lastPid;
+    }
+
+
+    @Override
+    public String toString() {
+        return rootPid + ":" + lastPid;
+    }
+}
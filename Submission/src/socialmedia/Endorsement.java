@@ -1,6 +1,6 @@
 /**
  * Represents an endorsement, which extends the class Post, which is located in the social media package
- * An endorsement is made up of a message, author, post ID (pid) and a postpointer(points to parent post)
+ * An endorsement is made up of a message, author, post ID (pid) and a reference to its parent post
  * 
  * @author Jeroen Mijer, Alexander Robertson
  * @version 1.0
@@ -9,29 +9,39 @@
 package socialmedia;
 public class Endorsement extends Post {
 
-    Integer postPointer; // holds the postID that the endorsement is endorsing
+    Post parent; // holds the post that the endorsement is endorsing
 
     /**
      * Creates an endorsement
      * 
      * @param message message of the endorsement
      * @param author author of the endorsement
-     * @param postPointer post ID of the parent post
+     * @param parent parent post
      * @param pid post ID of the endorsement
      */
-    public Endorsement(String message, Account author, Integer postPointer, Integer pid) {
+    public Endorsement(String message, Account author, Post parent, Integer pid) {
         super(message, author, pid);
-        this.postPointer = postPointer;
+        this.parent = parent;
 
     }
 
     
     /** Gets the post pointer of an endorsement
      * 
-     * @return post pointer of an endorsement
+     * @return post ID of the parent post of an endorsement
      */
     public Integer getPostPointer() {
-        return postPointer;
+        return parent.getPid();
+    }
+
+
+    /** Gets the parent post
+     * 
+     * @return post that the endorsement is endorsing
+     */
+    @Override
+    public Post getParent() {
+        return parent;
     }
 
 }
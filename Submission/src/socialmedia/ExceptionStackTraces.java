@@ -0,0 +1,25 @@
+/**
+ * Represents the setting for whether the platform's exceptions capture a stack trace, located in the social media package
+ * Filling in a stack trace walks every frame of the thread that threw, which costs far more than the rest of a failed lookup. Clients
+ * probing handles or post IDs that do not exist can make millions of failed calls, so the stack trace can be turned off by starting the
+ * JVM with -Dsocialmedia.exceptions.stackTrace=false. The exceptions then cost little more than a normal return, but print with no
+ * frames. The setting is read once, when the platform's first exception is made, by SocialMediaException, the base of them all.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+final class ExceptionStackTraces {
+    // name of the system property turning stack traces off when set to false
+    static final String PROPERTY = "socialmedia.exceptions.stackTrace";
+    // true unless the property is set to false, final so the JIT can drop the check
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(PROPERTY, "true"));
+
+    /**
+     * Not used, the class only holds the setting
+     */
+    private ExceptionStackTraces() {
+    }
+}
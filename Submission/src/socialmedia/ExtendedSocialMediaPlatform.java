@@ -0,0 +1,261 @@
+package socialmedia;
+
+import java.io.IOException;
+
+/**
+ * ExtendedSocialMediaPlatform interface. This interface adds the features built
+ * on top of the SocialMediaPlatform, which is kept as it was given so that
+ * existing implementations of it still compile. Both SocialMedia and
+ * ConcurrentSocialMedia implement it, and the decorators wrapping a platform
+ * pass each of its methods through.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+public interface ExtendedSocialMediaPlatform extends SocialMediaPlatform {
+
+	// Account-related methods ****************************************
+
+	/**
+	 * The method finds the accounts whose handles start with a prefix, such as
+	 * the part of an @-mention typed so far. Matches are returned in alphabetical
+	 * order of handle, or, if ranked, by the number of endorsements each account
+	 * has received, most first, with ties in alphabetical order.
+	 *
+	 * @param prefix             start of the handles to find. The empty prefix
+	 *                           matches every handle.
+	 * @param limit              the most handles to return, at least 1.
+	 * @param rankByEndorsements whether to rank the matches by endorsements.
+	 * @throws IllegalArgumentException if limit is less than 1.
+	 * @return the handles of at most limit matching accounts.
+	 */
+	String[] searchHandles(String prefix, int limit, boolean rankByEndorsements);
+
+	/**
+	 * The method returns a page of the posts of one type made by an account,
+	 * newest first. Pages are found by post ID instead of by position, so posts
+	 * made or deleted between pages never shift a page, and each page takes time
+	 * proportional to its size however many posts the account has made.
+	 *
+	 * @param handle    handle of the account.
+	 * @param type      type of post to be returned.
+	 * @param beforePid only posts with a lower ID are returned, taken from the
+	 *                  previous page, or 0 to start from the newest post.
+	 * @param limit     the most posts on the page, at least 1.
+	 * @throws HandleNotRecognisedException if the handle does not match to any
+	 *                                      account in the system.
+	 * @throws IllegalArgumentException     if limit is less than 1.
+	 * @return page of at most limit posts with their creation times.
+	 */
+	TimelinePage getAccountTimeline(String handle, PostType type, int beforePid, int limit)
+			throws HandleNotRecognisedException;
+
+	// End Account-related methods ****************************************
+
+	// Post-related methods ****************************************
+
+	/**
+	 * The method writes the details of a post followed by its replies, each
+	 * indented to show the reply tree, in the same format as
+	 * showPostChildrenDetails(int). The tree is written as it is walked instead of
+	 * being built up in memory first, and can be cut short by depth and breadth
+	 * limits.
+	 *
+	 * @param id         ID of the original post or comment to be shown.
+	 * @param out        where the details are written, such as a Writer or
+	 *                   StringBuilder.
+	 * @param maxDepth   deepest level of replies shown, where 1 is only the direct
+	 *                   replies to the post, or Integer.MAX_VALUE for no limit.
+	 * @param maxBreadth most replies shown for each post, or Integer.MAX_VALUE for
+	 *                   no limit.
+	 * @throws PostIDNotRecognisedException if the ID does not match to any post in
+	 *                                      the system.
+	 * @throws NotActionablePostException   if the ID refers to an endorsement.
+	 * @throws IOException                  if there is a problem writing to out.
+	 */
+	void showPostChildrenDetails(int id, Appendable out, int maxDepth, int maxBreadth)
+			throws PostIDNotRecognisedException, NotActionablePostException, IOException;
+
+	/**
+	 * The method returns a page of the comments below a post, in the depth-first
+	 * order used by showPostChildrenDetails. Each page ends with a cursor to pass
+	 * in for the next page, so a thread can be read a page at a time without
+	 * building all of it. Changes made to the thread between pages show up in
+	 * later pages.
+	 *
+	 * @param pid   ID of the original post or comment at the top of the thread.
+	 * @param after cursor returned with the previous page, or null for the first
+	 *              page.
+	 * @param limit the most comments on the page, at least 1.
+	 * @throws PostIDNotRecognisedException if the ID does not match to any post in
+	 *                                      the system.
+	 * @throws NotActionablePostException   if the ID refers to an endorsement.
+	 * @throws IllegalArgumentException     if limit is less than 1, or the cursor
+	 *                                      belongs to another thread or its comment
+	 *                                      has been deleted.
+	 * @return page of at most limit comments and the cursor for the next page.
+	 */
+	ThreadPage getPostChildren(int pid, Cursor after, int limit)
+			throws PostIDNotRecognisedException, NotActionablePostException;
+
+	// End Post-related methods ****************************************
+
+	// Follow-related methods ****************************************
+
+	/**
+	 * The method makes one account follow another, so the original posts and
+	 * endorsements of the followed account appear in the home feed of the
+	 * follower. Following an account that is already followed, or following
+	 * oneself, leaves the platform unchanged.
+	 * <p>
+	 * The state of this SocialMediaPlatform must be be unchanged if any exceptions
+	 * are thrown.
+	 *
+	 * @param followerHandle handle of the account following.
+	 * @param followeeHandle handle of the account to be followed.
+	 * @throws HandleNotRecognisedException if either handle does not match to any
+	 *                                      account in the system.
+	 */
+	void follow(String followerHandle, String followeeHandle) throws HandleNotRecognisedException;
+
+	/**
+	 * The method makes one account stop following another. Unfollowing an account
+	 * that is not followed leaves the platform unchanged.
+	 * <p>
+	 * The state of this SocialMediaPlatform must be be unchanged if any exceptions
+	 * are thrown.
+	 *
+	 * @param followerHandle handle of the account following.
+	 * @param followeeHandle handle of the account to be unfollowed.
+	 * @throws HandleNotRecognisedException if either handle does not match to any
+	 *                                      account in the system.
+	 */
+	void unfollow(String followerHandle, String followeeHandle) throws HandleNotRecognisedException;
+
+	/**
+	 * The method returns a page of the home feed of an account: the original
+	 * posts and endorsements made by the accounts it follows, newest first. To
+	 * read the next page, pass in the last ID of the previous page as beforePid.
+	 *
+	 * @param handle    handle of the account whose feed is read.
+	 * @param beforePid only posts with a lower ID are returned, or 0 to start
+	 *                  from the newest post.
+	 * @param limit     the most posts to return, at least 1.
+	 * @throws HandleNotRecognisedException if the handle does not match to any
+	 *                                      account in the system.
+	 * @return the IDs of at most limit posts, newest first.
+	 */
+	int[] getHomeFeed(String handle, int beforePid, int limit) throws HandleNotRecognisedException;
+
+	/**
+	 * The method returns the number of accounts following an account.
+	 *
+	 * @param handle handle of the account.
+	 * @throws HandleNotRecognisedException if the handle does not match to any
+	 *                                      account in the system.
+	 * @return the number of followers of the account.
+	 */
+	int getFollowerCount(String handle) throws HandleNotRecognisedException;
+
+	/**
+	 * The method returns the number of accounts an account follows.
+	 *
+	 * @param handle handle of the account.
+	 * @throws HandleNotRecognisedException if the handle does not match to any
+	 *                                      account in the system.
+	 * @return the number of accounts followed by the account.
+	 */
+	int getFollowingCount(String handle) throws HandleNotRecognisedException;
+
+	// End Follow-related methods ****************************************
+
+	// Batch methods ****************************************
+
+	/**
+	 * The method endorses many posts at once, as if endorsePost had been called
+	 * for each item in turn. Item i is an endorsement by handles[i] of the post
+	 * with ID pids[i]. Each handle and post ID is only looked up once, and the
+	 * items endorsing the same post are made together, so many endorsements of a
+	 * popular post are much cheaper than separate calls.
+	 * <p>
+	 * An item that cannot be made, because its handle or post ID is not
+	 * recognised or its post is an endorsement, has the exception endorsePost
+	 * would have thrown recorded in the result, and the other items are still
+	 * made. Items are not necessarily given post IDs in the order they appear.
+	 *
+	 * @param handles handle of the account making each endorsement.
+	 * @param pids    ID of the post endorsed by each endorsement.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 * @return the sequential ID or exception of each item.
+	 */
+	BatchResult endorseBatch(String[] handles, int[] pids);
+
+	/**
+	 * The method comments on many posts at once, as if commentPost had been called
+	 * for each item in turn. Item i is a comment by handles[i] on the post with ID
+	 * pids[i] with message messages[i]. Each handle and post ID is only looked up
+	 * once, and the items commenting on the same post are made together.
+	 * <p>
+	 * An item that cannot be made has the exception commentPost would have thrown
+	 * recorded in the result, and the other items are still made. Items are not
+	 * necessarily given post IDs in the order they appear.
+	 *
+	 * @param handles  handle of the account making each comment.
+	 * @param pids     ID of the post commented on by each comment.
+	 * @param messages message of each comment.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 * @return the sequential ID or exception of each item.
+	 */
+	BatchResult commentBatch(String[] handles, int[] pids, String[] messages);
+
+	// End Batch methods ****************************************
+
+	// Analytics-related methods ****************************************
+
+	/**
+	 * The method returns the number of accounts and of posts of each type, all
+	 * read at the same moment so that they agree with each other.
+	 *
+	 * @return snapshot of the platform statistics.
+	 */
+	PlatformStats getPlatformStats();
+
+	/**
+	 * The method returns the most endorsed posts, from most to least endorsed.
+	 * Posts with the same number of endorsements are ranked from the oldest to
+	 * the newest. Endorsements are not ranked since they cannot be endorsed.
+	 *
+	 * @param k the most post IDs to return.
+	 * @return the IDs of at most k posts, most endorsed first.
+	 */
+	int[] topEndorsedPosts(int k);
+
+	/**
+	 * The method returns the most endorsed accounts, from most to least endorsed.
+	 * Accounts with the same number of endorsements are ranked from the oldest to
+	 * the newest.
+	 *
+	 * @param k the most user IDs to return.
+	 * @return the IDs of at most k accounts, most endorsed first.
+	 */
+	int[] topEndorsedAccounts(int k);
+
+	// End Analytics-related methods ****************************************
+
+	// Management-related methods ****************************************
+
+	/**
+	 * The method tells whether the platform can be called from more than one
+	 * thread at once without an outside lock. A decorator wrapping a platform
+	 * answers for the platform it wraps, so callers such as
+	 * AsyncSocialMediaPlatform can decide how to call it without knowing its
+	 * class.
+	 *
+	 * @return true if the platform is safe to share between threads.
+	 */
+	boolean isThreadSafe();
+
+	// End Management-related methods ****************************************
+
+}
@@ -0,0 +1,756 @@
+/**
+ * Represents the follow graph and home feeds of the platform, located in the social media package
+ * The engine is made up of who follows whom and an inbox of recent post IDs for each account that has read its home feed.
+ * <p>
+ * A home feed holds the original posts and endorsements made by the accounts being followed, newest first. Posts by ordinary accounts are
+ * pushed into the inboxes of their followers as they are made (fan-out on write), so a feed read mostly walks one inbox. Posts by accounts
+ * with at least celebrityThreshold followers are not pushed, since that would write to too many inboxes, and are instead merged in from
+ * the account's timeline when the feed is read (fan-out on read).
+ * <p>
+ * Inboxes are only built the first time an account reads its feed and hold at most inboxCapacity posts. Every post made by an ordinary
+ * followed account with a post ID of at least the inbox's floor is in the inbox; older posts are read from the timelines directly.
+ * Following, unfollowing and an account becoming or stopping being a celebrity drop the inboxes that are affected, which are then built
+ * again on the next read. Deleted posts are left in inboxes and skipped when the feed is read.
+ * <p>
+ * One engine can be shared between threads. The follows and inbox of each account are guarded by a striped lock chosen by its user ID,
+ * so follows, posts and feed reads of different accounts do not wait for each other. A follow or unfollow holds the locks of both
+ * accounts, and a post takes the lock of each follower in turn to push into its inbox. Changes that make an account a celebrity or an
+ * ordinary account again, which drop the inboxes of all of its followers, and removing an account, saving and clearing hold every lock,
+ * so a feed read, which holds the lock of its account, always sees the same accounts as celebrities. Locks are taken in ascending stripe
+ * order, before any lock of the platform.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class FeedEngine {
+    /** Number of followers at which an account's posts are merged in on read, used by the platforms */
+    static final int CELEBRITY_THRESHOLD = 10000;
+    /** Most posts held in each inbox, used by the platforms */
+    static final int INBOX_CAPACITY = 1000;
+    // number of lock stripes, must be a power of two
+    private static final int STRIPES = 64;
+
+    /**
+     * Gives the engine access to the posts of the platform
+     */
+    interface Source {
+        /** Gets the newest original posts and endorsements made by an account
+         *
+         * @param uid user ID of the account
+         * @param beforePid only posts with a lower post ID are returned, or 0 for no limit
+         * @param limit most posts returned
+         * @return post IDs of at most limit posts, newest first, or an empty array if there is no such account
+         */
+        int[] newestPosts(int uid, int beforePid, int limit);
+
+        /** Checks whether a post is still on the platform
+         *
+         * @param pid post ID of the post
+         * @return true if the post has not been deleted
+         */
+        boolean isVisible(int pid);
+    }
+
+    private final int celebrityThreshold;
+    private final int inboxCapacity;
+    private final Source source;
+    // follows and inbox of each account that follows or is followed, changed only under the lock of the account
+    private final ConcurrentHashMap<Integer, Node> nodes;
+    private final ReentrantLock[] locks;
+
+    /**
+     * Creates an engine with no follows and no inboxes
+     *
+     * @param celebrityThreshold number of followers at which an account's posts are merged in on read instead of pushed on write
+     * @param inboxCapacity most posts held in each inbox
+     * @param source access to the posts of the platform
+     */
+    FeedEngine(int celebrityThreshold, int inboxCapacity, Source source) {
+        this.celebrityThreshold = celebrityThreshold;
+        this.inboxCapacity = inboxCapacity;
+        this.source = source;
+        this.nodes = new ConcurrentHashMap<Integer, Node>();
+        this.locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+
+    /** Makes one account follow another
+     *
+     * @param follower user ID of the account following
+     * @param followee user ID of the account being followed
+     * @return true if the follow was added, false if it already existed or the accounts are the same
+     */
+    boolean follow(int follower, int followee) {
+        if (follower == followee) {
+            return false;
+        }
+        lockPair(follower, followee);
+        try {
+            // one short of the threshold is the only count a follow can make a celebrity from
+            if (getFollowerCountLocked(followee) != celebrityThreshold - 1) {
+                return addFollow(follower, followee);
+            }
+        } finally {
+            unlockPair(follower, followee);
+        }
+        lockAll();
+        try {
+            return addFollow(follower, followee);
+        } finally {
+            unlockAll();
+        }
+    }
+
+
+    /** Makes one account stop following another
+     *
+     * @param follower user ID of the account following
+     * @param followee user ID of the account being followed
+     * @return true if the follow was removed, false if it did not exist
+     */
+    boolean unfollow(int follower, int followee) {
+        lockPair(follower, followee);
+        try {
+            // the threshold is the only count an unfollow can make an ordinary account from
+            if (getFollowerCountLocked(followee) != celebrityThreshold) {
+                return removeFollow(follower, followee);
+            }
+        } finally {
+            unlockPair(follower, followee);
+        }
+        lockAll();
+        try {
+            return removeFollow(follower, followee);
+        } finally {
+            unlockAll();
+        }
+    }
+
+
+    /** Checks whether one account follows another
+     *
+     * @param follower user ID of the account following
+     * @param followee user ID of the account being followed
+     * @return true if follower follows followee
+     */
+    boolean isFollowing(int follower, int followee) {
+        ReentrantLock lock = lockOf(follower);
+        lock.lock();
+        try {
+            Node node = nodes.get(follower);
+            return node != null && node.following.contains(followee);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /** Gets the number of followers of an account
+     *
+     * @param uid user ID of the account
+     * @return number of accounts following the account
+     */
+    int getFollowerCount(int uid) {
+        ReentrantLock lock = lockOf(uid);
+        lock.lock();
+        try {
+            return getFollowerCountLocked(uid);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /** Gets the number of accounts an account follows
+     *
+     * @param uid user ID of the account
+     * @return number of accounts the account follows
+     */
+    int getFollowingCount(int uid) {
+        ReentrantLock lock = lockOf(uid);
+        lock.lock();
+        try {
+            Node node = nodes.get(uid);
+            return node == null ? 0 : node.following.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /** Gets every follow, used to save the follow graph
+     *
+     * @return pairs of follower and followee user IDs, two entries per follow
+     */
+    int[] getFollows() {
+        lockAll();
+        try {
+            int count = 0;
+            for (Node node : nodes.values()) {
+                count += node.following.size();
+            }
+            int[] follows = new int[count * 2];
+            int i = 0;
+            for (Map.Entry<Integer, Node> entry : nodes.entrySet()) {
+                for (int followee : entry.getValue().following) {
+                    follows[i++] = entry.getKey();
+                    follows[i++] = followee;
+                }
+            }
+            return follows;
+        } finally {
+            unlockAll();
+        }
+    }
+
+
+    /** Pushes a new post into the inboxes of the followers of its author, unless the author is a celebrity
+     *
+     * @param author user ID of the account that made the post
+     * @param pid post ID of the original post or endorsement
+     */
+    void publish(int author, int pid) {
+        // each follower with its stripe in the high half, so sorting groups the followers of each stripe together
+        long[] audience;
+        ReentrantLock lock = lockOf(author);
+        lock.lock();
+        try {
+            Node node = nodes.get(author);
+            if (node == null || node.followers.isEmpty() || node.followers.size() >= celebrityThreshold) {
+                return;
+            }
+            audience = new long[node.followers.size()];
+            int i = 0;
+            for (int follower : node.followers) {
+                audience[i++] = (long) stripeOf(follower) << 32 | follower;
+            }
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(audience);
+        int held = -1;
+        try {
+            for (long entry : audience) {
+                int stripe = (int) (entry >>> 32);
+                if (stripe != held) {
+                    if (held >= 0) {
+                        locks[held].unlock();
+                    }
+                    locks[stripe].lock();
+                    held = stripe;
+                }
+                Node follower = nodes.get((int) entry);
+                // inboxes that have not been built yet will find the post when they are, and an account that has
+                // unfollowed the author since its followers were copied must not get the post
+                if (follower != null && follower.inbox != null && follower.following.contains(author)) {
+                    follower.inbox.add(pid, inboxCapacity);
+                }
+            }
+        } finally {
+            if (held >= 0) {
+                locks[held].unlock();
+            }
+        }
+    }
+
+
+    /** Removes an account and every follow it is part of
+     *
+     * @param uid user ID of the account being removed
+     */
+    void removeAccount(int uid) {
+        lockAll();
+        try {
+            Node removed = nodes.remove(uid);
+            if (removed == null) {
+                return;
+            }
+            for (int followee : removed.following) {
+                Node audience = nodes.get(followee);
+                audience.followers.remove(uid);
+                if (audience.followers.size() == celebrityThreshold - 1) {
+                    dropInboxes(audience.followers);
+                }
+                discardIfUnused(followee, audience);
+            }
+            for (int follower : removed.followers) {
+                Node others = nodes.get(follower);
+                others.following.remove(uid);
+                discardIfUnused(follower, others);
+            }
+            // the account's posts are deleted, so its followers' inboxes are left to skip them
+        } finally {
+            unlockAll();
+        }
+    }
+
+
+    /** Removes every follow and inbox
+     */
+    void clear() {
+        lockAll();
+        try {
+            nodes.clear();
+        } finally {
+            unlockAll();
+        }
+    }
+
+
+    /** Reads a page of an account's home feed
+     *
+     * @param uid user ID of the account
+     * @param beforePid only posts with a lower post ID are returned, taken from the previous page, or 0 to start from the newest post
+     * @param limit most posts returned
+     * @return post IDs of at most limit original posts and endorsements by followed accounts, newest first
+     */
+    int[] getHomeFeed(int uid, int beforePid, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Feed limit must be at least 1");
+        }
+        ReentrantLock lock = lockOf(uid);
+        lock.lock();
+        try {
+            Node node = nodes.get(uid);
+            if (node == null || node.following.isEmpty()) {
+                return new int[0];
+            }
+            Set<Integer> followed = node.following;
+            int before = beforePid > 0 ? beforePid : Integer.MAX_VALUE;
+            if (node.inbox == null) {
+                node.inbox = buildInbox(followed);
+            }
+            Inbox inbox = node.inbox;
+
+            // newer posts come from the inbox, with the posts of celebrities merged in
+            Merge merge = new Merge(limit);
+            if (before > inbox.floor) {
+                merge.add(inbox.newest(before), inbox.floor);
+                for (int followee : followed) {
+                    if (isCelebrity(followee)) {
+                        merge.add(source.newestPosts(followee, before, limit), inbox.floor);
+                    }
+                }
+                merge.run();
+            }
+            // posts older than the inbox covers are read from every timeline
+            if (!merge.isFull() && inbox.floor > 0) {
+                int olderThan = Math.min(before, inbox.floor);
+                Merge older = new Merge(limit - merge.count);
+                for (int followee : followed) {
+                    older.add(source.newestPosts(followee, olderThan, limit - merge.count), 0);
+                }
+                older.run();
+                merge.append(older);
+            }
+            return Arrays.copyOf(merge.pids, merge.count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /** Adds a follow, holding the locks of both accounts, and every lock if it can make the followee a celebrity
+     *
+     * @param follower user ID of the account following
+     * @param followee user ID of the account being followed
+     * @return true if the follow was added, false if it already existed
+     */
+    private boolean addFollow(int follower, int followee) {
+        Node from = nodes.computeIfAbsent(follower, k -> new Node());
+        if (!from.following.add(followee)) {
+            return false;
+        }
+        Node to = nodes.computeIfAbsent(followee, k -> new Node());
+        to.followers.add(follower);
+        to.followerCount = to.followers.size();
+        from.inbox = null;
+        if (to.followerCount == celebrityThreshold) {
+            // the followee's posts are no longer pushed, so the inboxes holding them are out of date
+            dropInboxes(to.followers);
+        }
+        return true;
+    }
+
+
+    /** Removes a follow, holding the locks of both accounts, and every lock if it can make the followee an ordinary account
+     *
+     * @param follower user ID of the account following
+     * @param followee user ID of the account being followed
+     * @return true if the follow was removed, false if it did not exist
+     */
+    private boolean removeFollow(int follower, int followee) {
+        Node from = nodes.get(follower);
+        if (from == null || !from.following.remove(followee)) {
+            return false;
+        }
+        from.inbox = null;
+        Node to = nodes.get(followee);
+        to.followers.remove(follower);
+        to.followerCount = to.followers.size();
+        if (to.followerCount == celebrityThreshold - 1) {
+            // the followee's posts are pushed again, but the inboxes do not hold its older posts
+            dropInboxes(to.followers);
+        }
+        discardIfUnused(follower, from);
+        discardIfUnused(followee, to);
+        return true;
+    }
+
+
+    /** Gets the number of followers of an account, holding its lock
+     *
+     * @param uid user ID of the account
+     * @return number of accounts following the account
+     */
+    private int getFollowerCountLocked(int uid) {
+        Node node = nodes.get(uid);
+        return node == null ? 0 : node.followerCount;
+    }
+
+
+    /** Checks whether an account has enough followers for its posts to be merged in on read, holding the lock of any account
+     *
+     * @param uid user ID of the account
+     * @return true if the account is a celebrity
+     */
+    private boolean isCelebrity(int uid) {
+        // an account only becomes or stops being a celebrity while every lock is held, so any one lock is enough to read it
+        Node node = nodes.get(uid);
+        return node != null && node.followerCount >= celebrityThreshold;
+    }
+
+
+    /** Drops the inboxes of a set of accounts, so they are built again on the next read, holding every lock
+     *
+     * @param uids user IDs of the accounts
+     */
+    private void dropInboxes(Set<Integer> uids) {
+        for (int uid : uids) {
+            Node node = nodes.get(uid);
+            if (node != null) {
+                node.inbox = null;
+            }
+        }
+    }
+
+
+    /** Forgets an account that no longer follows or is followed by anyone, holding its lock
+     *
+     * @param uid user ID of the account
+     * @param node follows and inbox of the account
+     */
+    private void discardIfUnused(int uid, Node node) {
+        if (node.following.isEmpty() && node.followers.isEmpty()) {
+            nodes.remove(uid, node);
+        }
+    }
+
+
+    /** Gets the lock stripe of an account
+     *
+     * @param uid user ID of the account
+     * @return index of the account's lock
+     */
+    private static int stripeOf(int uid) {
+        return uid & (STRIPES - 1);
+    }
+
+
+    /** Gets the lock guarding the follows and inbox of an account
+     *
+     * @param uid user ID of the account
+     * @return lock of the account's stripe
+     */
+    private ReentrantLock lockOf(int uid) {
+        return locks[stripeOf(uid)];
+    }
+
+
+    /** Takes the locks of two accounts in ascending stripe order
+     *
+     * @param a user ID of one account
+     * @param b user ID of the other account
+     */
+    private void lockPair(int a, int b) {
+        int first = Math.min(stripeOf(a), stripeOf(b));
+        int second = Math.max(stripeOf(a), stripeOf(b));
+        locks[first].lock();
+        if (second != first) {
+            locks[second].lock();
+        }
+    }
+
+
+    /** Releases the locks taken by lockPair
+     *
+     * @param a user ID of one account
+     * @param b user ID of the other account
+     */
+    private void unlockPair(int a, int b) {
+        locks[stripeOf(a)].unlock();
+        if (stripeOf(b) != stripeOf(a)) {
+            locks[stripeOf(b)].unlock();
+        }
+    }
+
+
+    /** Takes every lock in ascending stripe order
+     */
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+
+    /** Releases every lock
+     */
+    private void unlockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.unlock();
+        }
+    }
+
+
+    /** Builds an inbox from the newest posts of every ordinary account being followed
+     *
+     * @param followed user IDs of the accounts being followed
+     * @return inbox of the newest posts, at most inboxCapacity of them
+     */
+    private Inbox buildInbox(Set<Integer> followed) {
+        Merge merge = new Merge(inboxCapacity + 1);
+        for (int followee : followed) {
+            if (!isCelebrity(followee)) {
+                merge.add(source.newestPosts(followee, 0, inboxCapacity + 1), 0);
+            }
+        }
+        merge.run();
+        Inbox inbox = new Inbox();
+        int kept = Math.min(merge.count, inboxCapacity);
+        for (int i = kept - 1; i >= 0; i--) {
+            inbox.add(merge.pids[i], inboxCapacity);
+        }
+        if (merge.count > inboxCapacity) {
+            // every post newer than the one left out is in the inbox
+            inbox.floor = merge.pids[inboxCapacity] + 1;
+        }
+        return inbox;
+    }
+
+
+    /** Gets the newest original posts and endorsements of an account from its timelines
+     *
+     * @param account account whose posts are wanted
+     * @param beforePid only posts with a lower post ID are returned, or 0 for no limit
+     * @param limit most posts returned
+     * @return post IDs of at most limit posts, newest first
+     */
+    static int[] newestPosts(Account account, int beforePid, int limit) {
+        NavigableMap<Integer, Post> originals = account.getTimeline(PostType.ORIGINAL_POST);
+        NavigableMap<Integer, Post> endorsements = account.getTimeline(PostType.ENDORSEMENT);
+        if (beforePid > 0) {
+            originals = originals.headMap(beforePid, false);
+            endorsements = endorsements.headMap(beforePid, false);
+        }
+        Iterator<Integer> a = originals.descendingKeySet().iterator();
+        Iterator<Integer> b = endorsements.descendingKeySet().iterator();
+        // the size of a part of a TreeMap is counted by walking it, so the array grows as it is filled instead
+        int[] newestFirst = new int[Math.min(limit, 64)];
+        int count = 0;
+        int nextA = a.hasNext() ? a.next() : 0;
+        int nextB = b.hasNext() ? b.next() : 0;
+        while (count < limit && (nextA > 0 || nextB > 0)) {
+            if (count == newestFirst.length) {
+                newestFirst = Arrays.copyOf(newestFirst, (int) Math.min(limit, 2L * count));
+            }
+            if (nextA > nextB) {
+                newestFirst[count++] = nextA;
+                nextA = a.hasNext() ? a.next() : 0;
+            } else {
+                newestFirst[count++] = nextB;
+                nextB = b.hasNext() ? b.next() : 0;
+            }
+        }
+        return Arrays.copyOf(newestFirst, count);
+    }
+
+
+    /**
+     * Merge of several lists of post IDs, each newest first, into one list newest first without duplicates or deleted posts
+     */
+    private final class Merge {
+        private final int limit;
+        private final PriorityQueue<int[]> heads;
+        private int[] pids;
+        private int count;
+
+        /**
+         * Creates an empty merge
+         *
+         * @param limit most post IDs kept
+         */
+        Merge(int limit) {
+            this.limit = limit;
+            // each entry is a list of post IDs followed by the position of its next post ID, highest next post ID first
+            this.heads = new PriorityQueue<int[]>((a, b) -> Integer.compare(b[b[b.length - 1]], a[a[a.length - 1]]));
+            this.pids = new int[Math.min(limit, 64)];
+        }
+
+
+        /** Adds a list of post IDs to be merged
+         *
+         * @param newestFirst post IDs, newest first
+         * @param floor post IDs below this are left out
+         */
+        void add(int[] newestFirst, int floor) {
+            int length = 0;
+            while (length < newestFirst.length && newestFirst[length] >= floor) {
+                length++;
+            }
+            if (length > 0) {
+                int[] list = Arrays.copyOf(newestFirst, length + 1);
+                list[length] = 0;
+                heads.add(list);
+            }
+        }
+
+
+        /** Takes post IDs from the lists, highest first, until limit are kept or the lists run out
+         */
+        void run() {
+            int last = Integer.MAX_VALUE;
+            while (count < limit && !heads.isEmpty()) {
+                int[] list = heads.poll();
+                int position = list[list.length - 1];
+                int pid = list[position];
+                if (position + 2 < list.length) {
+                    list[list.length - 1] = position + 1;
+                    heads.add(list);
+                }
+                if (pid != last && source.isVisible(pid)) {
+                    keep(pid);
+                }
+                last = pid;
+            }
+        }
+
+
+        /** Adds the post IDs of a merge of older posts to the end of this one
+         *
+         * @param older merge of posts older than every post in this one
+         */
+        void append(Merge older) {
+            for (int i = 0; i < older.count && count < limit; i++) {
+                keep(older.pids[i]);
+            }
+        }
+
+
+        /** Checks whether limit post IDs have been kept
+         *
+         * @return true if the merge is full
+         */
+        boolean isFull() {
+            return count == limit;
+        }
+
+
+        /** Keeps a post ID at the end of the merge
+         *
+         * @param pid post ID being kept
+         */
+        private void keep(int pid) {
+            if (count == pids.length) {
+                pids = Arrays.copyOf(pids, (int) Math.min(limit, 2L * count));
+            }
+            pids[count++] = pid;
+        }
+    }
+
+
+    /**
+     * Follows and inbox of one account, guarded by the lock of the account
+     */
+    private static final class Node {
+        private final Set<Integer> following = new HashSet<Integer>();
+        private final Set<Integer> followers = new HashSet<Integer>();
+        // size of followers, which is also read for other accounts to tell whether this one is a celebrity
+        private volatile int followerCount;
+        // recent posts of the accounts followed, or null until the home feed is read
+        private Inbox inbox;
+    }
+
+
+    /**
+     * Inbox of recent post IDs for one account, held in ascending order
+     */
+    private static final class Inbox {
+        private int[] pids = new int[16];
+        private int start;
+        private int end;
+        // every post by an ordinary followed account with at least this post ID is in the inbox
+        private int floor;
+
+        /** Adds a post ID, dropping the oldest post ID if the inbox is over capacity
+         *
+         * @param pid post ID being added
+         * @param capacity most post IDs held
+         */
+        void add(int pid, int capacity) {
+            if (end == pids.length) {
+                if (start > 0) {
+                    System.arraycopy(pids, start, pids, 0, end - start);
+                    end -= start;
+                    start = 0;
+                } else {
+                    pids = Arrays.copyOf(pids, pids.length * 2);
+                }
+            }
+            // post IDs nearly always arrive in order, but a post made on another thread can arrive late
+            int position = end;
+            while (position > start && pids[position - 1] > pid) {
+                position--;
+            }
+            System.arraycopy(pids, position, pids, position + 1, end - position);
+            pids[position] = pid;
+            end++;
+            if (end - start > capacity) {
+                floor = pids[start] + 1;
+                start++;
+            }
+        }
+
+
+        /** Gets the post IDs in the inbox below a post ID
+         *
+         * @param before only post IDs lower than this are returned
+         * @return post IDs, newest first
+         */
+        int[] newest(int before) {
+            int top = Arrays.binarySearch(pids, start, end, before);
+            top = top >= 0 ? top : -top - 1;
+            int[] newestFirst = new int[top - start];
+            for (int i = 0; i < newestFirst.length; i++) {
+                newestFirst[i] = pids[top - 1 - i];
+            }
+            return newestFirst;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Represents an index of accounts sorted by handle, located in the social media package
+ * Handles sharing a prefix sit next to each other in a sorted map, so the accounts whose handles start with a prefix are found by
+ * seeking to the prefix and reading forward until a handle no longer starts with it, without looking at any other handle. This is
+ * what @-mention autocomplete needs, where the hash index of handles can only find a handle typed out in full.
+ * <p>
+ * Matches come back either in handle order, which reads only as many handles as are wanted, or ranked by the number of endorsements
+ * each account has received. The empty prefix and every prefix of up to RANKED_PREFIX_LENGTH characters keep their accounts sorted
+ * by endorsements, moved as the platform reports each change, so a ranked search for a short prefix, which matches the most handles,
+ * reads only the handles it returns. A longer prefix matches few handles, so every match is read in handle order and the best limit
+ * of them are kept in a heap as they are read.
+ * <p>
+ * Changes to one account must not be made at the same time as each other. The concurrent index can be searched and changed for
+ * different accounts from any number of threads, and a search running alongside a change may miss the account being changed.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+final class HandleIndex {
+    // prefixes up to this long keep their accounts sorted by endorsements
+    static final int RANKED_PREFIX_LENGTH = 2;
+    // results start this long and grow as more matches are found, so a large limit does not allocate a large array up front
+    private static final int INITIAL_RESULT_SIZE = 16;
+
+    private final boolean concurrent;
+    private final NavigableMap<String, Entry> accounts;
+    // accounts whose handles start with each short prefix, most endorsed first
+    private final Map<String, NavigableSet<Entry>> rankings;
+
+    /**
+     * Creates an empty index
+     *
+     * @param concurrent whether the index can be shared between threads
+     */
+    private HandleIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        if (concurrent) {
+            this.accounts = new ConcurrentSkipListMap<String, Entry>();
+            this.rankings = new ConcurrentHashMap<String, NavigableSet<Entry>>();
+        } else {
+            this.accounts = new TreeMap<String, Entry>();
+            this.rankings = new HashMap<String, NavigableSet<Entry>>();
+        }
+    }
+
+
+    /** Creates an empty index for use by one thread at a time
+     *
+     * @return index backed by a TreeMap
+     */
+    static HandleIndex create() {
+        return new HandleIndex(false);
+    }
+
+
+    /** Creates an empty index that any number of threads can use at once
+     *
+     * @return index backed by a ConcurrentSkipListMap
+     */
+    static HandleIndex createConcurrent() {
+        return new HandleIndex(true);
+    }
+
+
+    /** Adds an account under its handle
+     *
+     * @param handle handle of the account
+     * @param account account being added
+     * @param endorsements number of endorsements the account has received
+     */
+    void add(String handle, Account account, int endorsements) {
+        Entry entry = new Entry(handle, account, endorsements);
+        Entry old = accounts.put(handle, entry);
+        for (int length = 0; length <= Math.min(RANKED_PREFIX_LENGTH, handle.length()); length++) {
+            NavigableSet<Entry> ranking = ranking(handle.substring(0, length));
+            if (old != null) {
+                ranking.remove(old);
+            }
+            ranking.add(entry);
+        }
+    }
+
+
+    /** Removes an account from under a handle, if it is still the account there
+     *
+     * @param handle handle the account was added under
+     * @param account account being removed
+     */
+    void remove(String handle, Account account) {
+        Entry entry = accounts.get(handle);
+        if (entry == null || entry.account != account || !accounts.remove(handle, entry)) {
+            return;
+        }
+        for (int length = 0; length <= Math.min(RANKED_PREFIX_LENGTH, handle.length()); length++) {
+            ranking(handle.substring(0, length)).remove(entry);
+        }
+    }
+
+
+    /** Moves an account to its place in the rankings after its number of endorsements has changed, if it is still under the handle
+     *
+     * @param handle handle the account was added under
+     * @param account account whose endorsements changed
+     * @param endorsements number of endorsements the account has received
+     */
+    void setEndorsements(String handle, Account account, int endorsements) {
+        Entry entry = accounts.get(handle);
+        if (entry != null && entry.account == account && entry.endorsements != endorsements) {
+            add(handle, account, endorsements);
+        }
+    }
+
+
+    /** Removes every account
+     */
+    void clear() {
+        accounts.clear();
+        rankings.clear();
+    }
+
+
+    /** Finds the accounts whose handles start with a prefix
+     *
+     * @param prefix start of the handles wanted, with the empty prefix matching every handle
+     * @param limit most handles returned
+     * @param ranked whether the most endorsed accounts come first, with ties in handle order, instead of handle order
+     * @return handles of at most limit matching accounts
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    String[] search(String prefix, int limit, boolean ranked) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Search limit must be at least 1");
+        }
+        String[] found = new String[Math.min(limit, INITIAL_RESULT_SIZE)];
+        int size = 0;
+        if (ranked && prefix.length() <= RANKED_PREFIX_LENGTH) {
+            NavigableSet<Entry> ranking = rankings.get(prefix);
+            Iterator<Entry> best = ranking == null ? null : ranking.iterator();
+            while (best != null && best.hasNext() && size < limit) {
+                if (size == found.length) {
+                    found = Arrays.copyOf(found, (int) Math.min(limit, 2L * size));
+                }
+                found[size++] = best.next().handle;
+            }
+            return Arrays.copyOf(found, size);
+        }
+        NavigableMap<String, Entry> matches = accounts.tailMap(prefix, true);
+        if (!ranked) {
+            for (String handle : matches.keySet()) {
+                if (size == limit || !handle.startsWith(prefix)) {
+                    break;
+                }
+                if (size == found.length) {
+                    found = Arrays.copyOf(found, (int) Math.min(limit, 2L * size));
+                }
+                found[size++] = handle;
+            }
+            return Arrays.copyOf(found, size);
+        }
+
+        // best matches so far, with the worst of them at the head so it is the one dropped when a better match is found
+        PriorityQueue<Entry> best = new PriorityQueue<Entry>(found.length, Comparator.reverseOrder());
+        for (Entry match : matches.values()) {
+            if (!match.handle.startsWith(prefix)) {
+                break;
+            }
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (match.compareTo(best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+        found = new String[best.size()];
+        for (int i = found.length - 1; i >= 0; i--) {
+            found[i] = best.poll().handle;
+        }
+        return found;
+    }
+
+
+    /** Gets the ranking of a short prefix, creating it the first time a handle with the prefix is added
+     *
+     * @param prefix prefix of at most RANKED_PREFIX_LENGTH characters
+     * @return accounts whose handles start with the prefix, most endorsed first
+     */
+    private NavigableSet<Entry> ranking(String prefix) {
+        return rankings.computeIfAbsent(prefix,
+                key -> concurrent ? new ConcurrentSkipListSet<Entry>() : new TreeSet<Entry>());
+    }
+
+
+    /**
+     * An account under its handle with its number of endorsements, ordered by most endorsements then handle
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final String handle;
+        private final Account account;
+        private final int endorsements;
+
+        private Entry(String handle, Account account, int endorsements) {
+            this.handle = handle;
+            this.account = account;
+            this.endorsements = endorsements;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (endorsements != other.endorsements) {
+                return Integer.compare(other.endorsements, endorsements);
+            }
+            return handle.compareTo(other.handle);
+        }
+    }
+}
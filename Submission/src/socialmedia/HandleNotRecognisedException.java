@@ -8,7 +8,7 @@ package socialmedia;
  * @version 1.0
  *
  */
-public class HandleNotRecognisedException extends Exception {
+public class HandleNotRecognisedException extends SocialMediaException {
 
 	/**
 	 * Constructs an instance of the exception with no message
@@ -0,0 +1,66 @@
+/**
+ * Represents an ID allocator, located in the social media package
+ * An ID allocator hands out strictly increasing IDs and never hands out the same ID twice, even after the object using it is deleted.
+ * It is safe to share between threads and is saved alongside the platform so IDs are not reused after a reload.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdAllocator {
+    private final AtomicInteger next;
+
+    /**
+     * Creates an ID allocator
+     *
+     * @param first first ID that will be handed out
+     */
+    public IdAllocator(int first) {
+        this.next = new AtomicInteger(first);
+    }
+
+
+    /** Hands out the next ID
+     *
+     * @return an ID that has never been handed out by this allocator before
+     */
+    public int next() {
+        return next.getAndIncrement();
+    }
+
+
+    /** Hands out a block of consecutive IDs at once
+     *
+     * @param count number of IDs in the block
+     * @return first ID of the block, the rest following it in order
+     * @throws IllegalArgumentException if count is negative
+     */
+    public int allocateBlock(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Block size must not be negative");
+        }
+        return next.getAndAdd(count);
+    }
+
+
+    /** Gets the next ID without handing it out
+     *
+     * @return ID that the next call to next() will hand out
+     */
+    public int peek() {
+        return next.get();
+    }
+
+
+    /** Resets the allocator, used only when the platform is erased
+     *
+     * @param first first ID that will be handed out after the reset
+     */
+    public void reset(int first) {
+        next.set(first);
+    }
+}
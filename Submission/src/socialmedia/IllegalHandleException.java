@@ -8,7 +8,7 @@ package socialmedia;
  * @version 1.0
  *
  */
-public class IllegalHandleException extends Exception {
+public class IllegalHandleException extends SocialMediaException {
 
 	/**
 	 * Constructs an instance of the exception with no message
@@ -0,0 +1,47 @@
+/**
+ * Represents the result of a bulk import, located in the social media package
+ * The result maps the handle of each account created by the import to its user ID, and the ref of each post created by the import to its
+ * post ID, so records kept elsewhere can be pointed at the new accounts and posts.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.Collections;
+import java.util.Map;
+
+public final class ImportResult {
+    private final Map<String, Integer> accountIds;
+    private final Map<String, Integer> postIds;
+
+    /**
+     * Creates the result of an import
+     *
+     * @param accountIds user ID of each account created, by handle, in the order they were created
+     * @param postIds post ID of each post created, by ref, in the order they were created
+     */
+    ImportResult(Map<String, Integer> accountIds, Map<String, Integer> postIds) {
+        this.accountIds = Collections.unmodifiableMap(accountIds);
+        this.postIds = Collections.unmodifiableMap(postIds);
+    }
+
+
+    /** Gets the accounts created by the import
+     *
+     * @return read-only map from the handle of each account created to its user ID
+     */
+    public Map<String, Integer> getAccountIds() {
+        return accountIds;
+    }
+
+
+    /** Gets the posts created by the import
+     *
+     * @return read-only map from the ref of each post created to its post ID
+     */
+    public Map<String, Integer> getPostIds() {
+        return postIds;
+    }
+}
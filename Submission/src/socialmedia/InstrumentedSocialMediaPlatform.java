@@ -0,0 +1,651 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * InstrumentedSocialMediaPlatform wraps another ExtendedSocialMediaPlatform,
+ * passing every call on to it while counting the calls of each method, the calls that
+ * threw by exception type, and how long the calls took. The metrics are read
+ * with getMetrics, which can also be written out for a metrics scraper with
+ * {@link MetricsSnapshot#toExposition()}.
+ * <p>
+ * Recording a call only reads the clock twice and adds to lock-free counters
+ * made when the platform is wrapped, so it allocates nothing unless a method
+ * throws an exception type it has not thrown before. The wrapper is as safe to
+ * share between threads as the platform it wraps. Overloads of a method, such
+ * as the two createAccount methods, are counted together.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+public class InstrumentedSocialMediaPlatform implements ExtendedSocialMediaPlatform {
+
+	// The wrapper is never written with Java serialization, so this only fixes
+	// the ID the inherited Serializable interface asks for
+	private static final long serialVersionUID = 1L;
+	// Platform every call is passed on to
+	private final ExtendedSocialMediaPlatform platform;
+	// Metrics of every method, in the order they are reported
+	private final ArrayList<MethodMetrics> methods = new ArrayList<MethodMetrics>();
+
+	private final MethodMetrics createAccount = method("createAccount");
+	private final MethodMetrics removeAccount = method("removeAccount");
+	private final MethodMetrics changeAccountHandle = method("changeAccountHandle");
+	private final MethodMetrics updateAccountDescription = method("updateAccountDescription");
+	private final MethodMetrics showAccount = method("showAccount");
+	private final MethodMetrics searchHandles = method("searchHandles");
+	private final MethodMetrics getAccountTimeline = method("getAccountTimeline");
+	private final MethodMetrics createPost = method("createPost");
+	private final MethodMetrics endorsePost = method("endorsePost");
+	private final MethodMetrics commentPost = method("commentPost");
+	private final MethodMetrics deletePost = method("deletePost");
+	private final MethodMetrics showIndividualPost = method("showIndividualPost");
+	private final MethodMetrics showPostChildrenDetails = method("showPostChildrenDetails");
+	private final MethodMetrics getPostChildren = method("getPostChildren");
+	private final MethodMetrics follow = method("follow");
+	private final MethodMetrics unfollow = method("unfollow");
+	private final MethodMetrics getHomeFeed = method("getHomeFeed");
+	private final MethodMetrics getFollowerCount = method("getFollowerCount");
+	private final MethodMetrics getFollowingCount = method("getFollowingCount");
+	private final MethodMetrics endorseBatch = method("endorseBatch");
+	private final MethodMetrics commentBatch = method("commentBatch");
+	private final MethodMetrics getNumberOfAccounts = method("getNumberOfAccounts");
+	private final MethodMetrics getTotalOriginalPosts = method("getTotalOriginalPosts");
+	private final MethodMetrics getTotalEndorsmentPosts = method("getTotalEndorsmentPosts");
+	private final MethodMetrics getTotalCommentPosts = method("getTotalCommentPosts");
+	private final MethodMetrics getPlatformStats = method("getPlatformStats");
+	private final MethodMetrics getMostEndorsedPost = method("getMostEndorsedPost");
+	private final MethodMetrics getMostEndorsedAccount = method("getMostEndorsedAccount");
+	private final MethodMetrics topEndorsedPosts = method("topEndorsedPosts");
+	private final MethodMetrics topEndorsedAccounts = method("topEndorsedAccounts");
+	private final MethodMetrics erasePlatform = method("erasePlatform");
+	private final MethodMetrics savePlatform = method("savePlatform");
+	private final MethodMetrics loadPlatform = method("loadPlatform");
+
+	/**
+	 * Metrics of one method, updated by every thread calling it without locking.
+	 */
+	private static final class MethodMetrics {
+		private final String name;
+		private final LongAdder calls = new LongAdder();
+		private final ConcurrentHashMap<Class<?>, LongAdder> errors = new ConcurrentHashMap<Class<?>, LongAdder>();
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		/**
+		 * Creates the metrics of a method before it has been called.
+		 *
+		 * @param name name of the method
+		 */
+		private MethodMetrics(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Records a call that threw.
+		 *
+		 * @param e exception the call threw
+		 */
+		private void fail(Exception e) {
+			LongAdder count = errors.get(e.getClass());
+			if (count == null) {
+				count = errors.computeIfAbsent(e.getClass(), type -> new LongAdder());
+			}
+			count.increment();
+		}
+
+		/**
+		 * Records a call that has returned or thrown.
+		 *
+		 * @param start time the call started, from System.nanoTime
+		 */
+		private void finish(long start) {
+			latency.record(System.nanoTime() - start);
+			calls.increment();
+		}
+
+		/**
+		 * Copies the metrics as they are now.
+		 *
+		 * @return snapshot of the metrics of the method
+		 */
+		private MetricsSnapshot.MethodStats snapshot() {
+			TreeMap<String, Long> errorCounts = new TreeMap<String, Long>();
+			for (Map.Entry<Class<?>, LongAdder> error : errors.entrySet()) {
+				errorCounts.merge(error.getKey().getSimpleName(), error.getValue().sum(), Long::sum);
+			}
+			return new MetricsSnapshot.MethodStats(name, calls.sum(), errorCounts, latency.copyBuckets(),
+					latency.getTotalNanos());
+		}
+	}
+
+	/**
+	 * Wraps a platform, starting with every count at 0.
+	 *
+	 * @param platform platform every call is passed on to
+	 */
+	public InstrumentedSocialMediaPlatform(ExtendedSocialMediaPlatform platform) {
+		this.platform = platform;
+	}
+
+	/**
+	 * Creates the metrics of a method and adds them to the methods reported.
+	 *
+	 * @param name name of the method
+	 * @return metrics of the method
+	 */
+	private MethodMetrics method(String name) {
+		MethodMetrics metrics = new MethodMetrics(name);
+		methods.add(metrics);
+		return metrics;
+	}
+
+	/**
+	 * Gets the platform every call is passed on to.
+	 *
+	 * @return wrapped platform
+	 */
+	public ExtendedSocialMediaPlatform getPlatform() {
+		return platform;
+	}
+
+	/**
+	 * Takes a snapshot of the metrics of every method. Calls running while the
+	 * snapshot is taken may or may not be included.
+	 *
+	 * @return metrics of every method
+	 */
+	public MetricsSnapshot getMetrics() {
+		ArrayList<MetricsSnapshot.MethodStats> stats = new ArrayList<MetricsSnapshot.MethodStats>(methods.size());
+		for (MethodMetrics metrics : methods) {
+			stats.add(metrics.snapshot());
+		}
+		return new MetricsSnapshot(stats);
+	}
+
+	@Override
+	public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+		long start = System.nanoTime();
+		try {
+			return platform.createAccount(handle);
+		} catch (Exception e) {
+			createAccount.fail(e);
+			throw e;
+		} finally {
+			createAccount.finish(start);
+		}
+	}
+
+	@Override
+	public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+		long start = System.nanoTime();
+		try {
+			return platform.createAccount(handle, description);
+		} catch (Exception e) {
+			createAccount.fail(e);
+			throw e;
+		} finally {
+			createAccount.finish(start);
+		}
+	}
+
+	@Override
+	public void removeAccount(int id) throws AccountIDNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			platform.removeAccount(id);
+		} catch (Exception e) {
+			removeAccount.fail(e);
+			throw e;
+		} finally {
+			removeAccount.finish(start);
+		}
+	}
+
+	@Override
+	public void removeAccount(String handle) throws HandleNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			platform.removeAccount(handle);
+		} catch (Exception e) {
+			removeAccount.fail(e);
+			throw e;
+		} finally {
+			removeAccount.finish(start);
+		}
+	}
+
+	@Override
+	public void changeAccountHandle(String oldHandle, String newHandle)
+			throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
+		long start = System.nanoTime();
+		try {
+			platform.changeAccountHandle(oldHandle, newHandle);
+		} catch (Exception e) {
+			changeAccountHandle.fail(e);
+			throw e;
+		} finally {
+			changeAccountHandle.finish(start);
+		}
+	}
+
+	@Override
+	public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			platform.updateAccountDescription(handle, description);
+		} catch (Exception e) {
+			updateAccountDescription.fail(e);
+			throw e;
+		} finally {
+			updateAccountDescription.finish(start);
+		}
+	}
+
+	@Override
+	public String[] searchHandles(String prefix, int limit, boolean rankByEndorsements) {
+		long start = System.nanoTime();
+		try {
+			return platform.searchHandles(prefix, limit, rankByEndorsements);
+		} catch (Exception e) {
+			searchHandles.fail(e);
+			throw e;
+		} finally {
+			searchHandles.finish(start);
+		}
+	}
+
+	@Override
+	public TimelinePage getAccountTimeline(String handle, PostType type, int beforePid, int limit)
+			throws HandleNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			return platform.getAccountTimeline(handle, type, beforePid, limit);
+		} catch (Exception e) {
+			getAccountTimeline.fail(e);
+			throw e;
+		} finally {
+			getAccountTimeline.finish(start);
+		}
+	}
+
+	@Override
+	public String showAccount(String handle) throws HandleNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			return platform.showAccount(handle);
+		} catch (Exception e) {
+			showAccount.fail(e);
+			throw e;
+		} finally {
+			showAccount.finish(start);
+		}
+	}
+
+	@Override
+	public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+		long start = System.nanoTime();
+		try {
+			return platform.createPost(handle, message);
+		} catch (Exception e) {
+			createPost.fail(e);
+			throw e;
+		} finally {
+			createPost.finish(start);
+		}
+	}
+
+	@Override
+	public int endorsePost(String handle, int id)
+			throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
+		long start = System.nanoTime();
+		try {
+			return platform.endorsePost(handle, id);
+		} catch (Exception e) {
+			endorsePost.fail(e);
+			throw e;
+		} finally {
+			endorsePost.finish(start);
+		}
+	}
+
+	@Override
+	public int commentPost(String handle, int id, String message) throws HandleNotRecognisedException,
+			PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+		long start = System.nanoTime();
+		try {
+			return platform.commentPost(handle, id, message);
+		} catch (Exception e) {
+			commentPost.fail(e);
+			throw e;
+		} finally {
+			commentPost.finish(start);
+		}
+	}
+
+	@Override
+	public void deletePost(int id) throws PostIDNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			platform.deletePost(id);
+		} catch (Exception e) {
+			deletePost.fail(e);
+			throw e;
+		} finally {
+			deletePost.finish(start);
+		}
+	}
+
+	@Override
+	public String showIndividualPost(int id) throws PostIDNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			return platform.showIndividualPost(id);
+		} catch (Exception e) {
+			showIndividualPost.fail(e);
+			throw e;
+		} finally {
+			showIndividualPost.finish(start);
+		}
+	}
+
+	@Override
+	public StringBuilder showPostChildrenDetails(int id)
+			throws PostIDNotRecognisedException, NotActionablePostException {
+		long start = System.nanoTime();
+		try {
+			return platform.showPostChildrenDetails(id);
+		} catch (Exception e) {
+			showPostChildrenDetails.fail(e);
+			throw e;
+		} finally {
+			showPostChildrenDetails.finish(start);
+		}
+	}
+
+	@Override
+	public void showPostChildrenDetails(int id, Appendable out, int maxDepth, int maxBreadth)
+			throws PostIDNotRecognisedException, NotActionablePostException, IOException {
+		long start = System.nanoTime();
+		try {
+			platform.showPostChildrenDetails(id, out, maxDepth, maxBreadth);
+		} catch (Exception e) {
+			showPostChildrenDetails.fail(e);
+			throw e;
+		} finally {
+			showPostChildrenDetails.finish(start);
+		}
+	}
+
+	@Override
+	public ThreadPage getPostChildren(int pid, Cursor after, int limit)
+			throws PostIDNotRecognisedException, NotActionablePostException {
+		long start = System.nanoTime();
+		try {
+			return platform.getPostChildren(pid, after, limit);
+		} catch (Exception e) {
+			getPostChildren.fail(e);
+			throw e;
+		} finally {
+			getPostChildren.finish(start);
+		}
+	}
+
+	@Override
+	public void follow(String followerHandle, String followeeHandle) throws HandleNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			platform.follow(followerHandle, followeeHandle);
+		} catch (Exception e) {
+			follow.fail(e);
+			throw e;
+		} finally {
+			follow.finish(start);
+		}
+	}
+
+	@Override
+	public void unfollow(String followerHandle, String followeeHandle) throws HandleNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			platform.unfollow(followerHandle, followeeHandle);
+		} catch (Exception e) {
+			unfollow.fail(e);
+			throw e;
+		} finally {
+			unfollow.finish(start);
+		}
+	}
+
+	@Override
+	public int[] getHomeFeed(String handle, int beforePid, int limit) throws HandleNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			return platform.getHomeFeed(handle, beforePid, limit);
+		} catch (Exception e) {
+			getHomeFeed.fail(e);
+			throw e;
+		} finally {
+			getHomeFeed.finish(start);
+		}
+	}
+
+	@Override
+	public int getFollowerCount(String handle) throws HandleNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			return platform.getFollowerCount(handle);
+		} catch (Exception e) {
+			getFollowerCount.fail(e);
+			throw e;
+		} finally {
+			getFollowerCount.finish(start);
+		}
+	}
+
+	@Override
+	public int getFollowingCount(String handle) throws HandleNotRecognisedException {
+		long start = System.nanoTime();
+		try {
+			return platform.getFollowingCount(handle);
+		} catch (Exception e) {
+			getFollowingCount.fail(e);
+			throw e;
+		} finally {
+			getFollowingCount.finish(start);
+		}
+	}
+
+	@Override
+	public BatchResult endorseBatch(String[] handles, int[] pids) {
+		long start = System.nanoTime();
+		try {
+			return platform.endorseBatch(handles, pids);
+		} catch (Exception e) {
+			endorseBatch.fail(e);
+			throw e;
+		} finally {
+			endorseBatch.finish(start);
+		}
+	}
+
+	@Override
+	public BatchResult commentBatch(String[] handles, int[] pids, String[] messages) {
+		long start = System.nanoTime();
+		try {
+			return platform.commentBatch(handles, pids, messages);
+		} catch (Exception e) {
+			commentBatch.fail(e);
+			throw e;
+		} finally {
+			commentBatch.finish(start);
+		}
+	}
+
+	@Override
+	public int getNumberOfAccounts() {
+		long start = System.nanoTime();
+		try {
+			return platform.getNumberOfAccounts();
+		} catch (Exception e) {
+			getNumberOfAccounts.fail(e);
+			throw e;
+		} finally {
+			getNumberOfAccounts.finish(start);
+		}
+	}
+
+	@Override
+	public int getTotalOriginalPosts() {
+		long start = System.nanoTime();
+		try {
+			return platform.getTotalOriginalPosts();
+		} catch (Exception e) {
+			getTotalOriginalPosts.fail(e);
+			throw e;
+		} finally {
+			getTotalOriginalPosts.finish(start);
+		}
+	}
+
+	@Override
+	public int getTotalEndorsmentPosts() {
+		long start = System.nanoTime();
+		try {
+			return platform.getTotalEndorsmentPosts();
+		} catch (Exception e) {
+			getTotalEndorsmentPosts.fail(e);
+			throw e;
+		} finally {
+			getTotalEndorsmentPosts.finish(start);
+		}
+	}
+
+	@Override
+	public int getTotalCommentPosts() {
+		long start = System.nanoTime();
+		try {
+			return platform.getTotalCommentPosts();
+		} catch (Exception e) {
+			getTotalCommentPosts.fail(e);
+			throw e;
+		} finally {
+			getTotalCommentPosts.finish(start);
+		}
+	}
+
+	@Override
+	public PlatformStats getPlatformStats() {
+		long start = System.nanoTime();
+		try {
+			return platform.getPlatformStats();
+		} catch (Exception e) {
+			getPlatformStats.fail(e);
+			throw e;
+		} finally {
+			getPlatformStats.finish(start);
+		}
+	}
+
+	@Override
+	public int getMostEndorsedPost() {
+		long start = System.nanoTime();
+		try {
+			return platform.getMostEndorsedPost();
+		} catch (Exception e) {
+			getMostEndorsedPost.fail(e);
+			throw e;
+		} finally {
+			getMostEndorsedPost.finish(start);
+		}
+	}
+
+	@Override
+	public int getMostEndorsedAccount() {
+		long start = System.nanoTime();
+		try {
+			return platform.getMostEndorsedAccount();
+		} catch (Exception e) {
+			getMostEndorsedAccount.fail(e);
+			throw e;
+		} finally {
+			getMostEndorsedAccount.finish(start);
+		}
+	}
+
+	@Override
+	public int[] topEndorsedPosts(int k) {
+		long start = System.nanoTime();
+		try {
+			return platform.topEndorsedPosts(k);
+		} catch (Exception e) {
+			topEndorsedPosts.fail(e);
+			throw e;
+		} finally {
+			topEndorsedPosts.finish(start);
+		}
+	}
+
+	@Override
+	public int[] topEndorsedAccounts(int k) {
+		long start = System.nanoTime();
+		try {
+			return platform.topEndorsedAccounts(k);
+		} catch (Exception e) {
+			topEndorsedAccounts.fail(e);
+			throw e;
+		} finally {
+			topEndorsedAccounts.finish(start);
+		}
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		// the metrics are updated without locking, so the decorator is as safe as the platform
+		return platform.isThreadSafe();
+	}
+
+	@Override
+	public void erasePlatform() {
+		long start = System.nanoTime();
+		try {
+			platform.erasePlatform();
+		} catch (Exception e) {
+			erasePlatform.fail(e);
+			throw e;
+		} finally {
+			erasePlatform.finish(start);
+		}
+	}
+
+	@Override
+	public void savePlatform(String filename) throws IOException {
+		long start = System.nanoTime();
+		try {
+			platform.savePlatform(filename);
+		} catch (Exception e) {
+			savePlatform.fail(e);
+			throw e;
+		} finally {
+			savePlatform.finish(start);
+		}
+	}
+
+	@Override
+	public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+		long start = System.nanoTime();
+		try {
+			platform.loadPlatform(filename);
+		} catch (Exception e) {
+			loadPlatform.fail(e);
+			throw e;
+		} finally {
+			loadPlatform.finish(start);
+		}
+	}
+}
@@ -9,7 +9,7 @@ package socialmedia;
  * @version 1.0
  *
  */
-public class InvalidHandleException extends Exception {
+public class InvalidHandleException extends SocialMediaException {
 
 	/**
 	 * Constructs an instance of the exception with no message
@@ -0,0 +1,102 @@
+/**
+ * Represents a histogram of call latencies, located in the social media package
+ * Latencies are counted in buckets that are exact below 16 nanoseconds and then split each power of two into 16 equal buckets, so
+ * every bucket is within 6.25% of the latencies it holds, from nanoseconds up to hours, in a fixed array of counters.
+ * <p>
+ * Recording a latency increments one counter of an AtomicLongArray, so threads never lock and never allocate while recording. A snapshot
+ * copies the counters one at a time, so a latency recorded during a snapshot may or may not be counted, and the total count is always
+ * taken from the copied buckets so percentiles agree with it.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+final class LatencyHistogram {
+    // bits of each value kept below its highest set bit, giving 16 buckets for each power of two
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // highest power of two with its own buckets, 2^44 nanoseconds being almost five hours, with longer latencies in the last bucket
+    private static final int MAX_EXPONENT = 44;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets;
+    private final LongAdder totalNanos;
+
+    /**
+     * Creates an empty histogram
+     */
+    LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.totalNanos = new LongAdder();
+    }
+
+
+    /** Records one latency
+     *
+     * @param nanos latency in nanoseconds, with negative latencies counted as 0
+     */
+    void record(long nanos) {
+        buckets.incrementAndGet(bucketOf(nanos));
+        totalNanos.add(Math.max(nanos, 0));
+    }
+
+
+    /** Copies the count of every bucket
+     *
+     * @return count of each bucket, indexed as by bucketOf
+     */
+    long[] copyBuckets() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+
+    /** Gets the sum of every latency recorded
+     *
+     * @return total latency in nanoseconds
+     */
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+
+    /** Finds the bucket a latency is counted in
+     *
+     * @param nanos latency in nanoseconds
+     * @return index of the bucket
+     */
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+
+    /** Gets the highest latency counted in a bucket
+     *
+     * @param bucket index of the bucket
+     * @return highest latency in nanoseconds the bucket holds
+     */
+    static long highestInBucket(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
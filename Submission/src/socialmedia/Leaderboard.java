@@ -0,0 +1,107 @@
+/**
+ * Represents a leaderboard, located in the social media package
+ * A leaderboard ranks IDs (post IDs or user IDs) by their number of endorsements, from most to least endorsed.
+ * IDs with the same number of endorsements are ranked from the lowest to the highest ID, so the oldest post or account comes first.
+ * Counts are updated as endorsements are made and deleted, so the top of the leaderboard can be read without counting anything.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+public class Leaderboard {
+    private final TreeSet<Entry> ranking;
+    private final HashMap<Integer, Entry> entries;
+
+    /**
+     * Creates an empty leaderboard
+     */
+    public Leaderboard() {
+        this.ranking = new TreeSet<Entry>();
+        this.entries = new HashMap<Integer, Entry>();
+    }
+
+
+    /** Adds an ID to the leaderboard, or moves it if it is already on the leaderboard
+     *
+     * @param id post ID or user ID being ranked
+     * @param count number of endorsements received
+     */
+    public void put(int id, int count) {
+        remove(id);
+        Entry entry = new Entry(id, count);
+        entries.put(id, entry);
+        ranking.add(entry);
+    }
+
+
+    /** Removes an ID from the leaderboard
+     *
+     * @param id post ID or user ID being removed
+     */
+    public void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            ranking.remove(entry);
+        }
+    }
+
+
+    /** Gets the highest ranked ID
+     *
+     * @return the most endorsed ID, or -1 if the leaderboard is empty
+     */
+    public int first() {
+        return ranking.isEmpty() ? -1 : ranking.first().id;
+    }
+
+
+    /** Gets the highest ranked IDs, from most to least endorsed
+     *
+     * @param k maximum number of IDs to return
+     * @return array of at most k IDs
+     */
+    public int[] top(int k) {
+        int[] top = new int[Math.max(0, Math.min(k, ranking.size()))];
+        Iterator<Entry> iterator = ranking.iterator();
+        for (int i = 0; i < top.length; i++) {
+            top[i] = iterator.next().id;
+        }
+        return top;
+    }
+
+
+    /** Removes every ID from the leaderboard
+     */
+    public void clear() {
+        ranking.clear();
+        entries.clear();
+    }
+
+
+    /**
+     * An ID and its number of endorsements, ordered by most endorsements then lowest ID
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final int id;
+        private final int count;
+
+        private Entry(int id, int count) {
+            this.id = id;
+            this.count = count;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (count != other.count) {
+                return Integer.compare(other.count, count);
+            }
+            return Integer.compare(id, other.id);
+        }
+    }
+}
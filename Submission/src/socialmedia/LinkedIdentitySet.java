@@ -0,0 +1,226 @@
+/**
+ * Represents an insertion-ordered set of objects, located in the social media package
+ * Elements are kept in a doubly linked list in the order they were added, with an IdentityHashMap from each element to its node in the
+ * list. Adding, removing and finding the element after another are O(1), where an ArrayList has to scan the whole list to remove an
+ * element. Elements are compared by identity, which is how posts were already compared since they do not override equals.
+ * <p>
+ * Used for the replies and endorsements of posts, which are iterated in the order they were made. The set is not serializable, since
+ * platforms are saved by PlatformSnapshot.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class LinkedIdentitySet<E> extends AbstractSet<E> {
+    // most posts have few or no replies, so the map starts small and is only made when the first element is added
+    private static final int INITIAL_EXPECTED_SIZE = 2;
+
+    // null until the first element is added and again after clear
+    private IdentityHashMap<E, Node<E>> nodes;
+    private Node<E> head;
+    private Node<E> tail;
+    // changed by every add and remove, so iterators can detect changes they did not make
+    private int modCount;
+
+    /**
+     * Creates an empty set
+     */
+    public LinkedIdentitySet() {
+    }
+
+
+    /** Gets the number of elements
+     *
+     * @return number of elements in the set
+     */
+    @Override
+    public int size() {
+        return nodes == null ? 0 : nodes.size();
+    }
+
+
+    /** Checks whether an object is in the set
+     *
+     * @param o object being looked for
+     * @return true if the same object is in the set
+     */
+    @Override
+    public boolean contains(Object o) {
+        return nodes != null && nodes.containsKey(o);
+    }
+
+
+    /** Adds an element to the end of the set if it is not already in it
+     *
+     * @param element element being added
+     * @return true if the element was added
+     * @throws NullPointerException if element is null
+     */
+    @Override
+    public boolean add(E element) {
+        if (element == null) {
+            throw new NullPointerException("LinkedIdentitySet does not hold null");
+        }
+        if (nodes == null) {
+            nodes = new IdentityHashMap<E, Node<E>>(INITIAL_EXPECTED_SIZE);
+        } else if (nodes.containsKey(element)) {
+            return false;
+        }
+        Node<E> node = new Node<E>(element);
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+            node.previous = tail;
+        }
+        tail = node;
+        nodes.put(element, node);
+        modCount++;
+        return true;
+    }
+
+
+    /** Removes an element from the set, without moving any other element
+     *
+     * @param o element being removed
+     * @return true if the element was in the set
+     */
+    @Override
+    public boolean remove(Object o) {
+        Node<E> node = nodes == null ? null : nodes.remove(o);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+
+    /** Removes every element from the set
+     */
+    @Override
+    public void clear() {
+        nodes = null;
+        head = null;
+        tail = null;
+        modCount++;
+    }
+
+
+    /** Gets the element that was added first
+     *
+     * @return first element, or null if the set is empty
+     */
+    public E first() {
+        return head == null ? null : head.element;
+    }
+
+
+    /** Gets the element after another one, in the order they were added
+     *
+     * @param element element in the set
+     * @return element after it, or null if element is the last one
+     * @throws NoSuchElementException if element is not in the set
+     */
+    public E successor(E element) {
+        Node<E> node = nodes == null ? null : nodes.get(element);
+        if (node == null) {
+            throw new NoSuchElementException("Element is not in the set");
+        }
+        return node.next == null ? null : node.next.element;
+    }
+
+
+    /** Gets an iterator over the elements in the order they were added, which supports remove
+     *
+     * @return iterator over the set
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private Node<E> next = head;
+            private Node<E> last;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = next.next;
+                return last.element;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                nodes.remove(last.element);
+                unlink(last);
+                last = null;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+
+    /** Takes a node out of the linked list
+     *
+     * @param node node being removed, already removed from the map
+     */
+    private void unlink(Node<E> node) {
+        if (node.previous == null) {
+            head = node.next;
+        } else {
+            node.previous.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.previous;
+        } else {
+            node.next.previous = node.previous;
+        }
+        node.previous = null;
+        node.next = null;
+        modCount++;
+    }
+
+
+    /**
+     * Node of the linked list, holding one element
+     */
+    private static final class Node<E> {
+        private final E element;
+        private Node<E> previous;
+        private Node<E> next;
+
+        /**
+         * Creates a node that is not yet linked
+         *
+         * @param element element held by the node
+         */
+        Node(E element) {
+            this.element = element;
+        }
+    }
+}
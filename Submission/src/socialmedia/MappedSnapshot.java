@@ -0,0 +1,516 @@
+/**
+ * Represents a snapshot file that has been memory-mapped, located in the social media package
+ * Mapping a snapshot only indexes where each account and post is held in the file, so a platform can answer questions about single posts
+ * and accounts straight after starting, without first building every account and post.
+ * <p>
+ * A single pass over the file records the offset of each account and post and counts the posts, comments and endorsements of each of them.
+ * Accounts are built the first time they are needed and kept, so they are the same objects once the whole snapshot is materialized into
+ * the normal accounts and posts. Posts are built a thread at a time: asking for any post builds the original post at the top of its
+ * thread and every reply and endorsement below it, found through the children the index links to each post, and keeps them. The
+ * leaderboards are built from the counted endorsements the first time they are read. The file must not be changed while it is mapped.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+final class MappedSnapshot {
+    // size of the type, post ID, author, parent and creation time at the start of each post
+    private static final int POST_HEADER_SIZE = 21;
+
+    private final String filename;
+    private final MappedByteBuffer buffer;
+    private final int nextUid;
+    private final int nextPid;
+    private final long generation;
+
+    // indexed by user ID, an offset of 0 means there is no account with that ID
+    private final int[] accountOffsets;
+    private final int[] accountPostCounts;
+    private final int[] accountEndorsementCounts;
+    private final Account[] builtAccounts;
+    private final HashMap<String, Integer> uidsByHandle;
+
+    // indexed by post ID, an offset of 0 means there is no post with that ID
+    private final int[] postOffsets;
+    private final int[] postEndorsementCounts;
+    private final int[] postCommentCounts;
+    // children of each post in post ID order, as the first child and the next child of the same parent, with 0 ending the list
+    private final int[] firstChildren;
+    private final int[] nextSiblings;
+    // offsets of the comment lists saved because they are not in post ID order, by the post ID of the post they belong to
+    private final HashMap<Integer, Integer> reorderedOffsets;
+    private final Post[] builtPosts;
+    private Leaderboard postRanking;
+    private Leaderboard accountRanking;
+
+    private int originalPostCount;
+    private int commentPostCount;
+    private int endorsementPostCount;
+
+    /**
+     * Maps a snapshot file and indexes the accounts and posts in it
+     *
+     * @param filename location of the snapshot file
+     * @throws IOException if there is a problem reading the file, or it is not a valid snapshot
+     */
+    MappedSnapshot(String filename) throws IOException {
+        this.filename = filename;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(filename + " is too large to be mapped");
+            }
+            // the mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt(0) != PlatformSnapshot.MAGIC) {
+                throw new IOException(filename + " is not a platform snapshot");
+            }
+            int version = buffer.getInt(4);
+            if (version != PlatformSnapshot.VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            this.nextUid = buffer.getInt(8);
+            this.nextPid = buffer.getInt(12);
+            this.generation = buffer.getLong(16);
+            this.accountOffsets = new int[Math.max(nextUid, 1)];
+            this.accountPostCounts = new int[accountOffsets.length];
+            this.accountEndorsementCounts = new int[accountOffsets.length];
+            this.builtAccounts = new Account[accountOffsets.length];
+            this.postOffsets = new int[Math.max(nextPid, 1)];
+            this.postEndorsementCounts = new int[postOffsets.length];
+            this.postCommentCounts = new int[postOffsets.length];
+            this.firstChildren = new int[postOffsets.length];
+            this.nextSiblings = new int[postOffsets.length];
+            this.reorderedOffsets = new HashMap<Integer, Integer>();
+            this.builtPosts = new Post[postOffsets.length];
+            this.uidsByHandle = new HashMap<String, Integer>();
+            index();
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException(filename + " ends part way through the snapshot", e);
+        }
+    }
+
+
+    /** Records where each account and post is held, counts the posts, comments and endorsements of each of them and links each post
+     * to its children
+     *
+     * @throws IOException if the file is not a valid snapshot
+     */
+    private void index() throws IOException {
+        int position = PlatformSnapshot.HEADER_SIZE;
+        int accountCount = buffer.getInt(position);
+        position += 4;
+        for (int i = 0; i < accountCount; i++) {
+            int uid = PlatformSnapshot.checkId(buffer.getInt(position), nextUid, "user");
+            accountOffsets[uid] = position;
+            int end = skipString(skipString(position + 4));
+            uidsByHandle.put(readString(position + 4), uid);
+            position = end;
+        }
+
+        int postCount = buffer.getInt(position);
+        position += 4;
+        // last child linked to each post so far, only needed while the children are being linked
+        int[] lastChildren = new int[postOffsets.length];
+        for (int i = 0; i < postCount; i++) {
+            byte type = buffer.get(position);
+            int pid = PlatformSnapshot.checkId(buffer.getInt(position + 1), nextPid, "post");
+            int authorUid = PlatformSnapshot.checkId(buffer.getInt(position + 5), nextUid, "user");
+            int parentPid = buffer.getInt(position + 9);
+            if (accountOffsets[authorUid] == 0) {
+                throw new IOException("Post " + pid + " refers to a missing account");
+            }
+            postOffsets[pid] = position;
+            if (pid != PlatformSnapshot.GENERIC_PID) {
+                accountPostCounts[authorUid]++;
+            }
+            if (type == PlatformSnapshot.ORIGINAL_POST) {
+                originalPostCount++;
+            } else if (type == PlatformSnapshot.COMMENT || type == PlatformSnapshot.ENDORSEMENT) {
+                // parents always have a lower post ID, so they have already been indexed
+                int parentOffset = postOffsets[PlatformSnapshot.checkId(parentPid, pid, "post")];
+                if (parentOffset == 0 || buffer.get(parentOffset) == PlatformSnapshot.ENDORSEMENT) {
+                    throw new IOException("Post " + pid + " refers to a missing parent post");
+                }
+                if (lastChildren[parentPid] == 0) {
+                    firstChildren[parentPid] = pid;
+                } else {
+                    nextSiblings[lastChildren[parentPid]] = pid;
+                }
+                lastChildren[parentPid] = pid;
+                if (type == PlatformSnapshot.COMMENT) {
+                    commentPostCount++;
+                    postCommentCounts[parentPid]++;
+                } else {
+                    endorsementPostCount++;
+                    postEndorsementCounts[parentPid]++;
+                    accountEndorsementCounts[buffer.getInt(parentOffset + 5)]++;
+                }
+            } else {
+                throw new IOException("Unknown post type " + type);
+            }
+            position = skipString(position + POST_HEADER_SIZE);
+        }
+
+        int reorderedCount = buffer.getInt(position);
+        position += 4;
+        for (int i = 0; i < reorderedCount; i++) {
+            int pid = PlatformSnapshot.checkId(buffer.getInt(position), nextPid, "post");
+            int size = buffer.getInt(position + 4);
+            if (postOffsets[pid] == 0 || size != postCommentCounts[pid]) {
+                throw new IOException("Comment list of post " + pid + " does not match");
+            }
+            for (int j = 0; j < size; j++) {
+                int comment = PlatformSnapshot.checkId(buffer.getInt(position + 8 + 4 * j), nextPid, "post");
+                if (postOffsets[comment] == 0 || buffer.get(postOffsets[comment]) != PlatformSnapshot.COMMENT
+                        || buffer.getInt(postOffsets[comment] + 9) != pid) {
+                    throw new IOException("Comment list of post " + pid + " does not match");
+                }
+            }
+            reorderedOffsets.put(pid, position + 8);
+            position += 8 + 4 * size;
+        }
+    }
+
+
+    /** Gets the account with a handle, building it the first time it is needed
+     *
+     * @param handle handle of the account
+     * @return account with the handle, or null if there is no such account
+     */
+    Account getAccount(String handle) {
+        Integer uid = uidsByHandle.get(handle);
+        return uid == null ? null : getAccount(uid);
+    }
+
+
+    /** Gets the account with a user ID, building it the first time it is needed
+     *
+     * @param uid user ID of the account
+     * @return account with the user ID
+     */
+    private Account getAccount(int uid) {
+        Account account = builtAccounts[uid];
+        if (account == null) {
+            int position = accountOffsets[uid] + 4;
+            String handle = readString(position);
+            String description = readString(position + 4 + buffer.getInt(position));
+            account = new Account(handle, description, uid);
+            builtAccounts[uid] = account;
+        }
+        return account;
+    }
+
+
+    /** Gets the number of posts made by an account
+     *
+     * @param account account that was returned by getAccount
+     * @return number of posts of any type the account has made
+     */
+    int getPostCount(Account account) {
+        return accountPostCounts[account.getUID()];
+    }
+
+
+    /** Gets the number of endorsements received by the posts of an account
+     *
+     * @param account account that was returned by getAccount
+     * @return number of endorsements the account has received
+     */
+    int getEndorsementCount(Account account) {
+        return accountEndorsementCounts[account.getUID()];
+    }
+
+
+    /** Checks whether there is a post with a post ID
+     *
+     * @param pid post ID of the post
+     * @return true if the snapshot holds the post
+     */
+    boolean hasPost(int pid) {
+        return pid > 0 && pid < postOffsets.length && postOffsets[pid] != 0;
+    }
+
+
+    /** Gets the author of a post, building the account the first time it is needed
+     *
+     * @param pid post ID of a post in the snapshot
+     * @return account that made the post
+     */
+    Account getAuthor(int pid) {
+        return getAccount(buffer.getInt(postOffsets[pid] + 5));
+    }
+
+
+    /** Gets the message of a post
+     *
+     * @param pid post ID of a post in the snapshot
+     * @return message of the post
+     */
+    String getMessage(int pid) {
+        return readString(postOffsets[pid] + POST_HEADER_SIZE);
+    }
+
+
+    /** Gets the number of endorsements of a post
+     *
+     * @param pid post ID of a post in the snapshot
+     * @return number of endorsements of the post, which is 0 for an endorsement
+     */
+    int getPostEndorsementCount(int pid) {
+        return postEndorsementCounts[pid];
+    }
+
+
+    /** Gets the number of comments of a post
+     *
+     * @param pid post ID of a post in the snapshot
+     * @return number of comments of the post, which is 0 for an endorsement
+     */
+    int getPostCommentCount(int pid) {
+        return postCommentCounts[pid];
+    }
+
+
+    /** Gets a post, building the whole thread it belongs to the first time any post in the thread is needed
+     *
+     * @param pid post ID of the post
+     * @return post with the post ID, or null if there is no such post
+     */
+    Post getPost(int pid) {
+        if (!hasPost(pid)) {
+            return null;
+        }
+        if (builtPosts[pid] == null) {
+            // parents always have a lower post ID than their replies, so this walk up the thread ends at its original post
+            int root = pid;
+            while (buffer.get(postOffsets[root]) != PlatformSnapshot.ORIGINAL_POST) {
+                root = buffer.getInt(postOffsets[root] + 9);
+            }
+            buildThread(root);
+        }
+        return builtPosts[pid];
+    }
+
+
+    /** Builds an original post and every reply and endorsement below it, with the comments of each post in their saved order
+     *
+     * @param root post ID of the original post
+     */
+    private void buildThread(int root) {
+        OriginalPost top = new OriginalPost(getMessage(root), getAuthor(root), root);
+        top.setCreatedAt(getCreatedAt(root));
+        builtPosts[root] = top;
+        // posts whose children are still to be built, walked with a stack so a long reply chain cannot overflow the call stack
+        ArrayDeque<Post> pending = new ArrayDeque<Post>();
+        pending.push(top);
+        while (!pending.isEmpty()) {
+            Post parent = pending.pop();
+            LinkedIdentitySet<Endorsement> endorsements = parent instanceof OriginalPost
+                    ? ((OriginalPost) parent).getEndorsements() : ((Comment) parent).getEndorsements();
+            LinkedIdentitySet<Comment> comments = parent instanceof OriginalPost
+                    ? ((OriginalPost) parent).getComments() : ((Comment) parent).getComments();
+            Integer reordered = reorderedOffsets.get(parent.getPid());
+            for (int child = firstChildren[parent.getPid()]; child != 0; child = nextSiblings[child]) {
+                Post post;
+                if (buffer.get(postOffsets[child]) == PlatformSnapshot.ENDORSEMENT) {
+                    Endorsement endorsement = new Endorsement(getMessage(child), getAuthor(child), parent, child);
+                    endorsements.add(endorsement);
+                    post = endorsement;
+                } else {
+                    Comment comment = new Comment(getMessage(child), getAuthor(child), parent, child);
+                    if (reordered == null) {
+                        comments.add(comment);
+                    }
+                    pending.push(comment);
+                    post = comment;
+                }
+                post.setCreatedAt(getCreatedAt(child));
+                builtPosts[child] = post;
+            }
+            if (reordered != null) {
+                for (int i = 0; i < postCommentCounts[parent.getPid()]; i++) {
+                    comments.add((Comment) builtPosts[buffer.getInt(reordered + 4 * i)]);
+                }
+            }
+        }
+    }
+
+
+    /** Gets the time a post was created
+     *
+     * @param pid post ID of a post in the snapshot
+     * @return creation time of the post
+     */
+    private long getCreatedAt(int pid) {
+        return buffer.getLong(postOffsets[pid] + 13);
+    }
+
+
+    /** Gets the posts ranked by their number of endorsements, building the leaderboard the first time it is needed
+     *
+     * @return leaderboard of every original post and comment, the same as the one of a platform holding the snapshot
+     */
+    Leaderboard getPostRanking() {
+        if (postRanking == null) {
+            postRanking = new Leaderboard();
+            for (int pid = 1; pid < postOffsets.length; pid++) {
+                if (postOffsets[pid] != 0 && buffer.get(postOffsets[pid]) != PlatformSnapshot.ENDORSEMENT) {
+                    postRanking.put(pid, postEndorsementCounts[pid]);
+                }
+            }
+        }
+        return postRanking;
+    }
+
+
+    /** Gets the accounts ranked by their number of endorsements, building the leaderboard the first time it is needed
+     *
+     * @return leaderboard of every account, the same as the one of a platform holding the snapshot
+     */
+    Leaderboard getAccountRanking() {
+        if (accountRanking == null) {
+            accountRanking = new Leaderboard();
+            for (int uid = 0; uid < accountOffsets.length; uid++) {
+                if (accountOffsets[uid] != 0) {
+                    accountRanking.put(uid, accountEndorsementCounts[uid]);
+                }
+            }
+        }
+        return accountRanking;
+    }
+
+
+    /** Gets the generation of the snapshot
+     *
+     * @return generation stamped on the changes logged on top of the snapshot
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+
+    /** Gets the number of accounts
+     *
+     * @return number of accounts in the snapshot
+     */
+    int getNumberOfAccounts() {
+        return uidsByHandle.size();
+    }
+
+
+    /** Gets the number of original posts
+     *
+     * @return number of original posts in the snapshot
+     */
+    int getOriginalPostCount() {
+        return originalPostCount;
+    }
+
+
+    /** Gets the number of comments
+     *
+     * @return number of comments in the snapshot
+     */
+    int getCommentPostCount() {
+        return commentPostCount;
+    }
+
+
+    /** Gets the number of endorsements
+     *
+     * @return number of endorsements in the snapshot
+     */
+    int getEndorsementPostCount() {
+        return endorsementPostCount;
+    }
+
+
+    /** Builds every account and post in the snapshot, reusing the accounts that have already been built
+     *
+     * @return the whole snapshot as normal accounts and posts
+     * @throws IOException if the file is not a valid snapshot
+     */
+    PlatformSnapshot materialize() throws IOException {
+        ByteBuffer contents = buffer.duplicate();
+        contents.position(0);
+        return PlatformSnapshot.read(new DataInputStream(new BufferInputStream(contents)), filename, builtAccounts);
+    }
+
+
+    /** Reads a string written by PlatformSnapshot.writeString
+     *
+     * @param position offset of the string in the file
+     * @return the string held at the offset
+     */
+    private String readString(int position) {
+        int length = buffer.getInt(position);
+        byte[] bytes = new byte[length];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    /** Finds the end of a string written by PlatformSnapshot.writeString
+     *
+     * @param position offset of the string in the file
+     * @return offset of the first byte after the string
+     * @throws IOException if the string does not fit in the file
+     */
+    private int skipString(int position) throws IOException {
+        int length = buffer.getInt(position);
+        if (length < 0 || length > buffer.limit() - position - 4) {
+            throw new IOException("Invalid string length " + length + " in snapshot");
+        }
+        return position + 4 + length;
+    }
+
+
+    /**
+     * Stream reading the bytes of a mapped file, so a mapped snapshot can be read like any other
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        /**
+         * Creates a stream over the bytes remaining in a buffer
+         *
+         * @param buffer buffer being read, which the stream moves through
+         */
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Represents a snapshot of the metrics of an instrumented platform, located in the social media package
+ * A snapshot is made up of the metrics of every method of the platform: how many times it was called, how many of those calls threw,
+ * by exception type, and a histogram of how long the calls took. Counts keep growing from the moment the platform was instrumented, so
+ * rates are found by comparing two snapshots.
+ * <p>
+ * A snapshot can be written in the Prometheus text exposition format, one line for each value, which most metric scrapers read:
+ * <pre>
+ * socialmedia_calls_total{method="createPost"} 120
+ * socialmedia_errors_total{method="createPost",exception="HandleNotRecognisedException"} 3
+ * socialmedia_latency_seconds{method="createPost",quantile="0.99"} 2.4E-5
+ * socialmedia_latency_seconds_sum{method="createPost"} 0.0012
+ * socialmedia_latency_seconds_count{method="createPost"} 120
+ * </pre>
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public final class MetricsSnapshot {
+    // quantiles written for each method in the exposition format
+    private static final double[] EXPOSED_QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final List<MethodStats> methods;
+
+    /**
+     * Creates a snapshot
+     *
+     * @param methods metrics of every method, in the order they are reported
+     */
+    MetricsSnapshot(List<MethodStats> methods) {
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+
+    /** Gets the metrics of every method
+     *
+     * @return read-only list of the metrics of each method
+     */
+    public List<MethodStats> getMethods() {
+        return methods;
+    }
+
+
+    /** Gets the metrics of one method
+     *
+     * @param method name of the method, the same for every overload of it
+     * @return metrics of the method, or null if the platform has no method of that name
+     */
+    public MethodStats getMethod(String method) {
+        for (MethodStats stats : methods) {
+            if (stats.getMethod().equals(method)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+
+    /** Writes the snapshot in the Prometheus text exposition format
+     *
+     * @return every metric of the snapshot, one value for each line
+     */
+    public String toExposition() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP socialmedia_calls_total Calls of each platform method.\n");
+        out.append("# TYPE socialmedia_calls_total counter\n");
+        for (MethodStats stats : methods) {
+            out.append("socialmedia_calls_total{method=\"").append(stats.getMethod()).append("\"} ")
+                    .append(stats.getCallCount()).append('\n');
+        }
+        out.append("# HELP socialmedia_errors_total Calls of each platform method that threw, by exception type.\n");
+        out.append("# TYPE socialmedia_errors_total counter\n");
+        for (MethodStats stats : methods) {
+            for (Map.Entry<String, Long> error : stats.getErrorCounts().entrySet()) {
+                out.append("socialmedia_errors_total{method=\"").append(stats.getMethod()).append("\",exception=\"")
+                        .append(error.getKey()).append("\"} ").append(error.getValue()).append('\n');
+            }
+        }
+        out.append("# HELP socialmedia_latency_seconds Latency of each platform method.\n");
+        out.append("# TYPE socialmedia_latency_seconds summary\n");
+        for (MethodStats stats : methods) {
+            String label = "{method=\"" + stats.getMethod() + "\"";
+            for (double quantile : EXPOSED_QUANTILES) {
+                out.append("socialmedia_latency_seconds").append(label).append(",quantile=\"").append(quantile)
+                        .append("\"} ").append(stats.getLatencyPercentile(quantile * 100) / NANOS_PER_SECOND)
+                        .append('\n');
+            }
+            out.append("socialmedia_latency_seconds_sum").append(label).append("} ")
+                    .append(stats.getTotalLatencyNanos() / NANOS_PER_SECOND).append('\n');
+            out.append("socialmedia_latency_seconds_count").append(label).append("} ")
+                    .append(stats.getLatencyCount()).append('\n');
+        }
+        return out.toString();
+    }
+
+
+    /**
+     * Metrics of one method of the platform
+     */
+    public static final class MethodStats {
+        private final String method;
+        private final long callCount;
+        // number of calls that threw, by the simple name of the exception, in name order
+        private final Map<String, Long> errorCounts;
+        // count of each bucket of the latency histogram
+        private final long[] latencyBuckets;
+        private final long latencyCount;
+        private final long totalLatencyNanos;
+
+        /**
+         * Creates the metrics of a method
+         *
+         * @param method name of the method
+         * @param callCount number of calls
+         * @param errorCounts number of calls that threw, by exception name
+         * @param latencyBuckets count of each bucket of the latency histogram
+         * @param totalLatencyNanos sum of the latencies of every call
+         */
+        MethodStats(String method, long callCount, Map<String, Long> errorCounts, long[] latencyBuckets,
+                long totalLatencyNanos) {
+            this.method = method;
+            this.callCount = callCount;
+            this.errorCounts = Collections.unmodifiableMap(errorCounts);
+            this.latencyBuckets = latencyBuckets;
+            long count = 0;
+            for (long bucket : latencyBuckets) {
+                count += bucket;
+            }
+            this.latencyCount = count;
+            this.totalLatencyNanos = totalLatencyNanos;
+        }
+
+
+        /** Gets the name of the method
+         *
+         * @return method name
+         */
+        public String getMethod() {
+            return method;
+        }
+
+
+        /** Gets the number of calls
+         *
+         * @return number of times the method was called, including calls that threw
+         */
+        public long getCallCount() {
+            return callCount;
+        }
+
+
+        /** Gets the number of calls that threw
+         *
+         * @return number of calls that threw any exception
+         */
+        public long getErrorCount() {
+            long count = 0;
+            for (long errors : errorCounts.values()) {
+                count += errors;
+            }
+            return count;
+        }
+
+
+        /** Gets the number of calls that threw each type of exception
+         *
+         * @return read-only map from the simple name of each exception thrown to the number of calls that threw it
+         */
+        public Map<String, Long> getErrorCounts() {
+            return errorCounts;
+        }
+
+
+        /** Gets the number of latencies in the histogram
+         *
+         * @return number of calls timed, which may differ slightly from the call count while calls are running
+         */
+        public long getLatencyCount() {
+            return latencyCount;
+        }
+
+
+        /** Gets the sum of the latencies of every call
+         *
+         * @return total latency in nanoseconds
+         */
+        public long getTotalLatencyNanos() {
+            return totalLatencyNanos;
+        }
+
+
+        /** Gets a percentile of the latency, to within 6.25%
+         *
+         * @param percentile percentile wanted, from 0 to 100
+         * @return latency in nanoseconds that the given percent of calls took at most, or 0 if there were no calls
+         * @throws IllegalArgumentException if percentile is not between 0 and 100
+         */
+        public long getLatencyPercentile(double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100");
+            }
+            if (latencyCount == 0) {
+                return 0;
+            }
+            // rank of the latency wanted, counting from 1
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * latencyCount));
+            long seen = 0;
+            for (int i = 0; i < latencyBuckets.length; i++) {
+                seen += latencyBuckets[i];
+                if (seen >= rank) {
+                    return LatencyHistogram.highestInBucket(i);
+                }
+            }
+            return LatencyHistogram.highestInBucket(latencyBuckets.length - 1);
+        }
+
+
+        /** Gets the longest latency, to within 6.25%
+         *
+         * @return longest latency in nanoseconds, or 0 if there were no calls
+         */
+        public long getMaxLatencyNanos() {
+            for (int i = latencyBuckets.length - 1; i >= 0; i--) {
+                if (latencyBuckets[i] > 0) {
+                    return LatencyHistogram.highestInBucket(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -7,7 +7,7 @@ package socialmedia;
  * @version 1.0
  *
  */
-public class NotActionablePostException extends Exception {
+public class NotActionablePostException extends SocialMediaException {
 
 	/**
 	 * Constructs an instance of the exception with no message
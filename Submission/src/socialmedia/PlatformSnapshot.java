@@ -0,0 +1,430 @@
+/**
+ * Represents a snapshot of the platform contents, located in the social media package
+ * A snapshot is made up of every account, every post and the next IDs to be handed out, and is stored in a compact versioned binary file.
+ * <p>
+ * The file holds, in order: a magic number and format version, the next user ID and post ID, the generation, the accounts, the posts in
+ * post ID order and the comment lists that are not in post ID order (the generic post takes in replies as their parents are deleted).
+ * Each post also holds its creation time, and the file ends with every follow between accounts.
+ * Strings are stored as their length in bytes followed by their UTF-8 bytes. Posts refer to their author and parent by ID instead of holding
+ * the objects, so the file has no object graph and is read back in a single pass.
+ * <p>
+ * The generation is a random number given to each snapshot as it is saved, which the write-ahead log stamps on every change made on top of
+ * it, so changes the snapshot already holds can be told apart from the ones made after it.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
+final class PlatformSnapshot {
+    static final int MAGIC = 0x534D5053; // "SMPS"
+    static final int VERSION = 1;
+    // generation of a platform that has never been saved or loaded
+    static final long NO_GENERATION = 0;
+
+    static final byte ORIGINAL_POST = 0;
+    static final byte COMMENT = 1;
+    static final byte ENDORSEMENT = 2;
+    // post ID of the generic post, which is not counted among the posts of its "admin" author
+    static final int GENERIC_PID = 1;
+
+    // magic number, version, next user ID, next post ID and generation
+    static final int HEADER_SIZE = 24;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ArrayList<Account> accounts;
+    private final ArrayList<Post> posts;
+    private final int nextUid;
+    private final int nextPid;
+    private final int[] follows;
+    private final long generation;
+
+    /**
+     * Creates a snapshot that has been read from a file
+     *
+     * @param accounts every account, in the order they were saved
+     * @param posts every post, in post ID order, linked to their authors and parents
+     * @param nextUid next user ID to be handed out
+     * @param nextPid next post ID to be handed out
+     * @param follows pairs of follower and followee user IDs
+     * @param generation generation of the snapshot
+     */
+    private PlatformSnapshot(ArrayList<Account> accounts, ArrayList<Post> posts, int nextUid, int nextPid,
+            int[] follows, long generation) {
+        this.accounts = accounts;
+        this.posts = posts;
+        this.nextUid = nextUid;
+        this.nextPid = nextPid;
+        this.follows = follows;
+        this.generation = generation;
+    }
+
+
+    /** Gets the accounts of the snapshot
+     *
+     * @return every account, in the order they were saved
+     */
+    ArrayList<Account> getAccounts() {
+        return accounts;
+    }
+
+
+    /** Gets the posts of the snapshot
+     *
+     * @return every post in post ID order
+     */
+    ArrayList<Post> getPosts() {
+        return posts;
+    }
+
+
+    /** Gets the next user ID to be handed out
+     *
+     * @return next user ID
+     */
+    int getNextUid() {
+        return nextUid;
+    }
+
+
+    /** Gets the next post ID to be handed out
+     *
+     * @return next post ID
+     */
+    int getNextPid() {
+        return nextPid;
+    }
+
+
+    /** Gets the follows between accounts
+     *
+     * @return pairs of follower and followee user IDs, two entries per follow
+     */
+    int[] getFollows() {
+        return follows;
+    }
+
+
+    /** Gets the generation of the snapshot
+     *
+     * @return generation stamped on the changes logged on top of the snapshot
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+
+    /** Picks the generation of a snapshot about to be saved
+     *
+     * @param previous generation of the platform being saved, which the new one must differ from
+     * @return random generation that is neither NO_GENERATION nor previous
+     */
+    static long newGeneration(long previous) {
+        long generation;
+        do {
+            generation = ThreadLocalRandom.current().nextLong();
+        } while (generation == NO_GENERATION || generation == previous);
+        return generation;
+    }
+
+
+    /** Writes a snapshot of the platform to a file
+     * The snapshot is written to a temporary file, forced to disk and then moved over the old file, so a crash never leaves half a snapshot behind
+     *
+     * @param filename location of the file to be saved
+     * @param accounts every account on the platform
+     * @param posts every post on the platform
+     * @param nextUid next user ID to be handed out
+     * @param nextPid next post ID to be handed out
+     * @param follows pairs of follower and followee user IDs, two entries per follow
+     * @param generation generation of the snapshot, from newGeneration
+     * @throws IOException if there is a problem writing the file
+     */
+    static void write(String filename, Collection<Account> accounts, Iterable<Post> posts, int nextUid, int nextPid,
+            int[] follows, long generation) throws IOException {
+        ArrayList<Post> sorted = new ArrayList<Post>();
+        for (Post post : posts) {
+            sorted.add(post);
+        }
+        sorted.sort(Comparator.comparingInt(Post::getPid));
+
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nextUid);
+            out.writeInt(nextPid);
+            out.writeLong(generation);
+
+            out.writeInt(accounts.size());
+            for (Account account : accounts) {
+                out.writeInt(account.getUID());
+                writeString(out, account.getHandle());
+                writeString(out, account.getDescField());
+            }
+
+            out.writeInt(sorted.size());
+            ArrayList<Post> reordered = new ArrayList<Post>();
+            for (Post post : sorted) {
+                if (post instanceof OriginalPost) {
+                    out.writeByte(ORIGINAL_POST);
+                    out.writeInt(post.getPid());
+                    out.writeInt(post.getAuthor().getUID());
+                    out.writeInt(0);
+                    if (!inPidOrder(((OriginalPost) post).getComments())) {
+                        reordered.add(post);
+                    }
+                } else if (post instanceof Comment) {
+                    out.writeByte(COMMENT);
+                    out.writeInt(post.getPid());
+                    out.writeInt(post.getAuthor().getUID());
+                    out.writeInt(((Comment) post).getPostPointer());
+                    if (!inPidOrder(((Comment) post).getComments())) {
+                        reordered.add(post);
+                    }
+                } else {
+                    out.writeByte(ENDORSEMENT);
+                    out.writeInt(post.getPid());
+                    out.writeInt(post.getAuthor().getUID());
+                    out.writeInt(((Endorsement) post).getPostPointer());
+                }
+                out.writeLong(post.getCreatedAt());
+                writeString(out, post.getMessage());
+            }
+
+            // comment lists that are not in post ID order are saved in full
+            out.writeInt(reordered.size());
+            for (Post post : reordered) {
+                LinkedIdentitySet<Comment> comments = post instanceof OriginalPost ? ((OriginalPost) post).getComments()
+                        : ((Comment) post).getComments();
+                out.writeInt(post.getPid());
+                out.writeInt(comments.size());
+                for (Comment comment : comments) {
+                    out.writeInt(comment.getPid());
+                }
+            }
+
+            out.writeInt(follows.length / 2);
+            for (int follow : follows) {
+                out.writeInt(follow);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    /** Reads a snapshot from a file, rebuilding every link between accounts and posts
+     *
+     * @param filename location of the file to be loaded
+     * @return the snapshot held in the file
+     * @throws IOException if there is a problem reading the file, or it is not a valid snapshot
+     */
+    static PlatformSnapshot read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            return read(in, filename, null);
+        }
+    }
+
+
+    /** Reads a snapshot from a stream, rebuilding every link between accounts and posts
+     *
+     * @param in stream positioned at the start of the snapshot
+     * @param filename location the snapshot was read from, used in error messages
+     * @param known accounts already built from this snapshot, indexed by user ID, which are used instead of new ones, or null
+     * @return the snapshot held in the stream
+     * @throws IOException if there is a problem reading the stream, or it is not a valid snapshot
+     */
+    static PlatformSnapshot read(DataInputStream in, String filename, Account[] known) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException(filename + " is not a platform snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        int nextUid = in.readInt();
+        int nextPid = in.readInt();
+        long generation = in.readLong();
+
+        int accountCount = in.readInt();
+        ArrayList<Account> accounts = new ArrayList<Account>(accountCount);
+        Account[] accountsByUid = new Account[Math.max(nextUid, 1)];
+        for (int i = 0; i < accountCount; i++) {
+            int uid = checkId(in.readInt(), nextUid, "user");
+            String handle = readString(in);
+            String description = readString(in);
+            Account account = known != null && uid < known.length && known[uid] != null ? known[uid]
+                    : new Account(handle, description, uid);
+            accounts.add(account);
+            accountsByUid[uid] = account;
+        }
+
+        int postCount = in.readInt();
+        ArrayList<Post> posts = new ArrayList<Post>(postCount);
+        Post[] postsByPid = new Post[Math.max(nextPid, 1)];
+        for (int i = 0; i < postCount; i++) {
+            byte type = in.readByte();
+            int pid = checkId(in.readInt(), nextPid, "post");
+            Account author = accountsByUid[checkId(in.readInt(), nextUid, "user")];
+            int parentPid = in.readInt();
+            long createdAt = in.readLong();
+            String message = readString(in);
+            if (author == null) {
+                throw new IOException("Post " + pid + " refers to a missing account");
+            }
+            // parents always have a lower post ID, so they have already been read
+            Post parent = type == ORIGINAL_POST ? null : postsByPid[checkId(parentPid, pid, "post")];
+            if (type != ORIGINAL_POST && (parent == null || parent instanceof Endorsement)) {
+                throw new IOException("Post " + pid + " refers to a missing parent post");
+            }
+            Post post;
+            if (type == ORIGINAL_POST) {
+                post = new OriginalPost(message, author, pid);
+            } else if (type == COMMENT) {
+                Comment comment = new Comment(message, author, parent, pid);
+                if (parent instanceof OriginalPost) {
+                    ((OriginalPost) parent).addComment(comment);
+                } else {
+                    ((Comment) parent).addComment(comment);
+                }
+                post = comment;
+            } else if (type == ENDORSEMENT) {
+                Endorsement endorsement = new Endorsement(message, author, parent, pid);
+                if (parent instanceof OriginalPost) {
+                    ((OriginalPost) parent).addEndorsement(endorsement);
+                } else {
+                    ((Comment) parent).addEndorsement(endorsement);
+                }
+                parent.getAuthor().incrementEndorsementCount();
+                post = endorsement;
+            } else {
+                throw new IOException("Unknown post type " + type);
+            }
+            post.setCreatedAt(createdAt);
+            if (pid != GENERIC_PID) {
+                author.addPost(post);
+            }
+            posts.add(post);
+            postsByPid[pid] = post;
+        }
+
+        int reorderedCount = in.readInt();
+        for (int i = 0; i < reorderedCount; i++) {
+            Post post = postsByPid[checkId(in.readInt(), nextPid, "post")];
+            LinkedIdentitySet<Comment> comments = post instanceof OriginalPost ? ((OriginalPost) post).getComments()
+                    : ((Comment) post).getComments();
+            int size = in.readInt();
+            if (size != comments.size()) {
+                throw new IOException("Comment list of post " + post.getPid() + " does not match");
+            }
+            comments.clear();
+            for (int j = 0; j < size; j++) {
+                comments.add((Comment) postsByPid[checkId(in.readInt(), nextPid, "post")]);
+            }
+        }
+
+        int followCount = in.readInt();
+        if (followCount < 0 || followCount > (long) accountCount * accountCount) {
+            throw new IOException("Invalid follow count " + followCount + " in snapshot");
+        }
+        int[] follows = new int[followCount * 2];
+        for (int i = 0; i < follows.length; i++) {
+            int uid = checkId(in.readInt(), nextUid, "user");
+            if (accountsByUid[uid] == null) {
+                throw new IOException("Follow refers to missing account " + uid);
+            }
+            follows[i] = uid;
+        }
+        return new PlatformSnapshot(accounts, posts, nextUid, nextPid, follows, generation);
+    }
+
+
+    /** Checks whether a list of comments is in post ID order
+     *
+     * @param comments list of comments
+     * @return true if each comment has a higher post ID than the one before it
+     */
+    private static boolean inPidOrder(LinkedIdentitySet<Comment> comments) {
+        int previous = 0;
+        for (Comment comment : comments) {
+            if (comment.getPid() < previous) {
+                return false;
+            }
+            previous = comment.getPid();
+        }
+        return true;
+    }
+
+
+    /** Checks that an ID read from a file is one that could have been handed out
+     *
+     * @param id ID that was read
+     * @param next next ID to be handed out, which no saved object can have
+     * @param kind "user" or "post", used in the error message
+     * @return the ID that was read
+     * @throws IOException if the ID is out of range
+     */
+    static int checkId(int id, int next, String kind) throws IOException {
+        if (id <= 0 || id >= next) {
+            throw new IOException("Invalid " + kind + " ID " + id + " in snapshot");
+        }
+        return id;
+    }
+
+
+    /** Writes a string as its length in bytes followed by its UTF-8 bytes
+     *
+     * @param out stream being written to
+     * @param value string being written
+     * @throws IOException if there is a problem writing the string
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    /** Reads a string written by writeString
+     *
+     * @param in stream being read from
+     * @return the string that was read
+     * @throws IOException if there is a problem reading the string
+     */
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length " + length + " in snapshot");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Represents a snapshot of the platform statistics, located in the social media package
+ * A snapshot is made up of the number of accounts, original posts, comments and endorsements on the platform at the moment it was taken.
+ * All of the numbers are read together, so they always agree with each other.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+public class PlatformStats {
+    private final int numberOfAccounts;
+    private final int totalOriginalPosts;
+    private final int totalCommentPosts;
+    private final int totalEndorsementPosts;
+
+    /**
+     * Creates a snapshot of the platform statistics
+     *
+     * @param numberOfAccounts number of accounts on the platform
+     * @param totalOriginalPosts number of original posts on the platform
+     * @param totalCommentPosts number of comments on the platform
+     * @param totalEndorsementPosts number of endorsements on the platform
+     */
+    public PlatformStats(int numberOfAccounts, int totalOriginalPosts, int totalCommentPosts,
+            int totalEndorsementPosts) {
+        this.numberOfAccounts = numberOfAccounts;
+        this.totalOriginalPosts = totalOriginalPosts;
+        this.totalCommentPosts = totalCommentPosts;
+        this.totalEndorsementPosts = totalEndorsementPosts;
+    }
+
+
+    /** Gets the number of accounts
+     *
+     * @return number of accounts on the platform
+     */
+    public int getNumberOfAccounts() {
+        return numberOfAccounts;
+    }
+
+
+    /** Gets the number of original posts
+     *
+     * @return number of original posts on the platform
+     */
+    public int getTotalOriginalPosts() {
+        return totalOriginalPosts;
+    }
+
+
+    /** Gets the number of comments
+     *
+     * @return number of comments on the platform
+     */
+    public int getTotalCommentPosts() {
+        return totalCommentPosts;
+    }
+
+
+    /** Gets the number of endorsements
+     *
+     * @return number of endorsements on the platform
+     */
+    public int getTotalEndorsementPosts() {
+        return totalEndorsementPosts;
+    }
+
+
+    /** Gets the number of posts of every type
+     *
+     * @return number of original posts, comments and endorsements on the platform
+     */
+    public int getTotalPosts() {
+        return totalOriginalPosts + totalCommentPosts + totalEndorsementPosts;
+    }
+
+
+    @Override
+    public String toString() {
+        return "Accounts: " + numberOfAccounts + " | Original posts: " + totalOriginalPosts + " | Comments: "
+                + totalCommentPosts + " | Endorsements: " + totalEndorsementPosts;
+    }
+}
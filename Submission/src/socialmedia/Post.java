@@ -1,6 +1,6 @@
 /**
  * Represents a Post, which is used as the parent class of any type of Post in the social media package, which is located in the social media package
- * A Post is made up of a message, an author and a post ID (pid)
+ * A Post is made up of a message, an author, a post ID (pid) and the time it was created
  * 
  * @author Jeroen Mijer, Alexander Robertson
  * @version 1.0
@@ -13,9 +13,11 @@ public class Post implements Serializable {
     private int pid;
     private String message;
     private Account author;
+    private long createdAt;
     
     /**
      * Creates a Post
+     * Sets the creation time to the current time
      * 
      * @param message message of the Post
      * @param author author of the Post
@@ -25,6 +27,7 @@ public class Post implements Serializable {
         this.pid = pid;
         this.message = message; 
         this.author = author;
+        this.createdAt = System.currentTimeMillis();
     }
 
     
@@ -51,5 +54,42 @@ public class Post implements Serializable {
     public int getPid() {
         return pid;
     }
-}
 
+    /** Gets the time the post was created
+     * 
+     * @return creation time of the post, in milliseconds since the epoch
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /** Sets the time the post was created, used when a post is loaded or replayed
+     * 
+     * @param createdAt creation time of the post, in milliseconds since the epoch
+     */
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /** Gets the post this post replies to or endorses
+     * 
+     * @return parent post, or null for an original post
+     */
+    public Post getParent() {
+        return null;
+    }
+
+    /** Gets the original post at the top of the thread this post belongs to, following parent references up the thread
+     * 
+     * @return original post of the thread, which is this post for an original post
+     */
+    public Post getThreadRoot() {
+        Post current = this;
+        Post parent = current.getParent();
+        while (parent != null) {
+            current = parent;
+            parent = current.getParent();
+        }
+        return current;
+    }
+}
@@ -7,7 +7,7 @@ package socialmedia;
  * @version 1.0
  *
  */
-public class PostIDNotRecognisedException extends Exception {
+public class PostIDNotRecognisedException extends SocialMediaException {
 
 	/**
 	 * Constructs an instance of the exception with no message
@@ -0,0 +1,183 @@
+/**
+ * Represents the table of every post on the platform, located in the social media package
+ * Posts are stored in fixed size chunks indexed by post ID (pid), so a post can be found, added or removed without searching through the other posts.
+ * Removing a post leaves an empty slot (tombstone) behind it, since the post IDs of the remaining posts never move.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class PostTable implements Iterable<Post> {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private Post[][] chunks;
+    private int[] chunkCounts; // number of live posts held in each chunk
+    private int size;
+    private int highestPid;
+
+    /**
+     * Creates an empty post table
+     */
+    public PostTable() {
+        this.chunks = new Post[1][];
+        this.chunkCounts = new int[1];
+        this.size = 0;
+        this.highestPid = 0;
+    }
+
+
+    /** Gets the post with the given post ID
+     *
+     * @param pid post ID of the post
+     * @return post with the given post ID, or null if there is no such post
+     */
+    public Post get(int pid) {
+        if (pid <= 0 || pid > highestPid) {
+            return null;
+        }
+        Post[] chunk = chunks[pid >>> CHUNK_BITS];
+        return chunk == null ? null : chunk[pid & CHUNK_MASK];
+    }
+
+
+    /** Adds a post to the slot of its post ID
+     *
+     * @param post post being added
+     * @throws IllegalStateException if another post already holds that post ID
+     */
+    public void add(Post post) {
+        int pid = post.getPid();
+        if (pid <= 0) {
+            throw new IllegalArgumentException("Post ID must be positive");
+        }
+        int index = pid >>> CHUNK_BITS;
+        if (index >= chunks.length) {
+            int length = Math.max(index + 1, chunks.length * 2);
+            chunks = Arrays.copyOf(chunks, length);
+            chunkCounts = Arrays.copyOf(chunkCounts, length);
+        }
+        if (chunks[index] == null) {
+            chunks[index] = new Post[CHUNK_SIZE];
+        }
+        if (chunks[index][pid & CHUNK_MASK] != null) {
+            throw new IllegalStateException("Post ID " + pid + " is already in use");
+        }
+        chunks[index][pid & CHUNK_MASK] = post;
+        chunkCounts[index]++;
+        size++;
+        highestPid = Math.max(highestPid, pid);
+    }
+
+
+    /** Removes a post from the table, leaving a tombstone in its slot
+     * Chunks left without any live posts are released
+     *
+     * @param post post being removed
+     * @return true if the post was in the table
+     */
+    public boolean remove(Post post) {
+        int pid = post.getPid();
+        if (get(pid) != post) {
+            return false;
+        }
+        int index = pid >>> CHUNK_BITS;
+        chunks[index][pid & CHUNK_MASK] = null;
+        if (--chunkCounts[index] == 0) {
+            chunks[index] = null;
+        }
+        size--;
+        return true;
+    }
+
+
+    /** Gets the number of posts in the table
+     *
+     * @return number of posts in the table, not counting tombstones
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /** Gets the highest post ID that has been added to the table
+     *
+     * @return highest post ID ever held by the table, or 0 if it has always been empty
+     */
+    public int getHighestPid() {
+        return highestPid;
+    }
+
+
+    /** Removes every post from the table
+     */
+    public void clear() {
+        this.chunks = new Post[1][];
+        this.chunkCounts = new int[1];
+        this.size = 0;
+        this.highestPid = 0;
+    }
+
+
+    /** Gets a stream of every post in the table, in post ID order
+     *
+     * @return stream of every post in the table
+     */
+    public Stream<Post> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+
+    /** Gets an iterator over every post in the table, in post ID order
+     * Tombstones and released chunks are skipped
+     *
+     * @return iterator over every post in the table
+     */
+    @Override
+    public Iterator<Post> iterator() {
+        return new Iterator<Post>() {
+            private int pid = 0;
+            private Post next = advance();
+
+            private Post advance() {
+                while (pid < highestPid) {
+                    pid++;
+                    Post[] chunk = chunks[pid >>> CHUNK_BITS];
+                    if (chunk == null) {
+                        // skip straight to the end of a released chunk
+                        pid |= CHUNK_MASK;
+                        continue;
+                    }
+                    if (chunk[pid & CHUNK_MASK] != null) {
+                        return chunk[pid & CHUNK_MASK];
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Post next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Post current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Represents the type of a post, located in the social media package
+ * Every post is an original post, a comment or an endorsement, and an account's timeline keeps the posts of each type apart.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+public enum PostType {
+    ORIGINAL_POST,
+    COMMENT,
+    ENDORSEMENT;
+
+
+    /** Gets the type of a post
+     *
+     * @param post post of any type
+     * @return type of the post
+     */
+    public static PostType of(Post post) {
+        if (post instanceof OriginalPost) {
+            return ORIGINAL_POST;
+        } else if (post instanceof Comment) {
+            return COMMENT;
+        }
+        return ENDORSEMENT;
+    }
+}
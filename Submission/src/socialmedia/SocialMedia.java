@@ -1,71 +1,238 @@
 package socialmedia;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * SocialMedia is a compiling implementor of the SocialMediaPlatform interface.
- * SocialMedia is made up of an arraylist of all accounts created on the
- * platform and an arraylist of all posts made on the platform
+ * SocialMedia is a compiling implementor of the ExtendedSocialMediaPlatform
+ * interface.
+ * SocialMedia is made up of a map of all accounts created on the platform,
+ * indexed by user ID and by handle, and a table of all posts made on the
+ * platform, indexed by post ID
  * 
  * @author Jeroen Mijer
  * @author Alex Robertson
  * @version 1.0
  */
-public class SocialMedia implements SocialMediaPlatform {
-
-	// Public list of all accounts
-	public transient ArrayList<Account> accounts;
-	// public list of all posts
-	public transient ArrayList<Post> posts;
+public class SocialMedia implements ExtendedSocialMediaPlatform {
+
+	// The platform is saved with savePlatform, never with Java serialization, so
+	// this only fixes the ID the inherited Serializable interface asks for
+	private static final long serialVersionUID = 1L;
+	// Types of the records written to the write-ahead log
+	private static final byte LOG_CREATE_ACCOUNT = 1;
+	private static final byte LOG_REMOVE_ACCOUNT = 2;
+	private static final byte LOG_CHANGE_HANDLE = 3;
+	private static final byte LOG_UPDATE_DESCRIPTION = 4;
+	private static final byte LOG_CREATE_POST = 5;
+	private static final byte LOG_ENDORSE_POST = 6;
+	private static final byte LOG_COMMENT_POST = 7;
+	private static final byte LOG_DELETE_POST = 8;
+	private static final byte LOG_ERASE_PLATFORM = 9;
+	private static final byte LOG_FOLLOW = 10;
+	private static final byte LOG_UNFOLLOW = 11;
+	// Longest time a change waits in memory before the log forces it to disk
+	private static final long LOG_COMMIT_INTERVAL_MILLIS = 5;
+
+	// Public map of all accounts, indexed by user ID and kept in creation order
+	public transient LinkedHashMap<Integer, Account> accounts;
+	// Index of all accounts by handle, kept in step with accounts
+	private transient HashMap<String, Account> handles;
+	// Accounts sorted by handle, for prefix searches, kept in step with handles
+	private transient HandleIndex handleIndex;
+	// public table of all posts, indexed by post ID
+	public transient PostTable posts;
+	// Number of posts of each type, kept by addPost and removePost
+	private transient int originalPostCount;
+	private transient int commentPostCount;
+	private transient int endorsementPostCount;
+	// Leaderboards of posts and accounts ranked by number of endorsements
+	private transient Leaderboard postRanking;
+	private transient Leaderboard accountRanking;
+	// Allocators handing out unique user IDs and post IDs, never reused
+	private transient IdAllocator accountIds;
+	private transient IdAllocator postIds;
+	// Follow graph and home feed inboxes
+	private transient FeedEngine feeds;
+	// Log of the changes made since the last snapshot, or null if changes are not logged
+	private transient WriteAheadLog log;
+	// Generation of the snapshot last saved or loaded, which every logged change is
+	// stamped with, or PlatformSnapshot.NO_GENERATION if there has been none
+	private transient long generation;
+	// Snapshot mapped by mapPlatform, which answers queries until the platform is
+	// materialized, or null if the platform is held in full
+	private transient MappedSnapshot mapped;
 
 	public SocialMedia() {
 		/**
-		 * Creates a Social Media object Instantiates 2 empty arraylists of accounts and
+		 * Creates a Social Media object Instantiates empty collections of accounts and
 		 * posts because no account can be created or post can be posted until there is
 		 * a platform to be stored on
 		 * 
 		 */
-		this.accounts = new ArrayList<Account>();
-		this.posts = new ArrayList<Post>();
+		this.accounts = new LinkedHashMap<Integer, Account>();
+		this.handles = new HashMap<String, Account>();
+		this.handleIndex = HandleIndex.create();
+		this.posts = new PostTable();
+		this.postRanking = new Leaderboard();
+		this.accountRanking = new Leaderboard();
+		this.accountIds = new IdAllocator(1);
+		this.postIds = new IdAllocator(1);
+		this.feeds = new FeedEngine(FeedEngine.CELEBRITY_THRESHOLD, FeedEngine.INBOX_CAPACITY, new FeedEngine.Source() {
+			@Override
+			public int[] newestPosts(int uid, int beforePid, int limit) {
+				Account account = accounts.get(uid);
+				return account == null ? new int[0] : FeedEngine.newestPosts(account, beforePid, limit);
+			}
+
+			@Override
+			public boolean isVisible(int pid) {
+				return posts.get(pid) != null;
+			}
+		});
+
+		addGenericPost();
+	}
 
+	/**
+	 * Adds the generic post and its "admin" account, which take the first user
+	 * and post IDs, to an empty platform
+	 */
+	private void addGenericPost() {
 		// create generic post with author "admin" to contain the generic error message
-		Account genericAccount = new Account("admin", "", 1);
+		Account genericAccount = new Account("admin", "", accountIds.next());
 		OriginalPost genericPost = new OriginalPost(
-				"The original content was removed from the system and is no longer available.", genericAccount, 1);
-		// add generic post and account to system arraylists
-		this.accounts.add(genericAccount);
-		this.posts.add(genericPost);
+				"The original content was removed from the system and is no longer available.", genericAccount,
+				postIds.next());
+		// add generic post and account to system collections
+		addAccount(genericAccount);
+		addPost(genericPost);
+	}
+
+	/**
+	 * Adds an account to the platform, to both account indexes and to the account
+	 * leaderboard
+	 * 
+	 * @param account account being added
+	 */
+	private void addAccount(Account account) {
+		accounts.put(account.getUID(), account);
+		handles.put(account.getHandle(), account);
+		handleIndex.add(account.getHandle(), account, account.getEndorsementCount());
+		accountRanking.put(account.getUID(), account.getEndorsementCount());
+	}
+
+	/**
+	 * Moves an account on the account leaderboard and in the handle index
+	 * rankings after its number of endorsements has changed
+	 * 
+	 * @param account account whose endorsements changed
+	 */
+	private void rankAccount(Account account) {
+		accountRanking.put(account.getUID(), account.getEndorsementCount());
+		handleIndex.setEndorsements(account.getHandle(), account, account.getEndorsementCount());
+	}
+
+	/**
+	 * Adds a post to the table of posts and the count of its type and, unless it
+	 * is an endorsement, to the post leaderboard
+	 * 
+	 * @param post post being added
+	 */
+	private void addPost(Post post) {
+		posts.add(post);
+		if (post instanceof OriginalPost) {
+			originalPostCount++;
+			postRanking.put(post.getPid(), ((OriginalPost) post).getEndorsementCount());
+		} else if (post instanceof Comment) {
+			commentPostCount++;
+			postRanking.put(post.getPid(), ((Comment) post).getEndorsementCount());
+		} else {
+			endorsementPostCount++;
+		}
+	}
+
+	/**
+	 * Removes a post from the table of posts, the count of its type and the post
+	 * leaderboard
+	 * 
+	 * @param post post being removed
+	 */
+	private void removePost(Post post) {
+		if (!posts.remove(post)) {
+			return;
+		}
+		if (post instanceof OriginalPost) {
+			originalPostCount--;
+		} else if (post instanceof Comment) {
+			commentPostCount--;
+		} else {
+			endorsementPostCount--;
+		}
+		postRanking.remove(post.getPid());
+	}
+
+	/**
+	 * Finds a post using the post table
+	 * 
+	 * @param pid post ID of the post
+	 * @return post with the given post ID
+	 * @throws PostIDNotRecognisedException if no post has the given post ID
+	 */
+	private Post getPost(int pid) throws PostIDNotRecognisedException {
+		Post post = posts.get(pid);
+		if (post == null) {
+			throw new PostIDNotRecognisedException("Post ID not recognised");
+		}
+		return post;
+	}
+
+	/**
+	 * Finds an account using the handle index
+	 * 
+	 * @param handle handle of the account
+	 * @return account with the given handle
+	 * @throws HandleNotRecognisedException if no account has the given handle
+	 */
+	private Account getAccount(String handle) throws HandleNotRecognisedException {
+		Account account = handles.get(handle);
+		if (account == null) {
+			throw new HandleNotRecognisedException("Handle not recognised");
+		}
+		return account;
 	}
 
 	@Override
 	public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+		materialize();
 		// check if handle is valid
 		// empty, more than 30 characters, has white spaces then is invalid
-		if (handle.isEmpty() || handle.length() > 30 || handle.contains(" ")) {
+		if (!Account.isValidHandle(handle)) {
 			throw new InvalidHandleException("empty, OR more than 30 characters, OR has white spaces then is invalid");
 		}
 
 		// check if handle is unique
-		for (Account account : accounts) {
-			if (account.getHandle().equals(handle)) {
-				throw new IllegalHandleException("That handle is not unique");
-			}
+		if (handles.containsKey(handle)) {
+			throw new IllegalHandleException("That handle is not unique");
 		}
 
 		// If handle input is valid
 		// create account with descfield=""
-		Integer uid = accounts.size() + 1;
+		Integer uid = accountIds.next();
 		Account accountTemp = new Account(handle, "", uid);
 
-		// add account to account list
-		accounts.add(accountTemp);
+		// add account to account indexes
+		addAccount(accountTemp);
+		if (log != null) {
+			log.append(generation, LOG_CREATE_ACCOUNT, accountTemp.getUID(), handle, "");
+		}
 
 		// return uid
 		return accountTemp.getUID();
@@ -74,27 +241,29 @@ public class SocialMedia implements SocialMediaPlatform {
 
 	@Override
 	public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+		materialize();
 		// check if handle is valid
 		// empty, more than 30 characters, has white spaces then is invalid
-		if (handle.isEmpty() || handle.length() > 30 || handle.contains(" ")) {
+		if (!Account.isValidHandle(handle)) {
 			throw new InvalidHandleException(
 					"Handle empty, OR more than 30 characters, OR has white spaces then is invalid");
 		}
 
 		// check if handle is unique
-		for (Account account : accounts) {
-			if (account.getHandle().equals(handle)) {
-				throw new IllegalHandleException("That handle is not unique");
-			}
+		if (handles.containsKey(handle)) {
+			throw new IllegalHandleException("That handle is not unique");
 		}
 
 		// If handle is valid
 		// create account with descfield=description
-		Integer uid = accounts.size() + 1;
+		Integer uid = accountIds.next();
 		Account accountTemp = new Account(handle, description, uid);
 
-		// add account to account list
-		accounts.add(accountTemp);
+		// add account to account indexes
+		addAccount(accountTemp);
+		if (log != null) {
+			log.append(generation, LOG_CREATE_ACCOUNT, accountTemp.getUID(), handle, description);
+		}
 
 		// return uid
 		return accountTemp.getUID();
@@ -102,130 +271,122 @@ public class SocialMedia implements SocialMediaPlatform {
 
 	@Override
 	public void removeAccount(int id) throws AccountIDNotRecognisedException {
-		boolean found = false;
-		for (int i = 0; i < accounts.size(); i++) {
-			if (accounts.get(i).getUID() == id) {
-				// for each post in the account delete the post using deletePost method
-				for (Post post : accounts.get(i).getPosts()) {
-					try {
-						deletePost(post.getPid());
-					} catch (PostIDNotRecognisedException e) {
-						e.printStackTrace();
-					}
-				}
-				// remove account from the arraylist accounts
-				accounts.remove(id - 1);
-				found = true;
-				break;
-			}
-		}
-		if (!found) {
+		materialize();
+		Account account = accounts.get(id);
+		if (account == null) {
 			throw new AccountIDNotRecognisedException("Account ID not recognised");
 		}
+		removeAccount(account);
 	}
 
 	@Override
 	public void removeAccount(String handle) throws HandleNotRecognisedException {
-		boolean found = false;
-		for (int i = 0; i < accounts.size(); i++) {
-			if (accounts.get(i).getHandle().equals(handle)) {
-
-				for (Post post : accounts.get(i).getPosts()) {
-					try {
-						deletePost(post.getPid());
-					} catch (PostIDNotRecognisedException e) {
-						e.printStackTrace();
-					}
-				}
-				// remove account from the arraylist accounts
-				accounts.remove(i);
-				found = true;
-				break;
+		materialize();
+		removeAccount(getAccount(handle));
+	}
+
+	/**
+	 * Removes an account, and every post it has made, from the platform and from
+	 * both account indexes
+	 * 
+	 * @param account account being removed
+	 */
+	private void removeAccount(Account account) {
+		// collect every post the account owns and detach them all in one pass,
+		// instead of deleting the posts one at a time
+		CascadeDelete cascade = new CascadeDelete(account);
+		cascade.apply((OriginalPost) posts.get(1));
+		for (Post post : cascade.getDeletedPosts()) {
+			removePost(post);
+		}
+		for (Post post : cascade.getEndorsedPosts()) {
+			if (post instanceof OriginalPost) {
+				postRanking.put(post.getPid(), ((OriginalPost) post).getEndorsementCount());
+			} else {
+				postRanking.put(post.getPid(), ((Comment) post).getEndorsementCount());
 			}
 		}
-		if (!found) {
-			throw new HandleNotRecognisedException("Handle not recognised");
+		for (Account author : cascade.getEndorsedAuthors()) {
+			rankAccount(author);
+		}
+		// remove account from both account indexes and the account leaderboard
+		accounts.remove(account.getUID());
+		handles.remove(account.getHandle());
+		handleIndex.remove(account.getHandle(), account);
+		accountRanking.remove(account.getUID());
+		feeds.removeAccount(account.getUID());
+		if (log != null) {
+			log.append(generation, LOG_REMOVE_ACCOUNT, account.getUID());
 		}
 	}
 
 	@Override
 	public void changeAccountHandle(String oldHandle, String newHandle)
 			throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
+		materialize();
 		// Check if new handle is valid
-		if (newHandle.isEmpty() || newHandle.length() > 30 || newHandle.contains(" ")) {
+		if (!Account.isValidHandle(newHandle)) {
 			throw new InvalidHandleException("empty, OR more than 30 characters, OR has white spaces then is invalid");
 		}
 
 		// check if new handle is unique
-		for (Account account : accounts) {
-			if (account.getHandle().equals(newHandle)) {
-				throw new IllegalHandleException("That handle is not unique");
-			}
+		if (handles.containsKey(newHandle)) {
+			throw new IllegalHandleException("That handle is not unique");
 		}
 
 		// if input handle is valid
-		// Change handle from oldHandle to newHandle
-		boolean found = false;
-		for (Account account : accounts) {
-			if (account.getHandle().equals(oldHandle)) {
-				account.setHandle(newHandle);
-				found = true;
-			}
-		}
-		// If input handle does not match any existing handle found throw handle not
-		// recognised exception
-		if (!found) {
-			throw new HandleNotRecognisedException("Handle not recognised");
+		// Change handle from oldHandle to newHandle and move it in the handle index
+		Account account = getAccount(oldHandle);
+		handles.remove(oldHandle);
+		handleIndex.remove(oldHandle, account);
+		account.setHandle(newHandle);
+		handles.put(newHandle, account);
+		handleIndex.add(newHandle, account, account.getEndorsementCount());
+		if (log != null) {
+			log.append(generation, LOG_CHANGE_HANDLE, oldHandle, newHandle);
 		}
-
 	}
 
 	@Override
 	public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
-		boolean found = false;
-		for (Account account : accounts) {
-			if (account.getHandle().equals(handle)) {
-				account.setDescField(description);
-				found = true;
-			}
-		}
-		// If input handle does not match any existing handle found throw handle not
-		// recognised exception
-		if (!found) {
-			throw new HandleNotRecognisedException("Handle not recognised");
+		materialize();
+		getAccount(handle).setDescField(description);
+		if (log != null) {
+			log.append(generation, LOG_UPDATE_DESCRIPTION, handle, description);
 		}
 	}
 
+	@Override
+	public String[] searchHandles(String prefix, int limit, boolean rankByEndorsements) {
+		materialize();
+		return handleIndex.search(prefix, limit, rankByEndorsements);
+	}
+
 	@Override
 	public String showAccount(String handle) throws HandleNotRecognisedException {
-		boolean found = false;
-		Account account = null;
-		for (Account searchaccount : accounts) {
-			if (searchaccount.getHandle().equals(handle)) {
-				account = searchaccount;
-				found = true;
+		if (mapped != null) {
+			// answer from the mapped snapshot, which has counted the posts of each account
+			Account account = mapped.getAccount(handle);
+			if (account == null) {
+				throw new HandleNotRecognisedException("Handle not recognised");
 			}
+			return formatAccount(account, mapped.getPostCount(account), mapped.getEndorsementCount(account));
 		}
-		// If input handle does not match any existing handle found throw handle not
-		// recognised exception
-		if (!found) {
-			throw new HandleNotRecognisedException("Handle not recognised");
-		}
+		Account account = getAccount(handle);
 
-		Integer endorseCount = 0;
-		// for all posts in account check the amount of endorsements and add them to
-		// endorseCount
-		for (Post accPost : account.getPosts()) {
-			// if post is an original post (in order to downcast)
-			if (accPost instanceof OriginalPost) {
-				endorseCount += ((OriginalPost) accPost).getEndorsements().size();
-			}
-			// else if post is Comment (in order to downcast)
-			else if (accPost instanceof Comment) {
-				endorseCount += ((Comment) accPost).getEndorsements().size();
-			}
+		// the account keeps count of the endorsements its posts have received
+		return formatAccount(account, account.getPosts().size(), account.getEndorsementCount());
+	}
 
-		}
+	/**
+	 * Formats the details of an account for showAccount
+	 * 
+	 * @param account      account being shown
+	 * @param postCount    number of posts the account has made
+	 * @param endorseCount number of endorsements the account has received
+	 * @return the account in the desired format
+	 */
+	private String formatAccount(Account account, int postCount, int endorseCount) {
 		// returns the account in the desired format
 		return String.format("""
 				ID: %d
@@ -233,29 +394,74 @@ public class SocialMedia implements SocialMediaPlatform {
 				Description: %s
 				Post Count: %d
 				Endorse Count: %d
-				""", account.getUID(), account.getHandle(), account.getDescField(), account.getPosts().size(),
-				endorseCount);
+				""", account.getUID(), account.getHandle(), account.getDescField(), postCount, endorseCount);
+	}
+
+	@Override
+	public void follow(String followerHandle, String followeeHandle) throws HandleNotRecognisedException {
+		materialize();
+		Account follower = getAccount(followerHandle);
+		Account followee = getAccount(followeeHandle);
+		if (feeds.follow(follower.getUID(), followee.getUID()) && log != null) {
+			log.append(generation, LOG_FOLLOW, followerHandle, followeeHandle);
+		}
+	}
+
+	@Override
+	public void unfollow(String followerHandle, String followeeHandle) throws HandleNotRecognisedException {
+		materialize();
+		Account follower = getAccount(followerHandle);
+		Account followee = getAccount(followeeHandle);
+		if (feeds.unfollow(follower.getUID(), followee.getUID()) && log != null) {
+			log.append(generation, LOG_UNFOLLOW, followerHandle, followeeHandle);
+		}
+	}
+
+	@Override
+	public int[] getHomeFeed(String handle, int beforePid, int limit) throws HandleNotRecognisedException {
+		materialize();
+		return feeds.getHomeFeed(getAccount(handle).getUID(), beforePid, limit);
+	}
+
+	@Override
+	public int getFollowerCount(String handle) throws HandleNotRecognisedException {
+		materialize();
+		return feeds.getFollowerCount(getAccount(handle).getUID());
+	}
+
+	@Override
+	public int getFollowingCount(String handle) throws HandleNotRecognisedException {
+		materialize();
+		return feeds.getFollowingCount(getAccount(handle).getUID());
+	}
+
+	@Override
+	public TimelinePage getAccountTimeline(String handle, PostType type, int beforePid, int limit)
+			throws HandleNotRecognisedException {
+		materialize();
+		return TimelinePage.read(getAccount(handle).getTimeline(type), beforePid, limit);
 	}
 
 	@Override
 	public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+		materialize();
 		// verification of message
 		if (message.length() <= 100 && !(message.isEmpty())) {
-			// look through list of accounts
-			for (Account account : accounts) {
-				// find account with matching handle
-				if (account.getHandle().equals(handle)) {
-					// Create a new original post
-					Integer pid = posts.size() + 1;
-					OriginalPost post = new OriginalPost(message, account, pid);
-					// Add the post to the list of posts in the account that created the post
-					account.addPost(post);
-					// Add the post to the list of posts in social media
-					this.posts.add(post);
-					return pid;
-				}
+			// find account with matching handle
+			Account account = getAccount(handle);
+			// Create a new original post
+			Integer pid = postIds.next();
+			OriginalPost post = new OriginalPost(message, account, pid);
+			// Add the post to the list of posts in the account that created the post
+			account.addPost(post);
+			// Add the post to the list of posts in social media
+			addPost(post);
+			// push the post into the feeds of the account's followers
+			feeds.publish(account.getUID(), pid);
+			if (log != null) {
+				log.append(generation, LOG_CREATE_POST, pid, handle, message, post.getCreatedAt());
 			}
-			throw new HandleNotRecognisedException("Handle not recognised");
+			return pid;
 		} else {
 			throw new InvalidPostException("Message is over 100 characters long OR is empty");
 		}
@@ -265,42 +471,44 @@ public class SocialMedia implements SocialMediaPlatform {
 	private void addEndToPost(Post post, Endorsement endorsement) {
 		if (post instanceof OriginalPost) {
 			((OriginalPost) post).addEndorsement(endorsement);
+			postRanking.put(post.getPid(), ((OriginalPost) post).getEndorsementCount());
 		} else {
 			((Comment) post).addEndorsement(endorsement);
+			postRanking.put(post.getPid(), ((Comment) post).getEndorsementCount());
 		}
+		// the author of the endorsed post has received one more endorsement
+		Account author = post.getAuthor();
+		author.incrementEndorsementCount();
+		rankAccount(author);
 	}
 
 	@Override
 	public int endorsePost(String handle, int pid)
 			throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
-		// look through list of accounts
-
-		for (Account account : accounts) {
-			if (account.getHandle().equals(handle)) {
-				// find post that wants to be endorsed using pid
-				for (Post post : posts) {
-					// check if endorsing an endorsement
-					if (post.getPid() == pid) {
-						if (!(post instanceof Endorsement)) {
-							// Create the endorsement message in the desired format
-							String message = "EP@" + post.getAuthor().getHandle() + ": " + post.getMessage();
-							int endPID = posts.size() + 1;
-							Endorsement endorsement = new Endorsement(message, account, pid, endPID);
-							// Append endorsement to list of posts in social media
-							this.posts.add(endorsement);
-							// Add endorsement to list of posts of the account making the endorsement
-							account.addPost(endorsement);
-							addEndToPost(post, endorsement);
-							// check if endorsing an original post or a comment in order to downcast
-							return endorsement.getPid();
-						}
-						throw new NotActionablePostException("Cannot endorse an endorsement");
-					}
-				}
-				throw new PostIDNotRecognisedException("Post ID not recognised");
-			}
+		materialize();
+		// find account with matching handle
+		Account account = getAccount(handle);
+		// find post that wants to be endorsed using pid
+		Post post = getPost(pid);
+		// check if endorsing an endorsement
+		if (post instanceof Endorsement) {
+			throw new NotActionablePostException("Cannot endorse an endorsement");
+		}
+		// Create the endorsement message in the desired format
+		String message = "EP@" + post.getAuthor().getHandle() + ": " + post.getMessage();
+		int endPID = postIds.next();
+		Endorsement endorsement = new Endorsement(message, account, post, endPID);
+		// Append endorsement to table of posts in social media
+		addPost(endorsement);
+		// Add endorsement to list of posts of the account making the endorsement
+		account.addPost(endorsement);
+		// check if endorsing an original post or a comment in order to downcast
+		addEndToPost(post, endorsement);
+		feeds.publish(account.getUID(), endPID);
+		if (log != null) {
+			log.append(generation, LOG_ENDORSE_POST, endPID, handle, pid, endorsement.getCreatedAt());
 		}
-		throw new HandleNotRecognisedException("Handle is not recognised");
+		return endorsement.getPid();
 	}
 
 	/**
@@ -320,11 +528,11 @@ public class SocialMedia implements SocialMediaPlatform {
 		if (post instanceof Endorsement) {
 			throw new NotActionablePostException("Cannot comment on an endorsement");
 		}
-		int comPID = posts.size() + 1;
-		Comment comment = new Comment(message, account, pid, comPID);
+		int comPID = postIds.next();
+		Comment comment = new Comment(message, account, post, comPID);
 		// have to add endorsement to list of posts, account and make it a child of
 		// other post
-		this.posts.add(comment);
+		addPost(comment);
 		account.addPost(comment);
 		// check if endorsing an original post or a comment in order to downcast
 		// Add comment to arraylist of comments of parent post
@@ -341,61 +549,115 @@ public class SocialMedia implements SocialMediaPlatform {
 	@Override
 	public int commentPost(String handle, int pid, String message) throws HandleNotRecognisedException,
 			PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+		materialize();
 		// test if message is valid
 		if (!(message.length() <= 100 && !message.isEmpty())) {
 			throw new InvalidPostException("Message of post is greater than 100 characters OR is empty");
 		}
 
-		boolean found = false;
-		Account accountCommentor = null;
-		for (Account account : accounts) {
-			if (account.getHandle().equals(handle)) {
-				accountCommentor = account;
-				found = true;
-			}
-		}
-		// If input handle does not match any existing handle found throw handle not
-		// recognised exception
-		if (!(found)) {
-			throw new HandleNotRecognisedException("Handle not recognised");
+		Account accountCommentor = getAccount(handle);
+
+		Post post = getPost(pid);
+		int comPID = cognitiveComplexityReducer(message, accountCommentor, pid, post);
+		if (log != null) {
+			log.append(generation, LOG_COMMENT_POST, comPID, handle, pid, message, posts.get(comPID).getCreatedAt());
 		}
+		return comPID;
+	}
 
-		for (Post post : posts) {
-			if (post.getPid() == pid) {
-				return cognitiveComplexityReducer(message, accountCommentor, pid, post);
+	@Override
+	public BatchResult endorseBatch(String[] handles, int[] pids) {
+		materialize();
+		BatchResult result = new BatchResult(handles.length);
+		Account[] endorsers = new Account[handles.length];
+		LinkedHashMap<Post, ArrayList<Integer>> byPost = result.group(handles, pids, null, this.handles::get,
+				posts::get, endorsers);
+		for (Map.Entry<Post, ArrayList<Integer>> group : byPost.entrySet()) {
+			Post post = group.getKey();
+			if (post instanceof Endorsement) {
+				for (int i : group.getValue()) {
+					result.fail(i, new NotActionablePostException("Cannot endorse an endorsement"));
+				}
+				continue;
 			}
+			// every endorsement of the post has the same message
+			String message = "EP@" + post.getAuthor().getHandle() + ": " + post.getMessage();
+			Account author = post.getAuthor();
+			for (int i : group.getValue()) {
+				Endorsement endorsement = new Endorsement(message, endorsers[i], post, postIds.next());
+				addPost(endorsement);
+				endorsers[i].addPost(endorsement);
+				if (post instanceof OriginalPost) {
+					((OriginalPost) post).addEndorsement(endorsement);
+				} else {
+					((Comment) post).addEndorsement(endorsement);
+				}
+				author.incrementEndorsementCount();
+				feeds.publish(endorsers[i].getUID(), endorsement.getPid());
+				if (log != null) {
+					log.append(generation, LOG_ENDORSE_POST, endorsement.getPid(), handles[i], post.getPid(),
+							endorsement.getCreatedAt());
+				}
+				result.succeed(i, endorsement.getPid());
+			}
+			// the leaderboards are updated once for the whole group
+			postRanking.put(post.getPid(), post instanceof OriginalPost ? ((OriginalPost) post).getEndorsementCount()
+					: ((Comment) post).getEndorsementCount());
+			rankAccount(author);
 		}
-		throw new PostIDNotRecognisedException("Post ID not recognised");
-
+		return result;
 	}
 
 	@Override
-	public void deletePost(int pid) throws PostIDNotRecognisedException {
-		boolean found = false;
-		for (Post post : posts) {
-			if (post.getPid() == pid) {
-				// Check what kind of post is being deleted and call respective function
-				if (post instanceof OriginalPost) {
-					deleteOriginalPost((OriginalPost) post);
-					found = true;
-					break;
-				} else if (post instanceof Comment) {
-					deleteComment((Comment) post);
-					found = true;
-					break;
-				} else if (post instanceof Endorsement) {
-					deleteEndorsement((Endorsement) post);
-					found = true;
-					break;
-					// all types are stored in socialmedia.posts
-					// account has an arraylist of all posts
+	public BatchResult commentBatch(String[] handles, int[] pids, String[] messages) {
+		materialize();
+		BatchResult result = new BatchResult(handles.length);
+		Account[] commenters = new Account[handles.length];
+		LinkedHashMap<Post, ArrayList<Integer>> byPost = result.group(handles, pids, messages, this.handles::get,
+				posts::get, commenters);
+		for (Map.Entry<Post, ArrayList<Integer>> group : byPost.entrySet()) {
+			Post post = group.getKey();
+			for (int i : group.getValue()) {
+				try {
+					int comPID = cognitiveComplexityReducer(messages[i], commenters[i], post.getPid(), post);
+					if (log != null) {
+						log.append(generation, LOG_COMMENT_POST, comPID, handles[i], post.getPid(), messages[i],
+								posts.get(comPID).getCreatedAt());
+					}
+					result.succeed(i, comPID);
+				} catch (NotActionablePostException e) {
+					result.fail(i, e);
 				}
 			}
 		}
-		if (!found) {
-			throw new PostIDNotRecognisedException("Post ID not recognised");
+		return result;
+	}
+
+	@Override
+	public void deletePost(int pid) throws PostIDNotRecognisedException {
+		materialize();
+		deletePost(getPost(pid));
+		if (log != null) {
+			log.append(generation, LOG_DELETE_POST, pid);
 		}
+	}
 
+	/**
+	 * Deletes a post of any type without logging the deletion
+	 * 
+	 * @param post post that is being deleted
+	 */
+	private void deletePost(Post post) {
+		// Check what kind of post is being deleted and call respective function
+		// all types are stored in socialmedia.posts
+		// account has an arraylist of all posts
+		if (post instanceof OriginalPost) {
+			deleteOriginalPost((OriginalPost) post);
+		} else if (post instanceof Comment) {
+			deleteComment((Comment) post);
+		} else if (post instanceof Endorsement) {
+			deleteEndorsement((Endorsement) post);
+		}
 	}
 
 	/**
@@ -404,23 +666,24 @@ public class SocialMedia implements SocialMediaPlatform {
 	 * @param post post that is being deleted
 	 */
 	private void deleteOriginalPost(OriginalPost post) {
-		for (int i = 0; i < post.getEndorsements().size(); i++) {
-			deleteEndorsement(post.getEndorsements().get(i));
+		// iterate over a copy since deleteEndorsement removes from the arraylist
+		for (Endorsement endorsement : new ArrayList<Endorsement>(post.getEndorsements())) {
+			deleteEndorsement(endorsement);
 		}
 
-		OriginalPost genPost = (OriginalPost) posts.get(0);
+		OriginalPost genPost = (OriginalPost) posts.get(1);
 		for (Comment comment : post.getComments()) {
-			/// set the post pointer of any comments that commented on this post to 1
+			/// set the parent of any comments that commented on this post to the generic post
 			// a post pointer of 1 corresponds to the generic deleted message
-			comment.setPostPointer(1);
+			comment.setParent(genPost);
 			// add comment to generic post
 			genPost.addComment(comment);
 		}
 		// remove the original post from the account that created it
 		Account author = post.getAuthor();
 		author.removePost(post);
-		// remove the original post from the arraylist of posts in social media
-		this.posts.remove(post);
+		// remove the original post from the table of posts in social media
+		removePost(post);
 
 	}
 
@@ -430,32 +693,31 @@ public class SocialMedia implements SocialMediaPlatform {
 	 * @param comment comment that is being deleted
 	 */
 	private void deleteComment(Comment comment) {
-		OriginalPost genPost = (OriginalPost) posts.get(0);
+		// iterate over a copy since deleteEndorsement removes from the arraylist
+		for (Endorsement endorsement : new ArrayList<Endorsement>(comment.getEndorsements())) {
+			deleteEndorsement(endorsement);
+		}
+
+		OriginalPost genPost = (OriginalPost) posts.get(1);
 		for (Comment commentChild : comment.getComments()) {
-			// set the post pointer of any comments that commented on this post to 1
+			// set the parent of any comments that commented on this post to the generic post
 			// a post pointer of 1 corresponds to the generic message
-			commentChild.setPostPointer(1);
-			commentChild.setPostPointer(1);
+			commentChild.setParent(genPost);
 			// add comment to genenric post
-			genPost.addComment(comment);
+			genPost.addComment(commentChild);
 		}
 		//remove the comment from the account that created it
 		Account author = comment.getAuthor();
 		author.removePost(comment);
-		//remove the comment from the arraylist of posts in social media
-		this.posts.remove(comment);
+		//remove the comment from the table of posts in social media
+		removePost(comment);
 
 		//remove comment from the arraylist of comments of the post that it commented on
-		for (Post post : posts) {
-			if (comment.getPostPointer() == post.getPid()) {
-				if (post instanceof OriginalPost) {
-					((OriginalPost) post).getComments().remove(comment);
-					break;
-				} else if (post instanceof Comment) {
-					((Comment) post).getComments().remove(comment);
-					break;
-				}
-			}
+		Post post = comment.getParent();
+		if (post instanceof OriginalPost) {
+			((OriginalPost) post).getComments().remove(comment);
+		} else if (post instanceof Comment) {
+			((Comment) post).getComments().remove(comment);
 		}
 	}
 
@@ -469,256 +731,542 @@ public class SocialMedia implements SocialMediaPlatform {
 		Account author = endorsement.getAuthor();
 		author.removePost(endorsement);
 		
-		//remove the endorsement from the arraylist of posts in social media
-		this.posts.remove(endorsement);
+		//remove the endorsement from the table of posts in social media
+		removePost(endorsement);
 		
-		//remove endorsement from the arraylist of comments of the post that it commented on
-		for (Post post : posts) {
-			if (endorsement.getPostPointer() == post.getPid()) {
-				if (post instanceof OriginalPost) {
-					((OriginalPost) post).getEndorsements().remove(endorsement);
-				} else if (post instanceof Comment) {
-					((Comment) post).getEndorsements().remove(endorsement);
-				}
-			}
+		//remove endorsement from the arraylist of endorsements of the post that it endorsed
+		Post post = endorsement.getParent();
+		if (post instanceof OriginalPost) {
+			((OriginalPost) post).getEndorsements().remove(endorsement);
+			postRanking.put(post.getPid(), ((OriginalPost) post).getEndorsementCount());
+		} else if (post instanceof Comment) {
+			((Comment) post).getEndorsements().remove(endorsement);
+			postRanking.put(post.getPid(), ((Comment) post).getEndorsementCount());
 		}
-
+		// the author of the endorsed post has lost one endorsement
+		Account postAuthor = post.getAuthor();
+		postAuthor.decrementEndorsementCount();
+		rankAccount(postAuthor);
 	}
 
 	@Override
 	public String showIndividualPost(int pid) throws PostIDNotRecognisedException {
-		for (Post post : posts) {
-			if (post.getPid() == pid) {
-				String id = "ID: " + pid + "\n";
-				String account = "Account: " + posts.get(pid - 1).getAuthor() + "\n";
-				int numberOfEndorsements;
-				int numberOfComments;
-				//If post is an endorsement it will have no endorsements or comments
-				if (post instanceof Endorsement) {
-					numberOfEndorsements = 0;
-					numberOfComments = 0;
-				} else if (post instanceof OriginalPost) {
-					numberOfEndorsements = ((OriginalPost) post).getEndorsements().size();
-					numberOfComments = ((OriginalPost) post).getComments().size();
-				} else {
-					numberOfEndorsements = ((Comment) post).getEndorsements().size();
-					numberOfComments = ((Comment) post).getComments().size();
-				}
-				String number = "No. endorsements: " + numberOfEndorsements + " | No. Comments: " + numberOfComments
-						+ "\n";
-				//combine elements of individual post into one string
-				// formatting was done in the form of adding new line characters where relevant
-				return id + account + number + post.getMessage();
+		if (mapped != null) {
+			// answer from the mapped snapshot, which has counted the replies to each post
+			if (!mapped.hasPost(pid)) {
+				throw new PostIDNotRecognisedException("Post ID not recognised");
 			}
+			return ThreadRenderer.formatPost(pid, mapped.getAuthor(pid), mapped.getPostEndorsementCount(pid),
+					mapped.getPostCommentCount(pid), mapped.getMessage(pid));
 		}
-		throw new PostIDNotRecognisedException("Post ID not recognised");
-	}
-
-	/** Appends each individual post to its parent post in order to show post children details
-	 * Deals with formatting inside the function
-	 * Is recursive and calls itself
- 	* @param indentation the indentation that the post should be displayed at
- 	* @param post the parent post that the child post is being appended to
- 	* @return A post and the details of all its children
- 	* @throws PostIDNotRecognisedException
- 	*/
-	private StringBuilder recursionFunc(Integer indentation, Comment post) throws PostIDNotRecognisedException {
-		StringBuilder formatCom = new StringBuilder();
-		// increment indentation level
-		indentation++;
-		// get post message
-		String message = showIndividualPost(post.getPid());
-		// indent accordingly
-		message = message.indent(indentation * 4);
-		// change first indent to match format
-		message = message.replaceFirst("    ID", "| > ID");
-		// if length of arraylist comments is greater than 0, add an extra | underneath
-		if (!post.getComments().isEmpty()) {
-			String spaces = " ";
-			message += spaces.repeat(indentation * 4) + "|\n";
-		}
-
-		// append message to stringbuilder
-		formatCom.append(message);
-
-		// repeat process for each comment
-		for (Comment comment : post.getComments()) {
-			formatCom.append(recursionFunc(indentation, comment));// recursion
-		}
-		return formatCom;
+		return ThreadRenderer.formatPost(getPost(pid));
 	}
 
 	@Override
 	public StringBuilder showPostChildrenDetails(int id)
 			throws PostIDNotRecognisedException, NotActionablePostException {
+		StringBuilder format = new StringBuilder();
+		try {
+			showPostChildrenDetails(id, format, ThreadRenderer.UNLIMITED, ThreadRenderer.UNLIMITED);
+		} catch (IOException e) {
+			// appending to a StringBuilder never fails
+			throw new UncheckedIOException(e);
+		}
+		return format;
+	}
 
-		Optional<Post> postOpt;// an optional can be null as well
-		postOpt = posts.stream().filter(p -> p.getPid() == id).findFirst();// finds the first (and only) instance a post
-																			// with matching pid
-		if (!postOpt.isPresent()) {// if it was found
-			throw new PostIDNotRecognisedException();
+	@Override
+	public void showPostChildrenDetails(int id, Appendable out, int maxDepth, int maxBreadth)
+			throws PostIDNotRecognisedException, NotActionablePostException, IOException {
+		// a mapped snapshot builds only the thread holding the post
+		Post post = mapped != null ? mapped.getPost(id) : posts.get(id);// finds the post with matching pid
+		if (post == null) {
+			throw new PostIDNotRecognisedException("Post ID not recognised");
 		}
-		Post post = postOpt.get();// actually gets the post from the 'optional'
 		if (post instanceof Endorsement) {// if endorsement
 			throw new NotActionablePostException();
 		}
+		ThreadRenderer.render(post, out, maxDepth, maxBreadth);
+	}
 
-		StringBuilder format = new StringBuilder();
-		format.append(showIndividualPost(id));// print original post/comment
+	@Override
+	public ThreadPage getPostChildren(int pid, Cursor after, int limit)
+			throws PostIDNotRecognisedException, NotActionablePostException {
+		materialize();
 
-		// idc if comment or original post, go through comments and call recursiveFunc
-		// to print tree
-		if (post instanceof OriginalPost) {
-			if (!((OriginalPost) post).getComments().isEmpty()) {
-				format.append("\n|\n");
-			}
-			for (Comment comment : ((OriginalPost) post).getComments()) {
-				format.append(recursionFunc(0, comment));
-			}
-		} else {
-			if (!((Comment) post).getComments().isEmpty()) {
-				format.append("\n|\n");
-			}
-			for (Comment comment : ((Comment) post).getComments()) {
-				format.append(recursionFunc(0, comment));
-			}
+		Post post = getPost(pid);
+		if (post instanceof Endorsement) {
+			throw new NotActionablePostException();
 		}
-
-		return format;
+		return ThreadPage.read(post, after, limit, posts::get);
 	}
 
 	@Override
 	public int getNumberOfAccounts() {
-		return accounts.size();
+		return mapped != null ? mapped.getNumberOfAccounts() : accounts.size();
 	}
 
 	@Override
 	public int getTotalOriginalPosts() {
-		//If a post is an instance of an original post increase the counter by 1
-		long counter = posts.stream().filter(p -> p instanceof OriginalPost).count();
-		return (int) counter;
+		// counted as original posts are added and removed
+		return mapped != null ? mapped.getOriginalPostCount() : originalPostCount;
 	}
 	
 	@Override
 	public int getTotalEndorsmentPosts() {
 		// DO NOT alter typo in method declaration or the tests wont run properly
-		//If a post is an instance of an endorsement increase the counter by 1
-		long counter = posts.stream().filter(p -> p instanceof Endorsement).count();
-		return (int) counter;
+		// counted as endorsements are added and removed
+		return mapped != null ? mapped.getEndorsementPostCount() : endorsementPostCount;
 	}
 	
 	@Override
 	public int getTotalCommentPosts() {
-		//If a post is an instance of a comment increase the counter by 1
-		long counter = posts.stream().filter(p -> p instanceof Comment).count();
-		return (int) counter;
+		// counted as comments are added and removed
+		return mapped != null ? mapped.getCommentPostCount() : commentPostCount;
 	}
 
 	@Override
-	public int getMostEndorsedPost() {
-		//If there are no posts with endorsements then will return an invalid post ID of -1
-		Integer maxEnd = -1;
-		Integer maxPID = -1;
-		// For each post check the number of endorsements
-		// If the post has a larger number than the previous maximum number of endorsements update the counter and post ID for most endorsed post accordingly
-		for (Post post : posts) {
-			if (post instanceof OriginalPost) {
-				long counter = ((OriginalPost) post).getEndorsements().stream().count();
-				if ((int) counter > maxEnd) {
-					maxEnd = (int) counter;
-					maxPID = post.getPid();
-				}
-			}
-			if (post instanceof Comment) {
-				long counter = ((Comment) post).getEndorsements().stream().count();
-				if ((int) counter > maxEnd) {
-					maxEnd = (int) counter;
-					maxPID = post.getPid();
-				}
-			}
+	public PlatformStats getPlatformStats() {
+		return new PlatformStats(getNumberOfAccounts(), getTotalOriginalPosts(), getTotalCommentPosts(),
+				getTotalEndorsmentPosts());
+	}
 
-		}
-		return maxPID;
+	@Override
+	public int getMostEndorsedPost() {
+		// If there are no posts then will return an invalid post ID of -1
+		// Ties go to the oldest post, the same as scanning the posts in post ID order
+		return (mapped != null ? mapped.getPostRanking() : postRanking).first();
 	}
 
 	@Override
 	public int getMostEndorsedAccount() {
-		//If there are no accounts containing posts with endorsements then will return an invalid post ID of -1
-		Integer maxEnd = -1;
-		Integer maxUID = -1;
-		for (Account account : accounts) {
-			//for each account set its endorsement counter to 0
-			long counter = 0L;
-			// iterate through each post in an account and add the number of endorsements to the account counter
-			for (Post post : account.getPosts()) {
-				if (post instanceof OriginalPost) {
-					counter += ((OriginalPost) post).getEndorsements().stream().count();
-				}
-				if (post instanceof Comment) {
-					counter += ((Comment) post).getEndorsements().stream().count();
-				}
-			}
-			// if the account counter is larger than the largest previous counter, update the counter and post ID to the new most endorsed account
-			if ((int) counter > maxEnd) {
-				maxEnd = (int) counter;
-				maxUID = account.getUID();
-			}
+		// If there are no accounts then will return an invalid user ID of -1
+		// Ties go to the oldest account, the same as scanning the accounts in creation order
+		return (mapped != null ? mapped.getAccountRanking() : accountRanking).first();
+	}
 
-		}
-		return maxUID;
+	@Override
+	public int[] topEndorsedPosts(int k) {
+		return (mapped != null ? mapped.getPostRanking() : postRanking).top(k);
+	}
+
+	@Override
+	public int[] topEndorsedAccounts(int k) {
+		return (mapped != null ? mapped.getAccountRanking() : accountRanking).top(k);
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		// nothing is locked, so calls must be made one at a time
+		return false;
 	}
 
 	@Override
 	public void erasePlatform() {
+		clearPlatform();
+		// the generic post must keep pid 1, since deleted posts' replies are moved under it
+		addGenericPost();
+		if (log != null) {
+			log.append(generation, LOG_ERASE_PLATFORM);
+		}
+	}
+
+	/**
+	 * Empties the platform of its contents and resets all internal counters,
+	 * without logging the change
+	 */
+	private void clearPlatform() {
 		// Method empties this SocialMediaPlatform of its contents and resets all
 		// internal counters.
-		// set lists to empty
+		// set collections to empty
+		this.mapped = null;
 		this.accounts.clear();
+		this.handles.clear();
+		this.handleIndex.clear();
 		this.posts.clear();
+		this.originalPostCount = 0;
+		this.commentPostCount = 0;
+		this.endorsementPostCount = 0;
+		this.postRanking.clear();
+		this.accountRanking.clear();
+		this.accountIds.reset(1);
+		this.postIds.reset(1);
+		this.feeds.clear();
 
 	}
 
 	@Override
 	public void savePlatform(String filename) throws IOException {
-		// Prepend platform content to file filename
-		try (FileOutputStream file = new FileOutputStream(filename, false);
-				ObjectOutput stream = new ObjectOutputStream(file)) {
-			Integer length = accounts.size();//
-
-			stream.writeObject(length);
-			for (Account account : accounts) {
-				stream.writeObject(account);
-			}
-
-			length = posts.size();
+		materialize();
+		// write the platform content to file filename as a binary snapshot, which
+		// also holds the next IDs so they are never reused after a reload
+		long saved = PlatformSnapshot.newGeneration(generation);
+		PlatformSnapshot.write(filename, accounts.values(), posts, accountIds.peek(), postIds.peek(),
+				feeds.getFollows(), saved);
+		// every logged change is now held in the snapshot, so the log starts again.
+		// Changes already logged have the old generation, so if the log is not
+		// emptied before a crash they are skipped when the snapshot is recovered
+		generation = saved;
+		if (log != null) {
+			log.truncate();
+		}
+	}
 
-			stream.writeObject(length);
-			for (Post post : posts) {
-				stream.writeObject(post);
+	@Override
+	public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+		// read everything before touching the platform so it is unchanged if reading fails
+		PlatformSnapshot snapshot = PlatformSnapshot.read(filename);
+		install(snapshot);
+		generation = snapshot.getGeneration();
+		// the loaded snapshot is now the one that logged changes are made on top of
+		if (log != null) {
+			log.truncate();
+		}
+	}
 
+	/**
+	 * Adds a batch of accounts, original posts, comments and endorsements read
+	 * from CSV, in the format described in BulkImport. The whole batch is read and
+	 * checked first, so if any record is not valid nothing is added. User IDs and
+	 * post IDs are then handed out in one block each, in the order the records
+	 * were read, and each account and post is added to the indexes and
+	 * leaderboards once, after every endorsement in the batch has been counted.
+	 * 
+	 * @param in CSV records of the batch
+	 * @return the user ID of each account and the post ID of each post created
+	 * @throws IOException if there is a problem reading the batch, or any record
+	 *                     in it is not valid, naming the line it starts on
+	 */
+	public ImportResult importCsv(Reader in) throws IOException {
+		materialize();
+		BulkImport batch = BulkImport.read(in, handles::containsKey, posts::get);
+		ArrayList<BulkImport.Record> accountRecords = batch.getAccounts();
+		ArrayList<BulkImport.Record> postRecords = batch.getPosts();
+		int firstUid = accountIds.allocateBlock(accountRecords.size());
+		int firstPid = postIds.allocateBlock(postRecords.size());
+
+		// build every account and post before adding any of them to the indexes
+		LinkedHashMap<String, Integer> createdAccounts = new LinkedHashMap<String, Integer>();
+		HashMap<String, Account> batchAccounts = new HashMap<String, Account>();
+		Account[] builtAccounts = new Account[accountRecords.size()];
+		for (int i = 0; i < builtAccounts.length; i++) {
+			BulkImport.Record record = accountRecords.get(i);
+			builtAccounts[i] = new Account(record.handle, record.text, firstUid + i);
+			batchAccounts.put(record.handle, builtAccounts[i]);
+			createdAccounts.put(record.handle, firstUid + i);
+		}
+		LinkedHashMap<String, Integer> createdPosts = new LinkedHashMap<String, Integer>();
+		Post[] builtPosts = new Post[postRecords.size()];
+		HashSet<Account> endorsedAccounts = new HashSet<Account>();
+		// posts already on the platform that the batch endorses, whose place on the leaderboard changes
+		HashSet<Post> endorsedPosts = new HashSet<Post>();
+		for (int i = 0; i < builtPosts.length; i++) {
+			BulkImport.Record record = postRecords.get(i);
+			Account author = batchAccounts.get(record.handle);
+			if (author == null) {
+				author = handles.get(record.handle);
 			}
+			int pid = firstPid + i;
+			Post parent = record.parent >= 0 ? builtPosts[record.parent]
+					: record.parentPid > 0 ? posts.get(record.parentPid) : null;
+			Post post;
+			if (record.type == BulkImport.ORIGINAL_POST) {
+				post = new OriginalPost(record.text, author, pid);
+			} else if (record.type == BulkImport.COMMENT) {
+				Comment comment = new Comment(record.text, author, parent, pid);
+				if (parent instanceof OriginalPost) {
+					((OriginalPost) parent).addComment(comment);
+				} else {
+					((Comment) parent).addComment(comment);
+				}
+				post = comment;
+			} else {
+				String message = "EP@" + parent.getAuthor().getHandle() + ": " + parent.getMessage();
+				Endorsement endorsement = new Endorsement(message, author, parent, pid);
+				if (parent instanceof OriginalPost) {
+					((OriginalPost) parent).addEndorsement(endorsement);
+				} else {
+					((Comment) parent).addEndorsement(endorsement);
+				}
+				parent.getAuthor().incrementEndorsementCount();
+				endorsedAccounts.add(parent.getAuthor());
+				if (record.parent < 0) {
+					endorsedPosts.add(parent);
+				}
+				post = endorsement;
+			}
+			post.setCreatedAt(record.createdAt);
+			author.addPost(post);
+			builtPosts[i] = post;
+			createdPosts.put(record.ref, pid);
+		}
 
-			stream.flush();
+		// add everything to the indexes and leaderboards now the counts are final
+		for (Account account : builtAccounts) {
+			addAccount(account);
+		}
+		for (Post post : builtPosts) {
+			addPost(post);
+			if (!(post instanceof Comment)) {
+				feeds.publish(post.getAuthor().getUID(), post.getPid());
+			}
+		}
+		for (Post post : endorsedPosts) {
+			postRanking.put(post.getPid(), post instanceof OriginalPost ? ((OriginalPost) post).getEndorsementCount()
+					: ((Comment) post).getEndorsementCount());
+		}
+		for (Account account : endorsedAccounts) {
+			rankAccount(account);
+		}
+		if (log != null) {
+			logImport(builtAccounts, builtPosts);
+		}
+		return new ImportResult(createdAccounts, createdPosts);
+	}
 
+	/**
+	 * Appends a record to the write-ahead log for each account and post created by
+	 * an import, the same records as creating them one at a time
+	 * 
+	 * @param builtAccounts accounts created, in user ID order
+	 * @param builtPosts    posts created, in post ID order
+	 */
+	private void logImport(Account[] builtAccounts, Post[] builtPosts) {
+		for (Account account : builtAccounts) {
+			log.append(generation, LOG_CREATE_ACCOUNT, account.getUID(), account.getHandle(), account.getDescField());
 		}
+		for (Post post : builtPosts) {
+			String handle = post.getAuthor().getHandle();
+			if (post instanceof OriginalPost) {
+				log.append(generation, LOG_CREATE_POST, post.getPid(), handle, post.getMessage(), post.getCreatedAt());
+			} else if (post instanceof Comment) {
+				log.append(generation, LOG_COMMENT_POST, post.getPid(), handle, post.getParent().getPid(),
+						post.getMessage(), post.getCreatedAt());
+			} else {
+				log.append(generation, LOG_ENDORSE_POST, post.getPid(), handle, post.getParent().getPid(),
+						post.getCreatedAt());
+			}
+		}
+	}
 
+	/**
+	 * Loads the platform from a snapshot file saved by savePlatform, without
+	 * building its accounts and posts. The file is memory-mapped and indexed in a
+	 * single pass, so the platform can answer showIndividualPost, showAccount,
+	 * showPostChildrenDetails, the most endorsed posts and accounts and the post
+	 * and account counts straight away. The accounts shown are built as they are
+	 * needed, and the posts a thread at a time. The first other method called
+	 * builds every account and post, the same as loadPlatform, and until then the
+	 * public accounts and posts collections are empty.
+	 * <p>
+	 * The file must not be changed until the platform has been built.
+	 * 
+	 * @param filename location of the file to be loaded
+	 * @throws IOException if there is a problem reading the file, or it is not a
+	 *                     valid snapshot
+	 */
+	public void mapPlatform(String filename) throws IOException {
+		// index everything before touching the platform so it is unchanged if reading fails
+		MappedSnapshot snapshot = new MappedSnapshot(filename);
+		clearPlatform();
+		mapped = snapshot;
+		generation = snapshot.getGeneration();
+		// the mapped snapshot is now the one that logged changes are made on top of
+		if (log != null) {
+			log.truncate();
+		}
 	}
 
-	@Override
-	public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+	/**
+	 * Builds every account and post of a snapshot mapped by mapPlatform, before
+	 * anything is done that needs the whole platform
+	 * 
+	 * @throws UncheckedIOException if the mapped file cannot be read
+	 */
+	private void materialize() {
+		if (mapped == null) {
+			return;
+		}
+		try {
+			install(mapped.materialize());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
 
-		try (FileInputStream file = new FileInputStream(filename);
-				ObjectInputStream stream = new ObjectInputStream(file);) {
+	/**
+	 * Replaces the contents of the platform with the contents of a snapshot
+	 * 
+	 * @param snapshot snapshot that has been read
+	 */
+	private void install(PlatformSnapshot snapshot) {
+		// replace the contents of the platform with the loaded contents and rebuild
+		// every index from them
+		clearPlatform();
+		for (Account account : snapshot.getAccounts()) {
+			addAccount(account);
+		}
+		for (Post post : snapshot.getPosts()) {
+			addPost(post);
+		}
+		accountIds.reset(snapshot.getNextUid());
+		postIds.reset(snapshot.getNextPid());
+		int[] follows = snapshot.getFollows();
+		for (int i = 0; i < follows.length; i += 2) {
+			feeds.follow(follows[i], follows[i + 1]);
+		}
+	}
 
-			Integer length = (Integer) stream.readObject();
-			for (int i = 0; i < length; i++) {
-				accounts.add((Account) stream.readObject());
+	/**
+	 * Starts logging every change made to the platform to a write-ahead log, so
+	 * changes are kept without saving the whole platform each time. Each change is
+	 * appended to the log as a small record and forced to disk together with any
+	 * other changes made in the same few milliseconds. Saving or loading the
+	 * platform starts the log again, since the snapshot then holds every change.
+	 * <p>
+	 * Any changes already in the log are first replayed on top of the platform, so
+	 * after a crash the platform is recovered by loading the last snapshot and then
+	 * opening its log. Only the changes made on top of that snapshot are replayed,
+	 * so changes it already holds, or changes made on top of another snapshot, are
+	 * skipped.
+	 * 
+	 * @param filename location of the log file, created if it does not exist
+	 * @throws IOException if there is a problem reading the log, or its changes
+	 *                     cannot be replayed on top of the platform
+	 */
+	public void openWriteAheadLog(String filename) throws IOException {
+		if (log != null) {
+			throw new IllegalStateException("A write-ahead log is already open");
+		}
+		WriteAheadLog opened = new WriteAheadLog(filename, LOG_COMMIT_INTERVAL_MILLIS);
+		try {
+			for (byte[] record : opened.takeRecoveredRecords()) {
+				replay(record);
 			}
+		} catch (IOException e) {
+			opened.close();
+			throw e;
+		}
+		log = opened;
+	}
 
-			length = (Integer) stream.readObject();
-			for (int j = 0; j < length; j++) {
-				posts.add((Post) stream.readObject());
+	/**
+	 * Waits until every change made so far has been forced to disk by the
+	 * write-ahead log
+	 * 
+	 * @throws IOException if the log has failed to write to disk
+	 */
+	public void syncWriteAheadLog() throws IOException {
+		if (log != null) {
+			log.sync();
+		}
+	}
+
+	/**
+	 * Writes any changes still waiting to the write-ahead log and stops logging
+	 * changes
+	 * 
+	 * @throws IOException if there is a problem writing the remaining changes
+	 */
+	public void closeWriteAheadLog() throws IOException {
+		if (log != null) {
+			WriteAheadLog closing = log;
+			log = null;
+			closing.close();
+		}
+	}
+
+	/**
+	 * Makes the change held in a write-ahead log record again, if it was made on top
+	 * of the snapshot the platform was loaded from. Posts and accounts must be given
+	 * the same IDs as when the change was first made, otherwise the log was not
+	 * written on top of the current platform.
+	 * 
+	 * @param record contents of the record
+	 * @throws IOException if the record is invalid or cannot be replayed
+	 */
+	private void replay(byte[] record) throws IOException {
+		DataInputStream in = WriteAheadLog.open(record);
+		if (in.readLong() != generation) {
+			// the change was made on top of another snapshot, so it is either held in
+			// the current one already or does not belong to it
+			return;
+		}
+		byte type = in.readByte();
+		try {
+			switch (type) {
+			case LOG_CREATE_ACCOUNT:
+				checkReplayedId(in.readInt(),
+						createAccount(PlatformSnapshot.readString(in), PlatformSnapshot.readString(in)));
+				break;
+			case LOG_REMOVE_ACCOUNT:
+				removeAccount(in.readInt());
+				break;
+			case LOG_CHANGE_HANDLE:
+				changeAccountHandle(PlatformSnapshot.readString(in), PlatformSnapshot.readString(in));
+				break;
+			case LOG_UPDATE_DESCRIPTION:
+				updateAccountDescription(PlatformSnapshot.readString(in), PlatformSnapshot.readString(in));
+				break;
+			case LOG_CREATE_POST:
+				replayCreationTime(in, checkReplayedId(in.readInt(),
+						createPost(PlatformSnapshot.readString(in), PlatformSnapshot.readString(in))));
+				break;
+			case LOG_ENDORSE_POST:
+				replayCreationTime(in,
+						checkReplayedId(in.readInt(), endorsePost(PlatformSnapshot.readString(in), in.readInt())));
+				break;
+			case LOG_COMMENT_POST:
+				replayCreationTime(in, checkReplayedId(in.readInt(),
+						commentPost(PlatformSnapshot.readString(in), in.readInt(), PlatformSnapshot.readString(in))));
+				break;
+			case LOG_DELETE_POST:
+				deletePost(in.readInt());
+				break;
+			case LOG_ERASE_PLATFORM:
+				erasePlatform();
+				break;
+			case LOG_FOLLOW:
+				follow(PlatformSnapshot.readString(in), PlatformSnapshot.readString(in));
+				break;
+			case LOG_UNFOLLOW:
+				unfollow(PlatformSnapshot.readString(in), PlatformSnapshot.readString(in));
+				break;
+			default:
+				throw new IOException("Unknown write-ahead log record type " + type);
 			}
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Write-ahead log does not match the platform", e);
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Checks that a replayed change gave out the same ID as when it was first made
+	 * 
+	 * @param logged   ID held in the log
+	 * @param replayed ID given out when the change was replayed
+	 * @return the ID
+	 * @throws IOException if the IDs differ
+	 */
+	private int checkReplayedId(int logged, int replayed) throws IOException {
+		if (logged != replayed) {
+			throw new IOException("Write-ahead log does not match the platform: expected ID " + logged + " but got "
+					+ replayed);
+		}
+		return replayed;
+	}
+
+	/**
+	 * Gives a replayed post the creation time held in its record, instead of the
+	 * time it was replayed
+	 * 
+	 * @param in  record positioned after the fields of the change
+	 * @param pid post ID of the replayed post
+	 * @throws IOException if the record cannot be read
+	 */
+	private void replayCreationTime(DataInputStream in, int pid) throws IOException {
+		posts.get(pid).setCreatedAt(in.readLong());
+	}
+}
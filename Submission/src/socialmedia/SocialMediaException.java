@@ -0,0 +1,47 @@
+package socialmedia;
+
+/**
+ * SocialMediaException is the base of the exceptions thrown by the platform.
+ * Filling in a stack trace costs far more than the rest of a failed lookup, so
+ * it can be turned off for every one of them at once with the
+ * socialmedia.exceptions.stackTrace system property, read by
+ * ExceptionStackTraces.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+abstract class SocialMediaException extends Exception {
+
+	// The exceptions are never serialized by the platform, so this only fixes the
+	// ID the Serializable interface inherited from Throwable asks for
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs an instance of the exception with no message
+	 */
+	SocialMediaException() {
+		// do nothing
+	}
+
+	/**
+	 * Constructs an instance of the exception containing the message argument
+	 * 
+	 * @param message message containing details regarding the exception cause
+	 */
+	SocialMediaException(String message) {
+		super(message);
+	}
+
+	/**
+	 * Fills in the stack trace, unless stack traces have been turned off with
+	 * the socialmedia.exceptions.stackTrace system property
+	 * 
+	 * @return this exception
+	 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return ExceptionStackTraces.ENABLED ? super.fillInStackTrace() : this;
+	}
+
+}
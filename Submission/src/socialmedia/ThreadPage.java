@@ -0,0 +1,166 @@
+/**
+ * Represents a page of a thread, located in the social media package
+ * A page is made up of the post IDs of some of the comments below a post, in depth-first order (each comment followed by its replies),
+ * the depth of each comment below the post and a cursor for the next page.
+ * <p>
+ * Pages are read without keeping anything between requests. The cursor names the last comment returned, and the next page starts from
+ * the comment after it in depth-first order, found by walking down to its first reply or up through its parents to their next sibling.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+public final class ThreadPage {
+    private final int[] pids;
+    private final int[] depths;
+    private final Cursor next;
+
+    /**
+     * Creates a page of a thread
+     *
+     * @param pids post IDs of the comments on the page, in depth-first order
+     * @param depths depth of each comment below the post at the top of the thread, where 1 is a direct reply
+     * @param next cursor for the next page, or null if this is the last page
+     */
+    ThreadPage(int[] pids, int[] depths, Cursor next) {
+        this.pids = pids;
+        this.depths = depths;
+        this.next = next;
+    }
+
+
+    /** Gets the comments on the page
+     *
+     * @return post IDs of the comments on the page, in depth-first order
+     */
+    public int[] getPids() {
+        return pids.clone();
+    }
+
+
+    /** Gets the depth of each comment on the page
+     *
+     * @return depth of each comment below the post at the top of the thread, where 1 is a direct reply
+     */
+    public int[] getDepths() {
+        return depths.clone();
+    }
+
+
+    /** Gets the number of comments on the page
+     *
+     * @return number of comments on the page
+     */
+    public int size() {
+        return pids.length;
+    }
+
+
+    /** Gets the cursor for the next page
+     *
+     * @return cursor to pass in to read the next page, or null if this is the last page
+     */
+    public Cursor getNextCursor() {
+        return next;
+    }
+
+
+    /** Checks whether there is another page after this one
+     *
+     * @return true if there are more comments in the thread
+     */
+    public boolean hasMore() {
+        return next != null;
+    }
+
+
+    /** Reads a page of the comments below a post, in depth-first order
+     *
+     * @param root original post or comment at the top of the thread
+     * @param after cursor returned with the previous page, or null for the first page
+     * @param limit most comments on the page
+     * @param posts finds a post by its post ID, returning null if there is no such post
+     * @return page of at most limit comments
+     * @throws IllegalArgumentException if limit is less than 1, or the cursor does not mark a comment in the thread
+     */
+    static ThreadPage read(Post root, Cursor after, int limit, IntFunction<Post> posts) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1");
+        }
+        Post current = root;
+        int depth = 0;
+        if (after != null) {
+            if (after.getRootPid() != root.getPid()) {
+                throw new IllegalArgumentException("Cursor belongs to the thread of post " + after.getRootPid());
+            }
+            current = posts.apply(after.getLastPid());
+            depth = depthBelow(root, current);
+            if (depth < 1) {
+                // the comment has been deleted or moved to the generic post since the cursor was returned
+                throw new IllegalArgumentException("Cursor no longer marks a comment in the thread");
+            }
+        }
+
+        int[] pids = new int[Math.min(limit, 64)];
+        int[] depths = new int[pids.length];
+        int count = 0;
+        while (true) {
+            // step to the next comment in depth-first order
+            LinkedIdentitySet<Comment> replies = ThreadRenderer.getComments(current);
+            if (!replies.isEmpty()) {
+                current = replies.first();
+                depth++;
+            } else {
+                Post sibling = null;
+                while (sibling == null && current != root) {
+                    Post parent = current.getParent();
+                    sibling = ThreadRenderer.getComments(parent).successor((Comment) current);
+                    if (sibling == null) {
+                        current = parent;
+                        depth--;
+                    }
+                }
+                if (sibling == null) {
+                    return new ThreadPage(Arrays.copyOf(pids, count), Arrays.copyOf(depths, count), null);
+                }
+                current = sibling;
+            }
+            if (count == limit) {
+                // there is at least one more comment, so the page ends with a cursor
+                return new ThreadPage(pids, depths, new Cursor(root.getPid(), pids[count - 1]));
+            }
+            if (count == pids.length) {
+                int size = (int) Math.min(limit, 2L * count);
+                pids = Arrays.copyOf(pids, size);
+                depths = Arrays.copyOf(depths, size);
+            }
+            pids[count] = current.getPid();
+            depths[count] = depth;
+            count++;
+        }
+    }
+
+
+    /** Finds how far below the top of a thread a post is
+     *
+     * @param root post at the top of the thread
+     * @param post post being found, or null
+     * @return number of replies between root and post, 0 if post is root, or -1 if post is not in the thread
+     */
+    private static int depthBelow(Post root, Post post) {
+        int depth = 0;
+        while (post != root) {
+            if (!(post instanceof Comment)) {
+                return -1;
+            }
+            post = post.getParent();
+            depth++;
+        }
+        return depth;
+    }
+}
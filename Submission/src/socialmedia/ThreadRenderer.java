@@ -0,0 +1,197 @@
+/**
+ * Represents the renderer of post details and reply trees, located in the social media package
+ * The renderer writes the format of showIndividualPost and showPostChildrenDetails straight to an Appendable, such as a Writer or
+ * StringBuilder, instead of building strings for each level of the tree and copying them into their parents.
+ * <p>
+ * The tree is walked with an explicit stack holding one iterator for each level being written, so deep reply chains cannot overflow the
+ * call stack and nothing but the stack is kept in memory. Each reply is indented by 4 spaces for each level, with the first line of a
+ * reply starting "| > ", the same as indenting the details of the reply with String.indent.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+final class ThreadRenderer {
+    /** Depth or breadth limit that leaves every reply in */
+    static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final String SPACES = "                                                                ";
+
+    private ThreadRenderer() {
+    }
+
+
+    /** Formats the details of a single post, as shown by showIndividualPost
+     *
+     * @param post post being shown
+     * @return formatted details of the post
+     */
+    static String formatPost(Post post) {
+        return formatPost(post.getPid(), post.getAuthor(), getEndorsementCount(post), getComments(post).size(),
+                post.getMessage());
+    }
+
+
+    /** Formats the details of a single post, as shown by showIndividualPost
+     *
+     * @param pid post ID of the post
+     * @param author account that made the post
+     * @param numberOfEndorsements number of endorsements of the post
+     * @param numberOfComments number of comments of the post
+     * @param message message of the post
+     * @return formatted details of the post
+     */
+    static String formatPost(int pid, Account author, int numberOfEndorsements, int numberOfComments,
+            String message) {
+        String id = "ID: " + pid + "\n";
+        String account = "Account: " + author + "\n";
+        String number = "No. endorsements: " + numberOfEndorsements + " | No. Comments: " + numberOfComments + "\n";
+        //combine elements of individual post into one string
+        // formatting was done in the form of adding new line characters where relevant
+        return id + account + number + message;
+    }
+
+
+    /** Writes a post followed by its replies, each indented to show the reply tree, as shown by showPostChildrenDetails
+     *
+     * @param root original post or comment at the top of the tree
+     * @param out where the tree is written
+     * @param maxDepth deepest level of replies written, where 1 is only the direct replies to the root, or UNLIMITED
+     * @param maxBreadth most replies written for each post, or UNLIMITED
+     * @throws IOException if there is a problem writing to out
+     */
+    static void render(Post root, Appendable out, int maxDepth, int maxBreadth) throws IOException {
+        out.append(formatPost(root));
+        LinkedIdentitySet<Comment> replies = getComments(root);
+        if (replies.isEmpty() || maxDepth < 1 || maxBreadth < 1) {
+            return;
+        }
+        out.append("\n|\n");
+
+        ArrayDeque<Level> stack = new ArrayDeque<Level>();
+        stack.push(new Level(replies.iterator(), 1));
+        while (!stack.isEmpty()) {
+            Level level = stack.peek();
+            if (!level.replies.hasNext() || level.written == maxBreadth) {
+                stack.pop();
+                continue;
+            }
+            Comment reply = level.replies.next();
+            level.written++;
+            writeReply(reply, level.depth, out);
+            LinkedIdentitySet<Comment> nested = reply.getComments();
+            if (!nested.isEmpty() && level.depth < maxDepth) {
+                // an extra | underneath a reply that has replies of its own
+                indent(out, level.depth * 4).append("|\n");
+                stack.push(new Level(nested.iterator(), level.depth + 1));
+            }
+        }
+    }
+
+
+    /** Writes the details of a reply, indented by 4 spaces for each level
+     *
+     * @param reply comment being written
+     * @param depth level of the reply, where 1 is a direct reply to the root
+     * @param out where the reply is written
+     * @throws IOException if there is a problem writing to out
+     */
+    private static void writeReply(Comment reply, int depth, Appendable out) throws IOException {
+        int spaces = depth * 4;
+        indent(out, spaces - 4).append("| > ID: ").append(Integer.toString(reply.getPid())).append('\n');
+        indent(out, spaces).append("Account: ").append(String.valueOf(reply.getAuthor())).append('\n');
+        indent(out, spaces).append("No. endorsements: ").append(Integer.toString(reply.getEndorsementCount()))
+                .append(" | No. Comments: ").append(Integer.toString(reply.getComments().size())).append('\n');
+
+        // split the message into lines the same way as String.lines, which String.indent uses
+        String message = reply.getMessage();
+        int start = 0;
+        int length = message.length();
+        while (start < length) {
+            int end = start;
+            while (end < length && message.charAt(end) != '\n' && message.charAt(end) != '\r') {
+                end++;
+            }
+            indent(out, spaces).append(message, start, end).append('\n');
+            if (end < length && message.charAt(end) == '\r' && end + 1 < length && message.charAt(end + 1) == '\n') {
+                end++;
+            }
+            start = end + 1;
+        }
+    }
+
+
+    /** Writes a number of spaces
+     *
+     * @param out where the spaces are written
+     * @param count number of spaces
+     * @return out, so more can be appended to it
+     * @throws IOException if there is a problem writing to out
+     */
+    private static Appendable indent(Appendable out, int count) throws IOException {
+        while (count > 0) {
+            int chunk = Math.min(count, SPACES.length());
+            out.append(SPACES, 0, chunk);
+            count -= chunk;
+        }
+        return out;
+    }
+
+
+    /** Gets the number of endorsements of a post of any type
+     *
+     * @param post post being counted
+     * @return number of endorsements, which is 0 for an endorsement
+     */
+    private static int getEndorsementCount(Post post) {
+        if (post instanceof OriginalPost) {
+            return ((OriginalPost) post).getEndorsementCount();
+        } else if (post instanceof Comment) {
+            return ((Comment) post).getEndorsementCount();
+        }
+        //If post is an endorsement it will have no endorsements or comments
+        return 0;
+    }
+
+
+    /** Gets the comments of a post of any type
+     *
+     * @param post post whose comments are wanted
+     * @return comments of the post, which is empty for an endorsement
+     */
+    static LinkedIdentitySet<Comment> getComments(Post post) {
+        if (post instanceof OriginalPost) {
+            return ((OriginalPost) post).getComments();
+        } else if (post instanceof Comment) {
+            return ((Comment) post).getComments();
+        }
+        return new LinkedIdentitySet<Comment>();
+    }
+
+
+    /**
+     * One level of the reply tree being written, holding the replies still to be written at that level
+     */
+    private static final class Level {
+        private final Iterator<Comment> replies;
+        private final int depth;
+        private int written;
+
+        /**
+         * Creates a level of the reply tree
+         *
+         * @param replies replies at this level, in the order they are written
+         * @param depth level of the replies, where 1 is the direct replies to the root
+         */
+        Level(Iterator<Comment> replies, int depth) {
+            this.replies = replies;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Represents a page of an account's timeline, located in the social media package
+ * A page is made up of the post IDs and creation times of some of the posts of one type made by an account, newest first.
+ * <p>
+ * Pages are found by key instead of by position: the next page holds the posts older than the last post on this page, so posts made or
+ * deleted between requests never shift a page, and reading a page takes time proportional to its size.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NavigableMap;
+
+public final class TimelinePage {
+    private final int[] pids;
+    private final long[] creationTimes;
+    private final boolean more;
+
+    /**
+     * Creates a page of a timeline
+     *
+     * @param pids post IDs of the posts on the page, newest first
+     * @param creationTimes creation time of each post, in milliseconds since the epoch
+     * @param more true if there are older posts after this page
+     */
+    TimelinePage(int[] pids, long[] creationTimes, boolean more) {
+        this.pids = pids;
+        this.creationTimes = creationTimes;
+        this.more = more;
+    }
+
+
+    /** Gets the posts on the page
+     *
+     * @return post IDs of the posts on the page, newest first
+     */
+    public int[] getPids() {
+        return pids.clone();
+    }
+
+
+    /** Gets the creation time of each post on the page
+     *
+     * @return creation time of each post, in milliseconds since the epoch
+     */
+    public long[] getCreationTimes() {
+        return creationTimes.clone();
+    }
+
+
+    /** Gets the number of posts on the page
+     *
+     * @return number of posts on the page
+     */
+    public int size() {
+        return pids.length;
+    }
+
+
+    /** Checks whether there are older posts after this page
+     *
+     * @return true if there is another page
+     */
+    public boolean hasMore() {
+        return more;
+    }
+
+
+    /** Gets the key of the next page
+     *
+     * @return post ID to pass in as beforePid to read the next page, or 0 if this is the last page
+     */
+    public int getNextBeforePid() {
+        return more ? pids[pids.length - 1] : 0;
+    }
+
+
+    /** Reads a page of a timeline
+     *
+     * @param timeline posts of one type made by an account, keyed by post ID
+     * @param beforePid only posts with a lower post ID are read, or 0 to start from the newest post
+     * @param limit most posts on the page
+     * @return page of at most limit posts, newest first
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    static TimelinePage read(NavigableMap<Integer, Post> timeline, int beforePid, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1");
+        }
+        // post IDs are handed out in creation order, so the newest posts have the highest IDs
+        NavigableMap<Integer, Post> older = beforePid > 0 ? timeline.headMap(beforePid, false) : timeline;
+        Iterator<Post> newestFirst = older.descendingMap().values().iterator();
+        int[] pids = new int[Math.min(limit, 64)];
+        long[] creationTimes = new long[pids.length];
+        int count = 0;
+        while (count < limit && newestFirst.hasNext()) {
+            Post post = newestFirst.next();
+            if (count == pids.length) {
+                int size = (int) Math.min(limit, 2L * count);
+                pids = Arrays.copyOf(pids, size);
+                creationTimes = Arrays.copyOf(creationTimes, size);
+            }
+            pids[count] = post.getPid();
+            creationTimes[count] = post.getCreatedAt();
+            count++;
+        }
+        return new TimelinePage(Arrays.copyOf(pids, count), Arrays.copyOf(creationTimes, count),
+                newestFirst.hasNext());
+    }
+}
@@ -0,0 +1,310 @@
+/**
+ * Represents a write-ahead log, located in the social media package
+ * A write-ahead log is an append-only file of records, one for each change made to the platform since the last snapshot.
+ * <p>
+ * Each record is stored as its length, a CRC32 checksum and its contents, which are the generation of the snapshot the change was made on
+ * top of, a record type, and int, long and string fields. A snapshot holds every change logged before it was saved, and is given a new
+ * generation, so after a crash the records stamped with another generation than the snapshot being recovered are skipped rather than
+ * made twice, even if the crash came after the snapshot was saved but before the log was emptied.
+ * Records are appended to a buffer in memory and written by a background thread, which writes every record waiting in the buffer and then
+ * forces them to disk with a single fsync (group commit). Callers are never held up by the disk unless they ask to wait with sync().
+ * <p>
+ * When a log is opened the records already in it are read back so they can be replayed. A record that was only partly written when the
+ * process stopped fails its checksum, and it is cut off together with everything after it.
+ *
+ * @author Jeroen Mijer, Alexander Robertson
+ * @version 1.0
+ * @since 1.0
+ */
+package socialmedia;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+final class WriteAheadLog implements Closeable {
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final long commitIntervalMillis;
+    private final Thread flusher;
+    private List<byte[]> recovered;
+
+    // guarded by this
+    private ByteArrayOutputStream pending;
+    private long appendedRecords;
+    private long durableRecords;
+    private int syncWaiters;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Opens a write-ahead log, creating the file if it does not exist, and reads back the records already in it
+     *
+     * @param filename location of the log file
+     * @param commitIntervalMillis longest time a record waits in memory before it is written and forced to disk
+     * @throws IOException if there is a problem opening or reading the file
+     */
+    WriteAheadLog(String filename, long commitIntervalMillis) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.pending = new ByteArrayOutputStream();
+        try {
+            this.recovered = recover();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.flusher = new Thread(this::flushLoop, "socialmedia-wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+
+    /** Gets the records that were in the log when it was opened, which can only be taken once
+     *
+     * @return contents of each record, in the order they were appended
+     */
+    List<byte[]> takeRecoveredRecords() {
+        List<byte[]> records = recovered;
+        recovered = new ArrayList<byte[]>();
+        return records;
+    }
+
+
+    /** Appends a record to the log without waiting for it to reach the disk
+     *
+     * @param generation generation of the snapshot the change was made on top of, read back first when the record is replayed
+     * @param type record type, read back after the generation
+     * @param fields Integer, Long and String fields of the record, in the order they are read back
+     * @throws UncheckedIOException if the log has failed to write to disk
+     * @throws IllegalStateException if the log has been closed
+     */
+    void append(long generation, byte type, Object... fields) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeLong(generation);
+            out.writeByte(type);
+            for (Object field : fields) {
+                if (field instanceof Integer) {
+                    out.writeInt((Integer) field);
+                } else if (field instanceof Long) {
+                    out.writeLong((Long) field);
+                } else {
+                    PlatformSnapshot.writeString(out, (String) field);
+                }
+            }
+        } catch (IOException e) {
+            // writing to a ByteArrayOutputStream never fails
+            throw new UncheckedIOException(e);
+        }
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        synchronized (this) {
+            checkUsable();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(record.length).putInt((int) crc.getValue());
+            pending.write(header.array(), 0, HEADER_SIZE);
+            pending.write(record, 0, record.length);
+            appendedRecords++;
+            notifyAll();
+        }
+    }
+
+
+    /** Waits until every record appended so far has been forced to disk
+     *
+     * @throws IOException if the log has failed to write to disk
+     */
+    void sync() throws IOException {
+        synchronized (this) {
+            long target = appendedRecords;
+            syncWaiters++;
+            try {
+                while (durableRecords < target && failure == null) {
+                    if (closed) {
+                        throw new IOException("Write-ahead log is closed");
+                    }
+                    notifyAll();
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for the write-ahead log", e);
+                    }
+                }
+            } finally {
+                syncWaiters--;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+
+    /** Removes every record from the log, used once the changes they record are held in a snapshot
+     *
+     * @throws IOException if there is a problem writing to the file
+     */
+    void truncate() throws IOException {
+        sync();
+        synchronized (this) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+
+    /** Writes any records still waiting to disk and closes the log
+     *
+     * @throws IOException if there is a problem writing the remaining records
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+
+    /** Checks that records can still be appended. Must be called while holding the log's monitor.
+     */
+    private void checkUsable() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+
+
+    /** Body of the background thread, which commits every waiting record as one group
+     */
+    private void flushLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchEnd;
+            synchronized (this) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                // give other records a chance to join the group unless someone is waiting in sync
+                long deadline = System.currentTimeMillis() + commitIntervalMillis;
+                while (!closed && syncWaiters == 0 && System.currentTimeMillis() < deadline
+                        && pending.size() < MAX_RECORD_SIZE) {
+                    try {
+                        wait(Math.max(1, deadline - System.currentTimeMillis()));
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                batch = pending;
+                batchEnd = appendedRecords;
+                pending = new ByteArrayOutputStream();
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                channel.position(channel.size());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                synchronized (this) {
+                    durableRecords = batchEnd;
+                    notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+
+    /** Reads every complete record in the file and cuts off anything after the last one
+     *
+     * @return contents of each complete record
+     * @throws IOException if there is a problem reading the file
+     */
+    private List<byte[]> recover() throws IOException {
+        List<byte[]> records = new ArrayList<byte[]>();
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            while (record.hasRemaining() && channel.read(record, position + HEADER_SIZE + record.position()) > 0) {
+                // keep reading until the whole record is in the buffer
+            }
+            CRC32 crc = new CRC32();
+            crc.update(record.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            records.add(record.array());
+            position += HEADER_SIZE + length;
+        }
+        if (position < size) {
+            // cut off a record that was only partly written
+            channel.truncate(position);
+            channel.force(true);
+        }
+        return records;
+    }
+
+
+    /** Opens a record read back from the log
+     *
+     * @param record contents of the record
+     * @return stream positioned at the generation of the record
+     */
+    static DataInputStream open(byte[] record) {
+        return new DataInputStream(new ByteArrayInputStream(record));
+    }
+}
@@ -0,0 +1,77 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * AsyncSocialMediaPlatformTest checks that the facade makes changes in the
+ * order they were called, completes futures with the exception the platform
+ * threw, and rejects calls once it is closed.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class AsyncSocialMediaPlatformTest {
+
+	@Test
+	void makesChangesInOrderCalled() throws Exception {
+		for (ExtendedSocialMediaPlatform platform : new ExtendedSocialMediaPlatform[] { new SocialMedia(),
+				new ConcurrentSocialMedia() }) {
+			try (AsyncSocialMediaPlatform async = new AsyncSocialMediaPlatform(platform)) {
+				async.createAccount("ana");
+				// each post is only valid if the changes before it were made first
+				List<CompletableFuture<Integer>> posts = new ArrayList<CompletableFuture<Integer>>();
+				posts.add(async.createPost("ana", "hello"));
+				for (int i = 0; i < 50; i++) {
+					async.changeAccountHandle(i == 0 ? "ana" : "ana" + (i - 1), "ana" + i);
+					posts.add(async.createPost("ana" + i, "post " + i));
+				}
+				int[] pids = new int[posts.size()];
+				for (int i = 0; i < pids.length; i++) {
+					pids[i] = posts.get(i).get();
+				}
+				for (int i = 1; i < pids.length; i++) {
+					assertEquals(pids[i - 1] + 1, pids[i]);
+				}
+				assertArrayEquals(new int[] { pids[pids.length - 1] },
+						async.getAccountTimeline("ana49", PostType.ORIGINAL_POST, 0, 1).get().getPids());
+			}
+		}
+	}
+
+	@Test
+	void completesWithExceptionThrown() throws Exception {
+		try (AsyncSocialMediaPlatform async = new AsyncSocialMediaPlatform(new SocialMedia())) {
+			ExecutionException write = assertThrows(ExecutionException.class,
+					() -> async.createPost("nobody", "hello").get());
+			assertEquals(HandleNotRecognisedException.class, write.getCause().getClass());
+			ExecutionException read = assertThrows(ExecutionException.class,
+					() -> async.showIndividualPost(99).get());
+			assertEquals(PostIDNotRecognisedException.class, read.getCause().getClass());
+		}
+	}
+
+	@Test
+	void rejectsCallsAfterClose() {
+		AsyncSocialMediaPlatform async = new AsyncSocialMediaPlatform(new ConcurrentSocialMedia());
+		CompletableFuture<Integer> created = async.createAccount("ana");
+		async.close();
+		// close waits for the calls made before it to finish
+		assertTrue(created.isDone());
+		assertFalse(created.isCompletedExceptionally());
+		ExecutionException e = assertThrows(ExecutionException.class, () -> async.createAccount("ben").get());
+		assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+	}
+}
@@ -0,0 +1,101 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * BatchTest checks that endorsing and commenting in a batch, on either
+ * implementation, leaves the platform the same as making each item one at a
+ * time, and that items that cannot be made are reported without stopping the
+ * rest of the batch.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class BatchTest {
+
+	@Test
+	void endorsesSameAsOneAtATime() throws Exception {
+		assertEndorsesSameAsOneAtATime(SocialMedia::new);
+		assertEndorsesSameAsOneAtATime(ConcurrentSocialMedia::new);
+	}
+
+	@Test
+	void commentsSameAsOneAtATime() throws Exception {
+		assertCommentsSameAsOneAtATime(SocialMedia::new);
+		assertCommentsSameAsOneAtATime(ConcurrentSocialMedia::new);
+	}
+
+	@Test
+	void rejectsArraysOfDifferentLengths() {
+		SocialMedia platform = new SocialMedia();
+		assertThrows(IllegalArgumentException.class, () -> platform.endorseBatch(new String[2], new int[1]));
+		assertThrows(IllegalArgumentException.class,
+				() -> platform.commentBatch(new String[1], new int[1], new String[2]));
+	}
+
+	/**
+	 * Checks endorsing in a batch against endorsing one at a time on a new
+	 * platform, with an item for each reason an endorsement can fail.
+	 *
+	 * @param platforms makes an empty platform
+	 * @throws Exception if the platform cannot be set up
+	 */
+	private static void assertEndorsesSameAsOneAtATime(Supplier<ExtendedSocialMediaPlatform> platforms)
+			throws Exception {
+		ExtendedSocialMediaPlatform batched = platforms.get();
+		Platforms.populate(batched);
+		ExtendedSocialMediaPlatform oneAtATime = platforms.get();
+		Platforms.populate(oneAtATime);
+
+		// post 6 is an endorsement and post 9 was deleted by the scenario
+		String[] handles = { "ana", "cat", "nobody", "dan", "ana", "cat" };
+		int[] pids = { 3, 3, 3, 6, 9, 4 };
+		BatchResult result = batched.endorseBatch(handles, pids);
+		assertEquals(3, result.getSuccessCount());
+		assertEquals(HandleNotRecognisedException.class, result.getError(2).getClass());
+		assertEquals(NotActionablePostException.class, result.getError(3).getClass());
+		assertEquals(PostIDNotRecognisedException.class, result.getError(4).getClass());
+		assertEquals(-1, result.getPid(4));
+		for (int i : new int[] { 0, 1, 5 }) {
+			assertNull(result.getError(i));
+			oneAtATime.endorsePost(handles[i], pids[i]);
+		}
+		assertEquals(Platforms.describe(oneAtATime), Platforms.describe(batched));
+	}
+
+	/**
+	 * Checks commenting in a batch against commenting one at a time on a new
+	 * platform, with an item for each reason a comment can fail.
+	 *
+	 * @param platforms makes an empty platform
+	 * @throws Exception if the platform cannot be set up
+	 */
+	private static void assertCommentsSameAsOneAtATime(Supplier<ExtendedSocialMediaPlatform> platforms)
+			throws Exception {
+		ExtendedSocialMediaPlatform batched = platforms.get();
+		Platforms.populate(batched);
+		ExtendedSocialMediaPlatform oneAtATime = platforms.get();
+		Platforms.populate(oneAtATime);
+
+		String[] handles = { "ana", "dan", "cat", "ana", "nobody", "cat" };
+		int[] pids = { 2, 4, 2, 6, 2, 2 };
+		String[] messages = { "one", "two", "three", "four", "five", "" };
+		BatchResult result = batched.commentBatch(handles, pids, messages);
+		assertEquals(3, result.getSuccessCount());
+		assertEquals(NotActionablePostException.class, result.getError(3).getClass());
+		assertEquals(HandleNotRecognisedException.class, result.getError(4).getClass());
+		assertEquals(InvalidPostException.class, result.getError(5).getClass());
+		// items on the same post are made together, so post IDs follow the order each post first appears
+		for (int i : new int[] { 0, 2, 1 }) {
+			assertEquals(oneAtATime.commentPost(handles[i], pids[i], messages[i]), result.getPid(i));
+		}
+		assertEquals(Platforms.describe(oneAtATime), Platforms.describe(batched));
+	}
+}
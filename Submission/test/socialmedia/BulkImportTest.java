@@ -0,0 +1,101 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * BulkImportTest checks that a CSV batch is added the same as making each
+ * change one at a time, including replies to posts already on the platform,
+ * and that a batch with any record that is not valid adds nothing.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class BulkImportTest {
+
+	@Test
+	void importsSameAsChangesMadeOneAtATime() throws Exception {
+		SocialMedia imported = new SocialMedia();
+		imported.createAccount("ana");
+		int hello = imported.createPost("ana", "hello");
+		ImportResult result = imported.importCsv(new StringReader("account,ben,\"likes, commas\"\n"
+				+ "post,p1,ben,news,1000\n"
+				+ "comment,c1,ana,p1,\"a \"\"quoted\"\" reply\",2000\n"
+				+ "endorsement,e1,ben,#" + hello + "\n"
+				+ "comment,c2,ben,#" + hello + ",hi ana\n"));
+
+		SocialMedia oneAtATime = new SocialMedia();
+		oneAtATime.createAccount("ana");
+		oneAtATime.createPost("ana", "hello");
+		oneAtATime.createAccount("ben", "likes, commas");
+		int news = oneAtATime.createPost("ben", "news");
+		oneAtATime.commentPost("ana", news, "a \"quoted\" reply");
+		oneAtATime.endorsePost("ben", hello);
+		oneAtATime.commentPost("ben", hello, "hi ana");
+		assertEquals(Platforms.describe(oneAtATime), Platforms.describe(imported));
+		assertEquals(hello, imported.getMostEndorsedPost());
+		assertEquals(news, (int) result.getPostIds().get("p1"));
+	}
+
+	@Test
+	void rejectsParentNotOnPlatform() throws Exception {
+		assertRejected("comment,c1,ana,#99,reply\n", "no post on the platform");
+		assertRejected("comment,c1,ana,#two,reply\n", "is not a number");
+		assertRejected("comment,c1,ana,missing,reply\n", "no earlier post");
+	}
+
+	@Test
+	void rejectsParentThatIsEndorsement() throws Exception {
+		// post 3 is the endorsement assertRejected makes before the import
+		assertRejected("comment,c1,ana,#3,reply\n", "is an endorsement");
+		assertRejected("endorsement,e1,ana,#2\nendorsement,e2,ana,e1\n", "is an endorsement");
+	}
+
+	@Test
+	void rejectsCreationTimesOutOfOrder() throws Exception {
+		assertRejected("post,p1,ana,later,2000\npost,p2,ana,earlier,1000\n", "post before it");
+		// a post without a creation time is made at the time of the import
+		assertRejected("post,p1,ana,now\npost,p2,ana,long ago,1000\n", "post before it");
+		assertRejected("comment,c1,ana,#2,before its parent,1\n", "post it refers to");
+	}
+
+	@Test
+	void rejectsInvalidRecords() throws Exception {
+		assertRejected("post,#1,ana,hello\n", "starts with #");
+		assertRejected("post,p1,ana,hello\npost,p1,ana,again\n", "not unique");
+		assertRejected("post,p1,nobody,hello\n", "not recognised");
+		assertRejected("account,ana,again\n", "not unique");
+		assertRejected("post,p1,ana,\n", "over 100 characters long or is empty");
+		assertRejected("post,p1,ana,hello,yesterday\n", "not a number");
+		assertRejected("repost,p1,ana,hello\n", "unknown record type");
+		assertRejected("post,p1,ana,\"not closed\n", "not closed");
+	}
+
+	/**
+	 * Checks that a batch is rejected with a message naming the problem, and that
+	 * the platform is left as it was, including any valid records before the one
+	 * that was rejected.
+	 *
+	 * @param csv     batch being imported, with its bad record last
+	 * @param problem part of the message the batch should be rejected with
+	 * @throws Exception if the platform cannot be set up
+	 */
+	private static void assertRejected(String csv, String problem) throws Exception {
+		SocialMedia platform = new SocialMedia();
+		platform.createAccount("ana");
+		int hello = platform.createPost("ana", "hello");
+		platform.endorsePost("ana", hello);
+		String before = Platforms.describe(platform);
+		IOException e = assertThrows(IOException.class,
+				() -> platform.importCsv(new StringReader("account,ben,\n" + csv)));
+		assertTrue(e.getMessage().contains(problem), e.getMessage());
+		assertEquals(before, Platforms.describe(platform));
+	}
+}
@@ -0,0 +1,81 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CascadeDeleteTest checks that removing an account, which deletes all of its
+ * posts in one pass, leaves the platform the same as deleting each of its
+ * posts one at a time before removing it, and the same as ConcurrentSocialMedia,
+ * which deletes them one at a time.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class CascadeDeleteTest {
+
+	@Test
+	void removesSameAsDeletingEachPost() throws Exception {
+		SocialMedia cascaded = new SocialMedia();
+		List<Integer> posts = populate(cascaded);
+		cascaded.removeAccount("eve");
+
+		SocialMedia oneAtATime = new SocialMedia();
+		populate(oneAtATime);
+		for (int pid : posts) {
+			try {
+				oneAtATime.deletePost(pid);
+			} catch (PostIDNotRecognisedException e) {
+				// already deleted along with a post it endorsed
+			}
+		}
+		oneAtATime.removeAccount("eve");
+		assertEquals(Platforms.describe(oneAtATime), Platforms.describe(cascaded));
+
+		ConcurrentSocialMedia concurrent = new ConcurrentSocialMedia();
+		populate(concurrent);
+		concurrent.removeAccount("eve");
+		assertEquals(Platforms.describe(concurrent), Platforms.describe(cascaded));
+	}
+
+	/**
+	 * Makes eve's posts tangled up with the posts of others: replies to her
+	 * posts by others and by herself, endorsements of her posts by others and by
+	 * herself, and her endorsements and replies on the posts of others.
+	 *
+	 * @param platform platform the posts are made on
+	 * @return post IDs of every post eve made, oldest first
+	 * @throws Exception if the platform rejects any change
+	 */
+	private static List<Integer> populate(SocialMediaPlatform platform) throws Exception {
+		List<Integer> posts = new ArrayList<Integer>();
+		for (String handle : new String[] { "ana", "ben", "cat", "eve" }) {
+			platform.createAccount(handle);
+		}
+		int hello = platform.createPost("ana", "hello");
+		int rant = platform.createPost("eve", "rant");
+		posts.add(rant);
+		int ben = platform.commentPost("ben", rant, "calm down");
+		int own = platform.commentPost("eve", rant, "no");
+		posts.add(own);
+		platform.commentPost("cat", own, "yes");
+		posts.add(platform.commentPost("eve", ben, "you calm down"));
+		platform.commentPost("ana", ben, "both of you");
+		posts.add(platform.commentPost("eve", hello, "hi"));
+		posts.add(platform.endorsePost("eve", rant));
+		platform.endorsePost("ana", rant);
+		platform.endorsePost("cat", own);
+		posts.add(platform.endorsePost("eve", hello));
+		posts.add(platform.endorsePost("eve", ben));
+		int later = platform.createPost("eve", "later");
+		posts.add(later);
+		platform.commentPost("ben", later, "ok");
+		platform.endorsePost("ben", later);
+		return posts;
+	}
+}
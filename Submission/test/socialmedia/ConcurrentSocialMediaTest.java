@@ -0,0 +1,242 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ConcurrentSocialMediaTest checks that ConcurrentSocialMedia keeps its counts,
+ * endorsements, leaderboards, home feeds and saved follows in agreement when it
+ * is changed from many threads at once, that it and the decorators wrapping it tell callers it can
+ * be shared between threads, and that AsyncSocialMediaPlatform only reads a
+ * platform off its writer thread if it is told so.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class ConcurrentSocialMediaTest {
+
+	// Threads changing the platform at once, each with its own account and post
+	private static final int THREADS = 8;
+	// Rounds each thread makes, a multiple of THREADS so every post is endorsed equally
+	private static final int ROUNDS = 400;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void keepsCountsWhenChangedFromManyThreads() throws Exception {
+		ConcurrentSocialMedia platform = new ConcurrentSocialMedia();
+		int[] posts = new int[THREADS];
+		for (int i = 0; i < THREADS; i++) {
+			platform.createAccount("user" + i);
+			posts[i] = platform.createPost("user" + i, "post " + i);
+		}
+		run(THREADS, i -> {
+			List<Integer> comments = new ArrayList<Integer>();
+			for (int round = 0; round < ROUNDS; round++) {
+				// every thread endorses each post in turn, so the threads overlap on every post
+				platform.endorsePost("user" + i, posts[(i + round) % THREADS]);
+				comments.add(platform.commentPost("user" + i, posts[(i + round + 1) % THREADS], "round " + round));
+				if (round % 4 == 3) {
+					platform.deletePost(comments.remove(0));
+				}
+			}
+		});
+
+		int endorsements = THREADS * ROUNDS;
+		int comments = THREADS * (ROUNDS - ROUNDS / 4);
+		assertEquals(endorsements, platform.getTotalEndorsmentPosts());
+		assertEquals(comments, platform.getTotalCommentPosts());
+		PlatformStats stats = platform.getPlatformStats();
+		assertEquals(endorsements, stats.getTotalEndorsementPosts());
+		assertEquals(comments, stats.getTotalCommentPosts());
+		for (int i = 0; i < THREADS; i++) {
+			assertTrue(platform.showIndividualPost(posts[i]).contains("No. endorsements: " + ROUNDS + " |"));
+			assertTrue(platform.showAccount("user" + i).contains("Endorse Count: " + ROUNDS + "\n"));
+		}
+		// every post and account has the same count, so the oldest comes first
+		assertEquals(posts[0], platform.getMostEndorsedPost());
+		assertEquals(posts[1], platform.topEndorsedPosts(2)[1]);
+	}
+
+	@Test
+	void keepsCountsWhenAccountRemovedWhileEndorsing() throws Exception {
+		ConcurrentSocialMedia platform = new ConcurrentSocialMedia();
+		platform.createAccount("ana");
+		int hello = platform.createPost("ana", "hello");
+		for (int i = 0; i < THREADS; i++) {
+			platform.createAccount("user" + i);
+		}
+		// the last thread removes the accounts the others are endorsing with
+		run(THREADS + 1, i -> {
+			for (int round = 0; round < ROUNDS; round++) {
+				if (i == THREADS) {
+					if (round < THREADS) {
+						platform.removeAccount("user" + round);
+					}
+					continue;
+				}
+				try {
+					platform.endorsePost("user" + i, hello);
+				} catch (HandleNotRecognisedException e) {
+					// removed by the last thread
+					return;
+				}
+			}
+		});
+
+		// the endorsements of the removed accounts went with them, leaving ana and the generic account
+		assertEquals(new ConcurrentSocialMedia().getNumberOfAccounts() + 1, platform.getNumberOfAccounts());
+		assertEquals(0, platform.getTotalEndorsmentPosts());
+		assertTrue(platform.showIndividualPost(hello).contains("No. endorsements: 0 |"));
+		assertTrue(platform.showAccount("ana").contains("Endorse Count: 0\n"));
+	}
+
+	@Test
+	void keepsFeedsWhenFollowingAndPostingFromManyThreads() throws Exception {
+		ConcurrentSocialMedia platform = new ConcurrentSocialMedia();
+		for (int i = 0; i < THREADS; i++) {
+			platform.createAccount("user" + i);
+		}
+		List<List<Integer>> posts = new ArrayList<List<Integer>>();
+		for (int i = 0; i < THREADS; i++) {
+			posts.add(new ArrayList<Integer>());
+		}
+		// each thread follows every other account, reading its feed as it posts, and halfway unfollows the next one
+		run(THREADS, i -> {
+			for (int other = 0; other < THREADS; other++) {
+				platform.follow("user" + i, "user" + other);
+			}
+			for (int round = 0; round < ROUNDS; round++) {
+				posts.get(i).add(platform.createPost("user" + i, "round " + round));
+				platform.getHomeFeed("user" + i, 0, THREADS);
+				if (round == ROUNDS / 2) {
+					platform.unfollow("user" + i, "user" + (i + 1) % THREADS);
+				}
+			}
+		});
+
+		for (int i = 0; i < THREADS; i++) {
+			List<Integer> expected = new ArrayList<Integer>();
+			for (int other = 0; other < THREADS; other++) {
+				if (other != i && other != (i + 1) % THREADS) {
+					expected.addAll(posts.get(other));
+				}
+			}
+			expected.sort(Collections.reverseOrder());
+			int[] feed = platform.getHomeFeed("user" + i, 0, THREADS * ROUNDS);
+			assertEquals(expected, Arrays.stream(feed).boxed().collect(Collectors.toList()), "user" + i);
+			assertEquals(THREADS - 2, platform.getFollowingCount("user" + i));
+			assertEquals(THREADS - 2, platform.getFollowerCount("user" + i));
+		}
+	}
+
+	@Test
+	void savesOnlyFollowsOfSavedAccounts() throws Exception {
+		ConcurrentSocialMedia platform = new ConcurrentSocialMedia();
+		platform.createAccount("ana");
+		Path file = dir.resolve("platform.snap");
+		// the last thread saves and loads while the others create, follow and remove accounts
+		run(THREADS + 1, i -> {
+			for (int round = 0; round < ROUNDS; round++) {
+				if (i == THREADS) {
+					platform.savePlatform(file.toString());
+					new ConcurrentSocialMedia().loadPlatform(file.toString());
+					continue;
+				}
+				String handle = "user" + i + "_" + round;
+				platform.createAccount(handle);
+				platform.follow(handle, "ana");
+				platform.follow("ana", handle);
+				platform.removeAccount(handle);
+			}
+		});
+
+		assertEquals(0, platform.getFollowerCount("ana"));
+		assertEquals(0, platform.getFollowingCount("ana"));
+	}
+
+	/**
+	 * Runs a task on each of a number of threads at once and waits for them all,
+	 * failing if any of them threw.
+	 *
+	 * @param threads number of threads
+	 * @param task    task run by each thread, given the number of its thread
+	 * @throws Exception if a task threw
+	 */
+	private static void run(int threads, ThreadTask task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (int i = 0; i < threads; i++) {
+				int thread = i;
+				results.add(executor.submit(() -> {
+					task.run(thread);
+					return null;
+				}));
+			}
+			for (Future<Void> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Task run by each thread of a test, which may throw any exception.
+	 */
+	@FunctionalInterface
+	private interface ThreadTask {
+		void run(int thread) throws Exception;
+	}
+
+	@Test
+	void decoratorsPassThreadSafetyThrough() {
+		assertTrue(new ConcurrentSocialMedia().isThreadSafe());
+		assertFalse(new SocialMedia().isThreadSafe());
+		assertTrue(new InstrumentedSocialMediaPlatform(new ConcurrentSocialMedia()).isThreadSafe());
+		assertFalse(new InstrumentedSocialMediaPlatform(new SocialMedia()).isThreadSafe());
+	}
+
+	@Test
+	void readsOffWriterOnlyIfThreadSafe() throws Exception {
+		// each platform answers with the thread it was read from
+		ConcurrentSocialMedia concurrent = new ConcurrentSocialMedia() {
+			@Override
+			public String showAccount(String handle) {
+				return Thread.currentThread().getName();
+			}
+		};
+		SocialMedia sequential = new SocialMedia() {
+			@Override
+			public String showAccount(String handle) {
+				return Thread.currentThread().getName();
+			}
+		};
+		try (AsyncSocialMediaPlatform async = new AsyncSocialMediaPlatform(
+				new InstrumentedSocialMediaPlatform(concurrent))) {
+			// reads run on virtual threads, which have no name, or on the reader pool
+			assertFalse(async.showAccount("ana").get().startsWith("socialmedia-writer"));
+		}
+		try (AsyncSocialMediaPlatform async = new AsyncSocialMediaPlatform(
+				new InstrumentedSocialMediaPlatform(sequential))) {
+			assertEquals("socialmedia-writer-1", async.showAccount("ana").get());
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ErasePlatformTest checks that an erased platform is the same as a new one,
+ * with the generic post still holding post ID 1, so the replies of posts
+ * deleted after the erase are moved under it.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class ErasePlatformTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void erasedPlatformKeepsGenericPost() throws Exception {
+		assertErasedSameAsNew(SocialMedia::new, "sequential.ser");
+		assertErasedSameAsNew(ConcurrentSocialMedia::new, "concurrent.ser");
+	}
+
+	/**
+	 * Makes the same posts on an erased platform and a new one, deleting a post
+	 * with a reply and removing an account, and checks both platforms and a
+	 * reload of the erased one are the same
+	 *
+	 * @param platforms makes an empty platform
+	 * @param filename  name of the file the erased platform is saved to
+	 * @throws Exception if a platform rejects a change
+	 */
+	private void assertErasedSameAsNew(Supplier<SocialMediaPlatform> platforms, String filename) throws Exception {
+		SocialMediaPlatform erased = platforms.get();
+		Platforms.populate(erased);
+		erased.erasePlatform();
+		SocialMediaPlatform fresh = platforms.get();
+		for (SocialMediaPlatform platform : new SocialMediaPlatform[] { erased, fresh }) {
+			platform.createAccount("ana");
+			platform.createAccount("ben");
+			int hello = platform.createPost("ana", "hello");
+			int reply = platform.commentPost("ben", hello, "hi");
+			int news = platform.createPost("ben", "news");
+			platform.commentPost("ana", news, "wow");
+			platform.deletePost(hello);
+			// the orphaned reply now hangs off the generic post
+			assertTrue(platform.showPostChildrenDetails(1).toString().contains("ID: " + reply + "\n"));
+			platform.removeAccount("ben");
+			assertEquals(1, platform.getTotalOriginalPosts());
+		}
+		assertEquals(Platforms.describe(fresh), Platforms.describe(erased));
+
+		String file = dir.resolve(filename).toString();
+		erased.savePlatform(file);
+		SocialMediaPlatform loaded = platforms.get();
+		loaded.loadPlatform(file);
+		assertEquals(Platforms.describe(fresh), Platforms.describe(loaded));
+	}
+}
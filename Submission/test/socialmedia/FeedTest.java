@@ -0,0 +1,213 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * FeedTest checks that home feeds, on either implementation, hold the original
+ * posts and endorsements of the followed accounts newest first, and that the
+ * feed engine gives the same feeds as reading every followed timeline when its
+ * inboxes are small and its accounts become celebrities after a few followers.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class FeedTest {
+
+	@Test
+	void readsFollowedPostsNewestFirst() throws Exception {
+		assertReadsFollowedPostsNewestFirst(SocialMedia::new);
+		assertReadsFollowedPostsNewestFirst(ConcurrentSocialMedia::new);
+	}
+
+	@Test
+	void engineSameAsReadingEveryTimeline() {
+		// at most 3 posts in each inbox, and accounts with 2 followers are merged in on read
+		Timelines timelines = new Timelines();
+		FeedEngine engine = new FeedEngine(2, 3, timelines);
+		Map<Integer, Set<Integer>> following = new HashMap<Integer, Set<Integer>>();
+		Random random = new Random(42);
+		int accounts = 6;
+		int nextPid = 1;
+		for (int step = 0; step < 2000; step++) {
+			int uid = random.nextInt(accounts);
+			int other = random.nextInt(accounts);
+			int change = random.nextInt(10);
+			if (change < 2) {
+				if (engine.follow(uid, other)) {
+					following.computeIfAbsent(uid, k -> new HashSet<Integer>()).add(other);
+				}
+			} else if (change < 3) {
+				if (engine.unfollow(uid, other)) {
+					following.get(uid).remove(other);
+				}
+			} else if (change < 8) {
+				int pid = nextPid++;
+				timelines.add(uid, pid);
+				engine.publish(uid, pid);
+			} else if (change < 9) {
+				timelines.deleteNewest(uid);
+			} else if (step % 50 == 9) {
+				// the platform deletes the posts of an account as it is removed
+				timelines.removeAccount(uid);
+				engine.removeAccount(uid);
+				following.remove(uid);
+				following.values().forEach(followed -> followed.remove(uid));
+			}
+			int reader = random.nextInt(accounts);
+			int[] expected = timelines.feed(following.getOrDefault(reader, Set.of()));
+			assertArrayEquals(expected, readAll(engine, reader, 1 + random.nextInt(4)), "step " + step);
+		}
+	}
+
+	/**
+	 * Checks the home feeds, follower counts and paging of a platform as
+	 * accounts post, follow, unfollow and are removed.
+	 *
+	 * @param platforms makes an empty platform
+	 * @throws Exception if the platform rejects a change
+	 */
+	private static void assertReadsFollowedPostsNewestFirst(Supplier<ExtendedSocialMediaPlatform> platforms)
+			throws Exception {
+		ExtendedSocialMediaPlatform platform = platforms.get();
+		for (String handle : new String[] { "ana", "ben", "cat", "dan" }) {
+			platform.createAccount(handle);
+		}
+		int benPost = platform.createPost("ben", "ben 1");
+		int catPost = platform.createPost("cat", "cat 1");
+		platform.follow("ana", "ben");
+		platform.follow("ana", "cat");
+		// following twice or following oneself changes nothing
+		platform.follow("ana", "ben");
+		platform.follow("ana", "ana");
+		assertEquals(2, platform.getFollowingCount("ana"));
+		assertEquals(1, platform.getFollowerCount("ben"));
+		assertArrayEquals(new int[] { catPost, benPost }, platform.getHomeFeed("ana", 0, 10));
+
+		// comments are left out, endorsements by followed accounts are in
+		platform.commentPost("ben", catPost, "nice");
+		int endorsement = platform.endorsePost("cat", benPost);
+		int danPost = platform.createPost("dan", "dan 1");
+		assertArrayEquals(new int[] { endorsement, catPost, benPost }, platform.getHomeFeed("ana", 0, 10));
+		assertArrayEquals(new int[] { endorsement, catPost }, platform.getHomeFeed("ana", 0, 2));
+		assertArrayEquals(new int[] { benPost }, platform.getHomeFeed("ana", catPost, 2));
+
+		platform.follow("ana", "dan");
+		platform.unfollow("ana", "cat");
+		assertArrayEquals(new int[] { danPost, benPost }, platform.getHomeFeed("ana", 0, 10));
+		platform.deletePost(benPost);
+		platform.removeAccount("dan");
+		assertArrayEquals(new int[0], platform.getHomeFeed("ana", 0, 10));
+		assertEquals(1, platform.getFollowingCount("ana"));
+
+		assertThrows(HandleNotRecognisedException.class, () -> platform.follow("ana", "dan"));
+		assertThrows(HandleNotRecognisedException.class, () -> platform.getHomeFeed("dan", 0, 10));
+		assertThrows(IllegalArgumentException.class, () -> platform.getHomeFeed("ana", 0, 0));
+	}
+
+	/**
+	 * Reads the whole home feed of an account a page at a time.
+	 *
+	 * @param engine engine the feed is read from
+	 * @param uid    user ID of the account
+	 * @param limit  most posts on each page
+	 * @return post IDs of every post in the feed, newest first
+	 */
+	private static int[] readAll(FeedEngine engine, int uid, int limit) {
+		List<Integer> feed = new ArrayList<Integer>();
+		int beforePid = 0;
+		int[] page;
+		do {
+			page = engine.getHomeFeed(uid, beforePid, limit);
+			for (int pid : page) {
+				feed.add(pid);
+			}
+			beforePid = page.length > 0 ? page[page.length - 1] : 0;
+		} while (page.length == limit);
+		return feed.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Posts of each account, kept as the platform keeps its timelines: deleted
+	 * posts are taken out of the timelines and are no longer visible.
+	 */
+	private static final class Timelines implements FeedEngine.Source {
+		private final Map<Integer, TreeSet<Integer>> posts = new HashMap<Integer, TreeSet<Integer>>();
+		private final Set<Integer> visible = new HashSet<Integer>();
+
+		/**
+		 * Adds a new post to the timeline of its author.
+		 *
+		 * @param uid user ID of the author
+		 * @param pid post ID of the post
+		 */
+		void add(int uid, int pid) {
+			posts.computeIfAbsent(uid, k -> new TreeSet<Integer>()).add(pid);
+			visible.add(pid);
+		}
+
+		/**
+		 * Deletes the newest post of an account, if it has any.
+		 *
+		 * @param uid user ID of the author
+		 */
+		void deleteNewest(int uid) {
+			TreeSet<Integer> timeline = posts.get(uid);
+			if (timeline != null && !timeline.isEmpty()) {
+				visible.remove(timeline.pollLast());
+			}
+		}
+
+		/**
+		 * Deletes every post of an account.
+		 *
+		 * @param uid user ID of the account
+		 */
+		void removeAccount(int uid) {
+			TreeSet<Integer> timeline = posts.remove(uid);
+			if (timeline != null) {
+				visible.removeAll(timeline);
+			}
+		}
+
+		/**
+		 * Reads every post of some accounts, newest first.
+		 *
+		 * @param uids user IDs of the followed accounts
+		 * @return post IDs of every post of the accounts, newest first
+		 */
+		int[] feed(Set<Integer> uids) {
+			TreeSet<Integer> feed = new TreeSet<Integer>();
+			for (int uid : uids) {
+				feed.addAll(posts.getOrDefault(uid, new TreeSet<Integer>()));
+			}
+			return feed.descendingSet().stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		@Override
+		public int[] newestPosts(int uid, int beforePid, int limit) {
+			TreeSet<Integer> timeline = posts.getOrDefault(uid, new TreeSet<Integer>());
+			return (beforePid > 0 ? timeline.headSet(beforePid, false) : timeline).descendingSet().stream()
+					.limit(limit).mapToInt(Integer::intValue).toArray();
+		}
+
+		@Override
+		public boolean isVisible(int pid) {
+			return visible.contains(pid);
+		}
+	}
+}
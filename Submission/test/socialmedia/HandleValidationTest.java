@@ -0,0 +1,56 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * HandleValidationTest checks that handles are rejected for the same reasons
+ * as before they were checked in one pass, including every kind of whitespace,
+ * and that the platform's exceptions keep their stack traces unless they are
+ * turned off.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class HandleValidationTest {
+
+	@Test
+	void rejectsEmptyLongAndWhitespaceHandles() {
+		assertTrue(Account.isValidHandle("a"));
+		assertTrue(Account.isValidHandle("a".repeat(Account.MAX_HANDLE_LENGTH)));
+		assertTrue(Account.isValidHandle("ana_b.c-1"));
+		assertFalse(Account.isValidHandle(""));
+		assertFalse(Account.isValidHandle("a".repeat(Account.MAX_HANDLE_LENGTH + 1)));
+		// spaces, tabs, line breaks and no-break spaces, which isWhitespace alone misses
+		for (String space : new String[] { " ", "\t", "\n", "\r", "\u000B", "\u00A0", "\u2007", "\u202F", "\u3000" }) {
+			assertFalse(Account.isValidHandle("a" + space + "b"), Integer.toHexString(space.charAt(0)));
+			assertFalse(Account.isValidHandle(space), Integer.toHexString(space.charAt(0)));
+		}
+	}
+
+	@Test
+	void platformsRejectInvalidHandles() {
+		for (SocialMediaPlatform platform : new SocialMediaPlatform[] { new SocialMedia(),
+				new ConcurrentSocialMedia() }) {
+			assertThrows(InvalidHandleException.class, () -> platform.createAccount("no\u00A0break"));
+			assertThrows(InvalidHandleException.class, () -> platform.createAccount(""));
+			assertEquals(new ConcurrentSocialMedia().getNumberOfAccounts(), platform.getNumberOfAccounts());
+		}
+	}
+
+	@Test
+	void exceptionsKeepStackTracesByDefault() {
+		// the tests run without socialmedia.exceptions.stackTrace set, so stack traces are on
+		assertTrue(ExceptionStackTraces.ENABLED);
+		SocialMedia platform = new SocialMedia();
+		HandleNotRecognisedException e = assertThrows(HandleNotRecognisedException.class,
+				() -> platform.showAccount("nobody"));
+		assertTrue(e instanceof SocialMediaException);
+		assertTrue(e.getStackTrace().length > 0);
+	}
+}
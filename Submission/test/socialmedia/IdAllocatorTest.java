@@ -0,0 +1,74 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * IdAllocatorTest checks that user and post IDs are never handed out twice, on
+ * either implementation, after the newest account or post is deleted or the
+ * platform is saved and loaded again.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class IdAllocatorTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void handsOutBlocksInOrder() {
+		IdAllocator ids = new IdAllocator(1);
+		assertEquals(1, ids.next());
+		assertEquals(2, ids.allocateBlock(3));
+		assertEquals(5, ids.peek());
+		assertEquals(5, ids.next());
+		assertThrows(IllegalArgumentException.class, () -> ids.allocateBlock(-1));
+	}
+
+	@Test
+	void neverReusesIds() throws Exception {
+		assertNeverReusesIds(SocialMedia::new, "sequential.ser");
+		assertNeverReusesIds(ConcurrentSocialMedia::new, "concurrent.ser");
+	}
+
+	/**
+	 * Deletes the newest account and post, then saves and loads the platform,
+	 * checking after each that the next IDs are higher than any handed out.
+	 *
+	 * @param platforms makes an empty platform
+	 * @param filename  name of the file the platform is saved to
+	 * @throws Exception if the platform rejects a change
+	 */
+	private void assertNeverReusesIds(Supplier<SocialMediaPlatform> platforms, String filename) throws Exception {
+		SocialMediaPlatform platform = platforms.get();
+		platform.createAccount("ana");
+		int ben = platform.createAccount("ben");
+		int hello = platform.createPost("ana", "hello");
+		int news = platform.createPost("ben", "news");
+		platform.removeAccount(ben);
+		int cat = platform.createAccount("cat");
+		int again = platform.createPost("ana", "again");
+		assertTrue(cat > ben);
+		assertTrue(again > news && news > hello);
+
+		platform.deletePost(again);
+		int reply = platform.commentPost("cat", hello, "hi");
+		assertTrue(reply > again);
+
+		String file = dir.resolve(filename).toString();
+		platform.savePlatform(file);
+		SocialMediaPlatform loaded = platforms.get();
+		loaded.loadPlatform(file);
+		assertTrue(loaded.createAccount("dan") > cat);
+		assertTrue(loaded.endorsePost("dan", hello) > reply);
+	}
+}
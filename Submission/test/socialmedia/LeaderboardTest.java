@@ -0,0 +1,95 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * LeaderboardTest checks that the most endorsed posts and accounts, read from
+ * the leaderboards of either implementation or through a decorator, are the
+ * same as counting the endorsements each post and account shows.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class LeaderboardTest {
+
+	@Test
+	void ranksSameAsCountingEndorsements() throws Exception {
+		for (ExtendedSocialMediaPlatform platform : new ExtendedSocialMediaPlatform[] { new SocialMedia(),
+				new ConcurrentSocialMedia(), new InstrumentedSocialMediaPlatform(new SocialMedia()) }) {
+			Platforms.populate(platform);
+			int ana = platform.createPost("ana", "popular");
+			platform.endorsePost("cat", ana);
+			platform.endorsePost("dan", ana);
+			platform.endorsePost("benjamin", ana);
+
+			int[] posts = rankPosts(platform);
+			assertArrayEquals(posts, platform.topEndorsedPosts(Integer.MAX_VALUE));
+			assertArrayEquals(Arrays.copyOf(posts, 2), platform.topEndorsedPosts(2));
+			assertEquals(posts[0], platform.getMostEndorsedPost());
+			int[] accounts = rankAccounts(platform);
+			assertArrayEquals(accounts, platform.topEndorsedAccounts(Integer.MAX_VALUE));
+			assertEquals(accounts[0], platform.getMostEndorsedAccount());
+			assertEquals(0, platform.topEndorsedAccounts(0).length);
+		}
+	}
+
+	/**
+	 * Ranks every original post and comment by the endorsements it shows.
+	 *
+	 * @param platform platform being ranked
+	 * @return post IDs, most endorsed first and ties from the oldest post
+	 * @throws Exception if a post cannot be shown
+	 */
+	private static int[] rankPosts(ExtendedSocialMediaPlatform platform) throws Exception {
+		List<int[]> counts = new ArrayList<int[]>();
+		for (int pid = 1; pid < Platforms.MAX_PID; pid++) {
+			try {
+				// endorsements cannot be endorsed, so they are not ranked
+				platform.showPostChildrenDetails(pid);
+				String shown = platform.showIndividualPost(pid);
+				int start = shown.indexOf("No. endorsements: ") + 18;
+				counts.add(new int[] { pid, Integer.parseInt(shown.substring(start, shown.indexOf(' ', start))) });
+			} catch (PostIDNotRecognisedException | NotActionablePostException e) {
+				// not a ranked post
+			}
+		}
+		return rank(counts);
+	}
+
+	/**
+	 * Ranks every account by the endorsements it shows.
+	 *
+	 * @param platform platform being ranked
+	 * @return user IDs, most endorsed first and ties from the oldest account
+	 * @throws Exception if an account cannot be shown
+	 */
+	private static int[] rankAccounts(ExtendedSocialMediaPlatform platform) throws Exception {
+		List<int[]> counts = new ArrayList<int[]>();
+		for (String handle : platform.searchHandles("", Integer.MAX_VALUE, false)) {
+			String shown = platform.showAccount(handle);
+			int id = Integer.parseInt(shown.substring(4, shown.indexOf('\n')));
+			int count = Integer.parseInt(shown.substring(shown.indexOf("Endorse Count: ") + 15).trim());
+			counts.add(new int[] { id, count });
+		}
+		return rank(counts);
+	}
+
+	/**
+	 * Sorts IDs by their counts, highest first and ties from the lowest ID.
+	 *
+	 * @param counts pairs of an ID and its count
+	 * @return IDs in ranked order
+	 */
+	private static int[] rank(List<int[]> counts) {
+		counts.sort((a, b) -> a[1] != b[1] ? Integer.compare(b[1], a[1]) : Integer.compare(a[0], b[0]));
+		return counts.stream().mapToInt(count -> count[0]).toArray();
+	}
+}
@@ -0,0 +1,88 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * LinkedIdentitySetTest checks that the set keeps its elements in the order
+ * they were added as elements are removed from anywhere in it, and that it
+ * compares elements by identity.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class LinkedIdentitySetTest {
+
+	@Test
+	void keepsOrderAsElementsAreRemoved() {
+		LinkedIdentitySet<String> set = new LinkedIdentitySet<String>();
+		List<String> added = new ArrayList<String>();
+		for (int i = 0; i < 6; i++) {
+			String element = "e" + i;
+			assertTrue(set.add(element));
+			added.add(element);
+		}
+		assertFalse(set.add(added.get(2)));
+		// the first, a middle and the last element each unlink differently
+		for (int i : new int[] { 0, 3, 5 }) {
+			assertTrue(set.remove(added.get(i)));
+			assertFalse(set.remove(added.get(i)));
+		}
+		assertEquals(List.of("e1", "e2", "e4"), new ArrayList<String>(set));
+		assertSame(added.get(1), set.first());
+		assertSame(added.get(4), set.successor(added.get(2)));
+		assertNull(set.successor(added.get(4)));
+		assertThrows(NoSuchElementException.class, () -> set.successor(added.get(0)));
+
+		assertTrue(set.add(added.get(0)));
+		assertEquals(List.of("e1", "e2", "e4", "e0"), new ArrayList<String>(set));
+		set.clear();
+		assertEquals(0, set.size());
+		assertNull(set.first());
+	}
+
+	@Test
+	void comparesByIdentity() {
+		LinkedIdentitySet<String> set = new LinkedIdentitySet<String>();
+		String element = new String("post");
+		String equal = new String("post");
+		assertTrue(set.add(element));
+		assertTrue(set.add(equal));
+		assertEquals(2, set.size());
+		assertTrue(set.remove(equal));
+		assertTrue(set.contains(element));
+		assertFalse(set.contains(equal));
+	}
+
+	@Test
+	void iteratorRemovesAndDetectsOtherChanges() {
+		LinkedIdentitySet<String> set = new LinkedIdentitySet<String>();
+		for (String element : new String[] { "a", "b", "c" }) {
+			set.add(element);
+		}
+		Iterator<String> iterator = set.iterator();
+		assertThrows(IllegalStateException.class, iterator::remove);
+		iterator.next();
+		iterator.next();
+		iterator.remove();
+		assertEquals("c", iterator.next());
+		assertEquals(List.of("a", "c"), new ArrayList<String>(set));
+
+		Iterator<String> stale = set.iterator();
+		set.add("d");
+		assertThrows(ConcurrentModificationException.class, stale::next);
+	}
+}
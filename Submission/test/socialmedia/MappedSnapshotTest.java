@@ -0,0 +1,134 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * MappedSnapshotTest checks that a platform answering from a memory-mapped
+ * snapshot shows the same as one that loaded the snapshot, without building
+ * every post, and the same again once it has been built.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class MappedSnapshotTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void showsSameAsLoadedPlatformWithoutBuildingIt() throws Exception {
+		Path file = dir.resolve("platform.snap");
+		SocialMedia platform = new SocialMedia();
+		Platforms.populate(platform);
+		platform.savePlatform(file.toString());
+
+		SocialMedia loaded = new SocialMedia();
+		loaded.loadPlatform(file.toString());
+		SocialMedia mapped = new SocialMedia();
+		mapped.mapPlatform(file.toString());
+		assertEquals(Platforms.describe(loaded), Platforms.describe(mapped));
+		assertArrayEquals(loaded.topEndorsedPosts(5), mapped.topEndorsedPosts(5));
+		assertArrayEquals(loaded.topEndorsedAccounts(5), mapped.topEndorsedAccounts(5));
+		// every answer came from the mapping, so the platform has still not been built
+		assertEquals(0, mapped.posts.size());
+		assertEquals(0, mapped.accounts.size());
+	}
+
+	@Test
+	void buildsSamePlatformOnFirstChange() throws Exception {
+		Path file = dir.resolve("platform.snap");
+		SocialMedia platform = new SocialMedia();
+		Platforms.populate(platform);
+		platform.savePlatform(file.toString());
+
+		SocialMedia mapped = new SocialMedia();
+		mapped.mapPlatform(file.toString());
+		// posts built for the mapping are not the ones the platform is built with
+		mapped.showPostChildrenDetails(2);
+		int next = mapped.createPost("ana", "after mapping");
+		assertEquals(platform.createPost("ana", "after mapping"), next);
+		assertEquals(Platforms.describe(platform), Platforms.describe(mapped));
+	}
+
+	@Test
+	void keepsCommentsMovedUnderGenericPost() throws Exception {
+		Path file = dir.resolve("platform.snap");
+		SocialMedia platform = new SocialMedia();
+		platform.createAccount("ana");
+		int first = platform.createPost("ana", "first");
+		int second = platform.createPost("ana", "second");
+		int late = platform.commentPost("ana", second, "late reply");
+		platform.commentPost("ana", first, "early reply");
+		platform.endorsePost("ana", late);
+		// the generic post takes in the late reply before the early one
+		platform.deletePost(second);
+		platform.deletePost(first);
+		platform.commentPost("ana", late, "reply to a moved comment");
+		platform.savePlatform(file.toString());
+
+		SocialMedia mapped = new SocialMedia();
+		mapped.mapPlatform(file.toString());
+		assertEquals(Platforms.withoutReferences(platform.showPostChildrenDetails(1)),
+				Platforms.withoutReferences(mapped.showPostChildrenDetails(1)));
+		assertEquals(Platforms.withoutReferences(platform.showPostChildrenDetails(late)),
+				Platforms.withoutReferences(mapped.showPostChildrenDetails(late)));
+		assertEquals(platform.getMostEndorsedPost(), mapped.getMostEndorsedPost());
+	}
+
+	@Test
+	void cutsThreadShortFromMapping() throws Exception {
+		Path file = dir.resolve("platform.snap");
+		SocialMedia platform = new SocialMedia();
+		Platforms.populate(platform);
+		platform.savePlatform(file.toString());
+
+		SocialMedia mapped = new SocialMedia();
+		mapped.mapPlatform(file.toString());
+		StringBuilder fromPlatform = new StringBuilder();
+		platform.showPostChildrenDetails(2, fromPlatform, 1, 1);
+		StringBuilder fromMapping = new StringBuilder();
+		mapped.showPostChildrenDetails(2, fromMapping, 1, 1);
+		assertEquals(Platforms.withoutReferences(fromPlatform), Platforms.withoutReferences(fromMapping));
+		// post 6 is the first endorsement the scenario makes
+		assertThrows(NotActionablePostException.class, () -> mapped.showPostChildrenDetails(6));
+		assertThrows(PostIDNotRecognisedException.class, () -> mapped.showPostChildrenDetails(Platforms.MAX_PID));
+	}
+
+	@Test
+	void mapsHandWrittenFile() throws Exception {
+		Path file = dir.resolve("written.snap");
+		PlatformSnapshotTest.writeSmallPlatform(file, 42L);
+		SocialMedia loaded = new SocialMedia();
+		loaded.loadPlatform(file.toString());
+		SocialMedia mapped = new SocialMedia();
+		mapped.mapPlatform(file.toString());
+		assertEquals(Platforms.describe(loaded), Platforms.describe(mapped));
+		assertEquals(42L, new MappedSnapshot(file.toString()).getGeneration());
+	}
+
+	@Test
+	void rejectsCommentListOfAnotherPost() throws Exception {
+		Path file = dir.resolve("platform.snap");
+		PlatformSnapshotTest.writeSmallPlatform(file, 42L);
+		byte[] bytes = Files.readAllBytes(file);
+		// swap the empty list of reordered comment lists for one that lists the comment under the generic post
+		int lists = bytes.length - 16;
+		byte[] changed = new byte[bytes.length + 12];
+		System.arraycopy(bytes, 0, changed, 0, lists);
+		ByteBuffer.wrap(changed, lists, 16).putInt(1).putInt(1).putInt(1).putInt(4);
+		System.arraycopy(bytes, lists + 4, changed, lists + 16, 12);
+		Files.write(file, changed);
+		assertThrows(IOException.class, () -> new SocialMedia().mapPlatform(file.toString()));
+	}
+}
@@ -0,0 +1,61 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * MetricsTest checks that the instrumented platform passes every call on
+ * unchanged and counts the calls, failures and latencies of each method, with
+ * the overloads of a method counted together.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class MetricsTest {
+
+	@Test
+	void countsCallsAndFailures() throws Exception {
+		InstrumentedSocialMediaPlatform platform = new InstrumentedSocialMediaPlatform(new SocialMedia());
+		platform.createAccount("ana");
+		platform.createAccount("ben", "second account");
+		assertThrows(IllegalHandleException.class, () -> platform.createAccount("ana"));
+		assertThrows(InvalidHandleException.class, () -> platform.createAccount("has space"));
+		assertThrows(HandleNotRecognisedException.class, () -> platform.createPost("nobody", "hello"));
+
+		MetricsSnapshot metrics = platform.getMetrics();
+		MetricsSnapshot.MethodStats createAccount = metrics.getMethod("createAccount");
+		assertEquals(4, createAccount.getCallCount());
+		assertEquals(2, createAccount.getErrorCount());
+		assertEquals(Map.of("IllegalHandleException", 1L, "InvalidHandleException", 1L),
+				createAccount.getErrorCounts());
+		assertEquals(4, createAccount.getLatencyCount());
+		assertTrue(createAccount.getLatencyPercentile(50) <= createAccount.getLatencyPercentile(100));
+		assertEquals(0, metrics.getMethod("deletePost").getCallCount());
+		assertNull(metrics.getMethod("noSuchMethod"));
+
+		String exposition = metrics.toExposition();
+		assertTrue(exposition.contains("socialmedia_calls_total{method=\"createAccount\"} 4\n"));
+		assertTrue(exposition.contains(
+				"socialmedia_errors_total{method=\"createPost\",exception=\"HandleNotRecognisedException\"} 1\n"));
+	}
+
+	@Test
+	void passesCallsOnUnchanged() throws Exception {
+		SocialMedia wrapped = new SocialMedia();
+		InstrumentedSocialMediaPlatform platform = new InstrumentedSocialMediaPlatform(wrapped);
+		Platforms.populate(platform);
+		SocialMedia direct = new SocialMedia();
+		Platforms.populate(direct);
+		assertSame(wrapped, platform.getPlatform());
+		assertEquals(Platforms.describe(direct), Platforms.describe(platform));
+		assertEquals(Platforms.feeds(direct), Platforms.feeds(platform));
+	}
+}
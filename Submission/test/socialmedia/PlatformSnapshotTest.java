@@ -0,0 +1,220 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * PlatformSnapshotTest checks that a platform saved to a binary snapshot is
+ * loaded back the same, by either implementation, and that a file written
+ * field by field in the format is read as expected.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class PlatformSnapshotTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void roundTripsSocialMedia() throws Exception {
+		Path file = dir.resolve("platform.snap");
+		SocialMedia platform = new SocialMedia();
+		Platforms.populate(platform);
+		platform.savePlatform(file.toString());
+
+		SocialMedia loaded = new SocialMedia();
+		loaded.createAccount("replaced");
+		loaded.loadPlatform(file.toString());
+		assertEquals(Platforms.describe(platform), Platforms.describe(loaded));
+		assertEquals(Platforms.feeds(platform), Platforms.feeds(loaded));
+		// IDs carry on from where the saved platform left off
+		assertEquals(platform.createPost("ana", "next"), loaded.createPost("ana", "next"));
+	}
+
+	@Test
+	void roundTripsBetweenImplementations() throws Exception {
+		Path file = dir.resolve("platform.snap");
+		SocialMedia platform = new SocialMedia();
+		Platforms.populate(platform);
+		platform.savePlatform(file.toString());
+
+		ConcurrentSocialMedia concurrent = new ConcurrentSocialMedia();
+		concurrent.loadPlatform(file.toString());
+		assertEquals(Platforms.describe(platform), Platforms.describe(concurrent));
+
+		Path again = dir.resolve("again.snap");
+		concurrent.savePlatform(again.toString());
+		SocialMedia loaded = new SocialMedia();
+		loaded.loadPlatform(again.toString());
+		assertEquals(Platforms.describe(platform), Platforms.describe(loaded));
+	}
+
+	@Test
+	void keepsCommentsMovedUnderGenericPost() throws Exception {
+		Path file = dir.resolve("platform.snap");
+		SocialMedia platform = new SocialMedia();
+		platform.createAccount("ana");
+		int first = platform.createPost("ana", "first");
+		int second = platform.createPost("ana", "second");
+		int late = platform.commentPost("ana", second, "late reply");
+		platform.commentPost("ana", first, "early reply");
+		// the generic post takes in the late reply before the early one
+		platform.deletePost(second);
+		platform.deletePost(first);
+		platform.commentPost("ana", late, "reply to a moved comment");
+		platform.savePlatform(file.toString());
+
+		SocialMedia loaded = new SocialMedia();
+		loaded.loadPlatform(file.toString());
+		assertEquals(Platforms.withoutReferences(platform.showPostChildrenDetails(1)),
+				Platforms.withoutReferences(loaded.showPostChildrenDetails(1)));
+	}
+
+	@Test
+	void readsHandWrittenFile() throws Exception {
+		Path file = dir.resolve("written.snap");
+		writeSmallPlatform(file, 42L);
+		assertEquals(42L, PlatformSnapshot.read(file.toString()).getGeneration());
+		SocialMedia loaded = new SocialMedia();
+		loaded.loadPlatform(file.toString());
+		assertEquals(3, loaded.getNumberOfAccounts());
+		assertEquals(2, loaded.getTotalOriginalPosts());
+		assertEquals(1, loaded.getTotalCommentPosts());
+		assertEquals(1, loaded.getTotalEndorsmentPosts());
+		assertEquals(3, loaded.getMostEndorsedPost());
+		assertEquals(2, loaded.getMostEndorsedAccount());
+		assertEquals("ID: 2\nHandle: ana\nDescription: written account\nPost Count: 1\nEndorse Count: 1\n",
+				loaded.showAccount("ana"));
+		assertEquals("ID: 1\nHandle: admin\nDescription: \nPost Count: 0\nEndorse Count: 0\n",
+				loaded.showAccount("admin"));
+		assertEquals(1234L, loaded.posts.get(3).getCreatedAt());
+		assertEquals(1, loaded.getFollowerCount("ben"));
+		assertEquals(1, loaded.getFollowingCount("ana"));
+		// the next IDs handed out follow the saved ones
+		assertEquals(4, loaded.createAccount("cat"));
+		assertEquals(6, loaded.createPost("cat", "new post"));
+	}
+
+	@Test
+	void rejectsFileThatIsNotSnapshot() throws Exception {
+		Path file = dir.resolve("junk.snap");
+		Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		assertUnchangedAfterFailedLoad(file);
+	}
+
+	@Test
+	void rejectsNewerVersion() throws Exception {
+		Path file = dir.resolve("future.snap");
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+			out.writeInt(PlatformSnapshot.MAGIC);
+			out.writeInt(PlatformSnapshot.VERSION + 1);
+		}
+		assertUnchangedAfterFailedLoad(file);
+	}
+
+	@Test
+	void rejectsTruncatedFile() throws Exception {
+		Path file = dir.resolve("platform.snap");
+		SocialMedia platform = new SocialMedia();
+		Platforms.populate(platform);
+		platform.savePlatform(file.toString());
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length / 2));
+		assertUnchangedAfterFailedLoad(file);
+	}
+
+	/**
+	 * Checks that loading a file fails and leaves the platform as it was.
+	 *
+	 * @param file file that is not a valid snapshot
+	 * @throws Exception if the platform cannot be set up
+	 */
+	private static void assertUnchangedAfterFailedLoad(Path file) throws Exception {
+		SocialMedia platform = new SocialMedia();
+		Platforms.populate(platform);
+		String before = Platforms.describe(platform);
+		assertThrows(IOException.class, () -> platform.loadPlatform(file.toString()));
+		assertEquals(before, Platforms.describe(platform));
+	}
+
+	/**
+	 * Writes a small platform field by field in the snapshot format: accounts
+	 * "admin", "ana" and "ben", the generic post, an original post by ana, a
+	 * comment on it by ben, an endorsement of it by ben and ana following ben.
+	 *
+	 * @param file       location of the file
+	 * @param generation generation of the snapshot
+	 * @throws IOException if the file cannot be written
+	 */
+	static void writeSmallPlatform(Path file, long generation) throws IOException {
+		try (OutputStream raw = Files.newOutputStream(file); DataOutputStream out = new DataOutputStream(raw)) {
+			out.writeInt(PlatformSnapshot.MAGIC);
+			out.writeInt(PlatformSnapshot.VERSION);
+			out.writeInt(4);
+			out.writeInt(6);
+			out.writeLong(generation);
+			out.writeInt(3);
+			writeAccount(out, 1, "admin", "");
+			writeAccount(out, 2, "ana", "written account");
+			writeAccount(out, 3, "ben", "");
+			out.writeInt(4);
+			writePost(out, PlatformSnapshot.ORIGINAL_POST, 1, 1, 0,
+					"The original content was removed from the system and is no longer available.");
+			writePost(out, PlatformSnapshot.ORIGINAL_POST, 3, 2, 0, "written post");
+			writePost(out, PlatformSnapshot.COMMENT, 4, 3, 3, "written comment");
+			writePost(out, PlatformSnapshot.ENDORSEMENT, 5, 3, 3, "EP@ana: written post");
+			out.writeInt(0);
+			out.writeInt(1);
+			out.writeInt(2);
+			out.writeInt(3);
+		}
+	}
+
+	/**
+	 * Writes an account in the snapshot format.
+	 *
+	 * @param out         stream being written
+	 * @param uid         user ID of the account
+	 * @param handle      handle of the account
+	 * @param description description of the account
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeAccount(DataOutputStream out, int uid, String handle, String description)
+			throws IOException {
+		out.writeInt(uid);
+		PlatformSnapshot.writeString(out, handle);
+		PlatformSnapshot.writeString(out, description);
+	}
+
+	/**
+	 * Writes a post in the snapshot format, giving it a creation time of 1234.
+	 *
+	 * @param out     stream being written
+	 * @param type    type of the post
+	 * @param pid     post ID of the post
+	 * @param author  user ID of the author
+	 * @param parent  post ID of the parent, or 0
+	 * @param message message of the post
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writePost(DataOutputStream out, byte type, int pid, int author, int parent, String message)
+			throws IOException {
+		out.writeByte(type);
+		out.writeInt(pid);
+		out.writeInt(author);
+		out.writeInt(parent);
+		out.writeLong(1234L);
+		PlatformSnapshot.writeString(out, message);
+	}
+}
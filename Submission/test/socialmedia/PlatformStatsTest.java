@@ -0,0 +1,32 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * PlatformStatsTest checks that the platform statistics, read from either
+ * implementation or through a decorator, are the same as the counts read one
+ * at a time.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class PlatformStatsTest {
+
+	@Test
+	void countsSameAsReadingEachCount() throws Exception {
+		for (ExtendedSocialMediaPlatform platform : new ExtendedSocialMediaPlatform[] { new SocialMedia(),
+				new ConcurrentSocialMedia(), new InstrumentedSocialMediaPlatform(new ConcurrentSocialMedia()) }) {
+			Platforms.populate(platform);
+			PlatformStats stats = platform.getPlatformStats();
+			assertEquals(platform.getNumberOfAccounts(), stats.getNumberOfAccounts());
+			assertEquals(platform.getTotalOriginalPosts(), stats.getTotalOriginalPosts());
+			assertEquals(platform.getTotalCommentPosts(), stats.getTotalCommentPosts());
+			assertEquals(platform.getTotalEndorsmentPosts(), stats.getTotalEndorsementPosts());
+			assertEquals(platform.getTotalOriginalPosts() + platform.getTotalCommentPosts()
+					+ platform.getTotalEndorsmentPosts(), stats.getTotalPosts());
+		}
+	}
+}
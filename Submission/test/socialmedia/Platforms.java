@@ -0,0 +1,125 @@
+package socialmedia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Platforms holds the scenario the tests build on a platform and a way of
+ * describing everything a platform shows through its public methods, so two
+ * platforms can be compared after one of them was saved, logged, mapped or
+ * imported.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+final class Platforms {
+
+	// Handles of every account the scenario creates, including one it renames
+	static final List<String> HANDLES = Arrays.asList("admin", "ana", "ben", "cat", "dan", "eve", "benjamin");
+	// Post IDs above the highest one the scenario hands out, so every post is described
+	static final int MAX_PID = 40;
+
+	/**
+	 * Not used, the class only has static methods.
+	 */
+	private Platforms() {
+	}
+
+	/**
+	 * Makes a fixed mix of every kind of change on a platform: accounts, posts,
+	 * comments, endorsements, follows, a handle change, a description change, a
+	 * deleted post and a removed account.
+	 *
+	 * @param platform platform the changes are made on
+	 * @throws Exception if the platform rejects any change, which means it is broken
+	 */
+	static void populate(SocialMediaPlatform platform) throws Exception {
+		platform.createAccount("ana", "first account");
+		platform.createAccount("ben");
+		platform.createAccount("cat", "likes threads");
+		platform.createAccount("dan");
+		platform.createAccount("eve", "removed later");
+		int hello = platform.createPost("ana", "hello");
+		int news = platform.createPost("ben", "news");
+		int reply = platform.commentPost("cat", hello, "hi ana");
+		platform.commentPost("ana", reply, "hi cat");
+		platform.endorsePost("ben", hello);
+		platform.endorsePost("cat", hello);
+		platform.endorsePost("dan", reply);
+		int doomed = platform.commentPost("dan", news, "first");
+		platform.commentPost("eve", doomed, "second");
+		platform.endorsePost("eve", news);
+		platform.createPost("eve", "bye");
+		platform.deletePost(doomed);
+		platform.changeAccountHandle("ben", "benjamin");
+		platform.updateAccountDescription("dan", "quiet");
+		platform.removeAccount("eve");
+		if (platform instanceof ExtendedSocialMediaPlatform) {
+			((ExtendedSocialMediaPlatform) platform).follow("ana", "benjamin");
+			((ExtendedSocialMediaPlatform) platform).follow("cat", "ana");
+		}
+	}
+
+	/**
+	 * Describes everything a platform shows: its counts, every account of the
+	 * scenario and every post up to MAX_PID with its replies.
+	 *
+	 * @param platform platform being described
+	 * @return one line or block for each count, account and post
+	 */
+	static String describe(SocialMediaPlatform platform) {
+		StringBuilder out = new StringBuilder();
+		out.append("accounts ").append(platform.getNumberOfAccounts()).append(", original ")
+				.append(platform.getTotalOriginalPosts()).append(", comments ").append(platform.getTotalCommentPosts())
+				.append(", endorsements ").append(platform.getTotalEndorsmentPosts()).append('\n');
+		out.append("most endorsed post ").append(platform.getMostEndorsedPost()).append(", account ")
+				.append(platform.getMostEndorsedAccount()).append('\n');
+		for (String handle : HANDLES) {
+			try {
+				out.append(platform.showAccount(handle));
+			} catch (HandleNotRecognisedException e) {
+				out.append("no account ").append(handle).append('\n');
+			}
+		}
+		for (int pid = 1; pid < MAX_PID; pid++) {
+			try {
+				out.append(platform.showIndividualPost(pid)).append('\n');
+				out.append(platform.showPostChildrenDetails(pid)).append('\n');
+			} catch (PostIDNotRecognisedException | NotActionablePostException e) {
+				out.append("post ").append(pid).append(": ").append(e.getClass().getSimpleName()).append('\n');
+			}
+		}
+		return withoutReferences(out.toString());
+	}
+
+	/**
+	 * Removes the object references posts are shown with, which differ between
+	 * platforms holding the same accounts.
+	 *
+	 * @param shown posts as shown by a platform
+	 * @return the posts with each author shown as "socialmedia.Account"
+	 */
+	static String withoutReferences(CharSequence shown) {
+		return shown.toString().replaceAll("socialmedia\\.Account@\\p{XDigit}+", "socialmedia.Account");
+	}
+
+	/**
+	 * Describes the home feed of every account of the scenario.
+	 *
+	 * @param platform platform being described
+	 * @return the newest posts of the home feed of each account
+	 */
+	static List<String> feeds(ExtendedSocialMediaPlatform platform) {
+		List<String> feeds = new ArrayList<String>();
+		for (String handle : HANDLES) {
+			try {
+				feeds.add(handle + " " + Arrays.toString(platform.getHomeFeed(handle, 0, 10)));
+			} catch (HandleNotRecognisedException e) {
+				feeds.add(handle + " none");
+			}
+		}
+		return feeds;
+	}
+}
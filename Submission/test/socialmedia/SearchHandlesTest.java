@@ -0,0 +1,132 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * SearchHandlesTest checks that handle prefix search, on either implementation,
+ * finds the same handles as checking every account, in handle order and ranked
+ * by endorsements as endorsements are made and deleted and accounts are renamed
+ * and removed.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class SearchHandlesTest {
+
+	// Prefixes searched, short ones answered from the rankings and longer ones by reading the matches
+	private static final String[] PREFIXES = { "", "a", "an", "ann", "anna", "b", "be", "ben", "z" };
+
+	@Test
+	void findsSameAsCheckingEveryAccount() throws Exception {
+		assertFindsSameAsCheckingEveryAccount(SocialMedia::new);
+		assertFindsSameAsCheckingEveryAccount(ConcurrentSocialMedia::new);
+	}
+
+	@Test
+	void ranksEveryMatchOfLongPrefix() throws Exception {
+		for (ExtendedSocialMediaPlatform platform : new ExtendedSocialMediaPlatform[] { new SocialMedia(),
+				new ConcurrentSocialMedia() }) {
+			for (int i = 0; i < 3000; i++) {
+				platform.createAccount(String.format("user%05d", i));
+			}
+			// the most endorsed matches are spread through the handles, the best of them last
+			String[] expected = { "user02999", "user01500", "user00700" };
+			for (int i = 0; i < expected.length; i++) {
+				int pid = platform.createPost(expected[i], "post");
+				for (int j = 0; j < expected.length - i; j++) {
+					platform.endorsePost(String.format("user%05d", j), pid);
+				}
+			}
+			assertArrayEquals(expected, platform.searchHandles("user", 3, true));
+			assertArrayEquals(expected, platform.searchHandles("us", 3, true));
+			assertArrayEquals(new String[] { "user02999", "user01500", "user00700", "user00000" },
+					platform.searchHandles("user0", 4, true));
+		}
+	}
+
+	@Test
+	void rejectsLimitBelowOne() {
+		SocialMedia platform = new SocialMedia();
+		assertThrows(IllegalArgumentException.class, () -> platform.searchHandles("a", 0, false));
+		assertThrows(IllegalArgumentException.class, () -> platform.searchHandles("a", 0, true));
+	}
+
+	/**
+	 * Makes accounts with overlapping handles and checks every search after each
+	 * kind of change to them.
+	 *
+	 * @param platforms makes an empty platform
+	 * @throws Exception if the platform rejects a change
+	 */
+	private static void assertFindsSameAsCheckingEveryAccount(Supplier<ExtendedSocialMediaPlatform> platforms)
+			throws Exception {
+		ExtendedSocialMediaPlatform platform = platforms.get();
+		for (String handle : new String[] { "ann", "anna", "annabel", "anton", "an", "ben", "benny", "bert" }) {
+			platform.createAccount(handle);
+		}
+		int annabel = platform.createPost("annabel", "hi");
+		int benny = platform.createPost("benny", "hey");
+		int anton = platform.createPost("anton", "yo");
+		platform.endorsePost("ann", annabel);
+		platform.endorsePost("ben", annabel);
+		platform.endorsePost("ann", benny);
+		int endorsement = platform.endorsePost("bert", anton);
+		assertSearches(platform);
+
+		platform.deletePost(endorsement);
+		platform.endorsePost("ben", benny);
+		assertSearches(platform);
+
+		platform.changeAccountHandle("benny", "anya");
+		platform.removeAccount("annabel");
+		assertSearches(platform);
+	}
+
+	/**
+	 * Checks every prefix and limit, ranked and in handle order, against checking
+	 * every account.
+	 *
+	 * @param platform platform being searched
+	 * @throws Exception if an account cannot be shown
+	 */
+	private static void assertSearches(ExtendedSocialMediaPlatform platform) throws Exception {
+		List<String[]> accounts = new ArrayList<String[]>();
+		for (String handle : platform.searchHandles("", Integer.MAX_VALUE, false)) {
+			String shown = platform.showAccount(handle);
+			String count = shown.substring(shown.indexOf("Endorse Count: ") + 15).trim();
+			accounts.add(new String[] { handle, count });
+		}
+		assertEquals(platform.getNumberOfAccounts(), accounts.size());
+		for (String prefix : PREFIXES) {
+			List<String[]> matches = new ArrayList<String[]>();
+			for (String[] account : accounts) {
+				if (account[0].startsWith(prefix)) {
+					matches.add(account);
+				}
+			}
+			List<String> byHandle = new ArrayList<String>();
+			matches.forEach(match -> byHandle.add(match[0]));
+			matches.sort(Comparator.comparing((String[] match) -> -Integer.parseInt(match[1]))
+					.thenComparing(match -> match[0]));
+			List<String> byEndorsements = new ArrayList<String>();
+			matches.forEach(match -> byEndorsements.add(match[0]));
+			for (int limit = 1; limit <= matches.size() + 1; limit++) {
+				int size = Math.min(limit, matches.size());
+				assertArrayEquals(byHandle.subList(0, size).toArray(), platform.searchHandles(prefix, limit, false),
+						prefix + " " + limit);
+				assertArrayEquals(byEndorsements.subList(0, size).toArray(),
+						platform.searchHandles(prefix, limit, true), prefix + " " + limit + " ranked");
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ThreadTest checks that a thread written to an Appendable or read a page at a
+ * time, on either implementation or through a decorator, is the same as the
+ * one built by showPostChildrenDetails, and that it is cut short by the depth
+ * and breadth limits.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class ThreadTest {
+
+	/**
+	 * Makes each platform the thread tests are run against.
+	 *
+	 * @return populated platforms
+	 * @throws Exception if a platform cannot be populated
+	 */
+	private static ExtendedSocialMediaPlatform[] platforms() throws Exception {
+		ExtendedSocialMediaPlatform[] platforms = { new SocialMedia(), new ConcurrentSocialMedia(),
+				new InstrumentedSocialMediaPlatform(new SocialMedia()) };
+		for (ExtendedSocialMediaPlatform platform : platforms) {
+			Platforms.populate(platform);
+			// a second reply to hello, after the reply by cat that has its own reply
+			platform.commentPost("dan", 2, "hello ana");
+		}
+		return platforms;
+	}
+
+	@Test
+	void writesSameAsShowPostChildrenDetails() throws Exception {
+		for (ExtendedSocialMediaPlatform platform : platforms()) {
+			for (int pid : new int[] { 1, 2, 3, 4, 5 }) {
+				StringBuilder out = new StringBuilder();
+				platform.showPostChildrenDetails(pid, out, Integer.MAX_VALUE, Integer.MAX_VALUE);
+				assertEquals(platform.showPostChildrenDetails(pid).toString(), out.toString());
+			}
+		}
+	}
+
+	@Test
+	void cutsShortByDepthAndBreadth() throws Exception {
+		for (ExtendedSocialMediaPlatform platform : platforms()) {
+			StringBuilder post = new StringBuilder();
+			platform.showPostChildrenDetails(2, post, 0, Integer.MAX_VALUE);
+			assertEquals(platform.showIndividualPost(2), post.toString());
+
+			// post 4 replies to hello and post 5 replies to post 4
+			StringBuilder direct = new StringBuilder();
+			platform.showPostChildrenDetails(2, direct, 1, Integer.MAX_VALUE);
+			assertTrue(direct.toString().contains("| > ID: 4\n"));
+			assertFalse(direct.toString().contains("| > ID: 5\n"));
+			assertTrue(direct.toString().contains("hello ana"));
+
+			StringBuilder first = new StringBuilder();
+			platform.showPostChildrenDetails(2, first, Integer.MAX_VALUE, 1);
+			assertTrue(first.toString().contains("| > ID: 5\n"));
+			assertFalse(first.toString().contains("hello ana"));
+		}
+	}
+
+	@Test
+	void pagesSameAsShowPostChildrenDetails() throws Exception {
+		for (ExtendedSocialMediaPlatform platform : platforms()) {
+			for (int pid : new int[] { 1, 2, 3, 4, 5 }) {
+				// each reply is shown as "| > ID: n", indented by 4 spaces for each level below the first
+				List<Integer> pids = new ArrayList<Integer>();
+				List<Integer> depths = new ArrayList<Integer>();
+				for (String line : platform.showPostChildrenDetails(pid).toString().split("\n")) {
+					int at = line.indexOf("| > ID: ");
+					if (at >= 0) {
+						pids.add(Integer.parseInt(line.substring(at + 8)));
+						depths.add(at / 4 + 1);
+					}
+				}
+				for (int limit : new int[] { 1, 2, Integer.MAX_VALUE }) {
+					List<Integer> pagedPids = new ArrayList<Integer>();
+					List<Integer> pagedDepths = new ArrayList<Integer>();
+					Cursor after = null;
+					do {
+						ThreadPage page = platform.getPostChildren(pid, after, limit);
+						assertEquals(Math.min(limit, pids.size() - pagedPids.size()), page.size());
+						for (int i = 0; i < page.size(); i++) {
+							pagedPids.add(page.getPids()[i]);
+							pagedDepths.add(page.getDepths()[i]);
+						}
+						after = page.getNextCursor();
+					} while (after != null);
+					assertEquals(pids, pagedPids);
+					assertEquals(depths, pagedDepths);
+				}
+			}
+		}
+	}
+
+	@Test
+	void rejectsEndorsementsAndMissingPosts() throws Exception {
+		for (ExtendedSocialMediaPlatform platform : platforms()) {
+			// post 6 is an endorsement and post 9 was deleted by the scenario
+			assertThrows(NotActionablePostException.class,
+					() -> platform.showPostChildrenDetails(6, new StringBuilder(), 1, 1));
+			assertThrows(PostIDNotRecognisedException.class,
+					() -> platform.showPostChildrenDetails(9, new StringBuilder(), 1, 1));
+			assertThrows(NotActionablePostException.class, () -> platform.getPostChildren(6, null, 1));
+			assertThrows(PostIDNotRecognisedException.class, () -> platform.getPostChildren(9, null, 1));
+			assertThrows(IllegalArgumentException.class, () -> platform.getPostChildren(2, null, 0));
+			// a cursor from one thread cannot be used to read another
+			Cursor cursor = platform.getPostChildren(2, null, 1).getNextCursor();
+			assertThrows(IllegalArgumentException.class, () -> platform.getPostChildren(4, cursor, 1));
+		}
+	}
+}
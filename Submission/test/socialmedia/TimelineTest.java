@@ -0,0 +1,91 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * TimelineTest checks that the timelines of an account, read from either
+ * implementation or through a decorator, hold each post the account has made
+ * of their type, newest first, as posts are made and deleted.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class TimelineTest {
+
+	@Test
+	void pagesPostsOfEachTypeNewestFirst() throws Exception {
+		for (ExtendedSocialMediaPlatform platform : new ExtendedSocialMediaPlatform[] { new SocialMedia(),
+				new ConcurrentSocialMedia(), new InstrumentedSocialMediaPlatform(new SocialMedia()) }) {
+			platform.createAccount("ana");
+			platform.createAccount("ben");
+			EnumMap<PostType, List<Integer>> made = new EnumMap<PostType, List<Integer>>(PostType.class);
+			for (PostType type : PostType.values()) {
+				made.put(type, new ArrayList<Integer>());
+			}
+			int news = platform.createPost("ben", "news");
+			// the types are made in turn so that each timeline skips over the posts of the others
+			for (int i = 0; i < 5; i++) {
+				made.get(PostType.ORIGINAL_POST).add(platform.createPost("ana", "post " + i));
+				made.get(PostType.COMMENT).add(platform.commentPost("ana", news, "comment " + i));
+				made.get(PostType.ENDORSEMENT).add(platform.endorsePost("ana", made.get(PostType.COMMENT).get(i)));
+			}
+			assertTimelines(platform, made);
+
+			// deleting a comment deletes its endorsement too
+			int comment = made.get(PostType.COMMENT).remove(2);
+			made.get(PostType.ENDORSEMENT).remove(2);
+			platform.deletePost(comment);
+			platform.deletePost(made.get(PostType.ORIGINAL_POST).remove(0));
+			assertTimelines(platform, made);
+
+			assertEquals(0, platform.getAccountTimeline("ben", PostType.COMMENT, 0, 1).size());
+			assertThrows(HandleNotRecognisedException.class,
+					() -> platform.getAccountTimeline("nobody", PostType.COMMENT, 0, 1));
+			assertThrows(IllegalArgumentException.class,
+					() -> platform.getAccountTimeline("ana", PostType.COMMENT, 0, 0));
+		}
+	}
+
+	/**
+	 * Checks every page size of each timeline of ana against the posts made,
+	 * and the post count shown for ana against the size of the timelines.
+	 *
+	 * @param platform platform being read
+	 * @param made     post IDs of the posts ana has made of each type, oldest
+	 *                 first
+	 * @throws Exception if a timeline cannot be read
+	 */
+	private static void assertTimelines(ExtendedSocialMediaPlatform platform, EnumMap<PostType, List<Integer>> made)
+			throws Exception {
+		int total = 0;
+		for (PostType type : PostType.values()) {
+			List<Integer> newestFirst = new ArrayList<Integer>(made.get(type));
+			Collections.reverse(newestFirst);
+			total += newestFirst.size();
+			for (int limit : new int[] { 1, 2, Integer.MAX_VALUE }) {
+				List<Integer> paged = new ArrayList<Integer>();
+				int beforePid = 0;
+				TimelinePage page;
+				do {
+					page = platform.getAccountTimeline("ana", type, beforePid, limit);
+					for (int pid : page.getPids()) {
+						paged.add(pid);
+					}
+					beforePid = page.getNextBeforePid();
+				} while (page.hasMore());
+				assertEquals(newestFirst, paged, type + " " + limit);
+			}
+		}
+		assertTrue(platform.showAccount("ana").contains("Post Count: " + total + "\n"));
+	}
+}
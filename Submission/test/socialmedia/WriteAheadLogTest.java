@@ -0,0 +1,255 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * WriteAheadLogTest checks that a platform is recovered from its last snapshot
+ * and write-ahead log after a crash at any point, including between saving a
+ * snapshot and emptying the log.
+ *
+ * @author Jeroen Mijer
+ * @author Alex Robertson
+ * @version 1.0
+ */
+class WriteAheadLogTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void replaysChangesOntoEmptyPlatform() throws Exception {
+		Path log = dir.resolve("platform.wal");
+		SocialMedia platform = new SocialMedia();
+		platform.openWriteAheadLog(log.toString());
+		Platforms.populate(platform);
+		platform.closeWriteAheadLog();
+
+		SocialMedia recovered = new SocialMedia();
+		recovered.openWriteAheadLog(log.toString());
+		assertEquals(Platforms.describe(platform), Platforms.describe(recovered));
+		assertEquals(Platforms.feeds(platform), Platforms.feeds(recovered));
+		recovered.closeWriteAheadLog();
+	}
+
+	@Test
+	void replaysOnlyChangesMadeAfterSnapshot() throws Exception {
+		Path snapshot = dir.resolve("platform.snap");
+		Path log = dir.resolve("platform.wal");
+		SocialMedia platform = new SocialMedia();
+		platform.openWriteAheadLog(log.toString());
+		platform.createAccount("before");
+		platform.savePlatform(snapshot.toString());
+		Platforms.populate(platform);
+		platform.closeWriteAheadLog();
+
+		SocialMedia recovered = new SocialMedia();
+		recovered.loadPlatform(snapshot.toString());
+		recovered.openWriteAheadLog(log.toString());
+		assertEquals(Platforms.describe(platform), Platforms.describe(recovered));
+		recovered.closeWriteAheadLog();
+	}
+
+	@Test
+	void recoversFromCrashBetweenSnapshotAndTruncate() throws Exception {
+		Path snapshot = dir.resolve("platform.snap");
+		Path log = dir.resolve("platform.wal");
+		SocialMedia platform = new SocialMedia();
+		platform.openWriteAheadLog(log.toString());
+		Platforms.populate(platform);
+		platform.syncWriteAheadLog();
+		byte[] logged = Files.readAllBytes(log);
+		platform.savePlatform(snapshot.toString());
+		platform.closeWriteAheadLog();
+		// put back the log as it was when the snapshot had been moved into place but
+		// the log not yet emptied, which is what a crash between the two leaves
+		Files.write(log, logged);
+
+		SocialMedia recovered = new SocialMedia();
+		recovered.loadPlatform(snapshot.toString());
+		recovered.openWriteAheadLog(log.toString());
+		assertEquals(Platforms.describe(platform), Platforms.describe(recovered));
+		// changes made after recovering are logged on top of the same snapshot
+		recovered.createAccount("after");
+		recovered.closeWriteAheadLog();
+
+		SocialMedia again = new SocialMedia();
+		again.loadPlatform(snapshot.toString());
+		again.openWriteAheadLog(log.toString());
+		assertEquals(Platforms.describe(recovered), Platforms.describe(again));
+		assertEquals(recovered.showAccount("after"), again.showAccount("after"));
+		again.closeWriteAheadLog();
+	}
+
+	@Test
+	void recoversAfterProcessIsKilledWhileSavingAndLogging() throws Exception {
+		Path snapshot = dir.resolve("platform.snap");
+		Path log = dir.resolve("platform.wal");
+		int created = 0;
+		// each run is killed at a different point, resuming from what the last one left
+		for (int kill : new int[] { 40, 113, 257, 301, 480 }) {
+			Process child = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+					"-cp", System.getProperty("java.class.path"), LoggingChild.class.getName(), snapshot.toString(),
+					log.toString()).redirectErrorStream(true).start();
+			int durable = 0;
+			try (BufferedReader out = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+				String line;
+				while (durable < kill && (line = out.readLine()) != null) {
+					durable = Integer.parseInt(line.trim());
+				}
+			}
+			child.destroyForcibly().waitFor();
+
+			SocialMedia recovered = new SocialMedia();
+			if (Files.exists(snapshot)) {
+				recovered.loadPlatform(snapshot.toString());
+			}
+			recovered.openWriteAheadLog(log.toString());
+			recovered.closeWriteAheadLog();
+			// every change forced to disk is recovered, and never a change twice or out of order
+			created = LoggingChild.countCreated(recovered);
+			assertTrue(created >= durable, created + " accounts recovered but " + durable + " were durable");
+			assertEquals(created + 1, recovered.getNumberOfAccounts());
+		}
+		assertTrue(created >= 480);
+	}
+
+	/**
+	 * Program run in a child process until it is killed, which creates accounts
+	 * one at a time on a logged platform, saving a snapshot every few accounts,
+	 * and prints how many accounts are on disk each time it syncs the log.
+	 */
+	static final class LoggingChild {
+		// Accounts created between snapshots, which empty the log
+		private static final int SAVE_EVERY = 25;
+		// Accounts created between syncs of the log
+		private static final int SYNC_EVERY = 5;
+
+		/**
+		 * Recovers the platform and creates accounts until killed.
+		 *
+		 * @param args location of the snapshot and of the log
+		 * @throws Exception if the platform cannot be recovered or changed
+		 */
+		public static void main(String[] args) throws Exception {
+			SocialMedia platform = new SocialMedia();
+			if (Files.exists(Path.of(args[0]))) {
+				platform.loadPlatform(args[0]);
+			}
+			platform.openWriteAheadLog(args[1]);
+			for (int i = countCreated(platform) + 1;; i++) {
+				platform.createAccount("u" + i);
+				if (i % SAVE_EVERY == 0) {
+					platform.savePlatform(args[0]);
+				}
+				if (i % SYNC_EVERY == 0) {
+					platform.syncWriteAheadLog();
+					System.out.println(i);
+					System.out.flush();
+				}
+			}
+		}
+
+		/**
+		 * Counts the accounts created so far, which are numbered from 1 with no gaps.
+		 *
+		 * @param platform platform the accounts were created on
+		 * @return number of the last account created
+		 */
+		static int countCreated(SocialMedia platform) {
+			int count = 0;
+			while (true) {
+				try {
+					platform.showAccount("u" + (count + 1));
+					count++;
+				} catch (HandleNotRecognisedException e) {
+					return count;
+				}
+			}
+		}
+	}
+
+	@Test
+	void skipsChangesMadeOnTopOfAnotherSnapshot() throws Exception {
+		Path first = dir.resolve("first.snap");
+		Path log = dir.resolve("platform.wal");
+		SocialMedia platform = new SocialMedia();
+		platform.createAccount("first");
+		platform.createPost("first", "in the first snapshot");
+		platform.savePlatform(first.toString());
+
+		SocialMedia other = new SocialMedia();
+		other.openWriteAheadLog(log.toString());
+		other.createAccount("other");
+		other.createPost("other", "not part of the first snapshot");
+		other.closeWriteAheadLog();
+
+		SocialMedia expected = new SocialMedia();
+		expected.loadPlatform(first.toString());
+		SocialMedia recovered = new SocialMedia();
+		recovered.loadPlatform(first.toString());
+		recovered.openWriteAheadLog(log.toString());
+		assertEquals(Platforms.describe(expected), Platforms.describe(recovered));
+		recovered.closeWriteAheadLog();
+	}
+
+	@Test
+	void replaysChangesOnTopOfMappedSnapshot() throws Exception {
+		Path snapshot = dir.resolve("written.snap");
+		Path log = dir.resolve("platform.wal");
+		PlatformSnapshotTest.writeSmallPlatform(snapshot, 42L);
+
+		SocialMedia platform = new SocialMedia();
+		platform.loadPlatform(snapshot.toString());
+		platform.openWriteAheadLog(log.toString());
+		platform.createAccount("later");
+		platform.createPost("later", "made after loading");
+		platform.closeWriteAheadLog();
+
+		SocialMedia recovered = new SocialMedia();
+		recovered.mapPlatform(snapshot.toString());
+		recovered.openWriteAheadLog(log.toString());
+		assertEquals(Platforms.describe(platform), Platforms.describe(recovered));
+		recovered.closeWriteAheadLog();
+	}
+
+	@Test
+	void cutsOffPartlyWrittenRecord() throws Exception {
+		Path log = dir.resolve("platform.wal");
+		SocialMedia platform = new SocialMedia();
+		platform.openWriteAheadLog(log.toString());
+		Platforms.populate(platform);
+		platform.closeWriteAheadLog();
+		long complete = Files.size(log);
+		// the length and part of the checksum of a record that was being written
+		Files.write(log, new byte[] { 0, 0, 0, 40, 1, 2 }, StandardOpenOption.APPEND);
+
+		SocialMedia recovered = new SocialMedia();
+		recovered.openWriteAheadLog(log.toString());
+		assertEquals(Platforms.describe(platform), Platforms.describe(recovered));
+		recovered.closeWriteAheadLog();
+		assertEquals(complete, Files.size(log));
+	}
+
+	@Test
+	void savingGivesEachSnapshotNewGeneration() throws IOException {
+		Path first = dir.resolve("first.snap");
+		Path second = dir.resolve("second.snap");
+		SocialMedia platform = new SocialMedia();
+		platform.savePlatform(first.toString());
+		platform.savePlatform(second.toString());
+		assertNotEquals(PlatformSnapshot.read(first.toString()).getGeneration(),
+				PlatformSnapshot.read(second.toString()).getGeneration());
+	}
+}